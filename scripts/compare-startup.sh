@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+# Compares the startup time and peak memory (max RSS) of the JVM and the native builds by running a command which
+# exits right away (help by default) a number of times with each of them.
+#
+# Usage: scripts/compare-startup.sh [runs] [command...]
+# Build both first: mvn package -DskipTests && mvn -Pnative package -DskipTests
+set -euo pipefail
+
+RUNS=${1:-10}
+shift || true
+COMMAND=("${@:-help}")
+
+JAR=${JAR:-$(ls target/datatransfer-*.jar | grep -v original | head -n 1)}
+NATIVE=${NATIVE:-target/datatransfer}
+
+# GNU time, which unlike the shell builtin reports the max RSS
+GNU_TIME=${GNU_TIME:-/usr/bin/time}
+
+if [[ ! -x "$GNU_TIME" ]]; then
+  echo "GNU time ($GNU_TIME) is required to measure the max RSS" >&2
+  exit 1
+fi
+
+measure() {
+  local name=$1
+  shift
+  local total_seconds=0 max_rss_kb=0 result_file
+  result_file=$(mktemp)
+
+  for ((i = 0; i < RUNS; i++)); do
+    # GNU time writes '<elapsed seconds> <max RSS in KB>' to the result file
+    "$GNU_TIME" -o "$result_file" -f "%e %M" "$@" "${COMMAND[@]}" > /dev/null 2>&1
+    local result seconds rss_kb
+    result=$(tail -n 1 "$result_file")
+    seconds=${result% *}
+    rss_kb=${result#* }
+    total_seconds=$(awk "BEGIN { print $total_seconds + $seconds }")
+    if ((rss_kb > max_rss_kb)); then
+      max_rss_kb=$rss_kb
+    fi
+  done
+  rm -f "$result_file"
+
+  printf "%-7s avg startup and run: %6.3fs, max RSS: %4d MB (%d runs of '%s')\n" "$name" \
+    "$(awk "BEGIN { print $total_seconds / $RUNS }")" $((max_rss_kb / 1024)) "$RUNS" "${COMMAND[*]}"
+}
+
+measure "JVM" java -jar "$JAR"
+measure "native" "$NATIVE"
@@ -0,0 +1,36 @@
+package com.quickbase.datatransfer.cli.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandUtilsBenchmark {
+    // the params of a line of a bulk transfer's params file
+    private final String[] singleParam = {"username=wayneeseguin"};
+    private final String[] multipleParams = {"org=rails", "team=core", "domain=bluesky", "username=wayneeseguin"};
+
+    @Benchmark
+    public Map<String, String> convertSingleParam() {
+        return CommandUtils.convertArrayParamsToMap(singleParam);
+    }
+
+    @Benchmark
+    public Map<String, String> convertMultipleParams() {
+        return CommandUtils.convertArrayParamsToMap(multipleParams);
+    }
+}
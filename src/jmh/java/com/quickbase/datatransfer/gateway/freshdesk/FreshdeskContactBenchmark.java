@@ -0,0 +1,112 @@
+package com.quickbase.datatransfer.gateway.freshdesk;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickbase.datatransfer.data.UserData;
+import com.quickbase.datatransfer.gateway.freshdesk.FreshdeskGatewayService.UserDataUploader;
+import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskContactRequest;
+import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskContactResponse;
+import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskErrorResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FreshdeskContactBenchmark {
+    private static final TypeReference<List<FreshdeskContactResponse>> CONTACTS_TYPE = new TypeReference<>() {
+    };
+
+    private static final String ERROR_JSON = """
+            {
+              "description": "Validation failed",
+              "errors": [
+                {
+                  "field": "email",
+                  "message": "It should be a valid email address",
+                  "code": "invalid_value"
+                },
+                {
+                  "field": "twitter_id",
+                  "message": "It already exists",
+                  "code": "duplicate_value"
+                }
+              ]
+            }
+            """;
+
+    private ObjectMapper objectMapper;
+    private byte[] errorJson;
+    private UserData user;
+
+    // an autocomplete result or a page of contacts; 100 is the maximum page size
+    @State(Scope.Benchmark)
+    public static class Contacts {
+        @Param({"1", "100"})
+        public int count;
+
+        public byte[] json;
+
+        @Setup
+        public void setUp() {
+            json = IntStream.range(0, count)
+                    .mapToObj(i -> String.format("""
+                            {"id":%d,"name":"Contact %d","email":"contact%d@bluesky.com","active":true,\
+                            "job_title":null,"language":"en","mobile":null,"phone":null,"time_zone":"Eastern Time (US & Canada)",\
+                            "twitter_id":"contact%d","unique_external_id":"contact-%d",\
+                            "created_at":"2024-06-04T16:02:45Z","updated_at":"2024-06-04T16:02:45Z"}""", i, i, i, i, i))
+                    .collect(Collectors.joining(",", "[", "]"))
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        // configured the same way as the one WebClient decodes responses with
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        errorJson = ERROR_JSON.getBytes(StandardCharsets.UTF_8);
+
+        user = new UserData();
+        user.name = "Wayne E Seguin";
+        user.address = "Buffalo, NY";
+        user.email = "wayneeseguin@gmail.com";
+        user.externalId = "wayneeseguin";
+        user.description = "Cloud Foundry, BOSH, Kubernetes and Concourse enthusiast.";
+        user.twitterHandle = "wayneeseguin";
+    }
+
+    @Benchmark
+    public List<FreshdeskContactResponse> decodeContacts(Contacts contacts) throws IOException {
+        return objectMapper.readValue(contacts.json, CONTACTS_TYPE);
+    }
+
+    @Benchmark
+    public FreshdeskErrorResponse decodeError() throws IOException {
+        return objectMapper.readValue(errorJson, FreshdeskErrorResponse.class);
+    }
+
+    @Benchmark
+    public FreshdeskContactRequest transformFromAppData() {
+        return UserDataUploader.transformFromAppData(user);
+    }
+}
@@ -0,0 +1,89 @@
+package com.quickbase.datatransfer.gateway.github;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickbase.datatransfer.data.UserData;
+import com.quickbase.datatransfer.gateway.github.GitHubGatewayService.UserDataDownloader;
+import com.quickbase.datatransfer.gateway.github.model.GitHubUserResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GitHubUserBenchmark {
+    // a complete response of GET /users/{username}, most of which is ignored when decoding
+    private static final String USER_JSON = """
+            {
+              "login": "wayneeseguin",
+              "id": 18,
+              "node_id": "MDQ6VXNlcjE4",
+              "avatar_url": "https://avatars.githubusercontent.com/u/18?v=4",
+              "gravatar_id": "",
+              "url": "https://api.github.com/users/wayneeseguin",
+              "html_url": "https://github.com/wayneeseguin",
+              "followers_url": "https://api.github.com/users/wayneeseguin/followers",
+              "following_url": "https://api.github.com/users/wayneeseguin/following{/other_user}",
+              "gists_url": "https://api.github.com/users/wayneeseguin/gists{/gist_id}",
+              "starred_url": "https://api.github.com/users/wayneeseguin/starred{/owner}{/repo}",
+              "subscriptions_url": "https://api.github.com/users/wayneeseguin/subscriptions",
+              "organizations_url": "https://api.github.com/users/wayneeseguin/orgs",
+              "repos_url": "https://api.github.com/users/wayneeseguin/repos",
+              "events_url": "https://api.github.com/users/wayneeseguin/events{/privacy}",
+              "received_events_url": "https://api.github.com/users/wayneeseguin/received_events",
+              "type": "User",
+              "site_admin": false,
+              "name": "Wayne E Seguin",
+              "company": "Stark & Wayne LLC",
+              "blog": "https://www.starkandwayne.com/",
+              "location": "Buffalo, NY",
+              "email": "wayneeseguin@gmail.com",
+              "hireable": null,
+              "bio": "Cloud Foundry, BOSH, Kubernetes and Concourse enthusiast.",
+              "twitter_username": "wayneeseguin",
+              "public_repos": 133,
+              "public_gists": 14,
+              "followers": 1391,
+              "following": 68,
+              "created_at": "2008-01-10T04:59:54Z",
+              "updated_at": "2024-06-04T16:02:45Z"
+            }
+            """;
+
+    private ObjectMapper objectMapper;
+    private byte[] userJson;
+    private GitHubUserResponse user;
+
+    @Setup
+    public void setUp() throws IOException {
+        // configured the same way as the one WebClient decodes responses with
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        userJson = USER_JSON.getBytes(StandardCharsets.UTF_8);
+        user = objectMapper.readValue(userJson, GitHubUserResponse.class);
+    }
+
+    @Benchmark
+    public GitHubUserResponse decodeUser() throws IOException {
+        return objectMapper.readValue(userJson, GitHubUserResponse.class);
+    }
+
+    @Benchmark
+    public UserData transformToAppData() {
+        return UserDataDownloader.transformToAppData(user);
+    }
+}
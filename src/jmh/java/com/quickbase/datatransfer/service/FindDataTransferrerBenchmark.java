@@ -0,0 +1,48 @@
+package com.quickbase.datatransfer.service;
+
+import com.quickbase.datatransfer.common.DataType;
+import com.quickbase.datatransfer.gateway.freshdesk.FreshdeskGatewayService;
+import com.quickbase.datatransfer.gateway.github.GitHubGatewayService;
+import com.quickbase.datatransfer.gateway.github.GitHubProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FindDataTransferrerBenchmark {
+    private List<TransferrerTypeChecker> dataTransferrers;
+
+    @Setup
+    public void setUp() {
+        // the type checks don't use any of the dependencies of the transferrers
+        dataTransferrers = List.of(
+                new GitHubGatewayService.UserDataDownloader(null, null, null, new GitHubProperties(), null, null),
+                new FreshdeskGatewayService.UserDataUploader(null, null, null, null, null, null) {
+                });
+    }
+
+    @Benchmark
+    public TransferrerTypeChecker findFirst() {
+        return DataTransferServiceImpl.findDataTransferrer(dataTransferrers, "github", DataType.USER, true);
+    }
+
+    @Benchmark
+    public TransferrerTypeChecker findLast() {
+        return DataTransferServiceImpl.findDataTransferrer(dataTransferrers, "freshdesk", DataType.USER, false);
+    }
+}
@@ -0,0 +1,181 @@
+package com.quickbase.datatransfer.service;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.quickbase.datatransfer.common.ConfigPropertyProvider;
+import com.quickbase.datatransfer.common.DataType;
+import com.quickbase.datatransfer.gateway.circuitbreaker.CircuitBreakerProperties;
+import com.quickbase.datatransfer.gateway.circuitbreaker.CircuitBreakerRegistry;
+import com.quickbase.datatransfer.gateway.client.HttpClientProperties;
+import com.quickbase.datatransfer.gateway.client.WebClientRegistry;
+import com.quickbase.datatransfer.gateway.freshdesk.FreshdeskContactIndex;
+import com.quickbase.datatransfer.gateway.freshdesk.FreshdeskGatewayService;
+import com.quickbase.datatransfer.gateway.freshdesk.FreshdeskProperties;
+import com.quickbase.datatransfer.gateway.github.GitHubGatewayService;
+import com.quickbase.datatransfer.gateway.github.GitHubProperties;
+import com.quickbase.datatransfer.gateway.github.GitHubTokenPool;
+import com.quickbase.datatransfer.gateway.github.GitHubUserCache;
+import com.quickbase.datatransfer.gateway.hedging.HedgingProperties;
+import com.quickbase.datatransfer.gateway.hedging.RequestHedging;
+import com.quickbase.datatransfer.gateway.metrics.GatewayMetrics;
+import com.quickbase.datatransfer.gateway.ratelimit.RateLimitProperties;
+import com.quickbase.datatransfer.gateway.ratelimit.RateLimitScheduler;
+import com.quickbase.datatransfer.gateway.retry.RetryPolicyRegistry;
+import com.quickbase.datatransfer.gateway.retry.RetryProperties;
+import com.quickbase.datatransfer.gateway.singleflight.SingleFlight;
+import com.quickbase.datatransfer.gateway.singleflight.SingleFlightProperties;
+import com.quickbase.datatransfer.service.mapping.MappingStore;
+import com.quickbase.datatransfer.service.mapping.MappingStoreProperties;
+import com.quickbase.datatransfer.service.metrics.TransferMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.quickbase.datatransfer.gateway.freshdesk.FreshdeskGatewayService.CONTACTS_API_PATH;
+
+/*
+ * Transfers a GitHub user to Freshdesk end to end, with both systems stubbed by an in-process HTTP server: the user is
+ * downloaded, no existing contact is found by the search, and a new one is created.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SingleTransferBenchmark {
+    private static final String USER_JSON = """
+            {"login":"wayneeseguin","id":18,"type":"User","site_admin":false,"name":"Wayne E Seguin",\
+            "company":"Stark & Wayne LLC","location":"Buffalo, NY","email":"wayneeseguin@gmail.com",\
+            "bio":"Cloud Foundry, BOSH, Kubernetes and Concourse enthusiast.","twitter_username":"wayneeseguin",\
+            "public_repos":133,"followers":1391,"following":68,"created_at":"2008-01-10T04:59:54Z"}""";
+
+    private final Map<String, String> sourceParams = Map.of(GitHubGatewayService.UserDataDownloader.USERNAME_PARAM,
+            "wayneeseguin");
+    private final Map<String, String> destParams = Map.of(FreshdeskGatewayService.DOMAIN_PARAM, "bluesky");
+
+    private WireMockServer mockServer;
+    private RateLimitScheduler rateLimitScheduler;
+    private WebClientRegistry webClientRegistry;
+    private MappingStore mappingStore;
+    private DataTransferService dataTransferService;
+
+    @Setup
+    public void setUp() {
+        mockServer = new WireMockServer(new WireMockConfiguration().dynamicPort());
+        mockServer.start();
+        stubExternalSystems();
+        String baseUrl = "http://localhost:" + mockServer.port();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GatewayMetrics gatewayMetrics = new GatewayMetrics(meterRegistry);
+        // nothing is persisted between runs
+        RateLimitProperties rateLimitProperties = new RateLimitProperties();
+        rateLimitProperties.setStateFile("");
+        GitHubProperties gitHubProperties = new GitHubProperties();
+        gitHubProperties.getUserCache().setEnabled(false);
+        MappingStoreProperties mappingStoreProperties = new MappingStoreProperties();
+        mappingStoreProperties.setEnabled(false);
+        FreshdeskProperties freshdeskProperties = new FreshdeskProperties();
+
+        rateLimitScheduler = new RateLimitScheduler(rateLimitProperties);
+        webClientRegistry = new WebClientRegistry(new HttpClientProperties(), rateLimitScheduler,
+                new CircuitBreakerRegistry(new CircuitBreakerProperties()), gatewayMetrics,
+                new RequestHedging(new HedgingProperties(), gatewayMetrics));
+        RetryPolicyRegistry retryPolicyRegistry = new RetryPolicyRegistry(new RetryProperties(), gatewayMetrics);
+        SingleFlight singleFlight = new SingleFlight(new SingleFlightProperties(), gatewayMetrics);
+        ConfigPropertyProvider configPropertyProvider = new ConfigPropertyProvider() {
+            @Override
+            public String getConfigPropertyValue(String propertyName) {
+                return "benchmark-token";
+            }
+
+            @Override
+            public String getConfigPropertyType() {
+                return "benchmark property";
+            }
+        };
+
+        GitHubGatewayService.UserDataDownloader downloader = new GitHubGatewayService.UserDataDownloader(
+                new GitHubTokenPool(configPropertyProvider, gitHubProperties), webClientRegistry, retryPolicyRegistry,
+                gitHubProperties, new GitHubUserCache(gitHubProperties), singleFlight) {
+            @Override
+            public String getApiBaseUrl() {
+                return baseUrl;
+            }
+        };
+        FreshdeskGatewayService.UserDataUploader uploader = new FreshdeskGatewayService.UserDataUploader(
+                configPropertyProvider, webClientRegistry, retryPolicyRegistry,
+                new FreshdeskContactIndex(freshdeskProperties), freshdeskProperties, singleFlight) {
+            @Override
+            public String getApiBaseUrl(String freshdeskDomain) {
+                return baseUrl;
+            }
+        };
+
+        mappingStore = new MappingStore(mappingStoreProperties);
+        dataTransferService = new DataTransferServiceImpl(List.of(downloader), List.of(uploader), mappingStore,
+                new TransferMetrics(meterRegistry));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        webClientRegistry.destroy();
+        rateLimitScheduler.destroy();
+        mappingStore.destroy();
+        mockServer.stop();
+    }
+
+    @Benchmark
+    public void transferUser() {
+        dataTransferService.transferData("github", "freshdesk", DataType.USER, sourceParams, destParams).block();
+    }
+
+    private void stubExternalSystems() {
+        mockServer.stubFor(get(urlPathEqualTo("/users/wayneeseguin"))
+                .willReturn(aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBody(USER_JSON)));
+
+        // the exact lookups by unique external id and email don't find the contact either
+        mockServer.stubFor(get(urlPathEqualTo(CONTACTS_API_PATH))
+                .willReturn(aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBody("[]")));
+
+        mockServer.stubFor(get(urlPathEqualTo(CONTACTS_API_PATH + "/autocomplete"))
+                .willReturn(aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBody("[]")));
+
+        mockServer.stubFor(post(urlPathEqualTo(CONTACTS_API_PATH))
+                .willReturn(aResponse()
+                        .withStatus(HttpStatus.CREATED.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBody("{\"id\":1,\"name\":\"Wayne E Seguin\"}")));
+    }
+}
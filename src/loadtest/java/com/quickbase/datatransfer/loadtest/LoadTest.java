@@ -0,0 +1,168 @@
+package com.quickbase.datatransfer.loadtest;
+
+import com.quickbase.datatransfer.common.ConfigPropertyProvider;
+import com.quickbase.datatransfer.common.DataType;
+import com.quickbase.datatransfer.gateway.circuitbreaker.CircuitBreakerProperties;
+import com.quickbase.datatransfer.gateway.circuitbreaker.CircuitBreakerRegistry;
+import com.quickbase.datatransfer.gateway.client.HttpClientProperties;
+import com.quickbase.datatransfer.gateway.client.WebClientRegistry;
+import com.quickbase.datatransfer.gateway.freshdesk.FreshdeskContactIndex;
+import com.quickbase.datatransfer.gateway.freshdesk.FreshdeskGatewayService;
+import com.quickbase.datatransfer.gateway.freshdesk.FreshdeskProperties;
+import com.quickbase.datatransfer.gateway.github.GitHubGatewayService;
+import com.quickbase.datatransfer.gateway.github.GitHubProperties;
+import com.quickbase.datatransfer.gateway.github.GitHubTokenPool;
+import com.quickbase.datatransfer.gateway.github.GitHubUserCache;
+import com.quickbase.datatransfer.gateway.hedging.HedgingProperties;
+import com.quickbase.datatransfer.gateway.hedging.RequestHedging;
+import com.quickbase.datatransfer.gateway.metrics.GatewayMetrics;
+import com.quickbase.datatransfer.gateway.ratelimit.RateLimitProperties;
+import com.quickbase.datatransfer.gateway.ratelimit.RateLimitScheduler;
+import com.quickbase.datatransfer.gateway.retry.RetryPolicyRegistry;
+import com.quickbase.datatransfer.gateway.retry.RetryProperties;
+import com.quickbase.datatransfer.gateway.singleflight.SingleFlight;
+import com.quickbase.datatransfer.gateway.singleflight.SingleFlightProperties;
+import com.quickbase.datatransfer.service.DataTransferService;
+import com.quickbase.datatransfer.service.DataTransferServiceImpl;
+import com.quickbase.datatransfer.service.mapping.MappingStore;
+import com.quickbase.datatransfer.service.mapping.MappingStoreProperties;
+import com.quickbase.datatransfer.service.metrics.TransferMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.handler.NoUnboundElementsBindHandler;
+import org.springframework.boot.context.properties.bind.BindHandler;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Drives the real data transfer service at a target rate of single-user transfers from a simulated GitHub to a
+ * simulated Freshdesk, and reports the throughput, latencies, retries and heap usage. The options of the load test
+ * ('--loadtest.*', see LoadTestProperties) and the application's own properties ('--datatransfer.*', e.g.
+ * '--datatransfer.retry.default-policy.min-backoff=200ms') are passed as arguments. Nothing is persisted:
+ * the GitHub user cache, the mapping store and the rate limit state file are disabled.
+ */
+public class LoadTest {
+    private static final String FRESHDESK_DOMAIN = "loadtest";
+    private static final String TOKEN = "loadtest-token";
+
+    public static void main(String[] args) throws IOException {
+        Binder binder = new Binder(ConfigurationPropertySource.from(new SimpleCommandLinePropertySource(args)));
+        // misspelled load test options fail the load test rather than being silently ignored
+        LoadTestProperties properties = binder.bind("loadtest", Bindable.ofInstance(new LoadTestProperties()),
+                new NoUnboundElementsBindHandler(BindHandler.DEFAULT)).orElseGet(LoadTestProperties::new);
+
+        SimulatedGitHub gitHub = new SimulatedGitHub(properties.getGithub());
+        SimulatedFreshdesk freshdesk = new SimulatedFreshdesk(properties.getFreshdesk());
+        gitHub.start();
+        freshdesk.start();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GatewayMetrics gatewayMetrics = new GatewayMetrics(meterRegistry);
+        RateLimitProperties rateLimitProperties = bind(binder, "datatransfer.rate-limit", new RateLimitProperties());
+        rateLimitProperties.setStateFile("");
+        GitHubProperties gitHubProperties = bind(binder, "datatransfer.github", new GitHubProperties());
+        gitHubProperties.getUserCache().setEnabled(false);
+        MappingStoreProperties mappingStoreProperties = new MappingStoreProperties();
+        mappingStoreProperties.setEnabled(false);
+        FreshdeskProperties freshdeskProperties = bind(binder, "datatransfer.freshdesk", new FreshdeskProperties());
+
+        RateLimitScheduler rateLimitScheduler = new RateLimitScheduler(rateLimitProperties);
+        WebClientRegistry webClientRegistry = new WebClientRegistry(
+                bind(binder, "datatransfer.http", new HttpClientProperties()), rateLimitScheduler,
+                new CircuitBreakerRegistry(bind(binder, "datatransfer.circuit-breaker", new CircuitBreakerProperties())),
+                gatewayMetrics,
+                new RequestHedging(bind(binder, "datatransfer.hedging", new HedgingProperties()), gatewayMetrics));
+        RetryPolicyRegistry retryPolicyRegistry = new RetryPolicyRegistry(
+                bind(binder, "datatransfer.retry", new RetryProperties()), gatewayMetrics);
+        SingleFlight singleFlight = new SingleFlight(
+                bind(binder, "datatransfer.single-flight", new SingleFlightProperties()), gatewayMetrics);
+        ConfigPropertyProvider configPropertyProvider = new ConfigPropertyProvider() {
+            @Override
+            public String getConfigPropertyValue(String propertyName) {
+                return TOKEN;
+            }
+
+            @Override
+            public String getConfigPropertyType() {
+                return "load test property";
+            }
+        };
+
+        GitHubGatewayService.UserDataDownloader downloader = new GitHubGatewayService.UserDataDownloader(
+                new GitHubTokenPool(configPropertyProvider, gitHubProperties), webClientRegistry, retryPolicyRegistry,
+                gitHubProperties, new GitHubUserCache(gitHubProperties), singleFlight) {
+            @Override
+            public String getApiBaseUrl() {
+                return gitHub.getBaseUrl();
+            }
+        };
+        FreshdeskGatewayService.UserDataUploader uploader = new FreshdeskGatewayService.UserDataUploader(
+                configPropertyProvider, webClientRegistry, retryPolicyRegistry,
+                new FreshdeskContactIndex(freshdeskProperties), freshdeskProperties, singleFlight) {
+            @Override
+            public String getApiBaseUrl(String freshdeskDomain) {
+                return freshdesk.getBaseUrl();
+            }
+        };
+        MappingStore mappingStore = new MappingStore(mappingStoreProperties);
+        DataTransferService dataTransferService = new DataTransferServiceImpl(List.of(downloader), List.of(uploader),
+                mappingStore, new TransferMetrics(meterRegistry));
+
+        LoadTestReport report = new LoadTestReport();
+        Disposable heapSampling = Flux.interval(properties.getHeapSampleInterval())
+                .subscribe(tick -> report.sampleHeap());
+
+        System.out.printf("Transferring %.1f user(s)/s for %s from %s to %s...%n", properties.getRate(),
+                properties.getDuration(), gitHub.getBaseUrl(), freshdesk.getBaseUrl());
+
+        try {
+            // an open workload: transfers start at the target rate regardless of how long the previous ones take
+            Flux.interval(Duration.ofNanos(Math.round(1e9 / properties.getRate())))
+                    .take(properties.getDuration())
+                    .onBackpressureDrop(tick -> report.recordDropped())
+                    .flatMap(tick -> transferUser(dataTransferService, properties, report),
+                            properties.getMaxInFlight())
+                    .blockLast();
+        } finally {
+            heapSampling.dispose();
+            report.sampleHeap();
+            report.print(System.out, properties, meterRegistry, List.of(gitHub, freshdesk));
+
+            webClientRegistry.destroy();
+            rateLimitScheduler.destroy();
+            mappingStore.destroy();
+            gitHub.stop();
+            freshdesk.stop();
+        }
+    }
+
+    private static Mono<Void> transferUser(DataTransferService dataTransferService, LoadTestProperties properties,
+                                           LoadTestReport report) {
+        String username = "user-" + ThreadLocalRandom.current().nextInt(properties.getUsers());
+        long startNanos = System.nanoTime();
+
+        return dataTransferService.transferData(GitHubGatewayService.EXTERNAL_SYSTEM_NAME,
+                        FreshdeskGatewayService.EXTERNAL_SYSTEM_NAME, DataType.USER,
+                        Map.of(GitHubGatewayService.UserDataDownloader.USERNAME_PARAM, username),
+                        Map.of(FreshdeskGatewayService.DOMAIN_PARAM, FRESHDESK_DOMAIN))
+                .doOnSuccess(result -> report.recordSuccess(System.nanoTime() - startNanos))
+                .onErrorResume(ex -> {
+                    report.recordFailure(ex, System.nanoTime() - startNanos);
+                    return Mono.empty();
+                });
+    }
+
+    private static <T> T bind(Binder binder, String prefix, T properties) {
+        return binder.bind(prefix, Bindable.ofInstance(properties)).orElse(properties);
+    }
+}
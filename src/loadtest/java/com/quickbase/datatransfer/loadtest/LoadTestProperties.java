@@ -0,0 +1,44 @@
+package com.quickbase.datatransfer.loadtest;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+
+/*
+ * Options of a load test, bound from the 'loadtest.*' arguments, e.g. '--loadtest.rate=50' or
+ * '--loadtest.freshdesk.unavailable-ratio=0.01'.
+ */
+@Getter
+@Setter
+public class LoadTestProperties {
+    // transfers started per second
+    private double rate = 20;
+    private Duration duration = Duration.ofMinutes(1);
+    // transfers in progress at most; the ones due while this many are in progress are dropped (and reported)
+    private int maxInFlight = 512;
+    // number of distinct GitHub users the transferred users are picked from at random
+    private int users = 10_000;
+    private Duration heapSampleInterval = Duration.ofSeconds(1);
+    private SimulatedSystem github = new SimulatedSystem();
+    private SimulatedSystem freshdesk = new SimulatedSystem();
+
+    @Getter
+    @Setter
+    public static class SimulatedSystem {
+        // response latencies follow a log-normal distribution with this median and 99th percentile
+        private Duration latencyMedian = Duration.ofMillis(50);
+        private Duration latencyP99 = Duration.ofMillis(500);
+        // requests allowed per rate limit window; rate limiting is disabled if 0
+        private int rateLimit = 0;
+        private Duration rateLimitWindow = Duration.ofMinutes(1);
+        // ratio of the requests which fail with 429 and a Retry-After header
+        private double tooManyRequestsRatio = 0;
+        private Duration retryAfter = Duration.ofSeconds(1);
+        // ratio of the requests which fail with 503
+        private double unavailableRatio = 0;
+        // ratio of the responses whose body is sent in small chunks over the slow body duration
+        private double slowBodyRatio = 0;
+        private Duration slowBodyDuration = Duration.ofSeconds(2);
+    }
+}
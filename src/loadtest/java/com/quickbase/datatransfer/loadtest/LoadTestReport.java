@@ -0,0 +1,142 @@
+package com.quickbase.datatransfer.loadtest;
+
+import com.quickbase.datatransfer.gateway.metrics.GatewayMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// collects the outcomes and latencies of the transfers and the heap usage during a load test, and prints them
+public class LoadTestReport {
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.95, 0.99, 0.999};
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final Map<String, LongAdder> failuresByType = new ConcurrentHashMap<>();
+    private final AtomicLong maxUsedHeapBytes = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+    private final long startGcCount = getGcCount();
+    private final long startGcMillis = getGcMillis();
+    // latencies of all transfers, so that the percentiles are exact
+    private long[] latencyNanos = new long[1024];
+    private int latencyCount;
+
+    public void recordDropped() {
+        dropped.increment();
+    }
+
+    public void recordSuccess(long elapsedNanos) {
+        succeeded.increment();
+        recordLatency(elapsedNanos);
+    }
+
+    public void recordFailure(Throwable failure, long elapsedNanos) {
+        failuresByType.computeIfAbsent(failure.getClass().getSimpleName(), type -> new LongAdder()).increment();
+        recordLatency(elapsedNanos);
+    }
+
+    public void sampleHeap() {
+        long usedHeapBytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        maxUsedHeapBytes.accumulateAndGet(usedHeapBytes, Math::max);
+    }
+
+    public void print(PrintStream out, LoadTestProperties properties, MeterRegistry meterRegistry,
+                      List<SimulatedServer> servers) {
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        long failed = failuresByType.values().stream().mapToLong(LongAdder::sum).sum();
+        long completed = succeeded.sum() + failed;
+
+        out.println();
+        out.printf("Transfers: %d succeeded, %d failed, %d dropped (%d in progress at most) in %.1fs%n",
+                succeeded.sum(), failed, dropped.sum(), properties.getMaxInFlight(), elapsedSeconds);
+        new TreeMap<>(failuresByType).forEach((type, count) -> out.printf("  %s: %d%n", type, count.sum()));
+        out.printf("Throughput: %.1f transfers/s (target %.1f/s)%n", completed / elapsedSeconds, properties.getRate());
+        out.printf("Latency: %s%n", formatLatencies());
+
+        out.println("Gateway requests:");
+        new TreeMap<>(groupRequests(meterRegistry)).forEach((key, count) -> out.printf("  %s: %d%n", key, count));
+        out.println("Gateway retries:");
+        meterRegistry.find(GatewayMetrics.RETRIES_METRIC).counters().forEach(counter -> out.printf("  %s %s: %.0f%n",
+                counter.getId().getTag("system"), counter.getId().getTag("reason"), counter.count()));
+
+        out.println("Simulated servers:");
+        servers.forEach(server -> out.printf("  %s%n", server.getSummary()));
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        out.printf("Heap: %d MB used at most, %d MB committed, %d MB max; %d GC(s) taking %dms%n",
+                toMegabytes(maxUsedHeapBytes.get()), toMegabytes(heap.getCommitted()), toMegabytes(heap.getMax()),
+                getGcCount() - startGcCount, getGcMillis() - startGcMillis);
+        out.flush();
+    }
+
+    private synchronized void recordLatency(long elapsedNanos) {
+        if (latencyCount == latencyNanos.length) {
+            latencyNanos = Arrays.copyOf(latencyNanos, latencyNanos.length * 2);
+        }
+        latencyNanos[latencyCount++] = elapsedNanos;
+    }
+
+    private synchronized String formatLatencies() {
+        if (latencyCount == 0) {
+            return "no transfers completed";
+        }
+
+        long[] sorted = Arrays.copyOf(latencyNanos, latencyCount);
+        Arrays.sort(sorted);
+
+        StringBuilder sb = new StringBuilder();
+        for (double percentile : PERCENTILES) {
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+            sb.append(String.format("p%s=%dms, ", BigDecimal.valueOf(percentile * 100).stripTrailingZeros().toPlainString(),
+                    toMillis(sorted[Math.max(0, index)])));
+        }
+        return sb.append(String.format("max=%dms", toMillis(sorted[sorted.length - 1]))).toString();
+    }
+
+    // the number of requests by system, operation and outcome
+    private static Map<String, Long> groupRequests(MeterRegistry meterRegistry) {
+        Map<String, Long> requests = new ConcurrentHashMap<>();
+
+        for (Timer timer : meterRegistry.find(GatewayMetrics.REQUESTS_METRIC).timers()) {
+            String key = String.format("%s %s %s (%s)", timer.getId().getTag("system"),
+                    timer.getId().getTag("operation"), timer.getId().getTag("outcome"), timer.getId().getTag("status"));
+            requests.merge(key, timer.count(), Long::sum);
+        }
+
+        return requests;
+    }
+
+    private static long getGcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+                .filter(count -> count > 0)
+                .sum();
+    }
+
+    private static long getGcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .filter(time -> time > 0)
+                .sum();
+    }
+
+    private static long toMillis(long nanos) {
+        return Duration.ofNanos(nanos).toMillis();
+    }
+
+    private static long toMegabytes(long bytes) {
+        return bytes / (1024 * 1024);
+    }
+}
@@ -0,0 +1,131 @@
+package com.quickbase.datatransfer.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickbase.datatransfer.gateway.freshdesk.FreshdeskGatewayService;
+import com.quickbase.datatransfer.gateway.ratelimit.RateLimitScheduler;
+import com.sun.net.httpserver.Headers;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Simulates the contacts API of Freshdesk: the contacts created during the load test can be found by unique external
+ * id, email or name and updated, so users transferred more than once take the update path.
+ */
+public class SimulatedFreshdesk extends SimulatedServer {
+    private static final String SEARCH_PATH = FreshdeskGatewayService.CONTACTS_API_PATH + "/autocomplete";
+    private static final String CONTACT_PATH_PREFIX = FreshdeskGatewayService.CONTACTS_API_PATH + "/";
+    private static final String SEARCH_TERM_PARAM = "term=";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Long> contactIdsByName = new ConcurrentHashMap<>();
+    // contact ids by '<filter>=<value>', e.g. 'email=jsmith@bluesky.com'
+    private final Map<String, Long> contactIdsByFilter = new ConcurrentHashMap<>();
+    private final AtomicLong nextContactId = new AtomicLong(1);
+
+    public SimulatedFreshdesk(LoadTestProperties.SimulatedSystem properties) throws IOException {
+        super("Freshdesk", properties);
+    }
+
+    @Override
+    protected Response handle(String method, String path, String query, byte[] body) {
+        if ("GET".equals(method) && SEARCH_PATH.equals(path)) {
+            String name = getSearchTerm(query);
+            Long id = name != null ? contactIdsByName.get(name) : null;
+            return new Response(HttpStatus.OK, id == null ? "[]" : contactJson("[", id, name, "]"));
+        }
+
+        if ("GET".equals(method) && FreshdeskGatewayService.CONTACTS_API_PATH.equals(path)) {
+            Long id = query != null ? contactIdsByFilter.get(URLDecoder.decode(query, StandardCharsets.UTF_8)) : null;
+            return new Response(HttpStatus.OK, id == null ? "[]" : contactJson("[", id, null, "]"));
+        }
+
+        if ("POST".equals(method) && FreshdeskGatewayService.CONTACTS_API_PATH.equals(path)) {
+            JsonNode contact = readContact(body);
+            String name = getText(contact, "name");
+            if (name == null) {
+                return new Response(HttpStatus.BAD_REQUEST, "{\"description\":\"Validation failed\",\"errors\":"
+                        + "[{\"field\":\"name\",\"message\":\"It should be a/an String\",\"code\":\"missing_field\"}]}");
+            }
+
+            long id = contactIdsByName.computeIfAbsent(name, key -> nextContactId.getAndIncrement());
+            recordFilters(contact, id);
+            return new Response(HttpStatus.CREATED, contactJson("", id, name, ""));
+        }
+
+        if ("PUT".equals(method) && path.startsWith(CONTACT_PATH_PREFIX)) {
+            JsonNode contact = readContact(body);
+            long id = parseId(path.substring(CONTACT_PATH_PREFIX.length()));
+            recordFilters(contact, id);
+            return new Response(HttpStatus.OK, contactJson("", id, getText(contact, "name"), ""));
+        }
+
+        return new Response(HttpStatus.NOT_FOUND, null);
+    }
+
+    // Freshdesk calls the limit header 'total' and responds with 429 when the rate limit is exceeded
+    @Override
+    protected void addRateLimitHeaders(Headers headers, int limit, int remaining, long resetEpochSeconds) {
+        headers.set(RateLimitScheduler.TOTAL_HEADER, String.valueOf(limit));
+        headers.set(RateLimitScheduler.REMAINING_HEADER, String.valueOf(remaining));
+    }
+
+    @Override
+    protected HttpStatus getRateLimitExceededStatus() {
+        return HttpStatus.TOO_MANY_REQUESTS;
+    }
+
+    private String contactJson(String prefix, long id, String name, String suffix) {
+        try {
+            return prefix + objectMapper.writeValueAsString(Map.of("id", id, "name", name != null ? name : ""))
+                    + suffix;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void recordFilters(JsonNode contact, long id) {
+        for (String filter : new String[]{FreshdeskGatewayService.UNIQUE_EXTERNAL_ID_FILTER,
+                FreshdeskGatewayService.EMAIL_FILTER}) {
+            String value = getText(contact, filter);
+            if (value != null) {
+                contactIdsByFilter.put(filter + "=" + value, id);
+            }
+        }
+    }
+
+    private JsonNode readContact(byte[] body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String getText(JsonNode contact, String field) {
+        JsonNode value = contact != null ? contact.get(field) : null;
+        return value != null && value.isTextual() ? value.asText() : null;
+    }
+
+    private static String getSearchTerm(String query) {
+        if (query == null || !query.startsWith(SEARCH_TERM_PARAM)) {
+            return null;
+        }
+
+        return URLDecoder.decode(query.substring(SEARCH_TERM_PARAM.length()), StandardCharsets.UTF_8);
+    }
+
+    private static long parseId(String id) {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.quickbase.datatransfer.loadtest;
+
+import com.quickbase.datatransfer.gateway.ratelimit.RateLimitScheduler;
+import com.sun.net.httpserver.Headers;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+
+// simulates GET /users/{username} of the GitHub REST API, where every user exists
+public class SimulatedGitHub extends SimulatedServer {
+    private static final String USER_PATH_PREFIX = "/users/";
+    private static final String USER_JSON_FORMAT = """
+            {"login":"%1$s","id":%2$d,"type":"User","site_admin":false,"name":"Simulated %1$s",\
+            "company":"Load Test Inc.","location":"Sofia, Bulgaria","email":"%1$s@loadtest.example.com",\
+            "bio":"Simulated GitHub user","twitter_username":"%1$s","public_repos":12,"followers":34,\
+            "following":5,"created_at":"2015-03-01T10:00:00Z"}""";
+
+    public SimulatedGitHub(LoadTestProperties.SimulatedSystem properties) throws IOException {
+        super("GitHub", properties);
+    }
+
+    @Override
+    protected Response handle(String method, String path, String query, byte[] body) {
+        if (!"GET".equals(method) || !path.startsWith(USER_PATH_PREFIX)) {
+            return new Response(HttpStatus.NOT_FOUND, "{\"message\":\"Not Found\"}");
+        }
+
+        String username = path.substring(USER_PATH_PREFIX.length());
+        return new Response(HttpStatus.OK, String.format(USER_JSON_FORMAT, username, username.hashCode() & 0x7fffffff));
+    }
+
+    // GitHub sends the reset time in epoch seconds and responds with 403 when the rate limit is exceeded
+    @Override
+    protected void addRateLimitHeaders(Headers headers, int limit, int remaining, long resetEpochSeconds) {
+        headers.set(RateLimitScheduler.LIMIT_HEADER, String.valueOf(limit));
+        headers.set(RateLimitScheduler.REMAINING_HEADER, String.valueOf(remaining));
+        headers.set(RateLimitScheduler.RESET_HEADER, String.valueOf(resetEpochSeconds));
+    }
+
+    @Override
+    protected HttpStatus getRateLimitExceededStatus() {
+        return HttpStatus.FORBIDDEN;
+    }
+}
@@ -0,0 +1,205 @@
+package com.quickbase.datatransfer.loadtest;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * A local stand-in for the API of an external system. Every request is delayed by a latency sampled from a log-normal
+ * distribution, counted against a fixed window rate limit, and may fail with an injected 429 or 503 or have its
+ * response body dribbled slowly, according to the properties of the simulated system.
+ */
+public abstract class SimulatedServer {
+    // the z-score of the 99th percentile of the standard normal distribution
+    private static final double P99_Z_SCORE = 2.326;
+    private static final int SLOW_BODY_CHUNKS = 10;
+
+    private final String name;
+    private final LoadTestProperties.SimulatedSystem properties;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final double latencySigma;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rateLimitedRequests = new AtomicLong();
+    private final AtomicLong tooManyRequestsFailures = new AtomicLong();
+    private final AtomicLong unavailableFailures = new AtomicLong();
+    private final AtomicLong slowBodies = new AtomicLong();
+
+    private long windowStartMillis;
+    private int windowRequests;
+
+    protected SimulatedServer(String name, LoadTestProperties.SimulatedSystem properties) throws IOException {
+        this.name = name;
+        this.properties = properties;
+        this.latencySigma = Math.log((double) properties.getLatencyP99().toNanos()
+                / Math.max(1, properties.getLatencyMedian().toNanos())) / P99_Z_SCORE;
+        // a thread per request in progress, since the simulated latencies are slept through
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, name.toLowerCase() + "-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.server.createContext("/", this::serve);
+        this.server.setExecutor(executor);
+    }
+
+    public void start() {
+        windowStartMillis = System.currentTimeMillis();
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public String getSummary() {
+        return String.format("%s: %d request(s), %d rate limited, %d failed with 429, %d failed with 503, "
+                        + "%d slow response(s)", name, requests.get(), rateLimitedRequests.get(),
+                tooManyRequestsFailures.get(), unavailableFailures.get(), slowBodies.get());
+    }
+
+    // the query is raw, i.e. still URL encoded
+    protected abstract Response handle(String method, String path, String query, byte[] body);
+
+    /**
+     * Adds the rate limit headers of the simulated system to a response.
+     *
+     * @param resetEpochSeconds When the current rate limit window ends
+     */
+    protected abstract void addRateLimitHeaders(Headers headers, int limit, int remaining, long resetEpochSeconds);
+
+    // the status the simulated system responds with when the rate limit is exceeded
+    protected abstract HttpStatus getRateLimitExceededStatus();
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try {
+            requests.incrementAndGet();
+            byte[] requestBody = exchange.getRequestBody().readAllBytes();
+            sleep(sampleLatencyMillis());
+
+            if (properties.getRateLimit() > 0 && !acquireRateLimitPermit(exchange.getResponseHeaders())) {
+                rateLimitedRequests.incrementAndGet();
+                exchange.getResponseHeaders().set(HttpHeaders.RETRY_AFTER,
+                        String.valueOf(getRemainingWindowMillis() / 1000 + 1));
+                respond(exchange, new Response(getRateLimitExceededStatus(), null), false);
+                return;
+            }
+
+            double random = ThreadLocalRandom.current().nextDouble();
+            if (random < properties.getTooManyRequestsRatio()) {
+                tooManyRequestsFailures.incrementAndGet();
+                exchange.getResponseHeaders().set(HttpHeaders.RETRY_AFTER,
+                        String.valueOf(Math.max(1, properties.getRetryAfter().toSeconds())));
+                respond(exchange, new Response(HttpStatus.TOO_MANY_REQUESTS, null), false);
+                return;
+            }
+            if (random < properties.getTooManyRequestsRatio() + properties.getUnavailableRatio()) {
+                unavailableFailures.incrementAndGet();
+                respond(exchange, new Response(HttpStatus.SERVICE_UNAVAILABLE, null), false);
+                return;
+            }
+
+            Response response = handle(exchange.getRequestMethod(), exchange.getRequestURI().getPath(),
+                    exchange.getRequestURI().getRawQuery(), requestBody);
+            boolean slowBody = ThreadLocalRandom.current().nextDouble() < properties.getSlowBodyRatio();
+            if (slowBody) {
+                slowBodies.incrementAndGet();
+            }
+            respond(exchange, response, slowBody);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private synchronized boolean acquireRateLimitPermit(Headers headers) {
+        long now = System.currentTimeMillis();
+        long windowMillis = properties.getRateLimitWindow().toMillis();
+
+        if (now - windowStartMillis >= windowMillis) {
+            windowStartMillis = now - (now - windowStartMillis) % windowMillis;
+            windowRequests = 0;
+        }
+
+        boolean permitted = windowRequests < properties.getRateLimit();
+        if (permitted) {
+            windowRequests++;
+        }
+
+        addRateLimitHeaders(headers, properties.getRateLimit(), properties.getRateLimit() - windowRequests,
+                (windowStartMillis + windowMillis) / 1000);
+        return permitted;
+    }
+
+    private synchronized long getRemainingWindowMillis() {
+        return Math.max(0, windowStartMillis + properties.getRateLimitWindow().toMillis() - System.currentTimeMillis());
+    }
+
+    private long sampleLatencyMillis() {
+        double gaussian = ThreadLocalRandom.current().nextGaussian();
+        return Math.round(properties.getLatencyMedian().toMillis() * Math.exp(latencySigma * gaussian));
+    }
+
+    private void respond(HttpExchange exchange, Response response, boolean slowBody) throws IOException {
+        byte[] body = response.body() != null ? response.body().getBytes(StandardCharsets.UTF_8) : new byte[0];
+
+        if (body.length > 0) {
+            exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        }
+        // a slow body is sent with chunked encoding, so that the client can't tell how long it is
+        exchange.sendResponseHeaders(response.status().value(), body.length == 0 ? -1 : slowBody ? 0 : body.length);
+
+        if (body.length == 0) {
+            return;
+        }
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (!slowBody) {
+                out.write(body);
+                return;
+            }
+
+            int chunkSize = Math.max(1, (body.length + SLOW_BODY_CHUNKS - 1) / SLOW_BODY_CHUNKS);
+            long chunkDelayMillis = properties.getSlowBodyDuration().toMillis() / SLOW_BODY_CHUNKS;
+            for (int offset = 0; offset < body.length; offset += chunkSize) {
+                out.write(body, offset, Math.min(chunkSize, body.length - offset));
+                out.flush();
+                sleep(chunkDelayMillis);
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    protected record Response(HttpStatus status, String body) {
+    }
+}
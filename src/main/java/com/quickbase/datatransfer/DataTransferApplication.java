@@ -1,11 +1,16 @@
 package com.quickbase.datatransfer;
 
+import com.quickbase.datatransfer.common.DataTransferRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.shell.command.annotation.CommandScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 @CommandScan
+@ImportRuntimeHints(DataTransferRuntimeHints.class)
 public class DataTransferApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,38 @@
+package com.quickbase.datatransfer.cli;
+
+import com.quickbase.datatransfer.cli.exceptionresolving.CustomCommandExceptionResolver;
+import com.quickbase.datatransfer.gateway.client.ConnectionPoolStatistics;
+import com.quickbase.datatransfer.gateway.client.WebClientRegistry;
+import org.jline.terminal.Terminal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.shell.command.annotation.Command;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Command(group = "Diagnostics")
+public class ConnectionPoolCommands extends CustomCommandExceptionResolver {
+    private final Terminal terminal;
+    private final WebClientRegistry webClientRegistry;
+
+    @Autowired
+    public ConnectionPoolCommands(Terminal terminal, WebClientRegistry webClientRegistry) {
+        this.terminal = terminal;
+        this.webClientRegistry = webClientRegistry;
+    }
+
+    @Command(command = "connection-pools", description = "Show statistics of the connection pools towards external systems")
+    public void connectionPools() {
+        List<ConnectionPoolStatistics> statistics = webClientRegistry.getConnectionPoolStatistics();
+
+        terminal.writer().printf("%d web client(s), %d connection pool(s)\n",
+                webClientRegistry.getWebClientCount(), statistics.size());
+
+        statistics.forEach(stats -> terminal.writer().printf(
+                "%s %s: acquired=%d, idle=%d, allocated=%d/%d, pending=%d/%d\n",
+                stats.poolName, stats.remoteAddress, stats.acquiredConnections, stats.idleConnections,
+                stats.allocatedConnections, stats.maxConnections, stats.pendingAcquires, stats.maxPendingAcquires));
+        terminal.writer().flush();
+    }
+}
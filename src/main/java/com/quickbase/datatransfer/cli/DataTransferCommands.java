@@ -1,18 +1,35 @@
 package com.quickbase.datatransfer.cli;
 
 import com.quickbase.datatransfer.cli.exceptionresolving.CustomCommandExceptionResolver;
+import com.quickbase.datatransfer.cli.job.TransferJob;
+import com.quickbase.datatransfer.cli.job.TransferJobManager;
 import com.quickbase.datatransfer.cli.util.CommandUtils;
 import com.quickbase.datatransfer.common.DataType;
+import com.quickbase.datatransfer.exception.InvalidParamException;
 import com.quickbase.datatransfer.service.DataTransferService;
+import com.quickbase.datatransfer.service.journal.TransferJournal;
+import com.quickbase.datatransfer.service.model.BulkTransferOptions;
+import com.quickbase.datatransfer.service.model.TransferDestination;
+import com.quickbase.datatransfer.service.model.TransferItem;
+import com.quickbase.datatransfer.service.model.TransferResult;
+import com.quickbase.datatransfer.service.model.TransferSummary;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import org.jline.terminal.Terminal;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.shell.command.annotation.Command;
 import org.springframework.shell.command.annotation.Option;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import static org.springframework.shell.command.CommandRegistration.*;
 
@@ -21,14 +38,16 @@ import static org.springframework.shell.command.CommandRegistration.*;
 public class DataTransferCommands extends CustomCommandExceptionResolver {
     private final Terminal terminal;
     private final DataTransferService dataTransferService;
+    private final TransferJobManager jobManager;
 
     @Autowired
-    public DataTransferCommands(Terminal terminal, DataTransferService dataTransferService) {
+    public DataTransferCommands(Terminal terminal, DataTransferService dataTransferService,
+                                TransferJobManager jobManager) {
         this.terminal = terminal;
         this.dataTransferService = dataTransferService;
+        this.jobManager = jobManager;
     }
 
-    @Async
     @Command(command = "user", description = "Transfer data for a specified user from one external system to another")
     public void transferUser(
             @NotBlank
@@ -46,11 +65,22 @@ public class DataTransferCommands extends CustomCommandExceptionResolver {
             @Option(longNames = {"destination-params"}, shortNames = {'t'}, arity = OptionArity.ONE_OR_MORE,
                     description = "Parameters in a <key>=<value> format identifying where to upload the user data in " +
                             "the destination system. For example, Freshdesk requires domain")
-            String[] destinationParams) {
+            String[] destinationParams,
+            @Option(longNames = {"background"}, shortNames = {'b'},
+                    description = "Run the transfer in the background as a job, see the jobs command")
+            boolean background) {
         Map<String, String> sourceParamsMap = CommandUtils.convertArrayParamsToMap(sourceParams);
         Map<String, String> destParamsMap = CommandUtils.convertArrayParamsToMap(destinationParams);
+        Mono<Void> transfer = dataTransferService.transferData(sourceSystem, destinationSystem, DataType.USER,
+                sourceParamsMap, destParamsMap);
 
-        dataTransferService.transferData(sourceSystem, destinationSystem, DataType.USER, sourceParamsMap, destParamsMap)
+        if (background) {
+            startJob(String.format("transfer user %s from %s to %s", sourceParamsMap, sourceSystem, destinationSystem),
+                    job -> transfer.thenReturn("User data transferred"));
+            return;
+        }
+
+        transfer
                 .doOnSuccess(__ -> {
                     terminal.writer().printf("Successfully completed user data transfer from %s to %s!\n",
                             sourceSystem, destinationSystem);
@@ -63,4 +93,256 @@ public class DataTransferCommands extends CustomCommandExceptionResolver {
                 })
                 .block();
     }
+
+    @Command(command = "user-to-many",
+            description = "Transfer data for a specified user from one external system to many destinations")
+    public void transferUserToMany(
+            @NotBlank
+            @Option(longNames = {"source-system"}, shortNames = {'s'}, required = true, arity = OptionArity.EXACTLY_ONE,
+                    description = "External system from which data will be retrieved. Currently supported: GitHub")
+            String sourceSystem,
+            @Option(longNames = {"source-params"}, shortNames = {'p'}, arity = OptionArity.ONE_OR_MORE,
+                    description = "Parameters in a <key>=<value> format identifying the user for which data will be " +
+                            "retrieved from the source system. For example, GitHub requires username")
+            String[] sourceParams,
+            @Option(longNames = {"destinations"}, shortNames = {'m'}, required = true, arity = OptionArity.ONE_OR_MORE,
+                    description = "Destinations in a <system>:<key>=<value>[,<key>=<value>...] format, each " +
+                            "identifying an external system and where to upload the user data in it. For example, " +
+                            "freshdesk:domain=bluesky. The user data is downloaded once and uploaded to all of them")
+            String[] destinations,
+            @Option(longNames = {"background"}, shortNames = {'b'},
+                    description = "Run the transfer in the background as a job, see the jobs command")
+            boolean background) {
+        Map<String, String> sourceParamsMap = CommandUtils.convertArrayParamsToMap(sourceParams);
+        List<TransferDestination> transferDestinations = Arrays.stream(destinations)
+                .map(CommandUtils::convertDestination)
+                .toList();
+        Flux<TransferResult> results = dataTransferService.transferDataToMany(sourceSystem, DataType.USER,
+                sourceParamsMap, transferDestinations);
+
+        if (background) {
+            startJob(String.format("transfer user %s from %s to %d destination(s)", sourceParamsMap, sourceSystem,
+                            transferDestinations.size()),
+                    job -> {
+                        TransferSummary summary = new TransferSummary();
+                        return results
+                                .doOnNext(result -> job.setProgress(summary.add(result).toString()))
+                                .then(Mono.fromCallable(summary::toString));
+                    });
+            return;
+        }
+
+        TransferSummary summary = results
+                .doOnNext(result -> {
+                    if (result.isSuccessful()) {
+                        terminal.writer().printf("Transferred user data to %s\n", result.itemKey);
+                    } else {
+                        terminal.writer().printf("Failed to transfer user data to %s: %s\n",
+                                result.itemKey, result.error.getMessage());
+                    }
+                    terminal.writer().flush();
+                })
+                .reduce(new TransferSummary(), TransferSummary::add)
+                .doOnError(__ -> {
+                    terminal.writer().printf("Failed to transfer user data from %s!\n", sourceSystem);
+                    terminal.writer().flush();
+                })
+                .block();
+
+        terminal.writer().printf("Completed user data transfer from %s to %d destination(s): %s\n",
+                sourceSystem, transferDestinations.size(), summary);
+        terminal.writer().flush();
+    }
+
+    @Command(command = "users", description = "Transfer data for many users from one external system to another")
+    public void transferUsers(
+            @NotBlank
+            @Option(longNames = {"source-system"}, shortNames = {'s'}, required = true, arity = OptionArity.EXACTLY_ONE,
+                    description = "External system from which data will be retrieved. Currently supported: GitHub")
+            String sourceSystem,
+            @NotBlank
+            @Option(longNames = {"destination-system"}, shortNames = {'d'}, required = true, arity = OptionArity.EXACTLY_ONE,
+                    description = "External system to which data will be transferred. Currently supported: Freshdesk")
+            String destinationSystem,
+            @Option(longNames = {"source-params-file"}, shortNames = {'f'}, arity = OptionArity.EXACTLY_ONE,
+                    description = "Path to a file with one user per line. Each line contains parameters in a " +
+                            "<key>=<value> format, separated by spaces, identifying the user in the source system. " +
+                            "Can't be combined with source-params")
+            String sourceParamsFile,
+            @Option(longNames = {"source-params"}, shortNames = {'p'}, arity = OptionArity.ONE_OR_MORE,
+                    description = "Parameters in a <key>=<value> format identifying a group of users in the source " +
+                            "system, whose data will be streamed. For example, GitHub supports org and optionally team. " +
+                            "Can't be combined with source-params-file")
+            String[] sourceParams,
+            @Option(longNames = {"destination-params"}, shortNames = {'t'}, arity = OptionArity.ONE_OR_MORE,
+                    description = "Parameters in a <key>=<value> format identifying where to upload the users' data in " +
+                            "the destination system. For example, Freshdesk requires domain")
+            String[] destinationParams,
+            @Min(1)
+            @Option(longNames = {"concurrency"}, shortNames = {'c'}, arity = OptionArity.EXACTLY_ONE,
+                    defaultValue = "" + BulkTransferOptions.DEFAULT_CONCURRENCY,
+                    description = "Maximum number of users transferred at the same time")
+            int concurrency,
+            @Min(1)
+            @Option(longNames = {"download-concurrency"}, arity = OptionArity.EXACTLY_ONE,
+                    description = "Maximum number of users downloaded at the same time. Defaults to concurrency. " +
+                            "Batched downloads, e.g. with GitHub's GraphQL engine, download as many batches at the " +
+                            "same time as it takes to reach it, but at least one")
+            Integer downloadConcurrency,
+            @Min(1)
+            @Option(longNames = {"upload-concurrency"}, arity = OptionArity.EXACTLY_ONE,
+                    description = "Maximum number of users uploaded at the same time. Defaults to concurrency. " +
+                            "Batched uploads, e.g. Freshdesk CSV imports, upload as many batches at the same time as " +
+                            "it takes to reach it, but at least one")
+            Integer uploadConcurrency,
+            @Min(1)
+            @Option(longNames = {"buffer-size"}, arity = OptionArity.EXACTLY_ONE,
+                    defaultValue = "" + BulkTransferOptions.DEFAULT_BUFFER_SIZE,
+                    description = "Maximum number of downloaded users waiting to be uploaded")
+            int bufferSize,
+            @Option(longNames = {"journal"}, shortNames = {'j'}, arity = OptionArity.EXACTLY_ONE,
+                    description = "Path to a new file in which the outcome of every user's transfer is recorded, so " +
+                            "that the transfer can be resumed if it's interrupted. Can't be combined with resume")
+            String journalFile,
+            @Option(longNames = {"resume"}, shortNames = {'r'}, arity = OptionArity.EXACTLY_ONE,
+                    description = "Path to the journal of an interrupted transfer. Users it records as transferred " +
+                            "are skipped, the rest are transferred and recorded in it. Can't be combined with journal")
+            String resumeJournalFile,
+            @Option(longNames = {"background"}, shortNames = {'b'},
+                    description = "Run the transfer in the background as a job, see the jobs command. Failed users " +
+                            "are only counted in the job's progress, not printed")
+            boolean background) {
+        if ((sourceParamsFile == null) == (sourceParams == null || sourceParams.length == 0)) {
+            throw new InvalidParamException(
+                    "Exactly one of 'source-params-file' and 'source-params' has to be specified.", "source-params");
+        }
+
+        // the params are checked before the journal is opened, so that malformed ones don't leave an empty journal
+        Map<String, String> sourceParamsMap = sourceParamsFile == null ?
+                CommandUtils.convertArrayParamsToMap(sourceParams) : null;
+        Map<String, String> destParamsMap = CommandUtils.convertArrayParamsToMap(destinationParams);
+        TransferJournal journal = openJournal(journalFile, resumeJournalFile);
+        BulkTransferOptions options = BulkTransferOptions.builder()
+                .concurrency(concurrency)
+                .downloadConcurrency(downloadConcurrency)
+                .uploadConcurrency(uploadConcurrency)
+                .bufferSize(bufferSize)
+                .journal(journal)
+                .build();
+
+        if (background) {
+            // once the job is started, it closes the journal when it's done
+            try {
+                Flux<TransferResult> results = getTransferResults(sourceSystem, destinationSystem, sourceParamsFile,
+                        sourceParamsMap, destParamsMap, options);
+
+                startJob(String.format("transfer users %s from %s to %s",
+                                sourceParamsFile != null ? sourceParamsFile : String.join(" ", sourceParams),
+                                sourceSystem, destinationSystem),
+                        job -> {
+                            TransferSummary summary = new TransferSummary();
+                            return results
+                                    .doOnNext(result -> job.setProgress(summary.add(result).toString()))
+                                    .then(Mono.fromCallable(summary::toString))
+                                    .doFinally(__ -> closeJournal(journal));
+                        });
+            } catch (RuntimeException e) {
+                closeJournal(journal);
+                throw e;
+            }
+            return;
+        }
+
+        try {
+            transferUsers(sourceSystem, destinationSystem, getTransferResults(sourceSystem, destinationSystem,
+                    sourceParamsFile, sourceParamsMap, destParamsMap, options));
+        } finally {
+            closeJournal(journal);
+        }
+    }
+
+    private Flux<TransferResult> getTransferResults(String sourceSystem, String destinationSystem,
+                                                    String sourceParamsFile, Map<String, String> sourceParamsMap,
+                                                    Map<String, String> destParamsMap, BulkTransferOptions options) {
+        return sourceParamsFile != null ?
+                dataTransferService.transferDataInBulk(sourceSystem, destinationSystem, DataType.USER,
+                        CommandUtils.readParamsFile(sourceParamsFile)
+                                .map(fileSourceParams -> new TransferItem(fileSourceParams, destParamsMap)),
+                        options) :
+                dataTransferService.transferDataStream(sourceSystem, destinationSystem, DataType.USER,
+                        sourceParamsMap, destParamsMap, options);
+    }
+
+    private void transferUsers(String sourceSystem, String destinationSystem, Flux<TransferResult> results) {
+        TransferSummary summary = results
+                .doOnNext(result -> {
+                    if (!result.isSuccessful()) {
+                        terminal.writer().printf("Failed to transfer user data for '%s': %s\n",
+                                result.itemKey, result.error.getMessage());
+                        terminal.writer().flush();
+                    }
+                })
+                .reduce(new TransferSummary(), TransferSummary::add)
+                .doOnError(__ -> {
+                    terminal.writer().printf("Failed to transfer users data from %s to %s!\n",
+                            sourceSystem, destinationSystem);
+                    terminal.writer().flush();
+                })
+                .block();
+
+        terminal.writer().printf("Completed users data transfer from %s to %s: %s\n",
+                sourceSystem, destinationSystem, summary);
+        terminal.writer().flush();
+    }
+
+    private void startJob(String description, Function<TransferJob, Mono<String>> transfer) {
+        TransferJob job = jobManager.submit(description, transfer);
+
+        terminal.writer().printf("Started job %d: %s. Use 'job status --id %d' to follow it\n",
+                job.getId(), description, job.getId());
+        terminal.writer().flush();
+    }
+
+    private TransferJournal openJournal(String journalFile, String resumeJournalFile) {
+        if (journalFile != null && resumeJournalFile != null) {
+            throw new InvalidParamException("Only one of 'journal' and 'resume' can be specified.", "resume");
+        }
+
+        if (journalFile != null) {
+            if (Files.exists(Path.of(journalFile))) {
+                throw new InvalidParamException(String.format(
+                        "Journal '%s' already exists. Use 'resume' to continue the transfer it records.", journalFile),
+                        "journal");
+            }
+            return TransferJournal.create(Path.of(journalFile));
+        }
+
+        if (resumeJournalFile != null) {
+            if (!Files.exists(Path.of(resumeJournalFile))) {
+                throw new InvalidParamException(String.format("Journal '%s' does not exist.", resumeJournalFile),
+                        "resume");
+            }
+
+            TransferJournal journal = TransferJournal.resume(Path.of(resumeJournalFile));
+            terminal.writer().printf("Resuming transfer, skipping %d user(s) which were already transferred\n",
+                    journal.getCompletedItemCount());
+            terminal.writer().flush();
+            return journal;
+        }
+
+        return null;
+    }
+
+    private void closeJournal(TransferJournal journal) {
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            journal.close();
+        } catch (IOException e) {
+            terminal.writer().printf("Failed to record the outcome of all users in the journal: %s\n", e.getMessage());
+            terminal.writer().flush();
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package com.quickbase.datatransfer.cli;
+
+import com.quickbase.datatransfer.cli.exceptionresolving.CustomCommandExceptionResolver;
+import com.quickbase.datatransfer.cli.job.TransferJob;
+import com.quickbase.datatransfer.cli.job.TransferJobManager;
+import org.jline.terminal.Terminal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.shell.command.annotation.Command;
+import org.springframework.shell.command.annotation.Option;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static org.springframework.shell.command.CommandRegistration.*;
+
+@Component
+@Command(group = "Jobs")
+public class JobCommands extends CustomCommandExceptionResolver {
+    private final Terminal terminal;
+    private final TransferJobManager jobManager;
+
+    @Autowired
+    public JobCommands(Terminal terminal, TransferJobManager jobManager) {
+        this.terminal = terminal;
+        this.jobManager = jobManager;
+    }
+
+    @Command(command = "jobs", description = "List the transfers started in the background and their status")
+    public void jobs() {
+        List<TransferJob> jobs = jobManager.getJobs();
+
+        if (jobs.isEmpty()) {
+            terminal.writer().println("No jobs started yet");
+        }
+
+        jobs.forEach(job -> terminal.writer().println(job));
+        terminal.writer().flush();
+    }
+
+    @Command(command = "job status", description = "Show the status and progress of a transfer started in the background")
+    public void jobStatus(
+            @Option(longNames = {"id"}, shortNames = {'i'}, required = true, arity = OptionArity.EXACTLY_ONE,
+                    description = "ID of the job, as listed by the jobs command")
+            int id) {
+        terminal.writer().println(jobManager.getJob(id));
+        terminal.writer().flush();
+    }
+
+    @Command(command = "job cancel", description = "Cancel a transfer started in the background")
+    public void jobCancel(
+            @Option(longNames = {"id"}, shortNames = {'i'}, required = true, arity = OptionArity.EXACTLY_ONE,
+                    description = "ID of the job, as listed by the jobs command")
+            int id) {
+        if (jobManager.cancel(id)) {
+            terminal.writer().printf("Cancelled job %d\n", id);
+        } else {
+            terminal.writer().printf("Job %d has already finished: %s\n", id, jobManager.getJob(id).getStatus());
+        }
+        terminal.writer().flush();
+    }
+}
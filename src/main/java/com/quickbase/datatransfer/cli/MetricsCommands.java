@@ -0,0 +1,137 @@
+package com.quickbase.datatransfer.cli;
+
+import com.quickbase.datatransfer.cli.exceptionresolving.CustomCommandExceptionResolver;
+import com.quickbase.datatransfer.exception.InvalidParamException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.jline.terminal.Terminal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.shell.command.annotation.Command;
+import org.springframework.shell.command.annotation.Option;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.springframework.shell.command.CommandRegistration.*;
+
+@Component
+@Command(group = "Diagnostics")
+public class MetricsCommands extends CustomCommandExceptionResolver {
+    private static final String METRICS_PREFIX = "datatransfer.";
+
+    private final Terminal terminal;
+    private final PrometheusMeterRegistry meterRegistry;
+
+    @Autowired
+    public MetricsCommands(Terminal terminal, PrometheusMeterRegistry meterRegistry) {
+        this.terminal = terminal;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Command(command = "metrics", description = "Show latency percentiles and throughput of the calls to external " +
+            "systems and of the transfers")
+    public void metrics(
+            @Option(longNames = {"prometheus-file"}, shortNames = {'o'}, arity = OptionArity.EXACTLY_ONE,
+                    description = "Path to a file to which all metrics are written in Prometheus text format, " +
+                            "e.g. for a scraper on a batch host to pick up")
+            String prometheusFile) {
+        // the throughput is averaged over the lifetime of the application
+        double uptimeSeconds = Math.max(1, ManagementFactory.getRuntimeMXBean().getUptime()) / 1000.0;
+
+        List<Meter> meters = meterRegistry.getMeters().stream()
+                .filter(meter -> meter.getId().getName().startsWith(METRICS_PREFIX))
+                .sorted(Comparator.comparing((Meter meter) -> meter.getId().getName())
+                        .thenComparing(MetricsCommands::formatTags))
+                .toList();
+
+        if (meters.isEmpty()) {
+            terminal.writer().println("No metrics recorded yet");
+        }
+
+        meters.forEach(meter -> {
+            String name = meter.getId().getName() + formatTags(meter);
+
+            if (meter instanceof Timer timer) {
+                terminal.writer().printf("%s: count=%d, %.2f/s, mean=%.1fms, %s, max=%.1fms\n",
+                        name, timer.count(), timer.count() / uptimeSeconds, timer.mean(TimeUnit.MILLISECONDS),
+                        formatPercentiles(timer), timer.max(TimeUnit.MILLISECONDS));
+            } else if (meter instanceof DistributionSummary summary) {
+                terminal.writer().printf("%s: count=%d, total=%.0f, mean=%.0f, max=%.0f %s\n",
+                        name, summary.count(), summary.totalAmount(), summary.mean(), summary.max(),
+                        meter.getId().getBaseUnit() != null ? meter.getId().getBaseUnit() : "");
+            } else if (meter instanceof Counter counter) {
+                terminal.writer().printf("%s: count=%.0f, %.2f/s\n",
+                        name, counter.count(), counter.count() / uptimeSeconds);
+            }
+        });
+        terminal.writer().flush();
+
+        if (prometheusFile != null) {
+            writePrometheusFile(prometheusFile);
+        }
+    }
+
+    private void writePrometheusFile(String prometheusFile) {
+        Path file = Path.of(prometheusFile);
+
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            // written next to the target first, so that a scraper never reads a partially written file
+            Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tempFile, meterRegistry.scrape(), StandardCharsets.UTF_8);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new InvalidParamException(String.format("Failed to write metrics to '%s': %s",
+                    prometheusFile, e.getMessage()), "prometheus-file");
+        }
+
+        terminal.writer().printf("Metrics written to '%s'\n", file.toAbsolutePath());
+        terminal.writer().flush();
+    }
+
+    private static String formatTags(Meter meter) {
+        List<Tag> tags = meter.getId().getTags();
+        return tags.isEmpty() ? "" : tags.stream()
+                .map(tag -> tag.getKey() + "=" + tag.getValue())
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+
+    private static String formatPercentiles(Timer timer) {
+        ValueAtPercentile[] percentiles = timer.takeSnapshot().percentileValues();
+        if (percentiles.length == 0) {
+            return "no percentiles";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (ValueAtPercentile percentile : percentiles) {
+            if (!sb.isEmpty()) {
+                sb.append(", ");
+            }
+            sb.append(String.format("p%s=%.1fms", formatPercentile(percentile.percentile()),
+                    percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        return sb.toString();
+    }
+
+    // e.g. 50 for 0.5 and 99.9 for 0.999
+    private static String formatPercentile(double percentile) {
+        double value = percentile * 100;
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
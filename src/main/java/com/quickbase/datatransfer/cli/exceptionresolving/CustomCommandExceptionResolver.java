@@ -1,7 +1,9 @@
 package com.quickbase.datatransfer.cli.exceptionresolving;
 
 import com.quickbase.datatransfer.exception.AmbiguousDataException;
+import com.quickbase.datatransfer.exception.CircuitBreakerOpenException;
 import com.quickbase.datatransfer.exception.HttpRequestFailedException;
+import com.quickbase.datatransfer.exception.ImportFailedException;
 import com.quickbase.datatransfer.exception.InvalidDataException;
 import com.quickbase.datatransfer.exception.InvalidParamException;
 import com.quickbase.datatransfer.exception.MissingExternalSystemParamException;
@@ -40,6 +42,21 @@ public class CustomCommandExceptionResolver {
         ), 1);
     }
 
+    @ExceptionResolver()
+    CommandHandlingResult errorHandler(CircuitBreakerOpenException ex) {
+        return CommandHandlingResult.of(String.format(
+                "'%s' seems to be unavailable, please try again in %d second(s). %s\n",
+                ex.externalSystemName, Math.max(1, ex.remainingOpenDuration.toSeconds()), ex.getMessage()
+        ), 1);
+    }
+
+    @ExceptionResolver()
+    CommandHandlingResult errorHandler(ImportFailedException ex) {
+        return CommandHandlingResult.of(String.format(
+                "Import into '%s' failed. %s\n", ex.externalSystemName, ex.getMessage()
+        ), 1);
+    }
+
     @ExceptionResolver()
     CommandHandlingResult errorHandler(AmbiguousDataException ex) {
         return CommandHandlingResult.of(String.format(
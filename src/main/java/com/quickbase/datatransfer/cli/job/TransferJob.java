@@ -0,0 +1,106 @@
+package com.quickbase.datatransfer.cli.job;
+
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/*
+ * A transfer running in the background. Its status only changes once, from RUNNING to one of the final statuses,
+ * so a transfer which is cancelled while completing is reported either as cancelled or as completed, but not both.
+ */
+public class TransferJob {
+    public enum Status {
+        RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+
+    private final int id;
+    private final String description;
+    private final Instant startedAt = Instant.now();
+    private Status status = Status.RUNNING;
+    private Instant finishedAt;
+    // how far the transfer got while running, and its outcome once finished
+    private String progress;
+    private Disposable subscription;
+
+    public TransferJob(int id, String description) {
+        this.id = id;
+        this.description = description;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    public synchronized String getProgress() {
+        return progress;
+    }
+
+    public synchronized void setProgress(String progress) {
+        if (status == Status.RUNNING) {
+            this.progress = progress;
+        }
+    }
+
+    public synchronized Duration getElapsed() {
+        return Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now());
+    }
+
+    synchronized void setSubscription(Disposable subscription) {
+        // the transfer may have been cancelled before it was subscribed to
+        if (status == Status.CANCELLED) {
+            subscription.dispose();
+        }
+        this.subscription = subscription;
+    }
+
+    synchronized boolean complete(String outcome) {
+        return finish(Status.SUCCEEDED, outcome);
+    }
+
+    synchronized boolean fail(Throwable error) {
+        return finish(Status.FAILED, error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName());
+    }
+
+    /**
+     * Cancels the transfer, disposing its subscription, which cancels the requests in progress and closes their
+     * connections.
+     *
+     * @return false if the transfer has already finished
+     */
+    synchronized boolean cancel() {
+        if (!finish(Status.CANCELLED, progress)) {
+            return false;
+        }
+
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        return true;
+    }
+
+    private boolean finish(Status finalStatus, String outcome) {
+        if (status != Status.RUNNING) {
+            return false;
+        }
+
+        status = finalStatus;
+        progress = outcome;
+        finishedAt = Instant.now();
+        return true;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("#%d %s [%s, %ds]%s", id, description, status, getElapsed().toSeconds(),
+                progress != null ? ": " + progress : "");
+    }
+}
@@ -0,0 +1,92 @@
+package com.quickbase.datatransfer.cli.job;
+
+import com.quickbase.datatransfer.exception.InvalidParamException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/*
+ * Runs transfers in the background, so that the shell stays responsive and many transfers can run at the same time
+ * from one session. The transfers are reactive, so a job doesn't occupy a thread while waiting for the external
+ * systems; it's only subscribed to on the bounded elastic scheduler, since reading a params file and writing a journal
+ * block.
+ */
+@Slf4j
+@Component
+public class TransferJobManager implements DisposableBean {
+    private final AtomicInteger nextJobId = new AtomicInteger(1);
+    private final Map<Integer, TransferJob> jobs = new ConcurrentSkipListMap<>();
+
+    /**
+     * Starts a job running a transfer in the background.
+     *
+     * @param description A description of the transfer shown when listing jobs
+     * @param transfer Creates the transfer of the job, which may report its progress to the job, and emits the outcome
+     *                 of the transfer when it completes
+     * @return the started job
+     */
+    public TransferJob submit(String description, Function<TransferJob, Mono<String>> transfer) {
+        TransferJob job = new TransferJob(nextJobId.getAndIncrement(), description);
+        jobs.put(job.getId(), job);
+
+        log.info("Starting job {}: {}", job.getId(), description);
+
+        job.setSubscription(Mono.defer(() -> transfer.apply(job))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(
+                        outcome -> {
+                            if (job.complete(outcome)) {
+                                log.info("Job {} succeeded: {}", job.getId(), outcome);
+                            }
+                        },
+                        ex -> {
+                            if (job.fail(ex)) {
+                                log.error("Job {} failed:", job.getId(), ex);
+                            }
+                        },
+                        () -> job.complete(job.getProgress())));
+
+        return job;
+    }
+
+    public List<TransferJob> getJobs() {
+        return List.copyOf(jobs.values());
+    }
+
+    public TransferJob getJob(int id) {
+        TransferJob job = jobs.get(id);
+
+        if (job == null) {
+            throw new InvalidParamException(String.format("Job '%d' does not exist.", id), "id");
+        }
+
+        return job;
+    }
+
+    /**
+     * @return false if the job has already finished
+     */
+    public boolean cancel(int id) {
+        boolean cancelled = getJob(id).cancel();
+
+        if (cancelled) {
+            log.info("Job {} cancelled", id);
+        }
+
+        return cancelled;
+    }
+
+    // the transfers still running when the application shuts down are cancelled, releasing their connections
+    @Override
+    public void destroy() {
+        jobs.values().forEach(TransferJob::cancel);
+    }
+}
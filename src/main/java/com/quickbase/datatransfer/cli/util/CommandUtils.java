@@ -1,12 +1,17 @@
 package com.quickbase.datatransfer.cli.util;
 
 import com.quickbase.datatransfer.exception.InvalidParamException;
+import com.quickbase.datatransfer.service.model.TransferDestination;
+import reactor.core.publisher.Flux;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class CommandUtils {
     private static final Pattern paramPattern = Pattern.compile("([\\w-]+)=([\\w-]+)");
@@ -29,4 +34,33 @@ public class CommandUtils {
                         param -> param.split("=")[1]
                 ));
     }
+
+    /*
+     * Converts a destination in a <system>:<key>=<value>[,<key>=<value>...] format, e.g. 'freshdesk:domain=bluesky',
+     * to the system type and the params identifying where to upload the data in it.
+     */
+    public static TransferDestination convertDestination(String destination) {
+        String[] systemAndParams = destination.split(":", 2);
+
+        if (systemAndParams.length != 2 || systemAndParams[0].isBlank() || systemAndParams[1].isBlank()) {
+            throw new InvalidParamException(
+                    String.format("Destination '%s' does not match the pattern '%s'.", destination,
+                            "<system>:<key>=<value>[,<key>=<value>...]"),
+                    destination);
+        }
+
+        return new TransferDestination(systemAndParams[0], convertArrayParamsToMap(systemAndParams[1].split(",")));
+    }
+
+    /*
+     * Reads params from a file with one item per line, each line containing params in a <key>=<value> format
+     * separated by whitespace. Blank lines and lines starting with '#' are skipped. The file is read lazily,
+     * line by line, as the returned Flux is consumed.
+     */
+    public static Flux<Map<String, String>> readParamsFile(String filePath) {
+        return Flux.using(() -> Files.lines(Path.of(filePath)), Flux::fromStream, Stream::close)
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .map(line -> convertArrayParamsToMap(line.split("\\s+")));
+    }
 }
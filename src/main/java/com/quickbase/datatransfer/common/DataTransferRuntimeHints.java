@@ -0,0 +1,46 @@
+package com.quickbase.datatransfer.common;
+
+import com.quickbase.datatransfer.data.UserData;
+import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskContactImportResponse;
+import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskContactRequest;
+import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskContactResponse;
+import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskErrorResponse;
+import com.quickbase.datatransfer.gateway.github.model.GitHubGraphQlError;
+import com.quickbase.datatransfer.gateway.github.model.GitHubGraphQlRequest;
+import com.quickbase.datatransfer.gateway.github.model.GitHubGraphQlUsersResponse;
+import com.quickbase.datatransfer.gateway.github.model.GitHubMemberResponse;
+import com.quickbase.datatransfer.gateway.github.model.GitHubUserCacheEntry;
+import com.quickbase.datatransfer.gateway.github.model.GitHubUserResponse;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/*
+ * The classes which are (de)serialized with Jackson, e.g. as request and response bodies, are only known at runtime,
+ * so they have to be registered for reflection for the native image. The registrar only follows the types of
+ * properties with accessors, so the types of the public fields of the models are listed as well.
+ */
+public class DataTransferRuntimeHints implements RuntimeHintsRegistrar {
+    private static final Class<?>[] JSON_TYPES = {
+            UserData.class,
+            GitHubUserResponse.class,
+            GitHubMemberResponse.class,
+            GitHubGraphQlRequest.class,
+            GitHubGraphQlUsersResponse.class,
+            GitHubGraphQlError.class,
+            GitHubUserCacheEntry.class,
+            FreshdeskContactRequest.class,
+            FreshdeskContactResponse.class,
+            FreshdeskErrorResponse.class,
+            FreshdeskErrorResponse.Error.class,
+            FreshdeskContactImportResponse.class,
+            FreshdeskContactImportResponse.FailedRow.class
+    };
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingRegistrar.registerReflectionHints(hints.reflection(), JSON_TYPES);
+    }
+}
@@ -0,0 +1,15 @@
+package com.quickbase.datatransfer.common;
+
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// the metrics are kept in a Prometheus registry, so that they can be dumped in Prometheus text format
+@Configuration
+public class MetricsConfiguration {
+    @Bean
+    public PrometheusMeterRegistry prometheusMeterRegistry() {
+        return new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    }
+}
@@ -3,4 +3,8 @@ package com.quickbase.datatransfer.data;
 
 // a base class for all data classes, used for decoupling data transfer logic from concrete data type and external system type
 public class BaseData {
+    // a key identifying the data in the external system it was downloaded from, used when reporting transfer results
+    public String key() {
+        return null;
+    }
 }
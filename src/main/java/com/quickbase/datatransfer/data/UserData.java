@@ -14,4 +14,9 @@ public class UserData extends BaseData {
     public String address;
     public String externalId;
     public String description;
+
+    @Override
+    public String key() {
+        return externalId;
+    }
 }
@@ -0,0 +1,15 @@
+package com.quickbase.datatransfer.exception;
+
+import java.time.Duration;
+
+public class CircuitBreakerOpenException extends RuntimeException {
+    public String externalSystemName;
+    // how long until the external system is probed again, or until the probes in flight are done
+    public Duration remainingOpenDuration;
+
+    public CircuitBreakerOpenException(String errorMessage, String externalSystemName, Duration remainingOpenDuration) {
+        super(errorMessage);
+        this.externalSystemName = externalSystemName;
+        this.remainingOpenDuration = remainingOpenDuration;
+    }
+}
@@ -2,13 +2,31 @@ package com.quickbase.datatransfer.exception;
 
 import org.springframework.http.HttpStatusCode;
 
+import java.time.Duration;
+
 public class HttpRequestFailedException extends RuntimeException {
     public String externalSystemName;
     public HttpStatusCode httpStatusCode;
+    // whether the request was rejected because a rate limit was exceeded, in which case it's worth retrying later
+    public boolean rateLimited;
+    // how long the external system asked to wait before retrying (Retry-After), or null if it didn't
+    public Duration retryAfter;
 
     public HttpRequestFailedException(String errorMessage, String externalSystemName, HttpStatusCode httpStatusCode) {
+        this(errorMessage, externalSystemName, httpStatusCode, false);
+    }
+
+    public HttpRequestFailedException(String errorMessage, String externalSystemName, HttpStatusCode httpStatusCode,
+                                      boolean rateLimited) {
+        this(errorMessage, externalSystemName, httpStatusCode, rateLimited, null);
+    }
+
+    public HttpRequestFailedException(String errorMessage, String externalSystemName, HttpStatusCode httpStatusCode,
+                                      boolean rateLimited, Duration retryAfter) {
         super(errorMessage);
         this.externalSystemName = externalSystemName;
         this.httpStatusCode = httpStatusCode;
+        this.rateLimited = rateLimited;
+        this.retryAfter = retryAfter;
     }
 }
@@ -0,0 +1,10 @@
+package com.quickbase.datatransfer.exception;
+
+public class ImportFailedException extends RuntimeException {
+    public String externalSystemName;
+
+    public ImportFailedException(String errorMessage, String externalSystemName) {
+        super(errorMessage);
+        this.externalSystemName = externalSystemName;
+    }
+}
@@ -0,0 +1,145 @@
+package com.quickbase.datatransfer.gateway.circuitbreaker;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * A circuit breaker over a count-based sliding window of the most recent calls.
+ *
+ * While CLOSED, all calls are permitted and their outcomes recorded. The circuit OPENs when the rate of failed or
+ * of slow calls in the window reaches its threshold, and then rejects all calls for the open duration. After that
+ * it's HALF_OPEN and lets a few probe calls through: if they all succeed the circuit closes, otherwise it opens again.
+ * Times are passed in as epoch millis by the caller.
+ */
+@Slf4j
+public class CircuitBreaker {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final CircuitBreakerProperties properties;
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int nextIndex;
+    private int recordedCalls;
+    private int failedCallCount;
+    private int slowCallCount;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesInFlight;
+    private int succeededProbes;
+
+    public CircuitBreaker(String name, CircuitBreakerProperties properties) {
+        this.name = name;
+        this.properties = properties;
+        this.failedCalls = new boolean[properties.getSlidingWindowSize()];
+        this.slowCalls = new boolean[properties.getSlidingWindowSize()];
+    }
+
+    /**
+     * @return whether a call may be made; a permitted call has to be followed by either
+     * {@link #onResult(boolean, long, long)} or {@link #releasePermission()}
+     */
+    public synchronized boolean tryAcquirePermission(long now) {
+        if (state == State.OPEN && now - openedAt >= properties.getOpenDuration().toMillis()) {
+            transitionTo(State.HALF_OPEN, now);
+        }
+
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (probesInFlight + succeededProbes >= properties.getHalfOpenProbes()) {
+                    yield false;
+                }
+                probesInFlight++;
+                yield true;
+            }
+        };
+    }
+
+    public synchronized void onResult(boolean failed, long durationMillis, long now) {
+        boolean slow = durationMillis >= properties.getSlowCallDurationThreshold().toMillis();
+
+        switch (state) {
+            case CLOSED -> {
+                record(failed, slow);
+
+                if (recordedCalls >= properties.getMinimumCalls()
+                        && (failedCallCount * 100 >= properties.getFailureRateThreshold() * recordedCalls
+                        || slowCallCount * 100 >= properties.getSlowCallRateThreshold() * recordedCalls)) {
+                    log.warn("Opening circuit '{}' after {} failed and {} slow call(s) out of the last {}",
+                            name, failedCallCount, slowCallCount, recordedCalls);
+                    transitionTo(State.OPEN, now);
+                }
+            }
+            case HALF_OPEN -> {
+                probesInFlight--;
+
+                if (failed || slow) {
+                    log.warn("Probe call through circuit '{}' {}, opening it again", name, failed ? "failed" : "was slow");
+                    transitionTo(State.OPEN, now);
+                } else if (++succeededProbes >= properties.getHalfOpenProbes()) {
+                    log.info("Closing circuit '{}' after {} successful probe call(s)", name, succeededProbes);
+                    transitionTo(State.CLOSED, now);
+                }
+            }
+            // outcomes of calls which were made before the circuit opened don't matter anymore
+            case OPEN -> {
+            }
+        }
+    }
+
+    // for permitted calls which were cancelled before their outcome was known
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized long getRemainingOpenMillis(long now) {
+        return state == State.OPEN ? Math.max(0, openedAt + properties.getOpenDuration().toMillis() - now) : 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (recordedCalls == failedCalls.length) {
+            failedCallCount -= failedCalls[nextIndex] ? 1 : 0;
+            slowCallCount -= slowCalls[nextIndex] ? 1 : 0;
+        } else {
+            recordedCalls++;
+        }
+
+        failedCalls[nextIndex] = failed;
+        slowCalls[nextIndex] = slow;
+        failedCallCount += failed ? 1 : 0;
+        slowCallCount += slow ? 1 : 0;
+        nextIndex = (nextIndex + 1) % failedCalls.length;
+    }
+
+    private void transitionTo(State newState, long now) {
+        state = newState;
+
+        switch (newState) {
+            case OPEN -> openedAt = now;
+            case HALF_OPEN -> {
+                log.info("Circuit '{}' is half-open, probing whether calls succeed again", name);
+                probesInFlight = 0;
+                succeededProbes = 0;
+            }
+            case CLOSED -> {
+                nextIndex = 0;
+                recordedCalls = 0;
+                failedCallCount = 0;
+                slowCallCount = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.quickbase.datatransfer.gateway.circuitbreaker;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datatransfer.circuit-breaker")
+public class CircuitBreakerProperties {
+    private boolean enabled = true;
+    // number of most recent calls the failure and slow call rates are calculated over
+    private int slidingWindowSize = 50;
+    // the rates are not calculated before this many calls were made
+    private int minimumCalls = 20;
+    // percentage of failed calls at which the circuit opens
+    private int failureRateThreshold = 50;
+    // calls taking longer than this are slow
+    private Duration slowCallDurationThreshold = Duration.ofSeconds(10);
+    // percentage of slow calls at which the circuit opens
+    private int slowCallRateThreshold = 80;
+    // how long the circuit stays open before probing whether the external system has recovered
+    private Duration openDuration = Duration.ofSeconds(30);
+    // number of probe calls which have to succeed for the circuit to close again
+    private int halfOpenProbes = 3;
+}
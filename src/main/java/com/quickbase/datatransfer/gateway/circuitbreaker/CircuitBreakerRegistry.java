@@ -0,0 +1,119 @@
+package com.quickbase.datatransfer.gateway.circuitbreaker;
+
+import com.quickbase.datatransfer.exception.CircuitBreakerOpenException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Keeps a circuit breaker per external system and base URL (i.e. per Freshdesk domain), so that the transfers to
+ * an external system which is down fail fast, instead of tying up concurrency slots while going through retries.
+ */
+@Slf4j
+@Component
+public class CircuitBreakerRegistry {
+    private final CircuitBreakerProperties properties;
+    private final Scheduler scheduler;
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CircuitBreakerRegistry(CircuitBreakerProperties properties) {
+        this(properties, Schedulers.parallel());
+    }
+
+    // the scheduler is only used as a clock, so tests can run on virtual time
+    public CircuitBreakerRegistry(CircuitBreakerProperties properties, Scheduler scheduler) {
+        this.properties = properties;
+        this.scheduler = scheduler;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Creates a filter which makes the exchanges of a WebClient go through the circuit breaker of the specified
+     * external system and base URL. Responses with a 5xx status and errors (e.g. connection failures) count as
+     * failed calls. Calls rejected by an open or half-open circuit fail with a {@link CircuitBreakerOpenException}.
+     */
+    public ExchangeFilterFunction filter(String externalSystemName, String baseUrl) {
+        CircuitBreaker circuitBreaker = getCircuitBreaker(externalSystemName, baseUrl);
+
+        return (request, next) -> Mono.defer(() -> {
+            long startedAt = now();
+
+            if (!circuitBreaker.tryAcquirePermission(startedAt)) {
+                return Mono.error(rejectCall(circuitBreaker, externalSystemName, startedAt));
+            }
+
+            AtomicBoolean recorded = new AtomicBoolean();
+
+            return next.exchange(request)
+                    .doOnNext(response -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.onResult(response.statusCode().is5xxServerError(), now() - startedAt, now());
+                        }
+                    })
+                    .doOnError(ex -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.onResult(true, now() - startedAt, now());
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.releasePermission();
+                        }
+                    });
+        });
+    }
+
+    /*
+     * An open circuit rejects calls until it's time to probe the external system. A half-open one only rejects calls
+     * while its probes are in flight, whose outcome is known once they complete or turn out to be slow, so that's
+     * when a rejected call is worth retrying.
+     */
+    private CircuitBreakerOpenException rejectCall(CircuitBreaker circuitBreaker, String externalSystemName, long now) {
+        if (circuitBreaker.getState() != CircuitBreaker.State.OPEN) {
+            Duration probeDuration = properties.getSlowCallDurationThreshold();
+            return new CircuitBreakerOpenException(
+                    String.format("Calls to '%s' are on hold for up to %d second(s), while probing whether it recovered.",
+                            circuitBreaker.getName(), Math.max(1, probeDuration.toSeconds())),
+                    externalSystemName,
+                    probeDuration);
+        }
+
+        long remainingOpenMillis = circuitBreaker.getRemainingOpenMillis(now);
+        return new CircuitBreakerOpenException(
+                String.format("Calls to '%s' are suspended for %d more second(s), since too many of them failed recently.",
+                        circuitBreaker.getName(), TimeUnit.MILLISECONDS.toSeconds(remainingOpenMillis + 999)),
+                externalSystemName,
+                Duration.ofMillis(remainingOpenMillis));
+    }
+
+    public CircuitBreaker getCircuitBreaker(String externalSystemName, String baseUrl) {
+        return circuitBreakers.computeIfAbsent(externalSystemName + " " + baseUrl,
+                name -> new CircuitBreaker(name, properties));
+    }
+
+    public List<CircuitBreaker> getCircuitBreakers() {
+        return circuitBreakers.values().stream()
+                .sorted(Comparator.comparing(CircuitBreaker::getName))
+                .toList();
+    }
+
+    private long now() {
+        return scheduler.now(TimeUnit.MILLISECONDS);
+    }
+}
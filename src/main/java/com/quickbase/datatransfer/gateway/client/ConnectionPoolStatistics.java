@@ -0,0 +1,18 @@
+package com.quickbase.datatransfer.gateway.client;
+
+import lombok.AllArgsConstructor;
+import lombok.ToString;
+
+// a snapshot of the state of the connection pool towards a single remote address
+@AllArgsConstructor
+@ToString
+public class ConnectionPoolStatistics {
+    public String poolName;
+    public String remoteAddress;
+    public int acquiredConnections;
+    public int allocatedConnections;
+    public int idleConnections;
+    public int pendingAcquires;
+    public int maxConnections;
+    public int maxPendingAcquires;
+}
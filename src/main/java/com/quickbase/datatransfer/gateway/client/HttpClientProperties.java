@@ -0,0 +1,79 @@
+package com.quickbase.datatransfer.gateway.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datatransfer.http")
+public class HttpClientProperties {
+    public static final String DEFAULT_PROFILE = "default";
+
+    private Pool pool = new Pool();
+    // named transport profiles, e.g. datatransfer.http.profiles.slow-api.response-timeout=2m
+    private Map<String, TransportProfile> profiles = new HashMap<>(Map.of(DEFAULT_PROFILE, new TransportProfile()));
+    // the transport profile of each external system by its lower-cased name, the default profile if it has none
+    private Map<String, String> systemProfiles = new HashMap<>();
+
+    public String getProfileName(String externalSystemName) {
+        return systemProfiles.getOrDefault(externalSystemName.toLowerCase(), DEFAULT_PROFILE);
+    }
+
+    public TransportProfile getProfile(String externalSystemName) {
+        String profileName = getProfileName(externalSystemName);
+        TransportProfile profile = profiles.get(profileName);
+
+        if (profile == null) {
+            throw new IllegalStateException(String.format("Unknown HTTP transport profile '%s' for %s, known profiles: %s",
+                    profileName, externalSystemName, profiles.keySet()));
+        }
+
+        return profile;
+    }
+
+    /*
+     * Settings of the connection pool shared by all clients of an external system.
+     * More info: https://projectreactor.io/docs/netty/release/reference/index.html#connection-pool
+     */
+    @Getter
+    @Setter
+    public static class Pool {
+        // maximum number of connections per remote host
+        private int maxConnections = 50;
+        // maximum number of requests waiting for a connection when all connections are in use
+        private int pendingAcquireMaxCount = 1000;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(45);
+        // idle connections are closed after this time, before the remote server closes them on its side
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictionInterval = Duration.ofSeconds(30);
+    }
+
+    /*
+     * How the clients of an external system connect to it and exchange data with it.
+     * More info: https://projectreactor.io/docs/netty/release/reference/index.html#http-client
+     */
+    @Getter
+    @Setter
+    public static class TransportProfile {
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        // maximum time to wait for a response, and then between the reads of its body
+        private Duration responseTimeout = Duration.ofSeconds(30);
+        // overrides the max idle time of the connection pool if set
+        private Duration idleTimeout;
+        // negotiated with the server over TLS, falling back to HTTP/1.1 if the server doesn't support it
+        private boolean http2 = false;
+        // requests gzip/deflate compressed responses
+        private boolean compression = true;
+        // maximum size of a response body which is decoded as a whole, e.g. a JSON array
+        private DataSize maxInMemorySize = DataSize.ofKilobytes(256);
+        // epoll on Linux, if available; NIO otherwise
+        private boolean nativeTransport = true;
+    }
+}
@@ -0,0 +1,245 @@
+package com.quickbase.datatransfer.gateway.client;
+
+import com.quickbase.datatransfer.gateway.circuitbreaker.CircuitBreakerRegistry;
+import com.quickbase.datatransfer.gateway.hedging.RequestHedging;
+import com.quickbase.datatransfer.gateway.metrics.GatewayMetrics;
+import com.quickbase.datatransfer.gateway.ratelimit.RateLimitScheduler;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.HttpResources;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/*
+ * Creating a WebClient per request means a new connection (and TLS handshake) per request. Instead, this registry
+ * caches one WebClient per external system, base URL and credential, and all WebClients of an external system
+ * share a single connection pool, so connections are reused across transfers. The transport of the clients (timeouts,
+ * HTTP/2, compression etc.) is set by the transport profile of their external system.
+ */
+@Slf4j
+@Component
+public class WebClientRegistry implements DisposableBean {
+    // set by credential filters to the hash of the credential they authenticate the request with, see hashCredential
+    public static final String CREDENTIAL_ATTRIBUTE = WebClientRegistry.class.getName() + ".credential";
+    // stands for the credential in the cache key of clients whose credential is picked for every exchange
+    private static final String PER_EXCHANGE_CREDENTIAL = "per-exchange";
+
+    private final HttpClientProperties properties;
+    private final RateLimitScheduler rateLimitScheduler;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final GatewayMetrics gatewayMetrics;
+    private final RequestHedging requestHedging;
+    private final Map<ClientKey, WebClient> webClients = new ConcurrentHashMap<>();
+    private final Map<String, ConnectionProvider> connectionProviders = new ConcurrentHashMap<>();
+    private final Map<PoolKey, ConnectionPoolMetrics> connectionPoolMetrics = new ConcurrentHashMap<>();
+
+    @Autowired
+    public WebClientRegistry(HttpClientProperties properties, RateLimitScheduler rateLimitScheduler,
+                             CircuitBreakerRegistry circuitBreakerRegistry, GatewayMetrics gatewayMetrics,
+                             RequestHedging requestHedging) {
+        this.properties = properties;
+        this.rateLimitScheduler = rateLimitScheduler;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.gatewayMetrics = gatewayMetrics;
+        this.requestHedging = requestHedging;
+    }
+
+    /**
+     * Returns the WebClient for the specified external system, base URL and credential, creating it on first use.
+     *
+     * @param externalSystemName The external system the client makes calls to
+     * @param baseUrl The base URL of the client
+     * @param credential The credential the client authenticates with. It's part of the cache key, so that clients
+     *                   with different credentials are not mixed up, but it's only kept in a hashed form
+     * @param customizer Applied to the WebClient builder when the client is created, e.g. to set default headers
+     * @return a WebClient sharing the connection pool of the external system, whose exchanges can be hedged, are
+     * scheduled according to the rate limit of the external system and credential, go through the circuit breaker of
+     * the external system and base URL, and are timed
+     */
+    public WebClient getWebClient(String externalSystemName, String baseUrl, String credential,
+                                  Consumer<WebClient.Builder> customizer) {
+        return getWebClient(new ClientKey(externalSystemName, baseUrl, hashCredential(credential)), null, customizer);
+    }
+
+    /**
+     * Returns the WebClient for the specified external system and base URL whose credential is picked anew for every
+     * exchange, e.g. from a pool of tokens, creating it on first use.
+     *
+     * @param externalSystemName The external system the client makes calls to
+     * @param baseUrl The base URL of the client
+     * @param credentialFilter Authenticates each exchange. It goes right after hedging, so that retries and hedges
+     *                         pick their own credential, and it must set {@link #CREDENTIAL_ATTRIBUTE} of the request
+     *                         to the hash of the credential it picks (see {@link #hashCredential(String)}), so that
+     *                         the exchange is rate limited under that credential
+     * @param customizer Applied to the WebClient builder when the client is created, e.g. to set default headers
+     */
+    public WebClient getWebClient(String externalSystemName, String baseUrl, ExchangeFilterFunction credentialFilter,
+                                  Consumer<WebClient.Builder> customizer) {
+        return getWebClient(new ClientKey(externalSystemName, baseUrl, PER_EXCHANGE_CREDENTIAL), credentialFilter,
+                customizer);
+    }
+
+    private WebClient getWebClient(ClientKey key, ExchangeFilterFunction credentialFilter,
+                                   Consumer<WebClient.Builder> customizer) {
+        String externalSystemName = key.externalSystemName();
+        String baseUrl = key.baseUrl();
+
+        return webClients.computeIfAbsent(key, __ -> {
+            String profileName = properties.getProfileName(externalSystemName);
+            HttpClientProperties.TransportProfile profile = properties.getProfile(externalSystemName);
+
+            log.info("Creating WebClient for {} with base URL '{}' and transport profile '{}'",
+                    externalSystemName, baseUrl, profileName);
+
+            HttpClient httpClient = createHttpClient(externalSystemName, baseUrl, profileName, profile);
+            WebClient.Builder builder = WebClient.builder()
+                    .baseUrl(baseUrl)
+                    .clientConnector(new ReactorClientHttpConnector(httpClient))
+                    .codecs(configurer -> configurer.defaultCodecs()
+                            .maxInMemorySize((int) profile.getMaxInMemorySize().toBytes()))
+                    // hedging goes first, so that hedges take rate limit permits like any other request
+                    .filter(requestHedging.filter(externalSystemName));
+            if (credentialFilter != null) {
+                builder.filter(credentialFilter);
+            }
+            builder.filter(rateLimitScheduler.filter(externalSystemName, request -> getCredentialKey(request, key)));
+            // the circuit breaker goes after the rate limiter, so that waiting for a permit doesn't make calls slow
+            if (circuitBreakerRegistry.isEnabled()) {
+                builder.filter(circuitBreakerRegistry.filter(externalSystemName, baseUrl));
+            }
+            // the metrics go last, so that they time the exchanges themselves
+            builder.filter(gatewayMetrics.filter(externalSystemName, profileName));
+            customizer.accept(builder);
+
+            return builder.build();
+        });
+    }
+
+    public List<ConnectionPoolStatistics> getConnectionPoolStatistics() {
+        return connectionPoolMetrics.entrySet().stream()
+                .map(entry -> {
+                    ConnectionPoolMetrics metrics = entry.getValue();
+                    return new ConnectionPoolStatistics(
+                            entry.getKey().poolName(),
+                            entry.getKey().remoteAddress(),
+                            metrics.acquiredSize(),
+                            metrics.allocatedSize(),
+                            metrics.idleSize(),
+                            metrics.pendingAcquireSize(),
+                            metrics.maxAllocatedSize(),
+                            metrics.maxPendingAcquireSize());
+                })
+                .sorted(Comparator.comparing((ConnectionPoolStatistics stats) -> stats.poolName)
+                        .thenComparing(stats -> stats.remoteAddress))
+                .toList();
+    }
+
+    public int getWebClientCount() {
+        return webClients.size();
+    }
+
+    @Override
+    public void destroy() {
+        connectionProviders.values().forEach(ConnectionProvider::dispose);
+        connectionProviders.clear();
+        webClients.clear();
+    }
+
+    private HttpClient createHttpClient(String externalSystemName, String baseUrl, String profileName,
+                                        HttpClientProperties.TransportProfile profile) {
+        HttpClient httpClient = HttpClient.create(getConnectionProvider(externalSystemName, profile))
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) profile.getConnectTimeout().toMillis())
+                .responseTimeout(profile.getResponseTimeout())
+                .compress(profile.isCompression())
+                .runOn(HttpResources.get(), profile.isNativeTransport())
+                // counts the bytes on the wire, i.e. compressed and encrypted, before anything else handles them
+                .doOnChannelInit((observer, channel, remoteAddress) -> channel.pipeline()
+                        .addFirst(gatewayMetrics.wireBytesHandler(externalSystemName, profileName)));
+
+        // HTTP/2 is only negotiated over TLS
+        if (profile.isHttp2() && baseUrl.startsWith("https:")) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        return httpClient;
+    }
+
+    private ConnectionProvider getConnectionProvider(String externalSystemName,
+                                                     HttpClientProperties.TransportProfile profile) {
+        return connectionProviders.computeIfAbsent(externalSystemName, systemName -> {
+            HttpClientProperties.Pool pool = properties.getPool();
+            String poolName = systemName.toLowerCase();
+
+            log.info("Creating connection pool '{}' with max {} connections per host", poolName, pool.getMaxConnections());
+
+            return ConnectionProvider.builder(poolName)
+                    .maxConnections(pool.getMaxConnections())
+                    .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+                    .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                    .maxIdleTime(profile.getIdleTimeout() != null ? profile.getIdleTimeout() : pool.getMaxIdleTime())
+                    .maxLifeTime(pool.getMaxLifeTime())
+                    .evictInBackground(pool.getEvictionInterval())
+                    .metrics(true, () -> new ConnectionPoolMetricsRegistrar())
+                    .build();
+        });
+    }
+
+    private String getCredentialKey(ClientRequest request, ClientKey key) {
+        return request.attribute(CREDENTIAL_ATTRIBUTE)
+                .map(String.class::cast)
+                .orElse(key.credentialHash());
+    }
+
+    // identifies a credential without revealing it, e.g. in cache keys or in cached data which depends on it
+    public static String hashCredential(String credential) {
+        if (credential == null) {
+            return null;
+        }
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(credential.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+        }
+    }
+
+    // reactor netty creates a separate pool per remote address and registers its metrics here
+    private class ConnectionPoolMetricsRegistrar implements ConnectionProvider.MeterRegistrar {
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+            connectionPoolMetrics.put(new PoolKey(poolName, id, String.valueOf(remoteAddress)), metrics);
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            connectionPoolMetrics.remove(new PoolKey(poolName, id, String.valueOf(remoteAddress)));
+        }
+    }
+
+    private record ClientKey(String externalSystemName, String baseUrl, String credentialHash) {
+    }
+
+    private record PoolKey(String poolName, String id, String remoteAddress) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.quickbase.datatransfer.gateway.freshdesk;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+
+/*
+ * A memory-compact multimap from contact name to contact ID(s).
+ *
+ * Instead of keeping the names themselves, each entry keeps a 64-bit hash of the name next to the contact ID in two
+ * parallel long arrays (open addressing with linear probing), i.e. ~16 bytes per slot and no objects per entry.
+ * A few million contacts fit in a few dozen MB. The probability of two different names in the index having the
+ * same 64-bit hash is negligible for this size, so a hash match is treated as a name match.
+ */
+class ContactNameIndex {
+    private static final int SNAPSHOT_MAGIC = 0x46444349; // "FDCI"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final long EMPTY = 0L; // Freshdesk contact IDs are positive, so 0 and -1 are free to be used as markers
+    private static final long TOMBSTONE = -1L;
+    private static final int MIN_CAPACITY = 1024;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    private long[] nameHashes;
+    private long[] ids;
+    private int size;
+    private int tombstones;
+
+    ContactNameIndex() {
+        this(MIN_CAPACITY);
+    }
+
+    private ContactNameIndex(int capacity) {
+        nameHashes = new long[capacity];
+        ids = new long[capacity];
+    }
+
+    synchronized void add(String name, long id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Contact ID must be positive, but was " + id);
+        }
+
+        if (size + tombstones + 1 > nameHashes.length * MAX_LOAD_FACTOR) {
+            // grow only if the table is full of live entries, otherwise just get rid of the tombstones
+            resize(size + 1 > nameHashes.length / 2 ? nameHashes.length * 2 : nameHashes.length);
+        }
+
+        insert(hash(name), id);
+    }
+
+    synchronized long[] get(String name) {
+        long nameHash = hash(name);
+        long[] result = new long[0];
+        int mask = nameHashes.length - 1;
+
+        for (int slot = slotOf(nameHash, mask); ids[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (ids[slot] != TOMBSTONE && nameHashes[slot] == nameHash) {
+                result = Arrays.copyOf(result, result.length + 1);
+                result[result.length - 1] = ids[slot];
+            }
+        }
+
+        return result;
+    }
+
+    // removes all entries of the specified contacts, e.g. before re-adding them with their current names
+    synchronized void removeIds(Set<Long> idsToRemove) {
+        if (idsToRemove.isEmpty()) {
+            return;
+        }
+
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (ids[slot] > 0 && idsToRemove.contains(ids[slot])) {
+                ids[slot] = TOMBSTONE;
+                size--;
+                tombstones++;
+            }
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(size);
+
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (ids[slot] > 0) {
+                out.writeLong(nameHashes[slot]);
+                out.writeLong(ids[slot]);
+            }
+        }
+    }
+
+    static ContactNameIndex readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Not a contact index snapshot or unsupported snapshot version");
+        }
+
+        int entries = in.readInt();
+        ContactNameIndex index = new ContactNameIndex(capacityFor(entries));
+
+        for (int i = 0; i < entries; i++) {
+            index.insert(in.readLong(), in.readLong());
+        }
+
+        return index;
+    }
+
+    private void insert(long nameHash, long id) {
+        int mask = nameHashes.length - 1;
+        int freeSlot = -1;
+        int slot = slotOf(nameHash, mask);
+
+        for (; ids[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (ids[slot] == TOMBSTONE) {
+                if (freeSlot < 0) {
+                    freeSlot = slot;
+                }
+            } else if (ids[slot] == id && nameHashes[slot] == nameHash) {
+                return; // already indexed
+            }
+        }
+
+        if (freeSlot < 0) {
+            freeSlot = slot;
+        } else {
+            tombstones--;
+        }
+
+        nameHashes[freeSlot] = nameHash;
+        ids[freeSlot] = id;
+        size++;
+    }
+
+    private void resize(int capacity) {
+        long[] oldNameHashes = nameHashes;
+        long[] oldIds = ids;
+
+        nameHashes = new long[capacity];
+        ids = new long[capacity];
+        size = 0;
+        tombstones = 0;
+
+        for (int slot = 0; slot < oldIds.length; slot++) {
+            if (oldIds[slot] > 0) {
+                insert(oldNameHashes[slot], oldIds[slot]);
+            }
+        }
+    }
+
+    private static int capacityFor(int entries) {
+        int capacity = MIN_CAPACITY;
+        while (entries + 1 > capacity * MAX_LOAD_FACTOR) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    private static int slotOf(long nameHash, int mask) {
+        // the low bits of FNV hashes of similar names are close to each other, so mix them before masking
+        long mixed = nameHash * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 32) & mask;
+    }
+
+    // 64-bit FNV-1a hash of the name's characters
+    static long hash(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            hash ^= (c & 0xff);
+            hash *= 0x100000001b3L;
+            hash ^= (c >>> 8);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,253 @@
+package com.quickbase.datatransfer.gateway.freshdesk;
+
+import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskContactResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/*
+ * A local, per-domain index of Freshdesk contact name -> contact ID(s), used instead of calling the autocomplete API
+ * before every upload.
+ *
+ * The index of a domain is built once by listing all contacts of the domain and is then kept up to date by listing
+ * only the contacts updated since the last sync, as well as by recording the contacts created and updated by this app.
+ * It is saved to disk after each sync, so that a restart only has to fetch the changes since the snapshot was taken.
+ */
+@Slf4j
+@Component
+public class FreshdeskContactIndex {
+    private final FreshdeskProperties.ContactIndex properties;
+    private final Map<String, DomainIndex> domainIndexes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FreshdeskContactIndex(FreshdeskProperties properties) {
+        this.properties = properties.getContactIndex();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Finds the IDs of the contacts with the specified name, bringing the index of the domain up to date first if needed.
+     *
+     * @param domain The Freshdesk domain
+     * @param name The exact name of the contacts
+     * @param contactLister Lists the contacts of the domain which were updated since the specified time, or all
+     *                      contacts if the time is null
+     * @return a {@link Mono} emitting the IDs of the matching contacts
+     */
+    public Mono<List<Long>> findContactIds(String domain, String name,
+                                           Function<Instant, Flux<FreshdeskContactResponse>> contactLister) {
+        return Mono.defer(() -> getDomainIndex(domain).refreshIfNeeded(contactLister))
+                .then(Mono.fromCallable(() -> Arrays.stream(getDomainIndex(domain).index.get(name)).boxed().toList()));
+    }
+
+    // keeps the index up to date with the contacts created by this app, so that they are found before the next sync
+    public void recordContact(String domain, String name, Long id) {
+        if (!isEnabled() || name == null || id == null) {
+            return;
+        }
+
+        getDomainIndex(domain).record(name, id);
+    }
+
+    /*
+     * Keeps the index up to date with the contacts updated by this app, whose name might have changed. Otherwise the
+     * old name would keep pointing at the contact until the next sync, and another contact looked for by that name
+     * would be resolved to it.
+     */
+    public void recordUpdatedContact(String domain, String name, Long id) {
+        if (!isEnabled() || name == null || id == null) {
+            return;
+        }
+
+        getDomainIndex(domain).recordUpdate(name, id);
+    }
+
+    private DomainIndex getDomainIndex(String domain) {
+        return domainIndexes.computeIfAbsent(domain, DomainIndex::new);
+    }
+
+    private class DomainIndex {
+        private final String domain;
+        private final Path snapshotPath;
+        private volatile ContactNameIndex index = new ContactNameIndex();
+        private volatile Instant syncedAt;
+        private volatile Instant builtAt;
+        private Mono<Void> refreshInProgress;
+        // the contacts recorded while the index is being rebuilt, which would otherwise be missing from the new index
+        private List<FreshdeskContactResponse> recordedDuringRebuild;
+
+        private DomainIndex(String domain) {
+            this.domain = domain;
+            this.snapshotPath = Path.of(properties.getSnapshotDirectory(), domain + ".idx");
+        }
+
+        private synchronized void record(String name, long id) {
+            index.add(name, id);
+            if (recordedDuringRebuild != null) {
+                recordedDuringRebuild.add(new FreshdeskContactResponse(id, name));
+            }
+        }
+
+        private synchronized void recordUpdate(String name, long id) {
+            // the name is usually unchanged, which spares going through the whole index for the old entry
+            if (Arrays.stream(index.get(name)).noneMatch(indexedId -> indexedId == id)) {
+                index.removeIds(Set.of(id));
+                index.add(name, id);
+            }
+            if (recordedDuringRebuild != null) {
+                recordedDuringRebuild.add(new FreshdeskContactResponse(id, name));
+            }
+        }
+
+        private synchronized Mono<Void> refreshIfNeeded(Function<Instant, Flux<FreshdeskContactResponse>> contactLister) {
+            if (refreshInProgress != null) {
+                return refreshInProgress;
+            }
+
+            if (syncedAt == null) {
+                loadSnapshot();
+            }
+
+            Instant now = Instant.now();
+            if (syncedAt != null && syncedAt.plus(properties.getRefreshInterval()).isAfter(now)) {
+                return Mono.empty();
+            }
+
+            boolean rebuild = builtAt == null || builtAt.plus(properties.getRebuildInterval()).isBefore(now);
+
+            // concurrent callers share the same sync, which is dropped once it's done so that the next one can start
+            refreshInProgress = (rebuild ? rebuild(contactLister, now) : sync(contactLister, now))
+                    .doFinally(__ -> {
+                        synchronized (this) {
+                            refreshInProgress = null;
+                        }
+                    })
+                    .cache();
+
+            return refreshInProgress;
+        }
+
+        private Mono<Void> rebuild(Function<Instant, Flux<FreshdeskContactResponse>> contactLister, Instant startedAt) {
+            ContactNameIndex newIndex = new ContactNameIndex();
+
+            return Mono.defer(() -> {
+                        log.info("Building index of Freshdesk contacts in domain '{}'...", domain);
+                        synchronized (this) {
+                            recordedDuringRebuild = new ArrayList<>();
+                        }
+
+                        return contactLister.apply(null)
+                                .filter(contact -> contact.id != null && contact.name != null)
+                                .doOnNext(contact -> newIndex.add(contact.name, contact.id))
+                                .then(Mono.fromRunnable(() -> {
+                                    synchronized (this) {
+                                        // the listing might have been taken before a recorded contact was renamed
+                                        Set<Long> recordedIds = new HashSet<>();
+                                        recordedDuringRebuild.forEach(contact -> recordedIds.add(contact.id));
+                                        newIndex.removeIds(recordedIds);
+                                        recordedDuringRebuild.forEach(contact -> newIndex.add(contact.name, contact.id));
+                                        recordedDuringRebuild = null;
+                                        index = newIndex;
+                                    }
+                                    builtAt = startedAt;
+                                    syncedAt = startedAt;
+                                    log.info("Built index of {} Freshdesk contact(s) in domain '{}'",
+                                            newIndex.size(), domain);
+                                }));
+                    })
+                    .doFinally(__ -> {
+                        synchronized (this) {
+                            recordedDuringRebuild = null;
+                        }
+                    })
+                    .then(saveSnapshot());
+        }
+
+        private Mono<Void> sync(Function<Instant, Flux<FreshdeskContactResponse>> contactLister, Instant startedAt) {
+            log.info("Syncing index of Freshdesk contacts in domain '{}' with contacts updated since {}...",
+                    domain, syncedAt);
+
+            return contactLister.apply(syncedAt)
+                    .filter(contact -> contact.id != null && contact.name != null)
+                    .collectList()
+                    .doOnNext(updatedContacts -> {
+                        // the name of an updated contact might have changed, so drop its old entry first
+                        Set<Long> updatedIds = new HashSet<>();
+                        updatedContacts.forEach(contact -> updatedIds.add(contact.id));
+                        index.removeIds(updatedIds);
+                        updatedContacts.forEach(contact -> index.add(contact.name, contact.id));
+
+                        syncedAt = startedAt;
+                        log.info("Synced index of Freshdesk contacts in domain '{}' with {} updated contact(s)",
+                                domain, updatedContacts.size());
+                    })
+                    .then(saveSnapshot());
+        }
+
+        private void loadSnapshot() {
+            if (!Files.exists(snapshotPath)) {
+                return;
+            }
+
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+                Instant snapshotBuiltAt = Instant.ofEpochMilli(in.readLong());
+                Instant snapshotSyncedAt = Instant.ofEpochMilli(in.readLong());
+                index = ContactNameIndex.readFrom(in);
+                builtAt = snapshotBuiltAt;
+                syncedAt = snapshotSyncedAt;
+
+                log.info("Loaded index of {} Freshdesk contact(s) in domain '{}' synced at {} from '{}'",
+                        index.size(), domain, syncedAt, snapshotPath);
+            } catch (IOException e) {
+                log.warn("Failed to load index of Freshdesk contacts from '{}', it will be rebuilt:", snapshotPath, e);
+            }
+        }
+
+        private Mono<Void> saveSnapshot() {
+            return Mono.<Void>fromRunnable(() -> {
+                        try {
+                            Files.createDirectories(snapshotPath.getParent());
+                            Path tempPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+
+                            try (DataOutputStream out = new DataOutputStream(
+                                    new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+                                out.writeLong(builtAt.toEpochMilli());
+                                out.writeLong(syncedAt.toEpochMilli());
+                                index.writeTo(out);
+                            }
+
+                            Files.move(tempPath, snapshotPath,
+                                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        } catch (IOException e) {
+                            // the index is still usable, it would just have to be rebuilt after a restart
+                            log.warn("Failed to save index of Freshdesk contacts to '{}':", snapshotPath, e);
+                        }
+                    })
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+    }
+}
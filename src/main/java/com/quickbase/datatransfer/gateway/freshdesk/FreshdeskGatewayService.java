@@ -4,30 +4,54 @@ import com.quickbase.datatransfer.common.ConfigPropertyProvider;
 import com.quickbase.datatransfer.data.UserData;
 import com.quickbase.datatransfer.exception.AmbiguousDataException;
 import com.quickbase.datatransfer.exception.HttpRequestFailedException;
+import com.quickbase.datatransfer.exception.ImportFailedException;
 import com.quickbase.datatransfer.exception.InvalidDataException;
 import com.quickbase.datatransfer.exception.MissingExternalSystemParamException;
 import com.quickbase.datatransfer.exception.UnauthorizedOperationException;
+import com.quickbase.datatransfer.gateway.client.WebClientRegistry;
+import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskContactImportResponse;
 import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskContactResponse;
 import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskContactRequest;
 import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskErrorResponse;
+import com.quickbase.datatransfer.gateway.metrics.GatewayMetrics;
+import com.quickbase.datatransfer.gateway.retry.RetryPolicyRegistry;
+import com.quickbase.datatransfer.gateway.singleflight.SingleFlight;
 import com.quickbase.datatransfer.gateway.util.WebUtils;
 import com.quickbase.datatransfer.common.DataType;
 import com.quickbase.datatransfer.service.DataTypeToDataClassMatcher;
 import com.quickbase.datatransfer.service.DataUploader;
 import com.quickbase.datatransfer.service.TransferrerTypeChecker;
+import com.quickbase.datatransfer.service.model.UploadResult;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.logging.log4j.util.Strings;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-
+import reactor.util.retry.Retry;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -36,14 +60,28 @@ public class FreshdeskGatewayService {
     public static final String EXTERNAL_SYSTEM_NAME = "Freshdesk";
     public static final String CONTACTS_API_PATH = "/api/v2/contacts";
     public static final String SEARCH_CONTACTS_API_PATH = CONTACTS_API_PATH + "/autocomplete?term=";
+    public static final String CONTACT_IMPORTS_API_PATH = CONTACTS_API_PATH + "/imports";
+    // the filters of the contacts API which match a single contact exactly
+    public static final String UNIQUE_EXTERNAL_ID_FILTER = "unique_external_id";
+    public static final String EMAIL_FILTER = "email";
+    private static final String NAME_KEY = "name";
     private static final String FRESHDESK_API_BASE_URL_FORMAT = "https://%s.freshdesk.com";
     private static final String AUTH_TOKEN = "FRESHDESK_TOKEN";
+    // the maximum page size supported by Freshdesk
+    private static final int CONTACTS_PAGE_SIZE = 100;
+    private static final MediaType CSV_MEDIA_TYPE = new MediaType("text", "csv");
 
     public static abstract class FreshdeskDataProcessorBase implements TransferrerTypeChecker {
         private final ConfigPropertyProvider configPropertyProvider;
+        private final WebClientRegistry webClientRegistry;
+        private final RetryPolicyRegistry retryPolicyRegistry;
 
-        protected FreshdeskDataProcessorBase(ConfigPropertyProvider configPropertyProvider) {
+        protected FreshdeskDataProcessorBase(ConfigPropertyProvider configPropertyProvider,
+                                             WebClientRegistry webClientRegistry,
+                                             RetryPolicyRegistry retryPolicyRegistry) {
             this.configPropertyProvider = configPropertyProvider;
+            this.webClientRegistry = webClientRegistry;
+            this.retryPolicyRegistry = retryPolicyRegistry;
         }
 
         @Override
@@ -67,45 +105,169 @@ public class FreshdeskGatewayService {
 
             return authToken;
         }
+
+        protected WebClient getWebClient(String baseUrl, String authToken) {
+            return webClientRegistry.getWebClient(EXTERNAL_SYSTEM_NAME, baseUrl, authToken, builder -> builder
+                    .defaultHeader(HttpHeaders.AUTHORIZATION, authToken));
+        }
+
+        protected Retry getRetryPolicy() {
+            return retryPolicyRegistry.retryFor(EXTERNAL_SYSTEM_NAME);
+        }
     }
 
     @Service
     public static class UserDataUploader extends FreshdeskDataProcessorBase implements DataUploader<UserData> {
+        private final FreshdeskContactIndex contactIndex;
+        private final FreshdeskProperties freshdeskProperties;
+        private final SingleFlight singleFlight;
+
         @Autowired
-        protected UserDataUploader(ConfigPropertyProvider configPropertyProvider) {
-            super(configPropertyProvider);
+        protected UserDataUploader(ConfigPropertyProvider configPropertyProvider, WebClientRegistry webClientRegistry,
+                                   RetryPolicyRegistry retryPolicyRegistry, FreshdeskContactIndex contactIndex,
+                                   FreshdeskProperties freshdeskProperties, SingleFlight singleFlight) {
+            super(configPropertyProvider, webClientRegistry, retryPolicyRegistry);
+            this.contactIndex = contactIndex;
+            this.freshdeskProperties = freshdeskProperties;
+            this.singleFlight = singleFlight;
         }
 
         @Override
         public Mono<Void> uploadData(Map<String, String> params, UserData data) {
-            if (data == null || Strings.isBlank(data.name)) {
-                return Mono.error(new InvalidDataException("Can't create/update Freshdesk contact: missing name in data for upload."));
+            return createOrUpdateContact(params, data).then();
+        }
+
+        /*
+         * A contact the data was uploaded to before is updated by its id, without looking for it. If it no longer
+         * exists, it's looked for (and created if not found) as usual.
+         */
+        @Override
+        public Mono<String> uploadData(Map<String, String> params, UserData data, String knownDestinationId) {
+            Long knownContactId = parseContactId(knownDestinationId);
+
+            if (knownContactId == null || data == null || Strings.isBlank(data.name)) {
+                return createOrUpdateContact(params, data).map(String::valueOf);
             }
 
-            return Mono.fromCallable(() -> {
-                        String freshdeskDomain = getDomain(params);
-                        String baseUrl = getApiBaseUrl(freshdeskDomain);
-                        String authToken = getAuthToken();
+            return Mono.fromCallable(() -> getDomain(params))
+                    .flatMap(freshdeskDomain -> {
+                        WebClient webClient = getWebClient(getApiBaseUrl(freshdeskDomain), getAuthToken());
+
+                        return updateExistingContact(webClient, transformFromAppData(data), knownContactId, data.name)
+                                .then(Mono.fromRunnable(() -> contactIndex.recordUpdatedContact(
+                                        freshdeskDomain, data.name, knownContactId)))
+                                .thenReturn(knownDestinationId)
+                                .onErrorResume(
+                                        ex -> isNotFoundError(ex),
+                                        ex -> {
+                                            log.warn("Freshdesk contact with id '{}' no longer exists, looking for contact of '{}'",
+                                                    knownContactId, data.name);
+                                            return createOrUpdateContact(params, data).map(String::valueOf);
+                                        });
+                    });
+        }
+
+        /*
+         * Uploads the contacts with a single CSV import job instead of a request per contact. Freshdesk matches
+         * imported contacts to existing ones by email or unique external id (rather than by name, like the
+         * one-by-one upload does) and doesn't report the ids of the contacts, so the results carry none.
+         */
+        @Override
+        public Mono<List<UploadResult>> uploadDataBatch(Map<String, String> params, List<UserData> dataList) {
+            UploadResult[] results = new UploadResult[dataList.size()];
+            // the index in the data list of each row of the CSV
+            List<Integer> rowIndexes = new ArrayList<>();
+
+            for (int i = 0; i < dataList.size(); i++) {
+                UserData data = dataList.get(i);
+                if (data == null || Strings.isBlank(data.name)) {
+                    results[i] = UploadResult.failed(new InvalidDataException(
+                            "Can't import Freshdesk contact: missing name in data for upload."));
+                } else {
+                    rowIndexes.add(i);
+                }
+            }
+
+            if (rowIndexes.isEmpty()) {
+                return Mono.just(Arrays.asList(results));
+            }
+
+            List<FreshdeskContactRequest> contacts = rowIndexes.stream()
+                    .map(i -> transformFromAppData(dataList.get(i)))
+                    .toList();
 
-                        return createWebClient(baseUrl, authToken);
+            return Mono.fromCallable(() -> getDomain(params))
+                    .flatMap(freshdeskDomain -> {
+                        WebClient webClient = getWebClient(getApiBaseUrl(freshdeskDomain), getAuthToken());
+
+                        return startContactImport(webClient, contacts)
+                                .flatMap(importId -> awaitContactImport(webClient, importId));
                     })
-                    .flatMap(webClient -> searchContactsByName(webClient, data.name)
-                            .flatMap(contacts -> {
-                                if (contacts != null && contacts.size() > 1) {
-                                    return Mono.error(new AmbiguousDataException(
-                                            String.format("Found more than one Freshdesk contact with name '%s'. " +
-                                                    "Can't define which contact to update.", data.name),
-                                            EXTERNAL_SYSTEM_NAME));
-                                }
+                    .map(contactImport -> {
+                        Map<Integer, String> rowErrors = contactImport.failedRows == null ? Map.of() :
+                                contactImport.failedRows.stream()
+                                        .filter(failedRow -> failedRow.rowNumber != null)
+                                        .collect(Collectors.toMap(failedRow -> failedRow.rowNumber,
+                                                failedRow -> String.valueOf(failedRow.error), (first, second) -> first));
+
+                        for (int row = 1; row <= rowIndexes.size(); row++) {
+                            String rowError = rowErrors.get(row);
+                            results[rowIndexes.get(row - 1)] = rowError == null ?
+                                    UploadResult.succeeded(null) :
+                                    UploadResult.failed(new ImportFailedException(String.format(
+                                            "Freshdesk rejected contact '%s': %s", contacts.get(row - 1).name,
+                                            rowError), EXTERNAL_SYSTEM_NAME));
+                        }
 
-                                FreshdeskContactRequest contact = transformFromAppData(data);
+                        return Arrays.asList(results);
+                    });
+        }
 
-                                if (contacts != null && contacts.size() == 1) {
-                                    return updateExistingContact(webClient, contact, contacts.get(0).id, data.name);
-                                }
+        @Override
+        public int getMaxBatchSize() {
+            FreshdeskProperties.ContactImport contactImport = freshdeskProperties.getContactImport();
+            return contactImport.isEnabled() ? contactImport.getBatchSize() : 1;
+        }
+
+        // emits the id of the created or updated contact
+        private Mono<Long> createOrUpdateContact(Map<String, String> params, UserData data) {
+            if (data == null || Strings.isBlank(data.name)) {
+                return Mono.error(new InvalidDataException("Can't create/update Freshdesk contact: missing name in data for upload."));
+            }
 
-                                return createContact(webClient, contact);
-                            }));
+            return Mono.fromCallable(() -> getDomain(params))
+                    .flatMap(freshdeskDomain -> {
+                        String baseUrl = getApiBaseUrl(freshdeskDomain);
+                        String authToken = getAuthToken();
+                        WebClient webClient = getWebClient(baseUrl, authToken);
+
+                        return resolveContacts(webClient, freshdeskDomain, data)
+                                .flatMap(resolvedContacts -> {
+                                    List<FreshdeskContactResponse> contacts = resolvedContacts.contacts();
+                                    if (contacts.size() > 1) {
+                                        return Mono.error(new AmbiguousDataException(
+                                                String.format("Found more than one Freshdesk contact with %s '%s'. " +
+                                                                "Can't define which contact to update.",
+                                                        resolvedContacts.key(), resolvedContacts.value()),
+                                                EXTERNAL_SYSTEM_NAME));
+                                    }
+
+                                    FreshdeskContactRequest contact = transformFromAppData(data);
+
+                                    if (contacts.size() == 1) {
+                                        Long contactId = contacts.get(0).id;
+                                        return updateExistingContact(webClient, contact, contactId, data.name)
+                                                .then(Mono.fromRunnable(() -> contactIndex.recordUpdatedContact(
+                                                        freshdeskDomain, data.name, contactId)))
+                                                .then(Mono.justOrEmpty(contactId));
+                                    }
+
+                                    return createContact(webClient, contact)
+                                            .doOnNext(createdContact -> contactIndex.recordContact(
+                                                    freshdeskDomain, data.name, createdContact.id))
+                                            .mapNotNull(createdContact -> createdContact.id);
+                                });
+                    });
         }
 
         @Override
@@ -114,27 +276,98 @@ public class FreshdeskGatewayService {
         }
 
         /*
-         * Searching for contacts by name since it's the only mandatory attribute when creating a contact. The only
-         * other mandatory attribute is one of the following: email, phone, mobile, twitter_id, unique_external_id,
-         * so we can't count on any of them to search for the user. Also, name is not unique, so we might get more
-         * than one result in the response. More info: https://developers.freshdesk.com/api/#create_contact
+         * Looks for the existing contact of the data with the strategies of the contact resolution chain, in order,
+         * until one of them finds any. A strategy is skipped if the data has no value for its key. Exact lookups by
+         * unique external id or email are cheaper and are rarely ambiguous, unlike the search by name.
          */
-        private Mono<List<FreshdeskContactResponse>> searchContactsByName(WebClient webClient, String name) {
+        private Mono<ResolvedContacts> resolveContacts(WebClient webClient, String freshdeskDomain, UserData data) {
+            return Flux.fromIterable(freshdeskProperties.getContactResolution())
+                    .concatMap(strategy -> resolveContacts(webClient, freshdeskDomain, data, strategy)
+                            .filter(resolvedContacts -> !resolvedContacts.contacts().isEmpty()))
+                    .next()
+                    .defaultIfEmpty(new ResolvedContacts(NAME_KEY, data.name, List.of()));
+        }
+
+        private Mono<ResolvedContacts> resolveContacts(WebClient webClient, String freshdeskDomain, UserData data,
+                                                       FreshdeskProperties.ContactResolution strategy) {
+            return switch (strategy) {
+                case UNIQUE_EXTERNAL_ID -> findContactsBy(webClient, freshdeskDomain, UNIQUE_EXTERNAL_ID_FILTER,
+                        data.externalId)
+                        .map(contacts -> new ResolvedContacts(UNIQUE_EXTERNAL_ID_FILTER, data.externalId, contacts));
+                case EMAIL -> findContactsBy(webClient, freshdeskDomain, EMAIL_FILTER, data.email)
+                        .map(contacts -> new ResolvedContacts(EMAIL_FILTER, data.email, contacts));
+                case NAME -> findContactsByName(webClient, freshdeskDomain, data.name)
+                        .map(contacts -> new ResolvedContacts(NAME_KEY, data.name, contacts));
+            };
+        }
+
+        // lists the contacts whose value of the filter is exactly the specified one, e.g. /api/v2/contacts?email=...
+        private Mono<List<FreshdeskContactResponse>> findContactsBy(WebClient webClient, String freshdeskDomain,
+                                                                    String filter, String value) {
+            if (Strings.isBlank(value)) {
+                return Mono.empty();
+            }
+
             ParameterizedTypeReference<List<FreshdeskContactResponse>> responseType =
                     new ParameterizedTypeReference<>() {};
+
+            // concurrent lookups of the same contact in a domain share a single request
+            return singleFlight.execute(EXTERNAL_SYSTEM_NAME, GatewayMetrics.OPERATION_SEARCH,
+                    freshdeskDomain.toLowerCase(Locale.ROOT) + "/" + filter + "=" + value,
+                    () -> {
+                        log.info("Looking for Freshdesk contact with {} '{}'...", filter, value);
+
+                        return webClient.get()
+                                .uri(uriBuilder -> uriBuilder.path(CONTACTS_API_PATH)
+                                        .queryParam(filter, "{value}")
+                                        .build(value))
+                                .attribute(GatewayMetrics.OPERATION_ATTRIBUTE, GatewayMetrics.OPERATION_SEARCH)
+                                .exchangeToMono(clientResponse -> handleHttpError(clientResponse)
+                                        .flatMap(response -> response.bodyToMono(responseType)))
+                                .defaultIfEmpty(List.of())
+                                .retryWhen(getRetryPolicy())
+                                .doOnSuccess(contacts -> log.info("Found {} Freshdesk contact(s) with {} '{}'",
+                                        contacts.size(), filter, value))
+                                .doOnError(ex -> log.error("Looking for Freshdesk contact with {} '{}' failed:",
+                                        filter, value, ex));
+                    });
+        }
+
+        /*
+         * Searching for contacts by name is the last resort, since it's the only mandatory attribute when creating
+         * a contact. The only other mandatory attribute is one of the following: email, phone, mobile, twitter_id,
+         * unique_external_id, so we can't count on any of them being set, e.g. for contacts created by someone else.
+         * Also, name is not unique, so we might get more than one result in the response.
+         * More info: https://developers.freshdesk.com/api/#create_contact
+         */
+        private Mono<List<FreshdeskContactResponse>> findContactsByName(WebClient webClient, String freshdeskDomain,
+                                                                        String name) {
+            if (!contactIndex.isEnabled()) {
+                // concurrent searches for the same name in a domain share a single request
+                return singleFlight.execute(EXTERNAL_SYSTEM_NAME, GatewayMetrics.OPERATION_SEARCH,
+                        freshdeskDomain.toLowerCase(Locale.ROOT) + "/" + name,
+                        () -> searchContactsByName(webClient, name));
+            }
+
+            return contactIndex.findContactIds(freshdeskDomain, name, updatedSince -> listContacts(webClient, updatedSince))
+                    .map(ids -> ids.stream()
+                            .map(id -> new FreshdeskContactResponse(id, name))
+                            .toList())
+                    .doOnSuccess(contacts -> log.info("Found {} Freshdesk contact(s) matching name '{}' in the contact index",
+                            contacts.size(), name));
+        }
+
+        private Mono<List<FreshdeskContactResponse>> searchContactsByName(WebClient webClient, String name) {
             String searchTerm = WebUtils.urlEncode(name);
 
             log.info("Searching for Freshdesk contacts by search term '{}'...", searchTerm);
 
             return webClient.get()
                     .uri(SEARCH_CONTACTS_API_PATH + searchTerm)
+                    .attribute(GatewayMetrics.OPERATION_ATTRIBUTE, GatewayMetrics.OPERATION_SEARCH)
                     .exchangeToMono(clientResponse -> handleHttpError(clientResponse)
-                            .flatMap(response -> response.bodyToMono(responseType)))
-                    .retryWhen(WebUtils.retryWithDefaultSettings())
-                    // result includes all contacts whose name starts with the search term, but we only care about exact matches
-                    .map(contacts -> contacts.stream()
-                            .filter(contact -> name.equals(contact.name))
-                            .collect(Collectors.toList()))
+                            .flatMap(response -> findExactMatches(response, name)))
+                    .retryWhen(getRetryPolicy())
                     .doOnSuccess(contacts -> {
                         if (contacts != null && !contacts.isEmpty()) {
                             log.info("Found {} Freshdesk contact(s) matching name '{}': {}",
@@ -147,7 +380,62 @@ public class FreshdeskGatewayService {
                             searchTerm, ex));
         }
 
-        private FreshdeskContactRequest transformFromAppData(UserData appData) {
+        /*
+         * The result includes all contacts whose name starts with the search term, but we only care about exact matches.
+         * The contacts are decoded one by one while the response is read, instead of as a whole list, and reading stops
+         * at the second exact match, since the name is ambiguous by then.
+         */
+        private Mono<List<FreshdeskContactResponse>> findExactMatches(ClientResponse response, String name) {
+            long maxBodySize = freshdeskProperties.getSearchMaxBodySize().toBytes();
+
+            return response.mutate()
+                    .body(body -> WebUtils.limitBodySize(body, maxBodySize))
+                    .build()
+                    .bodyToFlux(FreshdeskContactResponse.class)
+                    .filter(contact -> name.equals(contact.name))
+                    .take(2)
+                    .collectList();
+        }
+
+        // lists all contacts of the domain, or only the ones updated since the specified time if it's not null
+        private Flux<FreshdeskContactResponse> listContacts(WebClient webClient, Instant updatedSince) {
+            String firstPageUri = UriComponentsBuilder.fromPath(CONTACTS_API_PATH)
+                    .queryParam("per_page", CONTACTS_PAGE_SIZE)
+                    .queryParamIfPresent("updated_since", Optional.ofNullable(updatedSince))
+                    .build()
+                    .toUriString();
+
+            return getContactsPage(webClient, firstPageUri)
+                    .expand(page -> page.nextPageUrl() != null ?
+                            getContactsPage(webClient, page.nextPageUrl()) :
+                            Mono.empty())
+                    .concatMapIterable(ContactsPage::contacts, 1);
+        }
+
+        private Mono<ContactsPage> getContactsPage(WebClient webClient, String pageUri) {
+            ParameterizedTypeReference<List<FreshdeskContactResponse>> responseType =
+                    new ParameterizedTypeReference<>() {};
+
+            log.info("Getting page of Freshdesk contacts '{}'...", pageUri);
+
+            // the first page is relative to the base URL, the next ones come from the 'Link' header and are absolute
+            WebClient.RequestHeadersSpec<?> request = pageUri.startsWith("/") ?
+                    webClient.get().uri(pageUri) :
+                    webClient.get().uri(URI.create(pageUri));
+
+            return request
+                    .attribute(GatewayMetrics.OPERATION_ATTRIBUTE, GatewayMetrics.OPERATION_LIST)
+                    .exchangeToMono(clientResponse -> handleHttpError(clientResponse)
+                            .flatMap(response -> response.bodyToMono(responseType)
+                                    .defaultIfEmpty(List.of())
+                                    .map(contacts -> new ContactsPage(contacts,
+                                            WebUtils.getNextPageUrl(response.headers().asHttpHeaders())))))
+                    .retryWhen(getRetryPolicy())
+                    .doOnError(ex -> log.error("Getting page of Freshdesk contacts '{}' failed:", pageUri, ex));
+        }
+
+        // package-private for the benchmarks
+        static FreshdeskContactRequest transformFromAppData(UserData appData) {
             FreshdeskContactRequest contact = new FreshdeskContactRequest();
             contact.name = appData.name;
             contact.address = appData.address;
@@ -167,10 +455,11 @@ public class FreshdeskGatewayService {
 
             return webClient.put()
                     .uri(CONTACTS_API_PATH + "/" + id)
+                    .attribute(GatewayMetrics.OPERATION_ATTRIBUTE, GatewayMetrics.OPERATION_UPDATE)
                     .bodyValue(body)
                     .exchangeToMono(clientResponse -> handleHttpError(clientResponse)
                             .flatMap(response -> response.bodyToMono(Void.class)))
-                    .retryWhen(WebUtils.retryWithDefaultSettings())
+                    .retryWhen(getRetryPolicy())
                     .doOnSuccess(__ -> log.info("Successfully updated Freshdesk contact with name '{}' and id '{}'",
                             name, id))
                     .doOnError(ex -> log.error("Updating Freshdesk contact with name '{}' and id '{}' failed:",
@@ -178,31 +467,99 @@ public class FreshdeskGatewayService {
         }
 
 
-        private Mono<Void> createContact(WebClient webClient, FreshdeskContactRequest requestBody) {
+        private Mono<FreshdeskContactResponse> createContact(WebClient webClient, FreshdeskContactRequest requestBody) {
             log.info("Creating Freshdesk contact with name '{}'...", requestBody.name);
 
             return webClient.post()
                     .uri(CONTACTS_API_PATH)
+                    .attribute(GatewayMetrics.OPERATION_ATTRIBUTE, GatewayMetrics.OPERATION_CREATE)
                     .bodyValue(requestBody)
                     .exchangeToMono(clientResponse -> handleHttpError(clientResponse)
-                            .flatMap(response -> response.bodyToMono(Void.class)))
-                    .retryWhen(WebUtils.retryWithDefaultSettings())
+                            .flatMap(response -> response.bodyToMono(FreshdeskContactResponse.class)))
+                    .retryWhen(getRetryPolicy())
                     .doOnSuccess(__ -> log.info("Successfully created Freshdesk contact with name '{}'",
                             requestBody.name))
                     .doOnError(ex -> log.error("Creating Freshdesk contact with name '{}' failed:",
                             requestBody.name, ex));
         }
+
+        // emits the id of the started import job
+        private Mono<Long> startContactImport(WebClient webClient, List<FreshdeskContactRequest> contacts) {
+            MultipartBodyBuilder bodyBuilder = new MultipartBodyBuilder();
+            // the CSV is encoded row by row as it's being sent, instead of being built in memory as a whole
+            bodyBuilder.asyncPart("file", Flux.concat(
+                                    Mono.fromCallable(ContactImportCsv::header),
+                                    Flux.fromIterable(contacts).map(ContactImportCsv::row))
+                            .map(csv -> DefaultDataBufferFactory.sharedInstance.wrap(csv.getBytes(StandardCharsets.UTF_8))),
+                            DataBuffer.class)
+                    .filename("contacts.csv")
+                    .contentType(CSV_MEDIA_TYPE);
+            // maps each contact field to the index of its column
+            List<String> contactFields = ContactImportCsv.getContactFields();
+            for (int i = 0; i < contactFields.size(); i++) {
+                bodyBuilder.part("contact_fields[" + contactFields.get(i) + "]", String.valueOf(i));
+            }
+
+            log.info("Starting import of {} Freshdesk contact(s)...", contacts.size());
+
+            return webClient.post()
+                    .uri(CONTACT_IMPORTS_API_PATH)
+                    .attribute(GatewayMetrics.OPERATION_ATTRIBUTE, GatewayMetrics.OPERATION_IMPORT)
+                    .contentType(MediaType.MULTIPART_FORM_DATA)
+                    .body(BodyInserters.fromMultipartData(bodyBuilder.build()))
+                    .exchangeToMono(clientResponse -> handleHttpError(clientResponse)
+                            .flatMap(response -> response.bodyToMono(FreshdeskContactImportResponse.class)))
+                    .retryWhen(getRetryPolicy())
+                    .flatMap(contactImport -> contactImport.id != null ?
+                            Mono.just(contactImport.id) :
+                            Mono.error(new ImportFailedException("Freshdesk didn't return the id of the started " +
+                                    "contact import.", EXTERNAL_SYSTEM_NAME)))
+                    .doOnSuccess(importId -> log.info("Started Freshdesk contact import '{}'", importId))
+                    .doOnError(ex -> log.error("Starting import of {} Freshdesk contact(s) failed:",
+                            contacts.size(), ex));
+        }
+
+        // polls the import job until it finishes, emitting its final status
+        private Mono<FreshdeskContactImportResponse> awaitContactImport(WebClient webClient, Long importId) {
+            FreshdeskProperties.ContactImport importProperties = freshdeskProperties.getContactImport();
+
+            return Mono.defer(() -> getContactImport(webClient, importId))
+                    .filter(FreshdeskContactImportResponse::isFinished)
+                    .repeatWhenEmpty(repeats -> repeats.concatMap(__ -> Mono.delay(importProperties.getPollInterval())))
+                    .timeout(importProperties.getTimeout(), Mono.error(() -> new ImportFailedException(String.format(
+                            "Freshdesk contact import '%d' didn't complete within %s.",
+                            importId, importProperties.getTimeout()), EXTERNAL_SYSTEM_NAME)))
+                    .flatMap(contactImport -> FreshdeskContactImportResponse.STATUS_FAILED.equals(contactImport.status) ?
+                            Mono.error(new ImportFailedException(String.format(
+                                    "Freshdesk contact import '%d' failed.", importId), EXTERNAL_SYSTEM_NAME)) :
+                            Mono.just(contactImport))
+                    .doOnSuccess(contactImport -> log.info("Freshdesk contact import '{}' completed, {} contact(s) failed",
+                            importId, contactImport.failedRows != null ? contactImport.failedRows.size() : 0));
+        }
+
+        private Mono<FreshdeskContactImportResponse> getContactImport(WebClient webClient, Long importId) {
+            return webClient.get()
+                    .uri(CONTACT_IMPORTS_API_PATH + "/" + importId)
+                    .attribute(GatewayMetrics.OPERATION_ATTRIBUTE, GatewayMetrics.OPERATION_GET)
+                    .exchangeToMono(clientResponse -> handleHttpError(clientResponse)
+                            .flatMap(response -> response.bodyToMono(FreshdeskContactImportResponse.class)))
+                    .retryWhen(getRetryPolicy())
+                    .doOnNext(contactImport -> log.debug("Freshdesk contact import '{}' is '{}'",
+                            importId, contactImport.status))
+                    .doOnError(ex -> log.error("Getting status of Freshdesk contact import '{}' failed:",
+                            importId, ex));
+        }
     }
 
-    public static boolean isFreshdeskSystemType(String systemType) {
-        return EXTERNAL_SYSTEM_NAME.equalsIgnoreCase(systemType);
+    private record ContactsPage(List<FreshdeskContactResponse> contacts, String nextPageUrl) {
+    }
+
+    // the contacts found by a contact resolution strategy, with the key and value they were looked up by
+    private record ResolvedContacts(String key, String value, List<FreshdeskContactResponse> contacts) {
     }
 
-    private static WebClient createWebClient(String baseUrl, String authToken) {
-        return WebClient.create(baseUrl)
-                .mutate()
-                .defaultHeader(HttpHeaders.AUTHORIZATION, authToken)
-                .build();
+    public static boolean isFreshdeskSystemType(String systemType) {
+        return EXTERNAL_SYSTEM_NAME.equalsIgnoreCase(systemType);
     }
 
     private static String getDomain(Map<String, String> params) {
@@ -215,15 +572,33 @@ public class FreshdeskGatewayService {
         return params.get(DOMAIN_PARAM);
     }
 
+    private static Long parseContactId(String contactId) {
+        try {
+            return contactId != null ? Long.valueOf(contactId) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean isNotFoundError(Throwable throwable) {
+        return throwable instanceof HttpRequestFailedException ex
+                && ex.httpStatusCode.value() == HttpStatus.NOT_FOUND.value();
+    }
+
     private static Mono<ClientResponse> handleHttpError(ClientResponse response) {
         HttpStatusCode httpStatus = response.statusCode();
 
         if (httpStatus.isError()) {
+            boolean rateLimited = WebUtils.isRateLimited(response);
+            Duration retryAfter = WebUtils.getRetryAfter(response);
+
             return response.bodyToMono(FreshdeskErrorResponse.class)
                     .switchIfEmpty(Mono.error(new HttpRequestFailedException(
                             "No info about the error from Freshdesk",
                             EXTERNAL_SYSTEM_NAME,
-                            httpStatus
+                            httpStatus,
+                            rateLimited,
+                            retryAfter
                     )))
                     .flatMap(errorResponse -> {
                         String humanReadableMsg = convertToHumanReadableMessage(errorResponse);
@@ -231,7 +606,9 @@ public class FreshdeskGatewayService {
                         return Mono.error(new HttpRequestFailedException(
                                 Strings.isNotBlank(humanReadableMsg) ? humanReadableMsg : "No info about the error from Freshdesk",
                                 EXTERNAL_SYSTEM_NAME,
-                                httpStatus
+                                httpStatus,
+                                rateLimited,
+                                retryAfter
                         ));
                     });
         }
@@ -0,0 +1,54 @@
+package com.quickbase.datatransfer.gateway.freshdesk;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datatransfer.freshdesk")
+public class FreshdeskProperties {
+    // searching for contacts by name fails if more than this much of the response has to be read
+    private DataSize searchMaxBodySize = DataSize.ofMegabytes(2);
+    // how the existing contact of an uploaded user is looked for: each strategy is tried in order until one finds it
+    private List<ContactResolution> contactResolution = new ArrayList<>(List.of(
+            ContactResolution.UNIQUE_EXTERNAL_ID, ContactResolution.EMAIL, ContactResolution.NAME));
+    private ContactIndex contactIndex = new ContactIndex();
+    private ContactImport contactImport = new ContactImport();
+
+    public enum ContactResolution {
+        // exact lookups of the contact with the external id or the email of the user, if the user has one
+        UNIQUE_EXTERNAL_ID, EMAIL,
+        // search for the contacts whose name starts with the name of the user (or lookup in the contact index)
+        NAME
+    }
+
+    @Getter
+    @Setter
+    public static class ContactIndex {
+        // when enabled, existing contacts are looked up in a local index instead of calling the autocomplete API
+        private boolean enabled = false;
+        private String snapshotDirectory = "data/freshdesk-contact-index";
+        // how often contacts updated since the last sync are fetched
+        private Duration refreshInterval = Duration.ofMinutes(5);
+        // how often the index is built from scratch, which is the only way to get rid of deleted contacts
+        private Duration rebuildInterval = Duration.ofDays(1);
+    }
+
+    @Getter
+    @Setter
+    public static class ContactImport {
+        // when enabled, bulk transfers upload contacts with CSV import jobs instead of one by one
+        private boolean enabled = false;
+        private int batchSize = 1000;
+        // how often the status of a running import job is checked
+        private Duration pollInterval = Duration.ofSeconds(5);
+        // the contacts of an import job which hasn't completed within this time are considered failed
+        private Duration timeout = Duration.ofMinutes(30);
+    }
+}
@@ -0,0 +1,38 @@
+package com.quickbase.datatransfer.gateway.freshdesk.model;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+// the status of a contact import job, only the fields that are used
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class FreshdeskContactImportResponse {
+    public static final String STATUS_COMPLETED = "completed";
+    public static final String STATUS_FAILED = "failed";
+
+    public Long id;
+    // 'in_progress' while the job is running
+    public String status;
+    public List<FailedRow> failedRows;
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @ToString
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public static class FailedRow {
+        // 1-based number of the row in the imported CSV, not counting the header
+        public Integer rowNumber;
+        public String error;
+    }
+
+    public boolean isFinished() {
+        return STATUS_COMPLETED.equals(status) || STATUS_FAILED.equals(status);
+    }
+}
@@ -1,38 +1,78 @@
 package com.quickbase.datatransfer.gateway.github;
 
-import com.quickbase.datatransfer.common.ConfigPropertyProvider;
 import com.quickbase.datatransfer.data.UserData;
+import com.quickbase.datatransfer.exception.HttpRequestFailedException;
 import com.quickbase.datatransfer.exception.MissingExternalSystemParamException;
-import com.quickbase.datatransfer.exception.UnauthorizedOperationException;
+import com.quickbase.datatransfer.gateway.client.WebClientRegistry;
+import com.quickbase.datatransfer.gateway.hedging.RequestHedging;
+import com.quickbase.datatransfer.gateway.metrics.GatewayMetrics;
+import com.quickbase.datatransfer.gateway.github.model.GitHubGraphQlError;
+import com.quickbase.datatransfer.gateway.github.model.GitHubGraphQlRequest;
+import com.quickbase.datatransfer.gateway.github.model.GitHubGraphQlUsersResponse;
+import com.quickbase.datatransfer.gateway.github.model.GitHubMemberResponse;
+import com.quickbase.datatransfer.gateway.github.model.GitHubUserCacheEntry;
 import com.quickbase.datatransfer.gateway.github.model.GitHubUserResponse;
+import com.quickbase.datatransfer.gateway.retry.RetryPolicyRegistry;
+import com.quickbase.datatransfer.gateway.singleflight.SingleFlight;
 import com.quickbase.datatransfer.gateway.util.WebUtils;
 import com.quickbase.datatransfer.common.DataType;
 import com.quickbase.datatransfer.service.DataDownloader;
 import com.quickbase.datatransfer.service.DataTypeToDataClassMatcher;
 import com.quickbase.datatransfer.service.TransferrerTypeChecker;
+import com.quickbase.datatransfer.service.model.DownloadResult;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 public class GitHubGatewayService {
     public static final String EXTERNAL_SYSTEM_NAME = "GitHub";
     private static final String GITHUB_API_BASE_URL = "https://api.github.com";
-    private static final String AUTH_TOKEN = "GITHUB_TOKEN";
     private static final String ACCEPT_HEADER_VALUE = "application/vnd.github+json";
+    private static final String BEARER_PREFIX = "Bearer ";
     private static final String USER_API_PATH = "/users";
+    private static final String ORG_API_PATH = "/orgs";
+    private static final String GRAPHQL_API_PATH = "/graphql";
+    // the cached user a request revalidates, whose ETag is sent if the request gets the token the user was cached with
+    private static final String REVALIDATED_USER_ATTRIBUTE = GitHubGatewayService.class.getName() + ".revalidatedUser";
+    // only the fields that are transformed to app data, aliased to the names they have in the REST API
+    private static final String GRAPHQL_USER_FIELDS = "login name email location bio twitter_username: twitterUsername";
+    // in production code, these settings should be configurable
+    private static final int MEMBERS_PAGE_SIZE = 100;
+    private static final int MEMBER_PROFILE_DOWNLOAD_CONCURRENCY = 8;
+    private static final int MEMBER_PROFILE_BATCH_DOWNLOAD_CONCURRENCY = 2;
 
     public static abstract class GitHubDataProcessorBase implements TransferrerTypeChecker {
-        private final ConfigPropertyProvider configPropertyProvider;
+        private final GitHubTokenPool tokenPool;
+        private final WebClientRegistry webClientRegistry;
+        private final RetryPolicyRegistry retryPolicyRegistry;
 
-        public GitHubDataProcessorBase(ConfigPropertyProvider configPropertyProvider) {
-            this.configPropertyProvider = configPropertyProvider;
+        public GitHubDataProcessorBase(GitHubTokenPool tokenPool, WebClientRegistry webClientRegistry,
+                                       RetryPolicyRegistry retryPolicyRegistry) {
+            this.tokenPool = tokenPool;
+            this.webClientRegistry = webClientRegistry;
+            this.retryPolicyRegistry = retryPolicyRegistry;
         }
 
         @Override
@@ -44,33 +84,157 @@ public class GitHubGatewayService {
             return getGitHubApiBaseUrl();
         }
 
-        protected String getAuthToken() {
-            String authToken = configPropertyProvider.getConfigPropertyValue(AUTH_TOKEN);
+        protected WebClient getWebClient(String baseUrl) {
+            return webClientRegistry.getWebClient(EXTERNAL_SYSTEM_NAME, baseUrl, this::authenticate, builder -> builder
+                    .defaultHeader(HttpHeaders.ACCEPT, ACCEPT_HEADER_VALUE));
+        }
 
-            if (authToken == null) {
-                throw new UnauthorizedOperationException(
-                        String.format("Please set '%s' (as %s) to your GitHub API token in order to authenticate.",
-                                AUTH_TOKEN, configPropertyProvider.getConfigPropertyType()),
-                        EXTERNAL_SYSTEM_NAME);
-            }
+        /*
+         * Every exchange, including retries and hedges, uses the token with the most remaining quota of the rate limit
+         * resource it's made to, so that it doesn't go out on a token which was rejected or exhausted in the meantime.
+         * The responses tell the token pool how much quota the token has left.
+         */
+        private Mono<ClientResponse> authenticate(ClientRequest request, ExchangeFunction next) {
+            return Mono.defer(() -> {
+                String resource = getRateLimitResource(request.url());
+                String authToken = tokenPool.getToken(resource);
+                String tokenId = WebClientRegistry.hashCredential(authToken);
+                AtomicBoolean observed = new AtomicBoolean();
 
-            return authToken;
+                return next.exchange(ClientRequest.from(request)
+                                .headers(headers -> {
+                                    headers.setBearerAuth(authToken);
+                                    // a cached user is only revalidated with the token its ETag was returned to
+                                    request.attribute(REVALIDATED_USER_ATTRIBUTE)
+                                            .map(GitHubUserCacheEntry.class::cast)
+                                            .filter(cachedUser -> tokenId.equals(cachedUser.tokenId))
+                                            .ifPresent(cachedUser -> headers.setIfNoneMatch(cachedUser.etag));
+                                })
+                                .attribute(WebClientRegistry.CREDENTIAL_ATTRIBUTE, tokenId)
+                                .build())
+                        .doOnNext(response -> {
+                            observed.set(true);
+                            tokenPool.observe(authToken, resource, response.statusCode(),
+                                    response.headers().asHttpHeaders());
+                        })
+                        .doFinally(__ -> {
+                            if (!observed.get()) {
+                                tokenPool.release(authToken, resource);
+                            }
+                        });
+            });
+        }
+
+        protected Retry getRetryPolicy() {
+            return retryPolicyRegistry.retryFor(EXTERNAL_SYSTEM_NAME);
         }
     }
 
     @Service
     public static class UserDataDownloader extends GitHubDataProcessorBase implements DataDownloader<UserData> {
         public static final String USERNAME_PARAM = "username";
+        public static final String ORGANIZATION_PARAM = "org";
+        public static final String TEAM_PARAM = "team";
+
+        private final GitHubProperties properties;
+        private final GitHubUserCache userCache;
+        private final SingleFlight singleFlight;
 
         @Autowired
-        public UserDataDownloader(ConfigPropertyProvider configPropertyProvider) {
-            super(configPropertyProvider);
+        public UserDataDownloader(GitHubTokenPool tokenPool, WebClientRegistry webClientRegistry,
+                                  RetryPolicyRegistry retryPolicyRegistry, GitHubProperties properties,
+                                  GitHubUserCache userCache, SingleFlight singleFlight) {
+            super(tokenPool, webClientRegistry, retryPolicyRegistry);
+            this.properties = properties;
+            this.userCache = userCache;
+            this.singleFlight = singleFlight;
         }
 
         @Override
         public Mono<UserData> downloadData(Map<String, String> params) {
             return downloadUserData(params)
-                    .map(this::transformToAppData);
+                    .map(UserDataDownloader::transformToAppData);
+        }
+
+        /*
+         * Downloads the profiles of all members of a GitHub organization, or of a team in it if a team is specified.
+         * Member pages are fetched lazily by following the 'Link' response headers. While the members of one page
+         * are being processed, the next page is already being fetched, but no more than that.
+         */
+        @Override
+        public Flux<UserData> downloadDataStream(Map<String, String> params) {
+            Flux<GitHubMemberResponse> members = Mono.fromCallable(() -> getMembersApiPath(params))
+                    .flatMapMany(membersApiPath -> {
+                        String baseApiUrl = getApiBaseUrl();
+                        WebClient webClient = getWebClient(baseApiUrl);
+                        String firstPageUrl = baseApiUrl + membersApiPath + "?per_page=" + MEMBERS_PAGE_SIZE;
+
+                        return getMembersPage(webClient, firstPageUrl)
+                                .expand(page -> page.nextPageUrl() != null ?
+                                        getMembersPage(webClient, page.nextPageUrl()) :
+                                        Mono.empty())
+                                .concatMapIterable(MembersPage::members, 1);
+                    });
+
+            if (isGraphQlEngine()) {
+                return members
+                        .map(member -> member.login)
+                        .buffer(properties.getGraphqlBatchSize())
+                        .flatMapSequential(usernames -> downloadUsersWithGraphQl(usernames)
+                                        .flatMapIterable(results -> results),
+                                MEMBER_PROFILE_BATCH_DOWNLOAD_CONCURRENCY)
+                        .concatMap(result -> {
+                            if (result.isSuccessful()) {
+                                return Mono.just(result.data);
+                            }
+                            return isNotFoundError(result.error) ? skipDeletedMember(result.error) : Mono.error(result.error);
+                        });
+            }
+
+            return members
+                    .flatMap(member -> downloadUserData(Map.of(USERNAME_PARAM, member.login))
+                                    .onErrorResume(
+                                            ex -> isNotFoundError(ex),
+                                            ex -> skipDeletedMember(ex)),
+                            MEMBER_PROFILE_DOWNLOAD_CONCURRENCY)
+                    .map(UserDataDownloader::transformToAppData);
+        }
+
+        /*
+         * With the GraphQL engine, all users of the batch are downloaded with a single query. Otherwise, they're
+         * downloaded one by one.
+         */
+        @Override
+        public Mono<List<DownloadResult<UserData>>> downloadDataBatch(List<Map<String, String>> paramsList) {
+            if (!isGraphQlEngine()) {
+                return DataDownloader.super.downloadDataBatch(paramsList);
+            }
+
+            List<DownloadResult<UserData>> results = new ArrayList<>(Collections.nCopies(paramsList.size(), null));
+            List<String> usernames = new ArrayList<>();
+            List<Integer> usernameIndexes = new ArrayList<>();
+
+            for (int i = 0; i < paramsList.size(); i++) {
+                try {
+                    usernames.add(getUsername(paramsList.get(i)));
+                    usernameIndexes.add(i);
+                } catch (MissingExternalSystemParamException e) {
+                    results.set(i, DownloadResult.failed(e));
+                }
+            }
+
+            return Flux.fromIterable(partition(usernames, properties.getGraphqlBatchSize()))
+                    .concatMap(this::downloadUsersWithGraphQl)
+                    .flatMapIterable(batchResults -> batchResults)
+                    .index()
+                    .doOnNext(indexedResult -> results.set(usernameIndexes.get(indexedResult.getT1().intValue()),
+                            indexedResult.getT2()))
+                    .then(Mono.fromCallable(() -> results));
+        }
+
+        @Override
+        public int getMaxBatchSize() {
+            return isGraphQlEngine() ? properties.getGraphqlBatchSize() : 1;
         }
 
         @Override
@@ -78,32 +242,187 @@ public class GitHubGatewayService {
             return DataTypeToDataClassMatcher.dataTypeMatchesDataClass(dataType, UserData.class);
         }
 
+        private Mono<MembersPage> getMembersPage(WebClient webClient, String pageUrl) {
+            ParameterizedTypeReference<List<GitHubMemberResponse>> responseType =
+                    new ParameterizedTypeReference<>() {};
+
+            log.info("Getting page of GitHub members '{}'", pageUrl);
+
+            return webClient.get()
+                    .uri(URI.create(pageUrl))
+                    .attribute(GatewayMetrics.OPERATION_ATTRIBUTE, GatewayMetrics.OPERATION_LIST)
+                    .exchangeToMono(clientResponse -> WebUtils.handleHttpError(
+                                    clientResponse,
+                                    EXTERNAL_SYSTEM_NAME,
+                                    httpStatusCode -> httpStatusCode.value() == HttpStatus.NOT_FOUND.value() ?
+                                            "GitHub organization or team does not exist or its members are not visible." :
+                                            String.format("Unexpected failure when getting page of GitHub members '%s'",
+                                                    pageUrl))
+                            .flatMap(response -> response.bodyToMono(responseType)
+                                    .defaultIfEmpty(List.of())
+                                    .map(members -> new MembersPage(members,
+                                            WebUtils.getNextPageUrl(response.headers().asHttpHeaders())))))
+                    .retryWhen(getRetryPolicy())
+                    .doOnSuccess(page -> log.info("Successfully obtained page of {} GitHub member(s) '{}'",
+                            page.members().size(), pageUrl))
+                    .doOnError(ex -> log.error("Getting page of GitHub members '{}' failed:", pageUrl, ex));
+        }
+
+        /*
+         * Users that were downloaded before are revalidated with a conditional request, using the ETag that they were
+         * cached with, if the request goes out with the same token as the cached one. If GitHub answers with 304 Not
+         * Modified, the cached user is returned. Concurrent downloads of the same user share a single request; GitHub
+         * usernames are case-insensitive.
+         */
         private Mono<GitHubUserResponse> downloadUserData(Map<String, String> params) {
             return Mono.fromCallable(() -> getUsername(params))
-                    .flatMap(username -> {
-                        String baseApiUrl = getApiBaseUrl();
-                        String authToken = getAuthToken();
-                        WebClient webClient = createWebClient(baseApiUrl, authToken);
-
-                        log.info("Getting GitHub user with username '{}'", username);
-
-                        return webClient.get()
-                                .uri(USER_API_PATH + "/" + username)
-                                .exchangeToMono(clientResponse -> WebUtils.handleHttpError(
-                                                clientResponse,
-                                                EXTERNAL_SYSTEM_NAME,
-                                                httpStatusCode -> httpStatusCode.value() == HttpStatus.NOT_FOUND.value() ?
-                                                        String.format("GitHub user with username '%s' does not exist.",
-                                                                username) :
-                                                        String.format("Unexpected failure when getting GitHub user with username '%s'",
-                                                                username))
-                                        .flatMap(response -> response.bodyToMono(GitHubUserResponse.class)))
-                                .retryWhen(WebUtils.retryWithDefaultSettings())
-                                .doOnSuccess(__ -> log.info("Successfully obtained GitHub user with username '{}'",
-                                        username))
-                                .doOnError(ex -> log.error("Getting GitHub user with username '{}' failed:",
-                                        username, ex));
-                    });
+                    .flatMap(username -> singleFlight.execute(EXTERNAL_SYSTEM_NAME, GatewayMetrics.OPERATION_GET,
+                            username.toLowerCase(Locale.ROOT), () -> userCache.get(username)
+                                    .map(Optional::of)
+                                    .defaultIfEmpty(Optional.empty())
+                                    .flatMap(cachedUser -> cachedUser.isPresent() && cachedUser.get().notFound ?
+                                            Mono.error(new HttpRequestFailedException(getUserNotFoundMessage(username),
+                                                    EXTERNAL_SYSTEM_NAME, HttpStatus.NOT_FOUND)) :
+                                            downloadUserData(username, cachedUser.orElse(null)))));
+        }
+
+        private Mono<GitHubUserResponse> downloadUserData(String username, GitHubUserCacheEntry cachedUser) {
+            WebClient webClient = getWebClient(getApiBaseUrl());
+
+            log.info("Getting GitHub user with username '{}'", username);
+
+            return webClient.get()
+                    .uri(USER_API_PATH + "/" + username)
+                    .attribute(GatewayMetrics.OPERATION_ATTRIBUTE, GatewayMetrics.OPERATION_GET)
+                    // getting a user is idempotent, so a slow request can be hedged
+                    .attribute(RequestHedging.HEDGE_ATTRIBUTE, true)
+                    .attributes(attributes -> {
+                        if (cachedUser != null) {
+                            attributes.put(REVALIDATED_USER_ATTRIBUTE, cachedUser);
+                        }
+                    })
+                    .exchangeToMono(clientResponse -> {
+                        if (cachedUser != null && clientResponse.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                            log.info("GitHub user with username '{}' has not changed since it was cached", username);
+                            return clientResponse.releaseBody().thenReturn(cachedUser.user);
+                        }
+
+                        Mono<Void> cacheUpdate = clientResponse.statusCode().value() == HttpStatus.NOT_FOUND.value() ?
+                                userCache.putNotFound(username) :
+                                Mono.empty();
+
+                        return cacheUpdate.then(WebUtils.handleHttpError(
+                                        clientResponse,
+                                        EXTERNAL_SYSTEM_NAME,
+                                        httpStatusCode -> httpStatusCode.value() == HttpStatus.NOT_FOUND.value() ?
+                                                getUserNotFoundMessage(username) :
+                                                String.format("Unexpected failure when getting GitHub user with username '%s'",
+                                                        username)))
+                                .flatMap(response -> response.bodyToMono(GitHubUserResponse.class)
+                                        .flatMap(user -> userCache.put(username, getTokenId(response),
+                                                        response.headers().asHttpHeaders().getETag(), user)
+                                                .thenReturn(user)));
+                    })
+                    .retryWhen(getRetryPolicy())
+                    .doOnSuccess(__ -> log.info("Successfully obtained GitHub user with username '{}'", username))
+                    .doOnError(ex -> log.error("Getting GitHub user with username '{}' failed:", username, ex));
+        }
+
+        /*
+         * Downloads the users with a single GraphQL query of aliased 'user' fields, so that the errors of the users that
+         * could not be resolved can be told apart, e.g.
+         * query($l0: String!, $l1: String!) { u0: user(login: $l0) { login ... } u1: user(login: $l1) { login ... } }
+         */
+        private Mono<List<DownloadResult<UserData>>> downloadUsersWithGraphQl(List<String> usernames) {
+            return Mono.defer(() -> {
+                WebClient webClient = getWebClient(getApiBaseUrl());
+
+                StringBuilder query = new StringBuilder("query(");
+                StringBuilder selections = new StringBuilder();
+                Map<String, Object> variables = new LinkedHashMap<>();
+
+                for (int i = 0; i < usernames.size(); i++) {
+                    query.append(i > 0 ? ", " : "").append("$l").append(i).append(": String!");
+                    selections.append(" u").append(i).append(": user(login: $l").append(i).append(") { ")
+                            .append(GRAPHQL_USER_FIELDS).append(" }");
+                    variables.put("l" + i, usernames.get(i));
+                }
+                query.append(") {").append(selections).append(" }");
+
+                log.info("Getting batch of {} GitHub user(s) with GraphQL", usernames.size());
+
+                return webClient.post()
+                        .uri(GRAPHQL_API_PATH)
+                        // a query, even though it's a POST
+                        .attribute(GatewayMetrics.OPERATION_ATTRIBUTE, GatewayMetrics.OPERATION_GET)
+                        .bodyValue(new GitHubGraphQlRequest(query.toString(), variables))
+                        .exchangeToMono(clientResponse -> WebUtils.handleHttpError(
+                                        clientResponse,
+                                        EXTERNAL_SYSTEM_NAME,
+                                        httpStatusCode -> String.format(
+                                                "Unexpected failure when getting batch of %d GitHub user(s) with GraphQL",
+                                                usernames.size()))
+                                .flatMap(response -> response.bodyToMono(GitHubGraphQlUsersResponse.class)))
+                        .retryWhen(getRetryPolicy())
+                        .map(response -> toDownloadResults(usernames, response))
+                        .doOnSuccess(results -> log.info("Successfully obtained {} out of {} GitHub user(s) with GraphQL",
+                                results.stream().filter(DownloadResult::isSuccessful).count(), usernames.size()))
+                        .doOnError(ex -> log.error("Getting batch of {} GitHub user(s) with GraphQL failed:",
+                                usernames.size(), ex));
+            });
+        }
+
+        private List<DownloadResult<UserData>> toDownloadResults(List<String> usernames,
+                                                                 GitHubGraphQlUsersResponse response) {
+            Map<String, GitHubGraphQlError> errorsByAlias = new HashMap<>();
+            GitHubGraphQlError queryError = null;
+
+            for (GitHubGraphQlError error : response.errors != null ? response.errors : List.<GitHubGraphQlError>of()) {
+                if (error.path != null && !error.path.isEmpty()) {
+                    errorsByAlias.putIfAbsent(error.path.get(0), error);
+                } else if (queryError == null) {
+                    queryError = error;
+                }
+            }
+
+            List<DownloadResult<UserData>> results = new ArrayList<>(usernames.size());
+
+            for (int i = 0; i < usernames.size(); i++) {
+                String alias = "u" + i;
+                GitHubUserResponse user = response.data != null ? response.data.get(alias) : null;
+                GitHubGraphQlError error = errorsByAlias.getOrDefault(alias, queryError);
+
+                if (user != null) {
+                    // GraphQL returns an empty email instead of null if it's not public
+                    if (user.email != null && user.email.isEmpty()) {
+                        user.email = null;
+                    }
+                    results.add(DownloadResult.succeeded(transformToAppData(user)));
+                } else if (error == null || GitHubGraphQlError.NOT_FOUND_TYPE.equals(error.type)) {
+                    results.add(DownloadResult.failed(new HttpRequestFailedException(
+                            getUserNotFoundMessage(usernames.get(i)), EXTERNAL_SYSTEM_NAME, HttpStatus.NOT_FOUND)));
+                } else {
+                    results.add(DownloadResult.failed(new HttpRequestFailedException(
+                            String.format("Getting GitHub user with username '%s' failed: %s", usernames.get(i), error.message),
+                            EXTERNAL_SYSTEM_NAME, HttpStatus.UNPROCESSABLE_ENTITY)));
+                }
+            }
+
+            return results;
+        }
+
+        private boolean isGraphQlEngine() {
+            return properties.getDownloadEngine() == GitHubProperties.DownloadEngine.GRAPHQL;
+        }
+
+        private static <T> Mono<T> skipDeletedMember(Throwable notFoundError) {
+            // the member might have been deleted after the members page was fetched
+            log.warn("Skipping GitHub user since it no longer exists: {}", notFoundError.getMessage());
+            return Mono.empty();
+        }
+
+        private static String getUserNotFoundMessage(String username) {
+            return String.format("GitHub user with username '%s' does not exist.", username);
         }
 
         private String getUsername(Map<String, String> params) {
@@ -116,7 +435,24 @@ public class GitHubGatewayService {
             return params.get(USERNAME_PARAM);
         }
 
-        private UserData transformToAppData(GitHubUserResponse downloadedData) {
+        private String getMembersApiPath(Map<String, String> params) {
+            if (params == null || !params.containsKey(ORGANIZATION_PARAM)) {
+                throw new MissingExternalSystemParamException(
+                        "Not able to identify the GitHub organization whose members to download data for.",
+                        ORGANIZATION_PARAM, EXTERNAL_SYSTEM_NAME);
+            }
+
+            String orgPath = ORG_API_PATH + "/" + WebUtils.urlEncode(params.get(ORGANIZATION_PARAM));
+
+            if (params.containsKey(TEAM_PARAM)) {
+                return orgPath + "/teams/" + WebUtils.urlEncode(params.get(TEAM_PARAM)) + "/members";
+            }
+
+            return orgPath + "/members";
+        }
+
+        // package-private for the benchmarks
+        static UserData transformToAppData(GitHubUserResponse downloadedData) {
             UserData appData = new UserData();
             appData.name = downloadedData.name;
             appData.address = downloadedData.location;
@@ -128,6 +464,19 @@ public class GitHubGatewayService {
         }
     }
 
+    private static <T> List<List<T>> partition(List<T> list, int size) {
+        List<List<T>> partitions = new ArrayList<>();
+
+        for (int i = 0; i < list.size(); i += size) {
+            partitions.add(list.subList(i, Math.min(i + size, list.size())));
+        }
+
+        return partitions;
+    }
+
+    private record MembersPage(List<GitHubMemberResponse> members, String nextPageUrl) {
+    }
+
     public static boolean isGitHubSystemType(String systemType) {
         return EXTERNAL_SYSTEM_NAME.equalsIgnoreCase(systemType);
     }
@@ -136,11 +485,22 @@ public class GitHubGatewayService {
         return GITHUB_API_BASE_URL;
     }
 
-    private static WebClient createWebClient(String baseUrl, String authToken) {
-        return WebClient.create(baseUrl)
-                .mutate()
-                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + authToken)
-                .defaultHeader(HttpHeaders.ACCEPT, ACCEPT_HEADER_VALUE)
-                .build();
+    // identifies the token a response was returned to
+    private static String getTokenId(ClientResponse response) {
+        String authorization = response.request().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        return authorization != null && authorization.startsWith(BEARER_PREFIX) ?
+                WebClientRegistry.hashCredential(authorization.substring(BEARER_PREFIX.length())) :
+                null;
+    }
+
+    private static String getRateLimitResource(URI url) {
+        return url.getPath() != null && url.getPath().startsWith(GRAPHQL_API_PATH) ?
+                GitHubTokenPool.RESOURCE_GRAPHQL :
+                GitHubTokenPool.RESOURCE_CORE;
+    }
+
+    private static boolean isNotFoundError(Throwable throwable) {
+        return throwable instanceof HttpRequestFailedException ex
+                && ex.httpStatusCode.value() == HttpStatus.NOT_FOUND.value();
     }
 }
@@ -0,0 +1,43 @@
+package com.quickbase.datatransfer.gateway.github;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datatransfer.github")
+public class GitHubProperties {
+    // REST downloads users one by one, GRAPHQL downloads them in batches with a single query per batch
+    private DownloadEngine downloadEngine = DownloadEngine.REST;
+    // number of users downloaded with a single GraphQL query
+    private int graphqlBatchSize = 50;
+    private UserCache userCache = new UserCache();
+    private TokenPool tokenPool = new TokenPool();
+
+    public enum DownloadEngine {
+        REST, GRAPHQL
+    }
+
+    @Getter
+    @Setter
+    public static class UserCache {
+        // when enabled, downloaded users are cached on disk and revalidated with conditional requests
+        private boolean enabled = true;
+        private String directory = "data/github-user-cache";
+        // the least recently used users are evicted when there are more than this many in the cache
+        private int maxEntries = 100_000;
+        // how long a user that doesn't exist is remembered as such, without asking GitHub again
+        private Duration notFoundTtl = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class TokenPool {
+        // an API token with no more than this many requests left is not used until its quota is reset, if there are
+        // other tokens to use
+        private int minRemaining = 50;
+    }
+}
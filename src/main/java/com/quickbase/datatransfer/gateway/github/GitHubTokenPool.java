@@ -0,0 +1,250 @@
+package com.quickbase.datatransfer.gateway.github;
+
+import com.quickbase.datatransfer.common.ConfigPropertyProvider;
+import com.quickbase.datatransfer.exception.UnauthorizedOperationException;
+import com.quickbase.datatransfer.gateway.ratelimit.RateLimitScheduler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Spreads the requests to GitHub over several API tokens, so that bulk downloads aren't capped by the hourly quota
+ * of a single one. Every request uses the token with the most remaining quota of the requested resource, as reported
+ * by the X-RateLimit-* headers of the responses. Tokens with no more than a few requests left rest until their quota
+ * is reset, and tokens which GitHub rejects with 401 Unauthorized are not used anymore.
+ *
+ * The tokens are read from GITHUB_TOKENS (comma-separated) or, if it's not set, from GITHUB_TOKEN.
+ */
+@Slf4j
+@Component
+public class GitHubTokenPool {
+    public static final String TOKENS_PROPERTY = "GITHUB_TOKENS";
+    public static final String TOKEN_PROPERTY = "GITHUB_TOKEN";
+    // the rate limit resources of GitHub's REST and GraphQL APIs, which have separate quotas
+    public static final String RESOURCE_CORE = "core";
+    public static final String RESOURCE_GRAPHQL = "graphql";
+    private static final String RESOURCE_HEADER = "X-RateLimit-Resource";
+    private static final long UNKNOWN = -1;
+
+    private final ConfigPropertyProvider configPropertyProvider;
+    private final GitHubProperties properties;
+    private final Scheduler scheduler;
+    private final Map<String, TokenState> tokenStates = new HashMap<>();
+
+    @Autowired
+    public GitHubTokenPool(ConfigPropertyProvider configPropertyProvider, GitHubProperties properties) {
+        this(configPropertyProvider, properties, Schedulers.parallel());
+    }
+
+    // the scheduler is only used as a clock, so tests can run on virtual time
+    public GitHubTokenPool(ConfigPropertyProvider configPropertyProvider, GitHubProperties properties,
+                           Scheduler scheduler) {
+        this.configPropertyProvider = configPropertyProvider;
+        this.properties = properties;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Picks the token for a request to the specified rate limit resource and counts the request against its quota.
+     * If all tokens are resting, the one whose quota is reset first is picked, and the request is held back by the
+     * rate limiter until then.
+     *
+     * @throws UnauthorizedOperationException if no token is configured, or all of them were rejected by GitHub
+     */
+    public synchronized String getToken(String resource) {
+        List<String> tokens = getConfiguredTokens();
+        long now = now();
+        String bestToken = null;
+        Quota bestQuota = null;
+        String earliestResetToken = null;
+        Quota earliestResetQuota = null;
+
+        for (String token : tokens) {
+            TokenState tokenState = tokenStates.computeIfAbsent(token, __ -> new TokenState());
+            if (tokenState.dead) {
+                continue;
+            }
+
+            Quota quota = tokenState.getQuota(resource);
+            quota.resetIfDue(now);
+            if (quota.isResting(properties.getTokenPool().getMinRemaining(), now)) {
+                if (earliestResetQuota == null || quota.resetAt < earliestResetQuota.resetAt) {
+                    earliestResetToken = token;
+                    earliestResetQuota = quota;
+                }
+            } else if (bestQuota == null || quota.compareTo(bestQuota) > 0) {
+                bestToken = token;
+                bestQuota = quota;
+            }
+        }
+
+        if (bestToken == null && earliestResetToken == null) {
+            throw new UnauthorizedOperationException(
+                    String.format("All GitHub API tokens set in '%s' (as %s) were rejected by GitHub.",
+                            getTokensPropertyName(), configPropertyProvider.getConfigPropertyType()),
+                    GitHubGatewayService.EXTERNAL_SYSTEM_NAME);
+        }
+
+        if (bestToken == null) {
+            log.info("All GitHub API tokens are resting, using the one whose '{}' quota is reset first", resource);
+            bestToken = earliestResetToken;
+            bestQuota = earliestResetQuota;
+        }
+
+        bestQuota.acquire();
+        return bestToken;
+    }
+
+    /*
+     * Learns the remaining quota of a token from a response to a request which got the token for the specified
+     * resource.
+     */
+    public synchronized void observe(String token, String resource, HttpStatusCode statusCode, HttpHeaders headers) {
+        TokenState tokenState = tokenStates.computeIfAbsent(token, __ -> new TokenState());
+        tokenState.getQuota(resource).release();
+
+        if (statusCode.value() == HttpStatus.UNAUTHORIZED.value()) {
+            if (!tokenState.dead) {
+                log.warn("GitHub API token '{}' was rejected with 401 Unauthorized, it won't be used anymore",
+                        mask(token));
+            }
+            tokenState.dead = true;
+            return;
+        }
+
+        long remaining = parseLong(headers.getFirst(RateLimitScheduler.REMAINING_HEADER));
+        if (remaining == UNKNOWN) {
+            return;
+        }
+
+        long now = now();
+        String quotaResource = headers.getFirst(RESOURCE_HEADER) != null ? headers.getFirst(RESOURCE_HEADER) : resource;
+        Quota quota = tokenState.getQuota(quotaResource);
+        quota.remaining = remaining;
+        quota.resetAt = RateLimitScheduler.parseResetTime(headers.getFirst(RateLimitScheduler.RESET_HEADER), now);
+
+        if (quota.isResting(properties.getTokenPool().getMinRemaining(), now)) {
+            log.info("GitHub API token '{}' has {} '{}' request(s) left, resting it until its quota is reset",
+                    mask(token), remaining, quotaResource);
+        }
+    }
+
+    // for requests which got a token but ended without a response, e.g. cancelled hedges
+    public synchronized void release(String token, String resource) {
+        TokenState tokenState = tokenStates.get(token);
+        if (tokenState != null) {
+            tokenState.getQuota(resource).release();
+        }
+    }
+
+    public synchronized void clear() {
+        tokenStates.clear();
+    }
+
+    private List<String> getConfiguredTokens() {
+        String tokens = configPropertyProvider.getConfigPropertyValue(TOKENS_PROPERTY);
+        if (tokens == null || tokens.isBlank()) {
+            tokens = configPropertyProvider.getConfigPropertyValue(TOKEN_PROPERTY);
+        }
+
+        List<String> configuredTokens = tokens == null ? List.of() : Arrays.stream(tokens.split(","))
+                .map(String::trim)
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .toList();
+
+        if (configuredTokens.isEmpty()) {
+            throw new UnauthorizedOperationException(
+                    String.format("Please set '%s' (as %s) to your GitHub API token, or '%s' to a comma-separated " +
+                                    "list of tokens, in order to authenticate.",
+                            TOKEN_PROPERTY, configPropertyProvider.getConfigPropertyType(), TOKENS_PROPERTY),
+                    GitHubGatewayService.EXTERNAL_SYSTEM_NAME);
+        }
+
+        return configuredTokens;
+    }
+
+    private String getTokensPropertyName() {
+        String tokens = configPropertyProvider.getConfigPropertyValue(TOKENS_PROPERTY);
+        return tokens == null || tokens.isBlank() ? TOKEN_PROPERTY : TOKENS_PROPERTY;
+    }
+
+    private long now() {
+        return scheduler.now(TimeUnit.MILLISECONDS);
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) {
+            return UNKNOWN;
+        }
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return UNKNOWN;
+        }
+    }
+
+    // only the end of a token is logged
+    private static String mask(String token) {
+        return token.length() <= 4 ? "****" : "****" + token.substring(token.length() - 4);
+    }
+
+    private static class TokenState {
+        private boolean dead;
+        private final Map<String, Quota> quotas = new HashMap<>();
+
+        private Quota getQuota(String resource) {
+            return quotas.computeIfAbsent(resource, __ -> new Quota());
+        }
+    }
+
+    private static class Quota implements Comparable<Quota> {
+        private long remaining = UNKNOWN;
+        private long resetAt = UNKNOWN;
+        // requests which were made with the token and haven't been answered yet, so that concurrent requests are
+        // spread over the tokens
+        private long inFlight;
+
+        private void acquire() {
+            inFlight++;
+        }
+
+        private void release() {
+            inFlight = Math.max(0, inFlight - 1);
+        }
+
+        private void resetIfDue(long now) {
+            if (resetAt != UNKNOWN && resetAt <= now) {
+                remaining = UNKNOWN;
+                resetAt = UNKNOWN;
+            }
+        }
+
+        // without a reset time, the token is left to the rate limiter
+        private boolean isResting(long minRemaining, long now) {
+            return remaining != UNKNOWN && resetAt > now && estimatedRemaining() <= minRemaining;
+        }
+
+        // a token whose quota is unknown hasn't been used yet, so it's assumed to have its full quota left
+        private long estimatedRemaining() {
+            return (remaining == UNKNOWN ? Long.MAX_VALUE / 2 : remaining) - inFlight;
+        }
+
+        @Override
+        public int compareTo(Quota other) {
+            return Long.compare(estimatedRemaining(), other.estimatedRemaining());
+        }
+    }
+}
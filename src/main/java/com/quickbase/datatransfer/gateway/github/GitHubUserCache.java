@@ -0,0 +1,223 @@
+package com.quickbase.datatransfer.gateway.github;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickbase.datatransfer.gateway.github.model.GitHubUserCacheEntry;
+import com.quickbase.datatransfer.gateway.github.model.GitHubUserResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * An on-disk cache of GitHub users, used to make conditional requests (If-None-Match) for users that were
+ * downloaded before. GitHub answers them with 304 Not Modified if the user hasn't changed, which doesn't count
+ * against the rate limit and has no body. Users that don't exist are also cached for a short time.
+ *
+ * Each user is stored in a file of its own. The files are tracked in LRU order, so that the least recently used ones
+ * are deleted when the cache grows beyond its max size. After a restart, the LRU order is restored from the files'
+ * modification times.
+ */
+@Slf4j
+@Component
+public class GitHubUserCache {
+    private static final String ENTRY_FILE_EXTENSION = ".json";
+
+    private final GitHubProperties.UserCache properties;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    // entry file names in LRU order
+    private final LinkedHashMap<String, Boolean> entryFileNames = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile boolean initialized;
+
+    @Autowired
+    public GitHubUserCache(GitHubProperties properties) {
+        this.properties = properties.getUserCache();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * @return a {@link Mono} emitting the cached entry of the user, or an empty one if the user is not cached
+     * or was cached as not found too long ago
+     */
+    public Mono<GitHubUserCacheEntry> get(String username) {
+        if (!isEnabled()) {
+            return Mono.empty();
+        }
+
+        return Mono.fromCallable(() -> {
+                    GitHubUserCacheEntry entry = readEntry(username);
+
+                    if (entry != null && entry.notFound
+                            && entry.storedAt + properties.getNotFoundTtl().toMillis() < System.currentTimeMillis()) {
+                        entry = null;
+                    }
+
+                    (entry != null ? hits : misses).incrementAndGet();
+                    return entry;
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Caches a downloaded user.
+     *
+     * @param tokenId Identifies the token the user was downloaded with. The user is only revalidated with the same
+     *                token, since the representation of a user, and so its ETag, can differ between tokens.
+     */
+    public Mono<Void> put(String username, String tokenId, String etag, GitHubUserResponse user) {
+        // without an ETag the user can't be revalidated, so there's no point in caching it
+        if (!isEnabled() || etag == null) {
+            return Mono.empty();
+        }
+
+        return writeEntry(new GitHubUserCacheEntry(username, etag, tokenId, System.currentTimeMillis(), false, user));
+    }
+
+    public Mono<Void> putNotFound(String username) {
+        if (!isEnabled()) {
+            return Mono.empty();
+        }
+
+        return writeEntry(new GitHubUserCacheEntry(username, null, null, System.currentTimeMillis(), true, null));
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized void clear() {
+        initialize();
+        entryFileNames.keySet().forEach(fileName -> deleteEntryFile(getDirectory().resolve(fileName)));
+        entryFileNames.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+    private GitHubUserCacheEntry readEntry(String username) throws IOException {
+        String fileName = getEntryFileName(username);
+
+        synchronized (this) {
+            initialize();
+            if (entryFileNames.get(fileName) == null) {
+                return null;
+            }
+        }
+
+        Path entryFile = getDirectory().resolve(fileName);
+        try {
+            GitHubUserCacheEntry entry = objectMapper.readValue(entryFile.toFile(), GitHubUserCacheEntry.class);
+            // guard against the unlikely case of a hash collision between two usernames
+            return normalize(username).equals(normalize(entry.username)) ? entry : null;
+        } catch (IOException e) {
+            log.warn("Failed to read cached GitHub user from '{}', ignoring it:", entryFile, e);
+            return null;
+        }
+    }
+
+    private Mono<Void> writeEntry(GitHubUserCacheEntry entry) {
+        return Mono.<Void>fromRunnable(() -> {
+                    String fileName = getEntryFileName(entry.username);
+                    Path entryFile = getDirectory().resolve(fileName);
+
+                    try {
+                        Files.createDirectories(entryFile.getParent());
+                        Path tempFile = entryFile.resolveSibling(fileName + ".tmp");
+                        objectMapper.writeValue(tempFile.toFile(), entry);
+                        Files.move(tempFile, entryFile,
+                                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (IOException e) {
+                        // not being able to cache the user only means that it will be downloaded in full next time
+                        log.warn("Failed to cache GitHub user with username '{}' in '{}':", entry.username, entryFile, e);
+                        return;
+                    }
+
+                    synchronized (this) {
+                        initialize();
+                        entryFileNames.put(fileName, Boolean.TRUE);
+                        evictLeastRecentlyUsed();
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void evictLeastRecentlyUsed() {
+        Iterator<String> iterator = entryFileNames.keySet().iterator();
+
+        while (entryFileNames.size() > properties.getMaxEntries() && iterator.hasNext()) {
+            String fileName = iterator.next();
+            iterator.remove();
+            deleteEntryFile(getDirectory().resolve(fileName));
+        }
+    }
+
+    // lists the cache directory on first use, ordering the entries by the time they were last written
+    private void initialize() {
+        if (initialized) {
+            return;
+        }
+
+        File[] entryFiles = getDirectory().toFile().listFiles((dir, name) -> name.endsWith(ENTRY_FILE_EXTENSION));
+        if (entryFiles != null) {
+            Arrays.stream(entryFiles)
+                    .sorted(Comparator.comparingLong(File::lastModified))
+                    .forEach(file -> entryFileNames.put(file.getName(), Boolean.TRUE));
+            log.info("Found {} cached GitHub user(s) in '{}'", entryFiles.length, getDirectory());
+        }
+
+        initialized = true;
+        evictLeastRecentlyUsed();
+    }
+
+    private Path getDirectory() {
+        return Path.of(properties.getDirectory());
+    }
+
+    private static void deleteEntryFile(Path entryFile) {
+        try {
+            Files.deleteIfExists(entryFile);
+        } catch (IOException e) {
+            log.warn("Failed to delete cached GitHub user '{}':", entryFile, e);
+        }
+    }
+
+    private static String normalize(String username) {
+        // GitHub usernames are case-insensitive
+        return username == null ? null : username.toLowerCase(Locale.ROOT);
+    }
+
+    private static String getEntryFileName(String username) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(normalize(username).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16) + ENTRY_FILE_EXTENSION;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+        }
+    }
+}
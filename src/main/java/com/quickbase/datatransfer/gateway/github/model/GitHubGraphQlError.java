@@ -0,0 +1,18 @@
+package com.quickbase.datatransfer.gateway.github.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.ToString;
+
+import java.util.List;
+
+@ToString
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GitHubGraphQlError {
+    public static final String NOT_FOUND_TYPE = "NOT_FOUND";
+
+    // e.g. NOT_FOUND, FORBIDDEN or RATE_LIMITED
+    public String type;
+    public String message;
+    // the aliases of the fields the error is for, if it is for specific fields
+    public List<String> path;
+}
@@ -0,0 +1,13 @@
+package com.quickbase.datatransfer.gateway.github.model;
+
+import lombok.AllArgsConstructor;
+import lombok.ToString;
+
+import java.util.Map;
+
+@AllArgsConstructor
+@ToString
+public class GitHubGraphQlRequest {
+    public String query;
+    public Map<String, Object> variables;
+}
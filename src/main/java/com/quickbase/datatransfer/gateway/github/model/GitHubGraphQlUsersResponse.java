@@ -0,0 +1,16 @@
+package com.quickbase.datatransfer.gateway.github.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Map;
+
+// the response to a query of aliased users, e.g. { u0: user(login: $l0) { ... } u1: user(login: $l1) { ... } }
+@ToString
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GitHubGraphQlUsersResponse {
+    // users by alias; users which could not be resolved are null
+    public Map<String, GitHubUserResponse> data;
+    public List<GitHubGraphQlError> errors;
+}
@@ -0,0 +1,15 @@
+package com.quickbase.datatransfer.gateway.github.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+// an entry in the list of members of a GitHub organization or team; only the login is needed to get the member's profile
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GitHubMemberResponse {
+    public String login;
+}
@@ -0,0 +1,23 @@
+package com.quickbase.datatransfer.gateway.github.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+// a GitHub user as stored in the on-disk cache, together with the data needed to revalidate it
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GitHubUserCacheEntry {
+    public String username;
+    public String etag;
+    // identifies the token the ETag was returned to, see WebClientRegistry.hashCredential
+    public String tokenId;
+    // epoch millis when the entry was stored
+    public long storedAt;
+    // whether the user didn't exist at the time the entry was stored
+    public boolean notFound;
+    public GitHubUserResponse user;
+}
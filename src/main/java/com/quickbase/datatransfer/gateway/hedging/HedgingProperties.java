@@ -0,0 +1,22 @@
+package com.quickbase.datatransfer.gateway.hedging;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datatransfer.hedging")
+public class HedgingProperties {
+    private boolean enabled = false;
+    // a hedge is sent when no response arrived within this percentile of the recent response times
+    private double percentile = 0.95;
+    // number of most recent response times the percentile is calculated over
+    private int windowSize = 200;
+    // no hedges are sent before this many response times were observed
+    private int minSamples = 20;
+    // hedges are never sent sooner than this, so that fast responses don't make a burst of hedges
+    private Duration minDelay = Duration.ofMillis(50);
+}
@@ -0,0 +1,36 @@
+package com.quickbase.datatransfer.gateway.hedging;
+
+import java.util.Arrays;
+
+// the most recent response times of an external system, in nanoseconds
+class LatencyWindow {
+    private final long[] samples;
+    private int next;
+    private int size;
+
+    LatencyWindow(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // the nearest-rank percentile, e.g. 0.95 for the p95
+    synchronized long percentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile * size);
+        return sorted[Math.min(Math.max(rank, 1), size) - 1];
+    }
+}
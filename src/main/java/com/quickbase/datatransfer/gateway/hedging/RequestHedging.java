@@ -0,0 +1,200 @@
+package com.quickbase.datatransfer.gateway.hedging;
+
+import com.quickbase.datatransfer.gateway.metrics.GatewayMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Cuts the tail latency of idempotent requests: if no response arrives within a percentile of the recent response
+ * times of the external system (the p95 by default), the same request is sent again and the first response wins.
+ * The other request is cancelled, which closes its connection, or its response is released if it arrived too.
+ * Requests are only hedged if they are marked with HEDGE_ATTRIBUTE.
+ *
+ * The filter should be the first filter of a WebClient, so that hedges go through the rate limiter and the
+ * circuit breaker like any other request, and are timed.
+ */
+@Slf4j
+@Component
+public class RequestHedging {
+    // the request attribute marking a GET request which can be hedged
+    public static final String HEDGE_ATTRIBUTE = RequestHedging.class.getName() + ".hedge";
+
+    private final HedgingProperties properties;
+    private final GatewayMetrics gatewayMetrics;
+    private final Scheduler scheduler;
+    private final Map<String, LatencyWindow> latencyWindows = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RequestHedging(HedgingProperties properties, GatewayMetrics gatewayMetrics) {
+        this(properties, gatewayMetrics, Schedulers.parallel());
+    }
+
+    // the scheduler is used both for waiting and as a clock, so tests can run on virtual time
+    public RequestHedging(HedgingProperties properties, GatewayMetrics gatewayMetrics, Scheduler scheduler) {
+        this.properties = properties;
+        this.gatewayMetrics = gatewayMetrics;
+        this.scheduler = scheduler;
+    }
+
+    public ExchangeFilterFunction filter(String externalSystemName) {
+        return (request, next) -> {
+            if (!properties.isEnabled() || !isHedgeable(request)) {
+                return next.exchange(request);
+            }
+
+            LatencyWindow latencyWindow = getLatencyWindow(externalSystemName);
+            Duration hedgeDelay = getHedgeDelay(latencyWindow);
+
+            // the response times are only learned from the requests which can be hedged
+            if (hedgeDelay == null) {
+                return timed(next.exchange(request), latencyWindow);
+            }
+
+            return Mono.create(sink -> new HedgedExchange(externalSystemName, request, next, latencyWindow, sink)
+                    .start(hedgeDelay));
+        };
+    }
+
+    // null if not enough response times were observed yet
+    Duration getHedgeDelay(String externalSystemName) {
+        return getHedgeDelay(getLatencyWindow(externalSystemName));
+    }
+
+    private Duration getHedgeDelay(LatencyWindow latencyWindow) {
+        if (latencyWindow.size() < properties.getMinSamples()) {
+            return null;
+        }
+
+        Duration percentile = Duration.ofNanos(latencyWindow.percentile(properties.getPercentile()));
+        return percentile.compareTo(properties.getMinDelay()) > 0 ? percentile : properties.getMinDelay();
+    }
+
+    private LatencyWindow getLatencyWindow(String externalSystemName) {
+        return latencyWindows.computeIfAbsent(externalSystemName.toLowerCase(),
+                __ -> new LatencyWindow(properties.getWindowSize()));
+    }
+
+    private Mono<ClientResponse> timed(Mono<ClientResponse> exchange, LatencyWindow latencyWindow) {
+        return Mono.defer(() -> {
+            long startNanos = now();
+            return exchange.doOnNext(__ -> latencyWindow.record(now() - startNanos));
+        });
+    }
+
+    private long now() {
+        return scheduler.now(TimeUnit.NANOSECONDS);
+    }
+
+    private static boolean isHedgeable(ClientRequest request) {
+        return HttpMethod.GET.equals(request.method()) &&
+                Boolean.TRUE.equals(request.attribute(HEDGE_ATTRIBUTE).orElse(false));
+    }
+
+    /*
+     * Races the request against its hedge. A failure of one of them is only reported if the other one isn't in flight,
+     * so a request which fails before its hedge is sent fails right away, without being hedged.
+     */
+    private class HedgedExchange {
+        private final String externalSystemName;
+        private final ClientRequest request;
+        private final ExchangeFunction next;
+        private final LatencyWindow latencyWindow;
+        private final MonoSink<ClientResponse> sink;
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private final AtomicBoolean hedged = new AtomicBoolean();
+        private final AtomicInteger inFlight = new AtomicInteger(1);
+        private final Disposable.Swap primary = Disposables.swap();
+        private final Disposable.Swap hedge = Disposables.swap();
+        private final Disposable.Swap hedgeTimer = Disposables.swap();
+
+        HedgedExchange(String externalSystemName, ClientRequest request, ExchangeFunction next,
+                       LatencyWindow latencyWindow, MonoSink<ClientResponse> sink) {
+            this.externalSystemName = externalSystemName;
+            this.request = request;
+            this.next = next;
+            this.latencyWindow = latencyWindow;
+            this.sink = sink;
+        }
+
+        void start(Duration hedgeDelay) {
+            sink.onCancel(() -> {
+                hedgeTimer.dispose();
+                primary.dispose();
+                hedge.dispose();
+            });
+
+            primary.update(send(false));
+            hedgeTimer.update(scheduler.schedule(this::sendHedge, hedgeDelay.toNanos(), TimeUnit.NANOSECONDS));
+        }
+
+        private void sendHedge() {
+            if (completed.get()) {
+                return;
+            }
+
+            inFlight.incrementAndGet();
+            hedged.set(true);
+            log.debug("No response to {} {} within the hedge delay, sending a hedged request",
+                    request.method(), request.url());
+            hedge.update(send(true));
+        }
+
+        private Disposable send(boolean isHedge) {
+            return timed(next.exchange(request), latencyWindow).subscribe(
+                    response -> onResponse(response, isHedge),
+                    this::onError);
+        }
+
+        private void onResponse(ClientResponse response, boolean isHedge) {
+            if (!completed.compareAndSet(false, true)) {
+                response.releaseBody().subscribe();
+                return;
+            }
+
+            hedgeTimer.dispose();
+            // the winner isn't disposed, since it's still delivering its response
+            if (isHedge) {
+                primary.dispose();
+            } else {
+                hedge.dispose();
+            }
+
+            if (hedged.get()) {
+                gatewayMetrics.recordHedge(externalSystemName,
+                        isHedge ? GatewayMetrics.HEDGE_WON : GatewayMetrics.HEDGE_LOST);
+            }
+            sink.success(response);
+        }
+
+        private void onError(Throwable error) {
+            if (inFlight.decrementAndGet() > 0 || !completed.compareAndSet(false, true)) {
+                return;
+            }
+
+            hedgeTimer.dispose();
+            if (hedged.get()) {
+                gatewayMetrics.recordHedge(externalSystemName, GatewayMetrics.HEDGE_FAILED);
+            }
+            sink.error(error);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.quickbase.datatransfer.gateway.metrics;
+
+import com.quickbase.datatransfer.exception.HttpRequestFailedException;
+import com.quickbase.datatransfer.gateway.util.WebUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelHandler;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Records metrics of the exchanges with the external systems: a timer per exchange (every attempt, retries included),
+ * tagged by external system, transport profile, operation, HTTP status and outcome, the sizes of the request and
+ * response payloads, the bytes on the wire, the number of retries and the number of calls coalesced with identical
+ * calls in flight.
+ */
+@Component
+public class GatewayMetrics {
+    public static final String REQUESTS_METRIC = "datatransfer.gateway.requests";
+    public static final String REQUEST_BYTES_METRIC = "datatransfer.gateway.request.bytes";
+    public static final String RESPONSE_BYTES_METRIC = "datatransfer.gateway.response.bytes";
+    public static final String WIRE_BYTES_METRIC = "datatransfer.gateway.wire.bytes";
+    public static final String RETRIES_METRIC = "datatransfer.gateway.retries";
+    public static final String COALESCED_METRIC = "datatransfer.gateway.coalesced";
+    public static final String HEDGES_METRIC = "datatransfer.gateway.hedges";
+
+    // the request attribute with the operation of an exchange; if it's not set, it's derived from the HTTP method
+    public static final String OPERATION_ATTRIBUTE = GatewayMetrics.class.getName() + ".operation";
+    public static final String OPERATION_GET = "get";
+    public static final String OPERATION_LIST = "list";
+    public static final String OPERATION_SEARCH = "search";
+    public static final String OPERATION_CREATE = "create";
+    public static final String OPERATION_UPDATE = "update";
+    public static final String OPERATION_IMPORT = "import";
+
+    // the outcomes of a hedged request: the hedge responded first, the original request did, or both failed
+    public static final String HEDGE_WON = "won";
+    public static final String HEDGE_LOST = "lost";
+    public static final String HEDGE_FAILED = "failed";
+
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_CLIENT_ERROR = "client_error";
+    private static final String OUTCOME_SERVER_ERROR = "server_error";
+    private static final String OUTCOME_RATE_LIMITED = "rate_limited";
+    private static final String OUTCOME_IO_ERROR = "io_error";
+    private static final String OUTCOME_CANCELLED = "cancelled";
+    private static final String NO_STATUS = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public GatewayMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param transportProfile The transport profile of the WebClient, see HttpClientProperties, so that the latency
+     *                         and payload sizes of different profiles can be compared
+     * @return a filter timing the exchanges of a WebClient towards the specified external system. It should be the
+     * last filter of the client, so that waiting for a rate limit permit doesn't count as latency
+     */
+    public ExchangeFilterFunction filter(String externalSystemName, String transportProfile) {
+        String system = externalSystemName.toLowerCase();
+
+        return (request, next) -> Mono.defer(() -> {
+            String operation = getOperation(request);
+            AtomicLong requestBytes = new AtomicLong();
+            // only the first of the response, error and cancel signals is recorded
+            AtomicBoolean recorded = new AtomicBoolean();
+            Timer.Sample sample = Timer.start(meterRegistry);
+
+            return next.exchange(countRequestBytes(request, requestBytes))
+                    .doOnNext(response -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            sample.stop(getRequestTimer(system, transportProfile, operation,
+                                    String.valueOf(response.statusCode().value()), getOutcome(response)));
+                            recordBytes(REQUEST_BYTES_METRIC, system, transportProfile, operation, requestBytes.get());
+                        }
+                    })
+                    .doOnError(ex -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            sample.stop(getRequestTimer(system, transportProfile, operation, NO_STATUS,
+                                    OUTCOME_IO_ERROR));
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            sample.stop(getRequestTimer(system, transportProfile, operation, NO_STATUS,
+                                    OUTCOME_CANCELLED));
+                        }
+                    })
+                    .map(response -> countResponseBytes(response, system, transportProfile, operation));
+        });
+    }
+
+    public void recordRetry(String externalSystemName, Throwable failure) {
+        String reason = failure instanceof HttpRequestFailedException ex ?
+                (ex.rateLimited ? OUTCOME_RATE_LIMITED : String.valueOf(ex.httpStatusCode.value())) :
+                failure.getClass().getSimpleName();
+
+        Counter.builder(RETRIES_METRIC)
+                .description("Retries of requests to external systems")
+                .tags("system", externalSystemName.toLowerCase(), "reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    // a call which joined an identical call already in flight, instead of making a request of its own
+    public void recordCoalesced(String externalSystemName, String operation) {
+        Counter.builder(COALESCED_METRIC)
+                .description("Calls to external systems coalesced with identical calls in flight")
+                .tags("system", externalSystemName.toLowerCase(), "operation", operation)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    // a request which was sent again because it was slower than usual
+    public void recordHedge(String externalSystemName, String outcome) {
+        Counter.builder(HEDGES_METRIC)
+                .description("Requests to external systems hedged with a second request")
+                .tags("system", externalSystemName.toLowerCase(), "outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * @return a channel handler counting the bytes sent to and received from the specified external system on the
+     * wire, i.e. after compression and encryption. It should be the first handler of the channels
+     */
+    public ChannelHandler wireBytesHandler(String externalSystemName, String transportProfile) {
+        String system = externalSystemName.toLowerCase();
+
+        return new WireBytesHandler(getWireBytesCounter(system, transportProfile, "sent"),
+                getWireBytesCounter(system, transportProfile, "received"));
+    }
+
+    private Counter getWireBytesCounter(String system, String transportProfile, String direction) {
+        return Counter.builder(WIRE_BYTES_METRIC)
+                .description("Bytes exchanged with external systems on the wire")
+                .baseUnit("bytes")
+                .tags("system", system, "profile", transportProfile, "direction", direction)
+                .register(meterRegistry);
+    }
+
+    private Timer getRequestTimer(String system, String transportProfile, String operation, String status,
+                                  String outcome) {
+        return Timer.builder(REQUESTS_METRIC)
+                .description("Exchanges with external systems")
+                .tags("system", system, "profile", transportProfile, "operation", operation, "status", status,
+                        "outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    private void recordBytes(String metricName, String system, String transportProfile, String operation, long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+
+        DistributionSummary.builder(metricName)
+                .baseUnit("bytes")
+                .tags("system", system, "profile", transportProfile, "operation", operation)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    private static ClientRequest countRequestBytes(ClientRequest request, AtomicLong requestBytes) {
+        return ClientRequest.from(request)
+                .body((outputMessage, context) -> request.body().insert(new ClientHttpRequestDecorator(outputMessage) {
+                    @Override
+                    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                        return super.writeWith(Flux.from(body)
+                                .doOnNext(buffer -> requestBytes.addAndGet(buffer.readableByteCount())));
+                    }
+                }, context))
+                .build();
+    }
+
+    // the response body is counted decompressed, see the wire bytes for its compressed size
+    private ClientResponse countResponseBytes(ClientResponse response, String system, String transportProfile,
+                                              String operation) {
+        AtomicLong responseBytes = new AtomicLong();
+
+        return response.mutate()
+                .body(body -> body
+                        .doOnNext(buffer -> responseBytes.addAndGet(buffer.readableByteCount()))
+                        .doOnComplete(() -> recordBytes(RESPONSE_BYTES_METRIC, system, transportProfile, operation,
+                                responseBytes.get())))
+                .build();
+    }
+
+    private static String getOperation(ClientRequest request) {
+        return request.attribute(OPERATION_ATTRIBUTE)
+                .map(String::valueOf)
+                .orElseGet(() -> switch (request.method().name()) {
+                    case "GET" -> OPERATION_GET;
+                    case "POST" -> OPERATION_CREATE;
+                    case "PUT", "PATCH" -> OPERATION_UPDATE;
+                    default -> request.method().name().toLowerCase();
+                });
+    }
+
+    private static String getOutcome(ClientResponse response) {
+        if (WebUtils.isRateLimited(response)) {
+            return OUTCOME_RATE_LIMITED;
+        }
+
+        int status = response.statusCode().value();
+        if (status >= 500) {
+            return OUTCOME_SERVER_ERROR;
+        }
+        return status >= 400 ? OUTCOME_CLIENT_ERROR : OUTCOME_SUCCESS;
+    }
+}
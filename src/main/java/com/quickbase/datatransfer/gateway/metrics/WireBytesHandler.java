@@ -0,0 +1,36 @@
+package com.quickbase.datatransfer.gateway.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+// counts the bytes passing through the head of a channel's pipeline, where they are still raw
+@ChannelHandler.Sharable
+class WireBytesHandler extends ChannelDuplexHandler {
+    private final Counter sentBytes;
+    private final Counter receivedBytes;
+
+    WireBytesHandler(Counter sentBytes, Counter receivedBytes) {
+        this.sentBytes = sentBytes;
+        this.receivedBytes = receivedBytes;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof ByteBuf buffer) {
+            receivedBytes.increment(buffer.readableBytes());
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (msg instanceof ByteBuf buffer) {
+            sentBytes.increment(buffer.readableBytes());
+        }
+        ctx.write(msg, promise);
+    }
+}
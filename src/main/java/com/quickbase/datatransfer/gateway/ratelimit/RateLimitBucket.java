@@ -0,0 +1,85 @@
+package com.quickbase.datatransfer.gateway.ratelimit;
+
+import lombok.ToString;
+
+/*
+ * Token bucket of a single rate limit (e.g. the GitHub core API limit of one token). The bucket is refilled at the
+ * reset time reported by the external system, and the number of tokens is corrected by every response's
+ * rate limit headers. Until the first response is seen, the limit is unknown and permits are not restricted.
+ */
+@ToString
+class RateLimitBucket {
+    static final long UNKNOWN = -1;
+
+    long limit = UNKNOWN;
+    long remaining = UNKNOWN;
+    // epoch millis when the bucket is refilled
+    long resetAt = UNKNOWN;
+    // epoch millis until which no requests should be sent at all, e.g. due to a Retry-After header
+    long blockedUntil = UNKNOWN;
+
+    /*
+     * Takes a permit if one is available and returns 0, otherwise returns the number of millis to wait before trying again.
+     */
+    synchronized long tryAcquire(long now) {
+        if (blockedUntil > now) {
+            return blockedUntil - now;
+        }
+
+        if (resetAt != UNKNOWN && resetAt <= now) {
+            remaining = limit;
+            resetAt = UNKNOWN;
+        }
+
+        if (remaining == UNKNOWN) {
+            return 0;
+        }
+
+        if (remaining > 0) {
+            remaining--;
+            return 0;
+        }
+
+        // no reset time is known to wait for, so let a single request through to learn the current state
+        return resetAt != UNKNOWN ? resetAt - now : 0;
+    }
+
+    synchronized void update(long observedLimit, long observedRemaining, long observedResetAt, long now) {
+        if (observedLimit != UNKNOWN) {
+            limit = observedLimit;
+        }
+
+        if (observedRemaining != UNKNOWN) {
+            boolean newWindow = observedResetAt != UNKNOWN && observedResetAt > resetAt;
+
+            // permits taken by requests still in flight are not reflected in the observed value of the current window
+            remaining = newWindow || remaining == UNKNOWN ? observedRemaining : Math.min(remaining, observedRemaining);
+        }
+
+        if (observedResetAt != UNKNOWN && observedResetAt > now) {
+            resetAt = observedResetAt;
+        }
+    }
+
+    synchronized void blockUntil(long until) {
+        blockedUntil = Math.max(blockedUntil, until);
+    }
+
+    synchronized boolean isExhausted(long now) {
+        return blockedUntil > now || (remaining == 0 && resetAt > now);
+    }
+
+    synchronized String serialize() {
+        return limit + "," + remaining + "," + resetAt + "," + blockedUntil;
+    }
+
+    static RateLimitBucket deserialize(String value) {
+        String[] parts = value.split(",");
+        RateLimitBucket bucket = new RateLimitBucket();
+        bucket.limit = Long.parseLong(parts[0]);
+        bucket.remaining = Long.parseLong(parts[1]);
+        bucket.resetAt = Long.parseLong(parts[2]);
+        bucket.blockedUntil = Long.parseLong(parts[3]);
+        return bucket;
+    }
+}
@@ -0,0 +1,17 @@
+package com.quickbase.datatransfer.gateway.ratelimit;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datatransfer.rate-limit")
+public class RateLimitProperties {
+    // file the learned rate limit state is saved to, so that it survives restarts; persistence is disabled if blank
+    private String stateFile = "data/rate-limits.properties";
+    // assumed length of the rate limit window for external systems which don't send a reset time, e.g. Freshdesk
+    private Duration defaultWindow = Duration.ofMinutes(1);
+}
@@ -0,0 +1,286 @@
+package com.quickbase.datatransfer.gateway.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/*
+ * Schedules outbound calls according to the rate limits of the external systems.
+ *
+ * There is a token bucket per external system, credential and rate limit resource. Every exchange has to take
+ * a permit from its bucket before it's sent, waiting for the bucket to be refilled if it's empty. The buckets
+ * learn the limits from the X-RateLimit-* and Retry-After headers of the responses. Exhausted buckets are saved
+ * to a file, so that a new process doesn't burst into a limit which was already used up by the previous one.
+ */
+@Slf4j
+@Component
+public class RateLimitScheduler implements DisposableBean {
+    public static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    // Freshdesk's name of the limit header
+    public static final String TOTAL_HEADER = "X-RateLimit-Total";
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String RESET_HEADER = "X-RateLimit-Reset";
+    // reset values above this are epoch seconds, the rest are seconds from now
+    private static final long MIN_EPOCH_SECONDS = 1_000_000_000L;
+
+    private final RateLimitProperties properties;
+    private final Scheduler scheduler;
+    private final Map<String, RateLimitBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+
+    @Autowired
+    public RateLimitScheduler(RateLimitProperties properties) {
+        this(properties, Schedulers.parallel());
+    }
+
+    // the scheduler is used both for waiting and as a clock, so tests can run on virtual time
+    public RateLimitScheduler(RateLimitProperties properties, Scheduler scheduler) {
+        this.properties = properties;
+        this.scheduler = scheduler;
+        loadState();
+    }
+
+    /**
+     * Creates a filter which makes every exchange of a WebClient take a permit first and learn from the response.
+     *
+     * @param externalSystemName The external system the WebClient makes calls to
+     * @param credentialKey A key identifying the credential the WebClient authenticates with, since rate limits are
+     *                      usually per credential
+     */
+    public ExchangeFilterFunction filter(String externalSystemName, String credentialKey) {
+        return filter(externalSystemName, request -> credentialKey);
+    }
+
+    /**
+     * Like {@link #filter(String, String)}, for WebClients whose credential can differ between exchanges.
+     *
+     * @param externalSystemName The external system the WebClient makes calls to
+     * @param credentialKeyResolver Resolves the key of the credential an exchange is authenticated with
+     */
+    public ExchangeFilterFunction filter(String externalSystemName,
+                                         Function<ClientRequest, String> credentialKeyResolver) {
+        return (request, next) -> {
+            String bucketKey = bucketKey(externalSystemName, credentialKeyResolver.apply(request),
+                    getResource(request.url().getPath()));
+
+            return acquirePermit(bucketKey)
+                    .then(next.exchange(request))
+                    .doOnNext(response -> observe(bucketKey, response));
+        };
+    }
+
+    public Mono<Void> acquirePermit(String bucketKey) {
+        return Mono.defer(() -> {
+            long waitMillis = getBucket(bucketKey).tryAcquire(now());
+
+            if (waitMillis <= 0) {
+                return Mono.empty();
+            }
+
+            log.info("Rate limit '{}' is exhausted, waiting {} ms before sending the request", bucketKey, waitMillis);
+
+            return Mono.delay(Duration.ofMillis(waitMillis), scheduler)
+                    .then(acquirePermit(bucketKey));
+        });
+    }
+
+    public void observe(String bucketKey, ClientResponse response) {
+        observe(bucketKey, response.statusCode(), response.headers().asHttpHeaders());
+    }
+
+    public void observe(String bucketKey, HttpStatusCode statusCode, HttpHeaders headers) {
+        long now = now();
+        RateLimitBucket bucket = getBucket(bucketKey);
+
+        long limit = parseLong(headers.getFirst(LIMIT_HEADER), parseLong(headers.getFirst(TOTAL_HEADER), RateLimitBucket.UNKNOWN));
+        long remaining = parseLong(headers.getFirst(REMAINING_HEADER), RateLimitBucket.UNKNOWN);
+        long resetAt = parseResetTime(headers.getFirst(RESET_HEADER), now);
+
+        if (remaining == 0 && resetAt == RateLimitBucket.UNKNOWN) {
+            resetAt = now + properties.getDefaultWindow().toMillis();
+        }
+
+        bucket.update(limit, remaining, resetAt, now);
+
+        long retryAfterMillis = parseRetryAfterMillis(headers.getFirst(HttpHeaders.RETRY_AFTER), now);
+        if (retryAfterMillis != RateLimitBucket.UNKNOWN && isRateLimitedStatus(statusCode)) {
+            bucket.blockUntil(now + retryAfterMillis);
+        } else if (statusCode.value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            bucket.blockUntil(resetAt != RateLimitBucket.UNKNOWN ? resetAt : now + properties.getDefaultWindow().toMillis());
+        }
+
+        if (bucket.isExhausted(now)) {
+            log.info("Rate limit '{}' got exhausted: {}", bucketKey, bucket);
+            scheduleSave();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        saveState();
+    }
+
+    public static String bucketKey(String externalSystemName, String credentialKey, String resource) {
+        return externalSystemName + "/" + credentialKey + "/" + resource;
+    }
+
+    /*
+     * Returns the number of millis a client has to wait if the response says it has been rate limited, or -1 if it hasn't.
+     */
+    public static long parseRetryAfterMillis(String retryAfter, long now) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return RateLimitBucket.UNKNOWN;
+        }
+
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                // the Retry-After header might also be an HTTP date
+                long retryAt = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli();
+                return Math.max(0, retryAt - now);
+            } catch (DateTimeParseException ex) {
+                return RateLimitBucket.UNKNOWN;
+            }
+        }
+    }
+
+    public static boolean isRateLimitedStatus(HttpStatusCode statusCode) {
+        // GitHub responds with 403 instead of 429 when a rate limit is exceeded
+        return statusCode.value() == HttpStatus.TOO_MANY_REQUESTS.value()
+                || statusCode.value() == HttpStatus.FORBIDDEN.value();
+    }
+
+    // GitHub's GraphQL API has a rate limit of its own, separate from the REST API one
+    private static String getResource(String path) {
+        return path != null && path.startsWith("/graphql") ? "graphql" : "core";
+    }
+
+    private RateLimitBucket getBucket(String bucketKey) {
+        return buckets.computeIfAbsent(bucketKey, __ -> new RateLimitBucket());
+    }
+
+    private long now() {
+        return scheduler.now(TimeUnit.MILLISECONDS);
+    }
+
+    /*
+     * Returns the epoch millis at which a rate limit is reset, or -1 if it's not known.
+     */
+    public static long parseResetTime(String reset, long now) {
+        long value = parseLong(reset, RateLimitBucket.UNKNOWN);
+
+        if (value == RateLimitBucket.UNKNOWN) {
+            return value;
+        }
+
+        return value >= MIN_EPOCH_SECONDS ? value * 1000 : now + value * 1000;
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private void scheduleSave() {
+        if (properties.getStateFile() == null || properties.getStateFile().isBlank()) {
+            return;
+        }
+
+        // saves triggered while one is already scheduled are coalesced into it
+        if (saveScheduled.compareAndSet(false, true)) {
+            Schedulers.boundedElastic().schedule(() -> {
+                saveScheduled.set(false);
+                saveState();
+            });
+        }
+    }
+
+    private synchronized void saveState() {
+        if (properties.getStateFile() == null || properties.getStateFile().isBlank()) {
+            return;
+        }
+
+        long now = now();
+        Properties state = new Properties();
+        buckets.forEach((key, bucket) -> {
+            // only the buckets which limit requests are worth remembering
+            if (bucket.isExhausted(now) || bucket.resetAt > now) {
+                state.setProperty(key, bucket.serialize());
+            }
+        });
+
+        Path stateFile = Path.of(properties.getStateFile());
+        try {
+            if (stateFile.getParent() != null) {
+                Files.createDirectories(stateFile.getParent());
+            }
+
+            Path tempFile = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tempFile)) {
+                state.store(writer, "Rate limit state: <limit>,<remaining>,<reset at>,<blocked until>");
+            }
+
+            Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to save rate limit state to '{}':", stateFile, e);
+        }
+    }
+
+    private void loadState() {
+        if (properties.getStateFile() == null || properties.getStateFile().isBlank()) {
+            return;
+        }
+
+        Path stateFile = Path.of(properties.getStateFile());
+        if (!Files.exists(stateFile)) {
+            return;
+        }
+
+        Properties state = new Properties();
+        try (Reader reader = Files.newBufferedReader(stateFile)) {
+            state.load(reader);
+            state.stringPropertyNames().forEach(key ->
+                    buckets.put(key, RateLimitBucket.deserialize(state.getProperty(key))));
+
+            log.info("Loaded state of {} rate limit(s) from '{}'", buckets.size(), stateFile);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to load rate limit state from '{}', starting from scratch:", stateFile, e);
+        }
+    }
+}
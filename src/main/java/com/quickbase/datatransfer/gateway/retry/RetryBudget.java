@@ -0,0 +1,44 @@
+package com.quickbase.datatransfer.gateway.retry;
+
+/*
+ * Counts the requests and retries made to an external system in fixed windows of time and allows a retry only
+ * while the retries within the current window are less than the configured ratio of the requests.
+ */
+class RetryBudget {
+    private final double ratio;
+    private final long minRetries;
+    private final long windowMillis;
+    private long windowStart;
+    private long requests;
+    private long retries;
+
+    RetryBudget(RetryProperties.Budget properties) {
+        this.ratio = properties.getRatio();
+        this.minRetries = properties.getMinRetries();
+        this.windowMillis = properties.getWindow().toMillis();
+    }
+
+    synchronized void recordRequest(long now) {
+        startNewWindowIfElapsed(now);
+        requests++;
+    }
+
+    synchronized boolean tryAcquireRetry(long now) {
+        startNewWindowIfElapsed(now);
+
+        if (retries >= Math.max(minRetries, (long) (requests * ratio))) {
+            return false;
+        }
+
+        retries++;
+        return true;
+    }
+
+    private void startNewWindowIfElapsed(long now) {
+        if (now - windowStart >= windowMillis) {
+            windowStart = now;
+            requests = 0;
+            retries = 0;
+        }
+    }
+}
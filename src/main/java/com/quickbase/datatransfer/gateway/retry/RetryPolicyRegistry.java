@@ -0,0 +1,129 @@
+package com.quickbase.datatransfer.gateway.retry;
+
+import com.quickbase.datatransfer.exception.HttpRequestFailedException;
+import com.quickbase.datatransfer.gateway.metrics.GatewayMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Provides the retry policies of the external systems.
+ *
+ * A request is retried if it failed with one of the retryable statuses of its system's policy or was rate limited.
+ * It's retried after the time the external system asked for in a Retry-After header, or otherwise after a backoff with
+ * decorrelated jitter, so that the retries of requests that failed at the same time don't hit the system at the same
+ * time again. All requests to an external system share a retry budget, which stops retries from multiplying the load
+ * on a system that's failing most requests anyway.
+ */
+@Slf4j
+@Component
+public class RetryPolicyRegistry {
+    private final RetryProperties properties;
+    private final GatewayMetrics gatewayMetrics;
+    private final Scheduler scheduler;
+    private final Map<String, RetryBudget> budgets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RetryPolicyRegistry(RetryProperties properties, GatewayMetrics gatewayMetrics) {
+        this(properties, gatewayMetrics, Schedulers.parallel());
+    }
+
+    // the scheduler is used both for waiting and as a clock, so tests can run on virtual time
+    public RetryPolicyRegistry(RetryProperties properties, GatewayMetrics gatewayMetrics, Scheduler scheduler) {
+        this.properties = properties;
+        this.gatewayMetrics = gatewayMetrics;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @return a {@link Retry} for requests to the specified external system, to be used with
+     * {@link Mono#retryWhen(Retry)}; exhausted retries propagate the original error
+     */
+    public Retry retryFor(String externalSystemName) {
+        RetryProperties.Policy policy = properties.getPolicy(externalSystemName);
+        RetryBudget budget = budgets.computeIfAbsent(externalSystemName, __ -> new RetryBudget(properties.getBudget()));
+
+        // called once for every subscription to the request, i.e. for every request but not for its retries
+        return Retry.from(retrySignals -> {
+            budget.recordRequest(now());
+            AtomicReference<Duration> previousBackoff = new AtomicReference<>(policy.getMinBackoff());
+
+            return retrySignals.concatMap(retrySignal -> {
+                Throwable failure = retrySignal.failure();
+                long retry = retrySignal.totalRetries() + 1;
+
+                if (!isRetryable(policy, failure) || retry > policy.getMaxRetries()) {
+                    return Mono.error(failure);
+                }
+
+                Duration delay = getRetryAfter(failure);
+                if (delay != null && delay.compareTo(policy.getMaxRetryAfter()) > 0) {
+                    log.warn("Not retrying request to {}, since it asked to wait {} before retrying, Reason: {}",
+                            externalSystemName, delay, failure.getMessage());
+                    return Mono.error(failure);
+                }
+
+                if (!budget.tryAcquireRetry(now())) {
+                    log.warn("Not retrying request to {}, since its retry budget is exhausted, Reason: {}",
+                            externalSystemName, failure.getMessage());
+                    return Mono.error(failure);
+                }
+
+                if (delay == null) {
+                    delay = nextBackoff(policy, previousBackoff.get());
+                    previousBackoff.set(delay);
+                }
+
+                log.info("Retrying on exception for the {}{} time out of {} times in {} ms, Reason: {}",
+                        retry, getOrdinalIndicator(retry), policy.getMaxRetries(), delay.toMillis(), failure.getMessage());
+                gatewayMetrics.recordRetry(externalSystemName, failure);
+
+                return Mono.delay(delay, scheduler).thenReturn(retry);
+            });
+        });
+    }
+
+    private long now() {
+        return scheduler.now(TimeUnit.MILLISECONDS);
+    }
+
+    private static boolean isRetryable(RetryProperties.Policy policy, Throwable throwable) {
+        if (throwable instanceof HttpRequestFailedException ex) {
+            // waiting for the rate limit to reset is taken care of by the RateLimitScheduler
+            return ex.rateLimited || policy.getRetryableStatuses().contains(ex.httpStatusCode.value());
+        }
+        return false;
+    }
+
+    private static Duration getRetryAfter(Throwable throwable) {
+        return throwable instanceof HttpRequestFailedException ex ? ex.retryAfter : null;
+    }
+
+    private static Duration nextBackoff(RetryProperties.Policy policy, Duration previousBackoff) {
+        long minMillis = policy.getMinBackoff().toMillis();
+        long maxMillis = Math.max(minMillis + 1, previousBackoff.toMillis() * 3);
+        long backoffMillis = ThreadLocalRandom.current().nextLong(minMillis, maxMillis);
+
+        return Duration.ofMillis(Math.min(backoffMillis, policy.getMaxBackoff().toMillis()));
+    }
+
+    private static String getOrdinalIndicator(long number) {
+        return switch ((int) number % 10) {
+            case 1 -> "st";
+            case 2 -> "nd";
+            case 3 -> "rd";
+            default -> "th";
+        };
+    }
+}
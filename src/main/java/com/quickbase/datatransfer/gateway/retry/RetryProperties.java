@@ -0,0 +1,52 @@
+package com.quickbase.datatransfer.gateway.retry;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datatransfer.retry")
+public class RetryProperties {
+    // the policy of the external systems which don't have a policy of their own
+    private Policy defaultPolicy = new Policy();
+    // policies by (lowercase) external system name, e.g. 'datatransfer.retry.systems.freshdesk.max-retries'
+    private Map<String, Policy> systems = new HashMap<>();
+    private Budget budget = new Budget();
+
+    public Policy getPolicy(String externalSystemName) {
+        return systems.getOrDefault(externalSystemName.toLowerCase(Locale.ROOT), defaultPolicy);
+    }
+
+    @Getter
+    @Setter
+    public static class Policy {
+        private int maxRetries = 5;
+        // backoffs are randomized between the min backoff and three times the previous backoff (decorrelated jitter)
+        private Duration minBackoff = Duration.ofSeconds(2);
+        private Duration maxBackoff = Duration.ofMinutes(1);
+        // requests are not retried if the external system asks to wait longer than this before retrying
+        private Duration maxRetryAfter = Duration.ofMinutes(5);
+        // rate limited requests are retried regardless of their status
+        private List<Integer> retryableStatuses = List.of(408, 429, 502, 503, 504);
+    }
+
+    /*
+     * Retries to an external system may not exceed the specified ratio of the requests made to it within the window,
+     * so that the retries can't overload an external system which is already struggling.
+     */
+    @Getter
+    @Setter
+    public static class Budget {
+        private double ratio = 0.1;
+        // retries allowed within the window regardless of the ratio, so that a few requests can still be retried
+        private int minRetries = 10;
+        private Duration window = Duration.ofSeconds(10);
+    }
+}
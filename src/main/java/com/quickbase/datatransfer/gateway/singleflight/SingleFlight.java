@@ -0,0 +1,81 @@
+package com.quickbase.datatransfer.gateway.singleflight;
+
+import com.quickbase.datatransfer.gateway.metrics.GatewayMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/*
+ * Coalesces identical calls to the external systems which are in flight at the same time, e.g. the download of the
+ * same GitHub user requested by many items of a bulk transfer: the first caller makes the call and the callers that
+ * come while it's in flight share its outcome. A call is forgotten as soon as it completes, so unlike a cache this
+ * never returns a stale result. If all callers of a call cancel, the call is cancelled too.
+ */
+@Slf4j
+@Component
+public class SingleFlight {
+    private final SingleFlightProperties properties;
+    private final GatewayMetrics gatewayMetrics;
+    private final Map<FlightKey, Mono<?>> flights = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SingleFlight(SingleFlightProperties properties, GatewayMetrics gatewayMetrics) {
+        this.properties = properties;
+        this.gatewayMetrics = gatewayMetrics;
+    }
+
+    /**
+     * Makes a call, or joins the identical call which is already in flight.
+     *
+     * @param externalSystemName The external system the call is made to
+     * @param operation The operation of the call, see the operations of {@link GatewayMetrics}
+     * @param key Identifies the call within the operation; callers should normalize it, e.g. lower case the keys
+     *            which the external system treats case-insensitively, so that identical calls have the same key
+     * @param call Creates the call
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String externalSystemName, String operation, String key, Supplier<Mono<T>> call) {
+        if (!properties.isEnabled()) {
+            return Mono.defer(call);
+        }
+
+        return Mono.defer(() -> {
+            FlightKey flightKey = new FlightKey(externalSystemName.toLowerCase(), operation, key);
+            // nothing is called before the flight is subscribed to, so it can be created in vain
+            Mono<T> newFlight = newFlight(flightKey, call);
+            Mono<?> inFlight = flights.putIfAbsent(flightKey, newFlight);
+
+            if (inFlight == null) {
+                return newFlight;
+            }
+
+            log.debug("Joining {} call '{}' to {} which is already in flight", operation, key, externalSystemName);
+            gatewayMetrics.recordCoalesced(externalSystemName, operation);
+            return (Mono<T>) inFlight;
+        });
+    }
+
+    public int getInFlightCount() {
+        return flights.size();
+    }
+
+    private <T> Mono<T> newFlight(FlightKey flightKey, Supplier<Mono<T>> call) {
+        AtomicReference<Mono<T>> flight = new AtomicReference<>();
+
+        // shared rather than cached, so that the call is cancelled when all of its callers cancel
+        flight.set(Mono.defer(call)
+                .doFinally(__ -> flights.remove(flightKey, flight.get()))
+                .share());
+
+        return flight.get();
+    }
+
+    private record FlightKey(String system, String operation, String key) {
+    }
+}
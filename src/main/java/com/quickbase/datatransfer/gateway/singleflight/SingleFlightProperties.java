@@ -0,0 +1,12 @@
+package com.quickbase.datatransfer.gateway.singleflight;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datatransfer.single-flight")
+public class SingleFlightProperties {
+    private boolean enabled = true;
+}
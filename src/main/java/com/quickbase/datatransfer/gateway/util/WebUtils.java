@@ -1,33 +1,27 @@
 package com.quickbase.datatransfer.gateway.util;
 
 import com.quickbase.datatransfer.exception.HttpRequestFailedException;
-import lombok.extern.slf4j.Slf4j;
+import com.quickbase.datatransfer.gateway.ratelimit.RateLimitScheduler;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.retry.Retry;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-import static reactor.util.retry.Retry.RetrySignal;
-import static reactor.util.retry.Retry.backoff;
-
-@Slf4j
 public class WebUtils {
-    // in production code, these retry settings should be configurable
-    public static final long RETRY_MAX_ATTEMPTS = 5;
-    public static final Duration RETRY_MIN_BACKOFF = Duration.ofSeconds(2);
-    public static final List<HttpStatus> RETRYABLE_HTTP_STATUSES = List.of(
-            HttpStatus.REQUEST_TIMEOUT,
-            HttpStatus.GATEWAY_TIMEOUT,
-            HttpStatus.SERVICE_UNAVAILABLE,
-            HttpStatus.BAD_GATEWAY
-    );
+    private static final Pattern NEXT_PAGE_LINK_PATTERN = Pattern.compile("<([^>]*)>[^,<]*rel=\"next\"");
 
     public static String urlEncode(String value) {
         if (value == null) {
@@ -37,6 +31,42 @@ public class WebUtils {
         return URLEncoder.encode(value, StandardCharsets.UTF_8);
     }
 
+    /*
+     * Extracts the URL of the next page from a 'Link' response header, e.g.
+     * <https://api.github.com/organizations/1/members?page=2>; rel="next", <https://...?page=5>; rel="last"
+     * Returns null if there is no next page.
+     */
+    public static String getNextPageUrl(HttpHeaders headers) {
+        String linkHeader = headers.getFirst(HttpHeaders.LINK);
+
+        if (linkHeader == null) {
+            return null;
+        }
+
+        Matcher matcher = NEXT_PAGE_LINK_PATTERN.matcher(linkHeader);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /*
+     * Fails a response body as soon as more than maxBytes of it were read. Unlike the max in-memory size of
+     * the codecs, this also bounds a body which is decoded as a stream of elements, none of which is too large.
+     */
+    public static Flux<DataBuffer> limitBodySize(Flux<DataBuffer> body, long maxBytes) {
+        return Flux.defer(() -> {
+            AtomicLong bytesRead = new AtomicLong();
+
+            return body.handle((buffer, sink) -> {
+                if (bytesRead.addAndGet(buffer.readableByteCount()) > maxBytes) {
+                    DataBufferUtils.release(buffer);
+                    sink.error(new DataBufferLimitException(
+                            String.format("Exceeded limit on max bytes to read from response body: %d", maxBytes)));
+                } else {
+                    sink.next(buffer);
+                }
+            });
+        });
+    }
+
     public static Mono<ClientResponse> handleHttpError(ClientResponse response, String externalSystemName,
                                                        Function<HttpStatusCode, String> customHttpErrorCodeToMessageMapper) {
         HttpStatusCode httpStatus = response.statusCode();
@@ -44,38 +74,34 @@ public class WebUtils {
         if (httpStatus.isError()) {
             return Mono.error(new HttpRequestFailedException(
                     customHttpErrorCodeToMessageMapper != null ? customHttpErrorCodeToMessageMapper.apply(httpStatus) : "",
-                    externalSystemName, httpStatus));
+                    externalSystemName, httpStatus, isRateLimited(response), getRetryAfter(response)));
         }
 
         return Mono.just(response);
     }
 
-    public static Retry retryWithDefaultSettings() {
-        return backoff(RETRY_MAX_ATTEMPTS, RETRY_MIN_BACKOFF)
-                .filter(throwable -> {
-                    if (throwable instanceof HttpRequestFailedException ex) {
-                        return RETRYABLE_HTTP_STATUSES.stream()
-                                .anyMatch(status -> ex.httpStatusCode.value() == status.value());
-                    }
-                    return false;
-                })
-                .doBeforeRetry(sig -> {
-                    RetrySignal signal = sig.copy();
-                    Throwable err = signal.failure();
-                    long currentRetries = signal.totalRetries();
-                    log.info("Retrying on exception for the {}{} time out of {} times, Reason: {}",
-                            currentRetries + 1, getOrdinalIndicator(currentRetries + 1), RETRY_MAX_ATTEMPTS, err.getMessage());
-                })
-                // propagate the original error, because the Retry API is wrapping it
-                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    /*
+     * Some external systems (e.g. GitHub) respond with 403 instead of 429 when a rate limit is exceeded,
+     * which can only be told apart from a real 403 by the rate limit headers.
+     */
+    public static boolean isRateLimited(ClientResponse response) {
+        HttpStatusCode httpStatus = response.statusCode();
+
+        if (httpStatus.value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            return true;
+        }
+
+        HttpHeaders headers = response.headers().asHttpHeaders();
+        return RateLimitScheduler.isRateLimitedStatus(httpStatus)
+                && ("0".equals(headers.getFirst(RateLimitScheduler.REMAINING_HEADER))
+                || headers.getFirst(HttpHeaders.RETRY_AFTER) != null);
     }
 
-    private static String getOrdinalIndicator(long number) {
-        return switch ((int) number % 10) {
-            case 1 -> "st";
-            case 2 -> "nd";
-            case 3 -> "rd";
-            default -> "th";
-        };
+    // returns how long the response asks to wait before retrying, or null if it doesn't
+    public static Duration getRetryAfter(ClientResponse response) {
+        long retryAfterMillis = RateLimitScheduler.parseRetryAfterMillis(
+                response.headers().asHttpHeaders().getFirst(HttpHeaders.RETRY_AFTER), System.currentTimeMillis());
+
+        return retryAfterMillis >= 0 ? Duration.ofMillis(retryAfterMillis) : null;
     }
 }
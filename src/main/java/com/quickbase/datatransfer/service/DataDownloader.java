@@ -1,8 +1,13 @@
 package com.quickbase.datatransfer.service;
 
 import com.quickbase.datatransfer.data.BaseData;
+import com.quickbase.datatransfer.exception.InvalidDataException;
+import com.quickbase.datatransfer.exception.UnsupportedOperationException;
+import com.quickbase.datatransfer.service.model.DownloadResult;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Map;
 
 /*
@@ -20,4 +25,46 @@ public interface DataDownloader<T extends BaseData> extends TransferrerTypeCheck
      * @return a {@link Mono} emitting the downloaded data in a generic format
      */
     Mono<T> downloadData(Map<String, String> params);
+
+    /**
+     * Downloads a stream of data from external system.
+     * <p/>
+     * Identifies a collection of data (for example, all members of an organization) based on the specified params
+     * and downloads it lazily, transforming each item to a generic format. Items are downloaded only as fast as they
+     * are requested, so the whole collection is never held in memory.
+     *
+     * @param params The parameters used to identify the collection of data. They might be specific to the external system and data type
+     * @return a {@link Flux} emitting the downloaded data in a generic format
+     */
+    default Flux<T> downloadDataStream(Map<String, String> params) {
+        return Flux.error(new UnsupportedOperationException(String.format(
+                "Streaming download is not supported by data downloader '%s'", getClass().getSimpleName())));
+    }
+
+    /**
+     * Downloads a batch of data from external system.
+     * <p/>
+     * External systems which can download many items with a single request should override this, together with
+     * {@link #getMaxBatchSize()}. By default, the items are downloaded one by one.
+     *
+     * @param paramsList The parameters used to identify each item of the batch
+     * @return a {@link Mono} emitting the results of the download, one per item and in the order of the params. An item
+     * which failed to download doesn't fail the whole batch, but has a failed result
+     */
+    default Mono<List<DownloadResult<T>>> downloadDataBatch(List<Map<String, String>> paramsList) {
+        return Flux.fromIterable(paramsList)
+                .concatMap(params -> Mono.defer(() -> downloadData(params))
+                        .map(DownloadResult::succeeded)
+                        .defaultIfEmpty(DownloadResult.failed(new InvalidDataException("No data was downloaded.")))
+                        .onErrorResume(ex -> Mono.just(DownloadResult.failed(ex))))
+                .collectList();
+    }
+
+    /**
+     * @return the maximum number of items {@link #downloadDataBatch(List)} should be called with; batch downloads
+     * are only used if this is greater than 1
+     */
+    default int getMaxBatchSize() {
+        return 1;
+    }
 }
@@ -1,8 +1,14 @@
 package com.quickbase.datatransfer.service;
 
 import com.quickbase.datatransfer.common.DataType;
+import com.quickbase.datatransfer.service.model.BulkTransferOptions;
+import com.quickbase.datatransfer.service.model.TransferDestination;
+import com.quickbase.datatransfer.service.model.TransferItem;
+import com.quickbase.datatransfer.service.model.TransferResult;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Map;
 
 public interface DataTransferService {
@@ -21,4 +27,60 @@ public interface DataTransferService {
      */
     Mono<Void> transferData(String sourceSystemType, String destSystemType, DataType dataType,
                             Map<String, String> sourceParams, Map<String, String> destParams);
+
+    /**
+     * Transfers data from one external system to many destinations.
+     * <p/>
+     * Downloads the data once and uploads it to all destinations at the same time, so a slow destination only delays
+     * its own upload. A failure to upload to a destination doesn't stop the uploads to the rest, but a failure to
+     * download the data fails the whole transfer.
+     *
+     * @param sourceSystemType The type of system data would be downloaded from
+     * @param dataType The type of data to be transferred
+     * @param sourceParams The params identifying the data to be downloaded from the source system
+     * @param destinations The systems to upload the data to and the params identifying where to upload it in each
+     * @return a {@link Flux} emitting the result of the upload to each destination, keyed by
+     * {@link TransferDestination#key()}, in the order of completion
+     */
+    Flux<TransferResult> transferDataToMany(String sourceSystemType, DataType dataType,
+                                            Map<String, String> sourceParams, List<TransferDestination> destinations);
+
+    /**
+     * Transfers many items of data from one external system to another.
+     * <p/>
+     * Each item is transferred the same way as with {@link #transferData}, but up to
+     * {@link BulkTransferOptions#getConcurrency()} items are in flight at the same time. Items are pulled from the
+     * specified {@link Flux} only as fast as they are transferred, so memory usage doesn't depend on the number of
+     * items. A failure to transfer an item doesn't stop the transfer of the rest.
+     *
+     * @param sourceSystemType The type of system data would be downloaded from
+     * @param destSystemType The type of system data would be uploaded to
+     * @param dataType The type of data to be transferred
+     * @param items The source/dest params of each item to be transferred
+     * @param options Settings of the bulk transfer, like concurrency
+     * @return a {@link Flux} emitting the result of each item's transfer in the order of completion
+     */
+    Flux<TransferResult> transferDataInBulk(String sourceSystemType, String destSystemType, DataType dataType,
+                                            Flux<TransferItem> items, BulkTransferOptions options);
+
+    /**
+     * Transfers a stream of data from one external system to another.
+     * <p/>
+     * Downloads a collection of data identified by the specified source params (see {@link DataDownloader#downloadDataStream})
+     * and uploads each item to the destination system as soon as it is downloaded, with up to
+     * {@link BulkTransferOptions#getConcurrency()} uploads in flight at the same time. The collection is downloaded only
+     * as fast as it is uploaded, so it is never held in memory. A failure to upload an item doesn't stop the transfer
+     * of the rest, but a failure to download the collection does.
+     *
+     * @param sourceSystemType The type of system data would be downloaded from
+     * @param destSystemType The type of system data would be uploaded to
+     * @param dataType The type of data to be transferred
+     * @param sourceParams The params identifying the collection of data to be downloaded from the source system
+     * @param destParams The params identifying where to upload the data in the destination system
+     * @param options Settings of the bulk transfer, like concurrency
+     * @return a {@link Flux} emitting the result of each item's transfer in the order of completion
+     */
+    Flux<TransferResult> transferDataStream(String sourceSystemType, String destSystemType, DataType dataType,
+                                            Map<String, String> sourceParams, Map<String, String> destParams,
+                                            BulkTransferOptions options);
 }
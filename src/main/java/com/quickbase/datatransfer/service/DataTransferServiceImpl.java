@@ -1,27 +1,53 @@
 package com.quickbase.datatransfer.service;
 
 import com.quickbase.datatransfer.data.BaseData;
+import com.quickbase.datatransfer.exception.InvalidDataException;
 import com.quickbase.datatransfer.exception.UnsupportedOperationException;
 import com.quickbase.datatransfer.common.DataType;
+import com.quickbase.datatransfer.service.mapping.Mapping;
+import com.quickbase.datatransfer.service.mapping.MappingKey;
+import com.quickbase.datatransfer.service.mapping.MappingStore;
+import com.quickbase.datatransfer.service.metrics.TransferMetrics;
+import com.quickbase.datatransfer.service.model.BulkTransferOptions;
+import com.quickbase.datatransfer.service.pipeline.TransferPipelineMetrics;
+import com.quickbase.datatransfer.service.model.DownloadResult;
+import com.quickbase.datatransfer.service.model.TransferDestination;
+import com.quickbase.datatransfer.service.model.TransferItem;
+import com.quickbase.datatransfer.service.model.TransferResult;
+import com.quickbase.datatransfer.service.model.UploadResult;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class DataTransferServiceImpl implements DataTransferService {
     private final List<DataDownloader<? extends BaseData>> dataDownloaders;
     private final List<DataUploader<? extends BaseData>> dataUploaders;
+    private final MappingStore mappingStore;
+    private final TransferMetrics transferMetrics;
 
     @Autowired
     public DataTransferServiceImpl(List<DataDownloader<? extends BaseData>> dataDownloaders,
-                               List<DataUploader<? extends BaseData>> dataUploaders) {
+                               List<DataUploader<? extends BaseData>> dataUploaders,
+                               MappingStore mappingStore,
+                               TransferMetrics transferMetrics) {
         this.dataDownloaders = dataDownloaders;
         this.dataUploaders = dataUploaders;
+        this.mappingStore = mappingStore;
+        this.transferMetrics = transferMetrics;
         log.debug("Found the following data downloaders: {}", dataDownloaders);
         log.debug("Found the following data uploaders: {}", dataUploaders);
     }
@@ -37,17 +63,405 @@ public class DataTransferServiceImpl implements DataTransferService {
                             (DataUploader<BaseData>) findDataTransferrer(dataUploaders, destSystemType, dataType, false);
                     log.debug("Found suitable data uploader: {}", destSystemDataUploader);
 
-                    return sourceSystemDataDownloader.downloadData(sourceParams)
-                            .flatMap(downloadedData -> destSystemDataUploader.uploadData(destParams, downloadedData));
+                    UploadTarget uploadTarget = new UploadTarget(sourceSystemType, destSystemType, destSystemDataUploader);
+
+                    return timed(sourceSystemDataDownloader.downloadData(sourceParams),
+                                    (successful, elapsed) -> transferMetrics.recordDownload(
+                                            sourceSystemType, TransferMetrics.MODE_SINGLE, successful, elapsed))
+                            .flatMap(downloadedData -> upload(uploadTarget, destParams, downloadedData,
+                                    getItemKey(downloadedData)));
+                })
+                .doOnSuccess(result -> {
+                    log.info("Successfully transferred data of type '{}' from '{}' to '{}'",
+                            dataType, sourceSystemType, destSystemType);
+                    transferMetrics.recordResult(sourceSystemType, destSystemType,
+                            result != null ? result.status : TransferResult.Status.SUCCEEDED);
+                })
+                .doOnError(ex -> {
+                    log.error("Transferring data of type '{}' from '{}' to '{}' failed:",
+                            dataType, sourceSystemType, destSystemType, ex);
+                    transferMetrics.recordResult(sourceSystemType, destSystemType, TransferResult.Status.FAILED);
+                })
+                .then();
+    }
+
+    public Flux<TransferResult> transferDataToMany(String sourceSystemType, DataType dataType,
+                                                   Map<String, String> sourceParams,
+                                                   List<TransferDestination> destinations) {
+        if (destinations.isEmpty()) {
+            return Flux.empty();
+        }
+
+        return Mono.fromCallable(() -> findDataTransferrer(dataDownloaders, sourceSystemType, dataType, true))
+                .flatMap(sourceSystemDataDownloader -> timed(sourceSystemDataDownloader.downloadData(sourceParams),
+                        (successful, elapsed) -> transferMetrics.recordDownload(
+                                sourceSystemType, TransferMetrics.MODE_SINGLE, successful, elapsed)))
+                .switchIfEmpty(Mono.error(() -> new InvalidDataException("No data was downloaded.")))
+                .flatMapMany(downloadedData -> {
+                    log.info("Uploading data of type '{}' from '{}' to {} destination(s)",
+                            dataType, sourceSystemType, destinations.size());
+
+                    // the downloaded data is shared by all uploads, which start at the same time
+                    return Flux.fromIterable(destinations)
+                            .flatMap(destination -> uploadToDestination(sourceSystemType, dataType, destination,
+                                    downloadedData), destinations.size());
+                })
+                .doOnComplete(() -> log.info("Completed transfer of data of type '{}' from '{}' to {} destination(s)",
+                        dataType, sourceSystemType, destinations.size()))
+                .doOnError(ex -> {
+                    log.error("Transferring data of type '{}' from '{}' to {} destination(s) failed:",
+                            dataType, sourceSystemType, destinations.size(), ex);
+                    destinations.forEach(destination -> transferMetrics.recordResult(
+                            sourceSystemType, destination.systemType, TransferResult.Status.FAILED));
+                });
+    }
+
+    private Mono<TransferResult> uploadToDestination(String sourceSystemType, DataType dataType,
+                                                     TransferDestination destination, BaseData data) {
+        return Mono.defer(() -> {
+                    @SuppressWarnings("unchecked")
+                    DataUploader<BaseData> destSystemDataUploader = (DataUploader<BaseData>) findDataTransferrer(
+                            dataUploaders, destination.systemType, dataType, false);
+
+                    return upload(new UploadTarget(sourceSystemType, destination.systemType, destSystemDataUploader),
+                            destination.params, data, destination.key());
+                })
+                .doOnNext(__ -> log.info("Successfully transferred data of type '{}' from '{}' to '{}'",
+                        dataType, sourceSystemType, destination.key()))
+                .onErrorResume(ex -> {
+                    log.error("Uploading data of type '{}' to '{}' failed:", dataType, destination.key(), ex);
+                    return Mono.just(TransferResult.failed(destination.key(), ex));
+                })
+                .doOnNext(result -> transferMetrics.recordResult(sourceSystemType, destination.systemType,
+                        result.status));
+    }
+
+    public Flux<TransferResult> transferDataInBulk(String sourceSystemType, String destSystemType, DataType dataType,
+                                                   Flux<TransferItem> items, BulkTransferOptions options) {
+        // the transferrers are looked up once for the whole batch instead of once per item
+        return Mono.fromCallable(() -> findDataTransferrer(dataDownloaders, sourceSystemType, dataType, true))
+                .flatMapMany(sourceSystemDataDownloader -> {
+                    @SuppressWarnings("unchecked")
+                    DataUploader<BaseData> destSystemDataUploader =
+                            (DataUploader<BaseData>) findDataTransferrer(dataUploaders, destSystemType, dataType, false);
+
+                    UploadTarget uploadTarget = new UploadTarget(sourceSystemType, destSystemType, destSystemDataUploader);
+
+                    log.info("Starting bulk transfer of data of type '{}' from '{}' to '{}' with {}",
+                            dataType, sourceSystemType, destSystemType, options);
+
+                    Flux<TransferItem> pendingItems = items.filter(item -> !isCompleted(options, item.key()));
+
+                    int downloadBatchSize = sourceSystemDataDownloader.getMaxBatchSize();
+                    Flux<DownloadedItem> downloadStage = downloadBatchSize > 1 ?
+                            pendingItems.buffer(downloadBatchSize)
+                                    .flatMap(batch -> downloadBatch(sourceSystemType, sourceSystemDataDownloader,
+                                                    batch),
+                                            options.getDownloadBatchConcurrency(downloadBatchSize)) :
+                            pendingItems.flatMap(
+                                    item -> downloadItem(sourceSystemType, sourceSystemDataDownloader, item),
+                                    options.getDownloadConcurrency());
+
+                    return runPipeline(downloadStage, uploadTarget, options);
                 })
-                .doOnSuccess(__ -> log.info("Successfully transferred data of type '{}' from '{}' to '{}'",
+                .doOnNext(result -> {
+                    recordInJournal(options, result);
+                    transferMetrics.recordResult(sourceSystemType, destSystemType, result.status);
+                })
+                .doOnComplete(() -> log.info("Completed bulk transfer of data of type '{}' from '{}' to '{}'",
+                        dataType, sourceSystemType, destSystemType))
+                .doOnError(ex -> log.error("Bulk transfer of data of type '{}' from '{}' to '{}' failed:",
+                        dataType, sourceSystemType, destSystemType, ex));
+    }
+
+    public Flux<TransferResult> transferDataStream(String sourceSystemType, String destSystemType, DataType dataType,
+                                                   Map<String, String> sourceParams, Map<String, String> destParams,
+                                                   BulkTransferOptions options) {
+        return Mono.fromCallable(() -> findDataTransferrer(dataDownloaders, sourceSystemType, dataType, true))
+                .flatMapMany(sourceSystemDataDownloader -> {
+                    @SuppressWarnings("unchecked")
+                    DataUploader<BaseData> destSystemDataUploader =
+                            (DataUploader<BaseData>) findDataTransferrer(dataUploaders, destSystemType, dataType, false);
+
+                    UploadTarget uploadTarget = new UploadTarget(sourceSystemType, destSystemType, destSystemDataUploader);
+
+                    log.info("Starting stream transfer of data of type '{}' from '{}' to '{}' with {}",
+                            dataType, sourceSystemType, destSystemType, options);
+
+                    // the keys of streamed items are only known once they are downloaded
+                    Flux<DownloadedItem> downloadStage = sourceSystemDataDownloader.downloadDataStream(sourceParams)
+                            .filter(downloadedData -> !isCompleted(options, getItemKey(downloadedData)))
+                            .map(downloadedData -> new DownloadedItem(getItemKey(downloadedData), destParams,
+                                    DownloadResult.succeeded(downloadedData)));
+
+                    return runPipeline(downloadStage, uploadTarget, options);
+                })
+                .doOnNext(result -> {
+                    recordInJournal(options, result);
+                    transferMetrics.recordResult(sourceSystemType, destSystemType, result.status);
+                })
+                .doOnComplete(() -> log.info("Completed stream transfer of data of type '{}' from '{}' to '{}'",
                         dataType, sourceSystemType, destSystemType))
-                .doOnError(ex -> log.error("Transferring data of type '{}' from '{}' to '{}' failed:",
+                .doOnError(ex -> log.error("Stream transfer of data of type '{}' from '{}' to '{}' failed:",
                         dataType, sourceSystemType, destSystemType, ex));
     }
 
-    private <T extends TransferrerTypeChecker> T findDataTransferrer(List<T> dataTransferrers, String systemType,
-                                                                     DataType dataType, boolean isDownloader) {
+    /*
+     * Connects the download stage to the upload stage with a bounded buffer, so that each stage runs with its own
+     * concurrency: the downloads can run ahead of the uploads by up to the buffer size, and stop once it's full.
+     */
+    private Flux<TransferResult> runPipeline(Flux<DownloadedItem> downloadStage, UploadTarget uploadTarget,
+                                             BulkTransferOptions options) {
+        TransferPipelineMetrics metrics = new TransferPipelineMetrics(options.getBufferSize());
+
+        Flux<DownloadedItem> bufferedItems = downloadStage
+                .doOnNext(__ -> metrics.onDownloaded())
+                .doOnComplete(metrics::onDownloadStageCompleted)
+                .publishOn(Schedulers.parallel(), options.getBufferSize())
+                .doOnNext(__ -> metrics.onUploadStarted());
+
+        Flux<TransferResult> uploadStage = uploadTarget.uploader().getMaxBatchSize() > 1 ?
+                uploadInBatches(uploadTarget, bufferedItems, options) :
+                bufferedItems.flatMap(downloadedItem -> downloadedItem.result().isSuccessful() ?
+                                uploadItem(uploadTarget, downloadedItem.destParams(), downloadedItem.result().data,
+                                        downloadedItem.itemKey()) :
+                                Mono.just(TransferResult.failed(downloadedItem.itemKey(), downloadedItem.result().error)),
+                        options.getUploadConcurrency());
+
+        return uploadStage
+                .doFinally(__ -> {
+                    log.info("Transfer pipeline: {}", metrics);
+                    transferMetrics.recordPipeline(metrics);
+                });
+    }
+
+    private Mono<DownloadedItem> downloadItem(String sourceSystemType,
+                                              DataDownloader<? extends BaseData> dataDownloader,
+                                              TransferItem item) {
+        return timed(Mono.defer(() -> dataDownloader.downloadData(item.sourceParams)),
+                        (successful, elapsed) -> transferMetrics.recordDownload(
+                                sourceSystemType, TransferMetrics.MODE_SINGLE, successful, elapsed))
+                .<DownloadResult<? extends BaseData>>map(DownloadResult::succeeded)
+                .defaultIfEmpty(DownloadResult.failed(new InvalidDataException("No data was downloaded.")))
+                .onErrorResume(ex -> {
+                    log.error("Downloading item '{}' failed:", item.key(), ex);
+                    return Mono.just(DownloadResult.failed(ex));
+                })
+                .map(result -> new DownloadedItem(item.key(), item.destParams, result));
+    }
+
+    // emits each item of the batch together with the result of its download
+    private Flux<DownloadedItem> downloadBatch(String sourceSystemType,
+                                               DataDownloader<? extends BaseData> dataDownloader,
+                                               List<TransferItem> batch) {
+        List<Map<String, String>> paramsList = batch.stream()
+                .map(item -> item.sourceParams)
+                .toList();
+
+        return timed(Mono.defer(() -> dataDownloader.downloadDataBatch(paramsList)),
+                        (successful, elapsed) -> transferMetrics.recordDownload(
+                                sourceSystemType, TransferMetrics.MODE_BATCH, successful, elapsed))
+                .<DownloadResult<? extends BaseData>>flatMapIterable(results -> results)
+                .index()
+                .map(indexedResult -> {
+                    TransferItem item = batch.get(indexedResult.getT1().intValue());
+                    return new DownloadedItem(item.key(), item.destParams, indexedResult.getT2());
+                })
+                .onErrorResume(ex -> {
+                    log.error("Downloading batch of {} item(s) failed:", batch.size(), ex);
+                    return Flux.fromIterable(batch)
+                            .map(item -> new DownloadedItem(item.key(), item.destParams, DownloadResult.failed(ex)));
+                });
+    }
+
+    private Mono<TransferResult> uploadItem(UploadTarget uploadTarget, Map<String, String> destParams,
+                                            BaseData data, String itemKey) {
+        return upload(uploadTarget, destParams, data, itemKey)
+                .onErrorResume(ex -> {
+                    log.error("Uploading item '{}' failed:", itemKey, ex);
+                    return Mono.just(TransferResult.failed(itemKey, ex));
+                });
+    }
+
+    /*
+     * Uploads the data unless it hasn't changed since it was last uploaded to the same destination, in which case
+     * the result is SKIPPED. Data which was uploaded before is updated without searching for it in the destination.
+     */
+    private Mono<TransferResult> upload(UploadTarget uploadTarget, Map<String, String> destParams, BaseData data,
+                                        String itemKey) {
+        return Mono.defer(() -> {
+                    MappingKey mappingKey = getMappingKey(uploadTarget, destParams, data);
+                    if (mappingKey == null) {
+                        return timedUpload(uploadTarget, TransferMetrics.MODE_SINGLE,
+                                        uploadTarget.uploader().uploadData(destParams, data))
+                                .then(Mono.fromCallable(() -> TransferResult.succeeded(itemKey)));
+                    }
+
+                    Mapping mapping = mappingStore.get(mappingKey);
+                    String contentHash = mappingStore.hash(data);
+
+                    if (mapping != null && contentHash.equals(mapping.contentHash)) {
+                        log.info("Skipping upload of item '{}' since it hasn't changed since it was last uploaded", itemKey);
+                        return Mono.just(TransferResult.skipped(itemKey));
+                    }
+
+                    String knownDestinationId = mapping != null ? mapping.destinationId : null;
+                    return timedUpload(uploadTarget, TransferMetrics.MODE_SINGLE,
+                                    uploadTarget.uploader().uploadData(destParams, data, knownDestinationId))
+                            .flatMap(destinationId -> mappingStore.put(mappingKey, new Mapping(destinationId, contentHash)))
+                            .then(Mono.fromCallable(() -> TransferResult.succeeded(itemKey)));
+                });
+    }
+
+    private Flux<TransferResult> uploadInBatches(UploadTarget uploadTarget, Flux<DownloadedItem> downloadedItems,
+                                                 BulkTransferOptions options) {
+        int uploadBatchSize = uploadTarget.uploader().getMaxBatchSize();
+        return downloadedItems.buffer(uploadBatchSize)
+                .flatMap(batch -> uploadBatch(uploadTarget, batch), options.getUploadBatchConcurrency(uploadBatchSize));
+    }
+
+    /*
+     * Items which failed to download or haven't changed since they were last uploaded are completed right away, the
+     * rest are uploaded with a single batch upload per destination.
+     */
+    private Flux<TransferResult> uploadBatch(UploadTarget uploadTarget, List<DownloadedItem> batch) {
+        return Flux.defer(() -> {
+            List<TransferResult> completedResults = new ArrayList<>();
+            Map<Map<String, String>, List<PendingUpload>> pendingUploads = new LinkedHashMap<>();
+
+            for (DownloadedItem downloadedItem : batch) {
+                if (!downloadedItem.result().isSuccessful()) {
+                    completedResults.add(TransferResult.failed(downloadedItem.itemKey(), downloadedItem.result().error));
+                    continue;
+                }
+
+                BaseData data = downloadedItem.result().data;
+                MappingKey mappingKey = getMappingKey(uploadTarget, downloadedItem.destParams(), data);
+                Mapping mapping = mappingKey != null ? mappingStore.get(mappingKey) : null;
+                String contentHash = mappingKey != null ? mappingStore.hash(data) : null;
+
+                if (mapping != null && contentHash.equals(mapping.contentHash)) {
+                    log.info("Skipping upload of item '{}' since it hasn't changed since it was last uploaded",
+                            downloadedItem.itemKey());
+                    completedResults.add(TransferResult.skipped(downloadedItem.itemKey()));
+                    continue;
+                }
+
+                pendingUploads.computeIfAbsent(downloadedItem.destParams(), __ -> new ArrayList<>())
+                        .add(new PendingUpload(downloadedItem.itemKey(), data, mappingKey, mapping, contentHash));
+            }
+
+            return Flux.fromIterable(completedResults)
+                    .concatWith(Flux.fromIterable(pendingUploads.entrySet())
+                            .concatMap(entry -> uploadBatch(uploadTarget, entry.getKey(), entry.getValue())));
+        });
+    }
+
+    private Flux<TransferResult> uploadBatch(UploadTarget uploadTarget, Map<String, String> destParams,
+                                             List<PendingUpload> uploads) {
+        List<BaseData> dataList = uploads.stream()
+                .map(PendingUpload::data)
+                .toList();
+
+        log.info("Uploading batch of {} item(s)...", uploads.size());
+
+        return timedUpload(uploadTarget, TransferMetrics.MODE_BATCH,
+                        Mono.defer(() -> uploadTarget.uploader().uploadDataBatch(destParams, dataList)))
+                .flatMap(results -> results.size() == uploads.size() ?
+                        Mono.just(results) :
+                        Mono.error(new IllegalStateException(String.format(
+                                "Got %d upload result(s) for a batch of %d item(s)", results.size(), uploads.size()))))
+                .flatMapMany(results -> Flux.range(0, uploads.size())
+                        .concatMap(i -> completeUpload(uploads.get(i), results.get(i))))
+                .onErrorResume(ex -> {
+                    log.error("Uploading batch of {} item(s) failed:", uploads.size(), ex);
+                    return Flux.fromIterable(uploads)
+                            .map(upload -> TransferResult.failed(upload.itemKey(), ex));
+                });
+    }
+
+    private Mono<TransferResult> completeUpload(PendingUpload upload, UploadResult result) {
+        if (!result.isSuccessful()) {
+            log.error("Uploading item '{}' failed:", upload.itemKey(), result.error);
+            return Mono.just(TransferResult.failed(upload.itemKey(), result.error));
+        }
+
+        if (upload.mappingKey() == null) {
+            return Mono.just(TransferResult.succeeded(upload.itemKey()));
+        }
+
+        // batch uploads don't always report where the data was uploaded to, in which case the last known id is kept
+        String destinationId = result.destinationId != null ? result.destinationId :
+                upload.mapping() != null ? upload.mapping().destinationId : null;
+
+        return mappingStore.put(upload.mappingKey(), new Mapping(destinationId, upload.contentHash()))
+                .thenReturn(TransferResult.succeeded(upload.itemKey()));
+    }
+
+    // null if the data can't be tracked in the mapping store
+    private MappingKey getMappingKey(UploadTarget uploadTarget, Map<String, String> destParams, BaseData data) {
+        if (!mappingStore.isEnabled() || data.key() == null) {
+            return null;
+        }
+
+        return new MappingKey(uploadTarget.sourceSystemType().toLowerCase(), data.key(),
+                uploadTarget.destSystemType().toLowerCase(), toScope(destParams));
+    }
+
+    private <T> Mono<T> timedUpload(UploadTarget uploadTarget, String mode, Mono<T> upload) {
+        return timed(upload, (successful, elapsed) -> transferMetrics.recordUpload(
+                uploadTarget.destSystemType(), mode, successful, elapsed));
+    }
+
+    // reports whether the operation succeeded and how long it took, when it completes
+    private static <T> Mono<T> timed(Mono<T> operation, BiConsumer<Boolean, Duration> recorder) {
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            return operation
+                    .doOnSuccess(__ -> recorder.accept(true, Duration.ofNanos(System.nanoTime() - startNanos)))
+                    .doOnError(__ -> recorder.accept(false, Duration.ofNanos(System.nanoTime() - startNanos)));
+        });
+    }
+
+    // e.g. 'domain=bluesky' for the Freshdesk domain 'bluesky'
+    private static String toScope(Map<String, String> destParams) {
+        return destParams == null ? "" : new TreeMap<>(destParams).entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(" "));
+    }
+
+    private static boolean isCompleted(BulkTransferOptions options, String itemKey) {
+        if (options.getJournal() != null && options.getJournal().isCompleted(itemKey)) {
+            log.debug("Skipping item '{}' since the journal records it as completed", itemKey);
+            return true;
+        }
+        return false;
+    }
+
+    private static void recordInJournal(BulkTransferOptions options, TransferResult result) {
+        if (options.getJournal() != null) {
+            options.getJournal().record(result);
+        }
+    }
+
+    private static String getItemKey(BaseData data) {
+        return data.key() != null ? data.key() : data.toString();
+    }
+
+    private record UploadTarget(String sourceSystemType, String destSystemType, DataUploader<BaseData> uploader) {
+    }
+
+    private record DownloadedItem(String itemKey, Map<String, String> destParams,
+                                  DownloadResult<? extends BaseData> result) {
+    }
+
+    private record PendingUpload(String itemKey, BaseData data, MappingKey mappingKey, Mapping mapping,
+                                 String contentHash) {
+    }
+
+    // package-private for the benchmarks
+    static <T extends TransferrerTypeChecker> T findDataTransferrer(List<T> dataTransferrers, String systemType,
+                                                                    DataType dataType, boolean isDownloader) {
         List<T> systemDataTransferrers = dataTransferrers.stream()
                 .filter(transferrer -> transferrer.systemTypeMatches(systemType))
                 .toList();
@@ -1,8 +1,11 @@
 package com.quickbase.datatransfer.service;
 
 import com.quickbase.datatransfer.data.BaseData;
+import com.quickbase.datatransfer.service.model.UploadResult;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Map;
 
 /*
@@ -21,4 +24,46 @@ public interface DataUploader<T extends BaseData> extends TransferrerTypeChecker
      * it will complete with an error
      */
     Mono<Void> uploadData(Map<String, String> params, T data);
-}
\ No newline at end of file
+
+    /**
+     * Uploads data to external system, to the item it was uploaded to the last time if that's known.
+     * <p/>
+     * External systems which can update an item by its id should override this, so that the item doesn't have to
+     * be looked up again. By default, the known destination id is ignored.
+     *
+     * @param params The parameters used to identify where to upload the data. They might be specific to the external system and data type
+     * @param knownDestinationId The id of the item the data was uploaded to the last time, or null if it's not known
+     * @return a {@link Mono} emitting the id of the item the data was uploaded to, or an empty one if the id is not known
+     */
+    default Mono<String> uploadData(Map<String, String> params, T data, String knownDestinationId) {
+        return uploadData(params, data).then(Mono.empty());
+    }
+
+    /**
+     * Uploads a batch of data to external system.
+     * <p/>
+     * External systems which can upload many items with a single request (or job) should override this, together
+     * with {@link #getMaxBatchSize()}. By default, the items are uploaded one by one.
+     *
+     * @param params The parameters used to identify where to upload the data. They might be specific to the external system and data type
+     * @param dataList The data to upload
+     * @return a {@link Mono} emitting the results of the upload, one per item and in the order of the data. An item
+     * which failed to upload doesn't fail the whole batch, but has a failed result
+     */
+    default Mono<List<UploadResult>> uploadDataBatch(Map<String, String> params, List<T> dataList) {
+        return Flux.fromIterable(dataList)
+                .concatMap(data -> Mono.defer(() -> uploadData(params, data, null))
+                        .map(UploadResult::succeeded)
+                        .defaultIfEmpty(UploadResult.succeeded(null))
+                        .onErrorResume(ex -> Mono.just(UploadResult.failed(ex))))
+                .collectList();
+    }
+
+    /**
+     * @return the maximum number of items {@link #uploadDataBatch(Map, List)} should be called with; batch uploads
+     * are only used if this is greater than 1
+     */
+    default int getMaxBatchSize() {
+        return 1;
+    }
+}
@@ -0,0 +1,254 @@
+package com.quickbase.datatransfer.service.journal;
+
+import com.quickbase.datatransfer.service.model.TransferResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/*
+ * An append-only journal of the outcomes of the items of a bulk transfer, so that an interrupted transfer can be
+ * resumed without transferring the completed items again.
+ *
+ * Recording an outcome only puts it in a queue. A writer thread takes everything that is queued, appends it to the
+ * journal and fsyncs once for the whole group, so the number of fsyncs doesn't grow with the number of items. If the
+ * process dies, at most the outcomes of the last group are lost, and those items are simply transferred again.
+ *
+ * Each line is the status of an item followed by its URL-encoded key. On resume, an item is completed if its last
+ * recorded status is SUCCEEDED or SKIPPED; failed items and items that were in flight are transferred again.
+ */
+@Slf4j
+public class TransferJournal implements Closeable {
+    private static final String FIELD_SEPARATOR = "\t";
+    private static final String LINE_SEPARATOR = "\n";
+    // put in the queue to make the writer thread stop once it has written everything before it
+    private static final String END_OF_JOURNAL = "";
+
+    private final Path file;
+    private final Set<String> completedItemKeys;
+    private final FileChannel channel;
+    private final BlockingQueue<String> pendingLines = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private volatile IOException writeFailure;
+    private volatile boolean closed;
+
+    private TransferJournal(Path file, Set<String> completedItemKeys) throws IOException {
+        this.file = file;
+        this.completedItemKeys = completedItemKeys;
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        // a line which was only partially written when the process was killed is dropped, so that it is neither
+        // continued by the next line nor completed into a record of an item which was never transferred
+        long completeLinesSize = getCompleteLinesSize(file);
+        if (completeLinesSize < channel.size()) {
+            channel.truncate(completeLinesSize);
+        }
+
+        this.writerThread = new Thread(this::writeLines, "transfer-journal-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    // starts a new journal, which must not exist yet
+    public static TransferJournal create(Path file) {
+        if (Files.exists(file)) {
+            throw new IllegalArgumentException(String.format("Journal '%s' already exists", file));
+        }
+
+        try {
+            return new TransferJournal(file, Set.of());
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create journal '%s'", file), e);
+        }
+    }
+
+    // continues an existing journal, skipping the items it records as completed
+    public static TransferJournal resume(Path file) {
+        if (!Files.exists(file)) {
+            throw new IllegalArgumentException(String.format("Journal '%s' does not exist", file));
+        }
+
+        try {
+            Set<String> completedItemKeys = readCompletedItemKeys(file);
+            log.info("Resuming transfer from journal '{}' with {} completed item(s)", file, completedItemKeys.size());
+            return new TransferJournal(file, completedItemKeys);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to read journal '%s'", file), e);
+        }
+    }
+
+    public boolean isCompleted(String itemKey) {
+        return completedItemKeys.contains(itemKey);
+    }
+
+    public int getCompletedItemCount() {
+        return completedItemKeys.size();
+    }
+
+    public void record(TransferResult result) {
+        if (closed) {
+            throw new IllegalStateException(String.format("Journal '%s' is closed", file));
+        }
+
+        pendingLines.add(result.status + FIELD_SEPARATOR + URLEncoder.encode(result.itemKey, StandardCharsets.UTF_8)
+                + LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes the outcomes which are still queued and closes the journal.
+     *
+     * @throws IOException if writing any of the outcomes failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        pendingLines.add(END_OF_JOURNAL);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+
+        if (writeFailure != null) {
+            throw writeFailure;
+        }
+    }
+
+    private void writeLines() {
+        List<String> lines = new ArrayList<>();
+
+        while (true) {
+            try {
+                lines.add(pendingLines.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pendingLines.drainTo(lines);
+
+            boolean endOfJournal = lines.remove(END_OF_JOURNAL);
+
+            if (writeFailure == null && !lines.isEmpty()) {
+                try {
+                    ByteBuffer buffer = ByteBuffer.wrap(String.join("", lines).getBytes(StandardCharsets.UTF_8));
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(false);
+                } catch (IOException e) {
+                    // the transfer goes on, the items just won't be skipped if it's resumed
+                    log.error("Failed to write to journal '{}', the outcomes of further items won't be recorded:",
+                            file, e);
+                    writeFailure = e;
+                }
+            }
+
+            lines.clear();
+
+            if (endOfJournal) {
+                return;
+            }
+        }
+    }
+
+    private static Set<String> readCompletedItemKeys(Path file) throws IOException {
+        Set<String> completedItemKeys = new HashSet<>();
+        boolean lastLineComplete = endsWithLineSeparator(file);
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while (line != null) {
+                String nextLine = reader.readLine();
+                String[] fields = line.split(FIELD_SEPARATOR, -1);
+                TransferResult.Status status = parseStatus(fields[0]);
+
+                // the last line might have been only partially written when the process was killed
+                if (fields.length != 2 || status == null || (nextLine == null && !lastLineComplete)) {
+                    line = nextLine;
+                    continue;
+                }
+
+                String itemKey = URLDecoder.decode(fields[1], StandardCharsets.UTF_8);
+                if (status == TransferResult.Status.FAILED) {
+                    completedItemKeys.remove(itemKey);
+                } else {
+                    completedItemKeys.add(itemKey);
+                }
+                line = nextLine;
+            }
+        }
+
+        return completedItemKeys;
+    }
+
+    private static boolean endsWithLineSeparator(Path file) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = fileChannel.size();
+            if (size == 0) {
+                return true;
+            }
+
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            fileChannel.read(lastByte, size - 1);
+            return lastByte.get(0) == '\n';
+        }
+    }
+
+    // the size of the journal up to and including its last line separator
+    private static long getCompleteLinesSize(Path file) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer block = ByteBuffer.allocate(8192);
+            long end = fileChannel.size();
+            while (end > 0) {
+                long start = Math.max(0, end - block.capacity());
+                block.clear().limit((int) (end - start));
+                while (block.hasRemaining()) {
+                    if (fileChannel.read(block, start + block.position()) < 0) {
+                        break;
+                    }
+                }
+
+                for (int i = block.position() - 1; i >= 0; i--) {
+                    if (block.get(i) == '\n') {
+                        return start + i + 1;
+                    }
+                }
+                end = start;
+            }
+            return 0;
+        }
+    }
+
+    private static TransferResult.Status parseStatus(String status) {
+        try {
+            return TransferResult.Status.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.quickbase.datatransfer.service.mapping;
+
+import lombok.AllArgsConstructor;
+import lombok.ToString;
+
+// where an item of a source system was last uploaded to, and what was uploaded
+@AllArgsConstructor
+@ToString
+public class Mapping {
+    public String destinationId;
+    // hash of the data that was last uploaded
+    public String contentHash;
+}
@@ -0,0 +1,9 @@
+package com.quickbase.datatransfer.service.mapping;
+
+/**
+ * Identifies an item of a source system uploaded to a destination system.
+ *
+ * @param destinationScope Where in the destination system the item was uploaded to, e.g. the Freshdesk domain
+ */
+public record MappingKey(String sourceSystem, String sourceKey, String destinationSystem, String destinationScope) {
+}
@@ -0,0 +1,196 @@
+package com.quickbase.datatransfer.service.mapping;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.quickbase.datatransfer.data.BaseData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * A file-backed store of the mappings between the items of source systems and the items they were uploaded as in
+ * destination systems, together with a hash of the uploaded data.
+ *
+ * The mappings are kept in memory and every change is appended to a log file, one tab-separated line per mapping.
+ * When loaded, the log is replayed (later lines win) and compacted if it contains many superseded lines.
+ */
+@Slf4j
+@Component
+public class MappingStore implements DisposableBean {
+    private static final String FIELD_SEPARATOR = "\t";
+    private static final int FIELD_COUNT = 6;
+    private static final int MIN_LINES_TO_COMPACT = 10_000;
+
+    private final MappingStoreProperties properties;
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .build();
+    private final Map<MappingKey, Mapping> mappings = new ConcurrentHashMap<>();
+    private BufferedWriter logWriter;
+
+    @Autowired
+    public MappingStore(MappingStoreProperties properties) {
+        this.properties = properties;
+
+        if (isEnabled()) {
+            load();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public Mapping get(MappingKey key) {
+        return mappings.get(key);
+    }
+
+    public Mono<Void> put(MappingKey key, Mapping mapping) {
+        return Mono.<Void>fromRunnable(() -> {
+                    mappings.put(key, mapping);
+                    append(key, mapping);
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public int size() {
+        return mappings.size();
+    }
+
+    // a hash of the data which doesn't depend on the order of its fields
+    public String hash(BaseData data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(data));
+            return HexFormat.of().formatHex(hash);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize data for hashing: " + data, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+        }
+    }
+
+    @Override
+    public synchronized void destroy() throws IOException {
+        if (logWriter != null) {
+            logWriter.close();
+            logWriter = null;
+        }
+    }
+
+    private synchronized void append(MappingKey key, Mapping mapping) {
+        try {
+            if (logWriter == null) {
+                Path file = getFile();
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                logWriter = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+
+            logWriter.write(toLine(key, mapping));
+            logWriter.newLine();
+            logWriter.flush();
+        } catch (IOException e) {
+            // the upload itself succeeded, it just won't be skipped next time
+            log.warn("Failed to save mapping {} -> {} to '{}':", key, mapping, getFile(), e);
+        }
+    }
+
+    private void load() {
+        Path file = getFile();
+
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        long lineCount = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineCount++;
+                String[] fields = line.split(FIELD_SEPARATOR, -1);
+
+                if (fields.length != FIELD_COUNT) {
+                    // e.g. a line which was only partially written when the process was killed
+                    log.warn("Skipping malformed line {} of mapping log '{}'", lineCount, file);
+                    continue;
+                }
+
+                mappings.put(
+                        new MappingKey(decode(fields[0]), decode(fields[1]), decode(fields[2]), decode(fields[3])),
+                        new Mapping(fields[4].isEmpty() ? null : decode(fields[4]), decode(fields[5])));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to load mappings from '%s'", file), e);
+        }
+
+        log.info("Loaded {} mapping(s) from '{}'", mappings.size(), file);
+
+        if (lineCount >= MIN_LINES_TO_COMPACT && lineCount > 2L * mappings.size()) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        Path file = getFile();
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                for (Map.Entry<MappingKey, Mapping> entry : mappings.entrySet()) {
+                    writer.write(toLine(entry.getKey(), entry.getValue()));
+                    writer.newLine();
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Compacted mapping log '{}' to {} line(s)", file, mappings.size());
+        } catch (IOException e) {
+            log.warn("Failed to compact mapping log '{}':", file, e);
+        }
+    }
+
+    private Path getFile() {
+        return Path.of(properties.getFile());
+    }
+
+    private static String toLine(MappingKey key, Mapping mapping) {
+        return String.join(FIELD_SEPARATOR,
+                encode(key.sourceSystem()), encode(key.sourceKey()), encode(key.destinationSystem()),
+                encode(key.destinationScope()),
+                // the destination id is not known when the data was uploaded in a batch which doesn't report it
+                mapping.destinationId != null ? encode(mapping.destinationId) : "", encode(mapping.contentHash));
+    }
+
+    // the fields are URL-encoded, so that they can't contain the separators
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+}
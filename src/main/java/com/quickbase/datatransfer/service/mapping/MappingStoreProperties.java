@@ -0,0 +1,15 @@
+package com.quickbase.datatransfer.service.mapping;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datatransfer.mapping-store")
+public class MappingStoreProperties {
+    // when enabled, unchanged data is not uploaded again and known destination ids are reused
+    private boolean enabled = true;
+    // append-only log the mappings are stored in
+    private String file = "data/mappings.log";
+}
@@ -0,0 +1,73 @@
+package com.quickbase.datatransfer.service.metrics;
+
+import com.quickbase.datatransfer.service.model.TransferResult;
+import com.quickbase.datatransfer.service.pipeline.TransferPipelineMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/*
+ * Records metrics of the transfers: how long downloads and uploads take (per item, or per batch for batch
+ * downloads/uploads), the outcome of every transferred item, and how long the stages of bulk transfers stalled.
+ */
+@Component
+public class TransferMetrics {
+    public static final String DOWNLOADS_METRIC = "datatransfer.transfer.downloads";
+    public static final String UPLOADS_METRIC = "datatransfer.transfer.uploads";
+    public static final String ITEMS_METRIC = "datatransfer.transfer.items";
+    public static final String STALLS_METRIC = "datatransfer.transfer.stalls";
+
+    public static final String MODE_SINGLE = "single";
+    public static final String MODE_BATCH = "batch";
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public TransferMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void recordDownload(String systemType, String mode, boolean successful, Duration elapsed) {
+        getTimer(DOWNLOADS_METRIC, "Downloads from external systems", systemType, mode, successful)
+                .record(elapsed);
+    }
+
+    public void recordUpload(String systemType, String mode, boolean successful, Duration elapsed) {
+        getTimer(UPLOADS_METRIC, "Uploads to external systems", systemType, mode, successful)
+                .record(elapsed);
+    }
+
+    public void recordResult(String sourceSystemType, String destSystemType, TransferResult.Status status) {
+        Counter.builder(ITEMS_METRIC)
+                .description("Transferred items")
+                .tags("source", sourceSystemType.toLowerCase(), "destination", destSystemType.toLowerCase(),
+                        "status", status.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordPipeline(TransferPipelineMetrics pipelineMetrics) {
+        getStallTimer("download").record(pipelineMetrics.getDownloadStallTime());
+        getStallTimer("upload").record(pipelineMetrics.getUploadStallTime());
+    }
+
+    private Timer getTimer(String metricName, String description, String systemType, String mode, boolean successful) {
+        return Timer.builder(metricName)
+                .description(description)
+                .tags("system", systemType.toLowerCase(), "mode", mode, "outcome", successful ? "success" : "failure")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    // how long a stage of a bulk transfer waited for the other one, one record per transfer
+    private Timer getStallTimer(String stage) {
+        return Timer.builder(STALLS_METRIC)
+                .description("Time the stages of bulk transfers waited for each other")
+                .tags("stage", stage)
+                .register(meterRegistry);
+    }
+}
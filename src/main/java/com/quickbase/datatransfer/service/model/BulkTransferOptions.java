@@ -0,0 +1,59 @@
+package com.quickbase.datatransfer.service.model;
+
+import com.quickbase.datatransfer.service.journal.TransferJournal;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+@Builder
+@Getter
+@ToString
+public class BulkTransferOptions {
+    public static final int DEFAULT_CONCURRENCY = 8;
+    public static final int DEFAULT_BUFFER_SIZE = 32;
+
+    // maximum number of items transferred at the same time
+    @Builder.Default
+    private final int concurrency = DEFAULT_CONCURRENCY;
+
+    // maximum number of items downloaded at the same time, the overall concurrency if not set
+    private final Integer downloadConcurrency;
+
+    // maximum number of items uploaded at the same time, the overall concurrency if not set
+    private final Integer uploadConcurrency;
+
+    // maximum number of downloaded items waiting to be uploaded, i.e. how far the downloads can run ahead
+    @Builder.Default
+    private final int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    // if set, the outcome of every item is recorded in it, and the items it records as completed are skipped
+    @ToString.Exclude
+    private final TransferJournal journal;
+
+    public int getDownloadConcurrency() {
+        return downloadConcurrency != null ? downloadConcurrency : concurrency;
+    }
+
+    public int getUploadConcurrency() {
+        return uploadConcurrency != null ? uploadConcurrency : concurrency;
+    }
+
+    // maximum number of batches of the specified size downloaded at the same time, i.e. at least one
+    public int getDownloadBatchConcurrency(int batchSize) {
+        return getBatchConcurrency(getDownloadConcurrency(), batchSize);
+    }
+
+    // maximum number of batches of the specified size uploaded at the same time, i.e. at least one
+    public int getUploadBatchConcurrency(int batchSize) {
+        return getBatchConcurrency(getUploadConcurrency(), batchSize);
+    }
+
+    public static BulkTransferOptions defaults() {
+        return BulkTransferOptions.builder().build();
+    }
+
+    // as many batches as it takes to have the specified number of items in flight, e.g. 2 batches of 50 for 60 items
+    private static int getBatchConcurrency(int itemConcurrency, int batchSize) {
+        return Math.max(1, (itemConcurrency + batchSize - 1) / batchSize);
+    }
+}
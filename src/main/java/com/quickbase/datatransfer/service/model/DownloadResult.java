@@ -0,0 +1,25 @@
+package com.quickbase.datatransfer.service.model;
+
+import com.quickbase.datatransfer.data.BaseData;
+import lombok.AllArgsConstructor;
+import lombok.ToString;
+
+// the outcome of downloading a single item of a batch
+@AllArgsConstructor
+@ToString
+public class DownloadResult<T extends BaseData> {
+    public T data;
+    public Throwable error;
+
+    public static <T extends BaseData> DownloadResult<T> succeeded(T data) {
+        return new DownloadResult<>(data, null);
+    }
+
+    public static <T extends BaseData> DownloadResult<T> failed(Throwable error) {
+        return new DownloadResult<>(null, error);
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
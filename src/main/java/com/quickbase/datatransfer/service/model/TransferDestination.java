@@ -0,0 +1,30 @@
+package com.quickbase.datatransfer.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.ToString;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/*
+ * One of the destinations of a fan-out transfer: the type of the destination system and the params identifying where
+ * to upload the data in it.
+ */
+@AllArgsConstructor
+@ToString
+public class TransferDestination {
+    public String systemType;
+    public Map<String, String> params;
+
+    // a stable, human-readable key of the destination, used when reporting per-destination results
+    public String key() {
+        if (params == null || params.isEmpty()) {
+            return systemType;
+        }
+
+        return systemType + " " + new TreeMap<>(params).entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(" "));
+    }
+}
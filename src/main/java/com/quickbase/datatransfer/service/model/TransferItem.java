@@ -0,0 +1,30 @@
+package com.quickbase.datatransfer.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.ToString;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/*
+ * A single unit of work in a bulk transfer: the params identifying the data in the source system and the params
+ * identifying where to upload it in the destination system.
+ */
+@AllArgsConstructor
+@ToString
+public class TransferItem {
+    public Map<String, String> sourceParams;
+    public Map<String, String> destParams;
+
+    // a stable, human-readable key of the item, used when reporting per-item results
+    public String key() {
+        if (sourceParams == null || sourceParams.isEmpty()) {
+            return "";
+        }
+
+        return new TreeMap<>(sourceParams).entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(" "));
+    }
+}
@@ -0,0 +1,35 @@
+package com.quickbase.datatransfer.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.ToString;
+
+@AllArgsConstructor
+@ToString
+public class TransferResult {
+    public enum Status {
+        SUCCEEDED,
+        // the data was not uploaded, since it hasn't changed since the last time it was
+        SKIPPED,
+        FAILED
+    }
+
+    public String itemKey;
+    public Status status;
+    public Throwable error;
+
+    public static TransferResult succeeded(String itemKey) {
+        return new TransferResult(itemKey, Status.SUCCEEDED, null);
+    }
+
+    public static TransferResult skipped(String itemKey) {
+        return new TransferResult(itemKey, Status.SKIPPED, null);
+    }
+
+    public static TransferResult failed(String itemKey, Throwable error) {
+        return new TransferResult(itemKey, Status.FAILED, error);
+    }
+
+    public boolean isSuccessful() {
+        return status != Status.FAILED;
+    }
+}
@@ -0,0 +1,63 @@
+package com.quickbase.datatransfer.service.model;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/*
+ * Aggregated outcome of a bulk transfer. Only counters are kept, so the summary takes the same amount of memory
+ * no matter how many items were transferred.
+ */
+public class TransferSummary {
+    private final Instant startedAt;
+    private long succeeded;
+    private long skipped;
+    private long failed;
+
+    public TransferSummary() {
+        this(Instant.now());
+    }
+
+    public TransferSummary(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public TransferSummary add(TransferResult result) {
+        switch (result.status) {
+            case SUCCEEDED -> succeeded++;
+            case SKIPPED -> skipped++;
+            case FAILED -> failed++;
+        }
+        return this;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getTotal() {
+        return succeeded + skipped + failed;
+    }
+
+    public Duration getElapsed() {
+        return Duration.between(startedAt, Instant.now());
+    }
+
+    public double getItemsPerSecond() {
+        long elapsedMillis = getElapsed().toMillis();
+        return elapsedMillis > 0 ? getTotal() * 1000.0 / elapsedMillis : getTotal();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d item(s) processed: %d succeeded, %d unchanged, %d failed in %.1fs (%.1f items/s)",
+                getTotal(), succeeded, skipped, failed, getElapsed().toMillis() / 1000.0, getItemsPerSecond());
+    }
+}
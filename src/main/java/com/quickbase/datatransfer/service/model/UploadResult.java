@@ -0,0 +1,25 @@
+package com.quickbase.datatransfer.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.ToString;
+
+// the outcome of uploading a single item of a batch
+@AllArgsConstructor
+@ToString
+public class UploadResult {
+    // the id of the item the data was uploaded to, or null if it's not known
+    public String destinationId;
+    public Throwable error;
+
+    public static UploadResult succeeded(String destinationId) {
+        return new UploadResult(destinationId, null);
+    }
+
+    public static UploadResult failed(Throwable error) {
+        return new UploadResult(null, error);
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
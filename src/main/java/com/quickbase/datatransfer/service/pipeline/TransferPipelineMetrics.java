@@ -0,0 +1,129 @@
+package com.quickbase.datatransfer.service.pipeline;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/*
+ * Tracks the bounded buffer between the download and the upload stage of a transfer.
+ *
+ * While the buffer is full, the download stage is stalled waiting for the upload stage. While it's empty, the upload
+ * stage is stalled waiting for the download stage. Comparing the two stall times shows which side limits the
+ * transfer, i.e. which side's concurrency (or rate limit) is worth tuning.
+ */
+public class TransferPipelineMetrics {
+    private final int bufferCapacity;
+    private final LongSupplier nanoClock;
+
+    private long downloaded;
+    private long uploadsStarted;
+    private int bufferDepth;
+    private int maxBufferDepth;
+    private long downloadStallNanos;
+    private long uploadStallNanos;
+    // the start of the current stall of each stage, or -1 if the stage is not stalled
+    private long downloadStallStart = -1;
+    private long uploadStallStart;
+    private boolean downloadStageCompleted;
+
+    public TransferPipelineMetrics(int bufferCapacity) {
+        this(bufferCapacity, System::nanoTime);
+    }
+
+    TransferPipelineMetrics(int bufferCapacity, LongSupplier nanoClock) {
+        this.bufferCapacity = bufferCapacity;
+        this.nanoClock = nanoClock;
+        // nothing has been downloaded yet, so the upload stage starts off waiting
+        this.uploadStallStart = nanoClock.getAsLong();
+    }
+
+    // an item left the download stage and entered the buffer
+    public synchronized void onDownloaded() {
+        long now = nanoClock.getAsLong();
+        downloaded++;
+
+        if (bufferDepth == 0 && uploadStallStart >= 0) {
+            uploadStallNanos += now - uploadStallStart;
+            uploadStallStart = -1;
+        }
+
+        bufferDepth++;
+        maxBufferDepth = Math.max(maxBufferDepth, bufferDepth);
+
+        if (bufferDepth >= bufferCapacity && downloadStallStart < 0) {
+            downloadStallStart = now;
+        }
+    }
+
+    // an item left the buffer and entered the upload stage
+    public synchronized void onUploadStarted() {
+        long now = nanoClock.getAsLong();
+        uploadsStarted++;
+
+        if (downloadStallStart >= 0) {
+            downloadStallNanos += now - downloadStallStart;
+            downloadStallStart = -1;
+        }
+
+        bufferDepth = Math.max(0, bufferDepth - 1);
+
+        // once everything was downloaded, an empty buffer means the transfer is about to complete, not a stall
+        if (bufferDepth == 0 && !downloadStageCompleted) {
+            uploadStallStart = now;
+        }
+    }
+
+    public synchronized void onDownloadStageCompleted() {
+        downloadStageCompleted = true;
+
+        if (uploadStallStart >= 0) {
+            uploadStallNanos += nanoClock.getAsLong() - uploadStallStart;
+            uploadStallStart = -1;
+        }
+    }
+
+    public synchronized long getDownloaded() {
+        return downloaded;
+    }
+
+    public synchronized long getUploadsStarted() {
+        return uploadsStarted;
+    }
+
+    public synchronized int getBufferDepth() {
+        return bufferDepth;
+    }
+
+    public synchronized int getMaxBufferDepth() {
+        return maxBufferDepth;
+    }
+
+    public int getBufferCapacity() {
+        return bufferCapacity;
+    }
+
+    // how long the download stage waited for room in the buffer, including the current stall
+    public synchronized Duration getDownloadStallTime() {
+        long stallNanos = downloadStallNanos;
+        if (downloadStallStart >= 0) {
+            stallNanos += nanoClock.getAsLong() - downloadStallStart;
+        }
+        return Duration.ofNanos(stallNanos);
+    }
+
+    // how long the upload stage waited for downloaded items, including the current stall
+    public synchronized Duration getUploadStallTime() {
+        long stallNanos = uploadStallNanos;
+        if (uploadStallStart >= 0) {
+            stallNanos += nanoClock.getAsLong() - uploadStallStart;
+        }
+        return Duration.ofNanos(stallNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d item(s) downloaded, %d upload(s) started, buffer depth %d/%d (max %d), " +
+                        "download stage stalled for %dms, upload stage stalled for %dms",
+                getDownloaded(), getUploadsStarted(), getBufferDepth(), bufferCapacity, getMaxBufferDepth(),
+                getDownloadStallTime().toMillis(), getUploadStallTime().toMillis());
+    }
+}
@@ -1,25 +1,42 @@
 package com.quickbase.datatransfer.cli;
 
+import com.quickbase.datatransfer.cli.job.TransferJob;
+import com.quickbase.datatransfer.cli.job.TransferJobManager;
+import com.quickbase.datatransfer.cli.util.CommandUtils;
 import com.quickbase.datatransfer.common.DataType;
 import com.quickbase.datatransfer.exception.InvalidParamException;
 import com.quickbase.datatransfer.service.DataTransferService;
+import com.quickbase.datatransfer.service.model.TransferItem;
+import com.quickbase.datatransfer.service.model.TransferResult;
 import org.jline.terminal.Terminal;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -36,6 +53,12 @@ public class DataTransferCommandsTest {
     @MockBean
     private Terminal terminal;
 
+    @MockBean
+    private TransferJobManager jobManager;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private static final String sourceSystem = "source-system";
     private static final String destSystem = "dest-system";
     private static final String[] sourceParams = {"key1=val1"};
@@ -48,7 +71,7 @@ public class DataTransferCommandsTest {
         PrintWriter writer = mock(PrintWriter.class);
         when(terminal.writer()).thenReturn(writer);
 
-        dataTransferCommands.transferUser(sourceSystem, destSystem, sourceParams, destParams);
+        dataTransferCommands.transferUser(sourceSystem, destSystem, sourceParams, destParams, false);
 
         verify(dataTransferService, times(1))
                 .transferData(eq(sourceSystem), eq(destSystem), eq(DataType.USER),
@@ -63,7 +86,7 @@ public class DataTransferCommandsTest {
         String[] invalidSourceParams = {"username"};
 
         InvalidParamException ex = assertThrows(InvalidParamException.class, () ->
-                dataTransferCommands.transferUser(sourceSystem, destSystem, invalidSourceParams, destParams));
+                dataTransferCommands.transferUser(sourceSystem, destSystem, invalidSourceParams, destParams, false));
 
         assertEquals(invalidSourceParams[0], ex.param);
         assertEquals(String.format("Parameter '%s' does not match the pattern '%s'.", invalidSourceParams[0], "<key>=<value>"),
@@ -77,7 +100,7 @@ public class DataTransferCommandsTest {
         PrintWriter writer = mock(PrintWriter.class);
         when(terminal.writer()).thenReturn(writer);
 
-        assertThrows(RuntimeException.class, () -> dataTransferCommands.transferUser(sourceSystem, destSystem, sourceParams, destParams));
+        assertThrows(RuntimeException.class, () -> dataTransferCommands.transferUser(sourceSystem, destSystem, sourceParams, destParams, false));
 
         verify(dataTransferService, times(1))
                 .transferData(eq(sourceSystem), eq(destSystem), eq(DataType.USER),
@@ -86,4 +109,180 @@ public class DataTransferCommandsTest {
                 .printf(eq("Failed to transfer user data from %s to %s!\n"),
                         eq(sourceSystem), eq(destSystem));
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTransferUsers_success() throws IOException {
+        File sourceParamsFile = temporaryFolder.newFile("users.txt");
+        Files.write(sourceParamsFile.toPath(), List.of("# users to transfer", "username=jsmith", "", "username=jdoe"));
+
+        when(dataTransferService.transferDataInBulk(any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> ((Flux<TransferItem>) invocation.getArgument(3))
+                        .map(item -> "username=jdoe".equals(item.key()) ?
+                                TransferResult.failed(item.key(), new RuntimeException("something failed")) :
+                                TransferResult.succeeded(item.key())));
+        PrintWriter writer = mock(PrintWriter.class);
+        when(terminal.writer()).thenReturn(writer);
+
+        dataTransferCommands.transferUsers(sourceSystem, destSystem, sourceParamsFile.getPath(), null, destParams, 4,
+                null, null, 32, null, null, false);
+
+        verify(writer, times(1))
+                .printf(eq("Failed to transfer user data for '%s': %s\n"),
+                        eq("username=jdoe"), eq("something failed"));
+        verify(writer, times(1))
+                .printf(eq("Completed users data transfer from %s to %s: %s\n"),
+                        eq(sourceSystem), eq(destSystem), any());
+    }
+
+    @Test
+    public void testTransferUsers_streamFromSourceParams() {
+        String[] orgSourceParams = {"org=acme"};
+        when(dataTransferService.transferDataStream(any(), any(), any(), any(), any(), any()))
+                .thenReturn(Flux.just(TransferResult.succeeded("jsmith"), TransferResult.succeeded("jdoe")));
+        PrintWriter writer = mock(PrintWriter.class);
+        when(terminal.writer()).thenReturn(writer);
+
+        dataTransferCommands.transferUsers(sourceSystem, destSystem, null, orgSourceParams, destParams, 4,
+                null, null, 32, null, null, false);
+
+        verify(dataTransferService, times(1))
+                .transferDataStream(eq(sourceSystem), eq(destSystem), eq(DataType.USER),
+                        eq(Map.of("org", "acme")), eq(Map.of("key2", "val2")), any());
+        verify(writer, times(1))
+                .printf(eq("Completed users data transfer from %s to %s: %s\n"),
+                        eq(sourceSystem), eq(destSystem), any());
+    }
+
+    @Test
+    public void testTransferUsers_missingSource() {
+        InvalidParamException ex = assertThrows(InvalidParamException.class, () ->
+                dataTransferCommands.transferUsers(sourceSystem, destSystem, null, null, destParams, 4,
+                        null, null, 32, null, null, false));
+
+        assertEquals("source-params", ex.param);
+    }
+
+    @Test
+    public void testTransferUsers_journalAndResume() {
+        InvalidParamException ex = assertThrows(InvalidParamException.class, () ->
+                dataTransferCommands.transferUsers(sourceSystem, destSystem, null, sourceParams, destParams, 4,
+                        null, null, 32, "journal.log", "journal.log", false));
+
+        assertEquals("resume", ex.param);
+    }
+
+    @Test
+    public void testTransferUsers_existingJournal() throws IOException {
+        File journalFile = temporaryFolder.newFile("journal.log");
+
+        InvalidParamException ex = assertThrows(InvalidParamException.class, () ->
+                dataTransferCommands.transferUsers(sourceSystem, destSystem, null, sourceParams, destParams, 4,
+                        null, null, 32, journalFile.getPath(), null, false));
+
+        assertEquals("journal", ex.param);
+    }
+
+    @Test
+    public void testTransferUsers_malformedSourceParamsDoNotCreateJournal() {
+        File journalFile = new File(temporaryFolder.getRoot(), "journal.log");
+
+        InvalidParamException ex = assertThrows(InvalidParamException.class, () ->
+                dataTransferCommands.transferUsers(sourceSystem, destSystem, null, new String[]{"org"}, destParams, 4,
+                        null, null, 32, journalFile.getPath(), null, true));
+
+        assertEquals("org", ex.param);
+        // so a retry with the same journal isn't rejected
+        assertFalse(journalFile.exists());
+        verify(jobManager, never()).submit(any(), any());
+    }
+
+    @Test
+    public void testTransferUsers_backgroundJobRejected() {
+        File journalFile = new File(temporaryFolder.getRoot(), "journal.log");
+        long journalWritersBefore = countJournalWriters();
+        when(dataTransferService.transferDataStream(any(), any(), any(), any(), any(), any()))
+                .thenReturn(Flux.empty());
+        when(jobManager.submit(any(), any())).thenThrow(new IllegalStateException("too many jobs"));
+
+        assertThrows(IllegalStateException.class, () ->
+                dataTransferCommands.transferUsers(sourceSystem, destSystem, null, sourceParams, destParams, 4,
+                        null, null, 32, journalFile.getPath(), null, true));
+
+        // the journal is closed, i.e. its writer thread is gone
+        assertEquals(journalWritersBefore, countJournalWriters());
+    }
+
+    @Test
+    public void testTransferUserToMany_success() {
+        when(dataTransferService.transferDataToMany(any(), any(), any(), any()))
+                .thenReturn(Flux.just(TransferResult.succeeded("freshdesk domain=bluesky"),
+                        TransferResult.failed("freshdesk domain=redsky", new RuntimeException("something failed"))));
+        PrintWriter writer = mock(PrintWriter.class);
+        when(terminal.writer()).thenReturn(writer);
+
+        dataTransferCommands.transferUserToMany(sourceSystem, sourceParams,
+                new String[]{"freshdesk:domain=bluesky", "freshdesk:domain=redsky,region=eu"}, false);
+
+        verify(dataTransferService, times(1))
+                .transferDataToMany(eq(sourceSystem), eq(DataType.USER), eq(Map.of("key1", "val1")),
+                        argThat(destinations -> destinations.size() == 2 &&
+                                destinations.get(1).key().equals("freshdesk domain=redsky region=eu")));
+        verify(writer, times(1))
+                .printf(eq("Failed to transfer user data to %s: %s\n"),
+                        eq("freshdesk domain=redsky"), eq("something failed"));
+        verify(writer, times(1))
+                .printf(eq("Completed user data transfer from %s to %d destination(s): %s\n"),
+                        eq(sourceSystem), eq(2), any());
+    }
+
+    @Test
+    public void testTransferUserToMany_invalidDestination() {
+        InvalidParamException ex = assertThrows(InvalidParamException.class, () ->
+                dataTransferCommands.transferUserToMany(sourceSystem, sourceParams, new String[]{"domain=bluesky"},
+                        false));
+
+        assertEquals("domain=bluesky", ex.param);
+    }
+
+    @Test
+    public void testTransferUsers_background() {
+        String[] orgSourceParams = {"org=acme"};
+        when(dataTransferService.transferDataStream(any(), any(), any(), any(), any(), any()))
+                .thenReturn(Flux.just(TransferResult.succeeded("jsmith"), TransferResult.succeeded("jdoe")));
+        TransferJob job = new TransferJob(1, "transfer users");
+        when(jobManager.submit(any(), any())).thenAnswer(invocation -> {
+            Function<TransferJob, Mono<String>> transfer = invocation.getArgument(1);
+            StepVerifier.create(transfer.apply(job))
+                    .expectNextMatches(outcome -> outcome.contains("2 succeeded"))
+                    .verifyComplete();
+            return job;
+        });
+        PrintWriter writer = mock(PrintWriter.class);
+        when(terminal.writer()).thenReturn(writer);
+
+        dataTransferCommands.transferUsers(sourceSystem, destSystem, null, orgSourceParams, destParams, 4,
+                null, null, 32, null, null, true);
+
+        verify(jobManager, times(1)).submit(eq("transfer users org=acme from source-system to dest-system"), any());
+        verify(writer, never())
+                .printf(eq("Completed users data transfer from %s to %s: %s\n"), any(), any(), any());
+    }
+
+    @Test
+    public void testReadParamsFile_invalidParam() throws IOException {
+        File sourceParamsFile = temporaryFolder.newFile("users.txt");
+        Files.write(sourceParamsFile.toPath(), List.of("username=jsmith", "username"));
+
+        StepVerifier.create(CommandUtils.readParamsFile(sourceParamsFile.getPath()))
+                .expectNext(Map.of("username", "jsmith"))
+                .expectError(InvalidParamException.class)
+                .verify();
+    }
+
+    private static long countJournalWriters() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("transfer-journal-writer"))
+                .count();
+    }
 }
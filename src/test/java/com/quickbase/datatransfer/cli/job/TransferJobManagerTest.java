@@ -0,0 +1,93 @@
+package com.quickbase.datatransfer.cli.job;
+
+import com.quickbase.datatransfer.exception.InvalidParamException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class TransferJobManagerTest {
+    private TransferJobManager jobManager;
+
+    @Before
+    public void setUp() {
+        jobManager = new TransferJobManager();
+    }
+
+    @After
+    public void tearDown() {
+        jobManager.destroy();
+    }
+
+    @Test
+    public void testSubmit_success() {
+        TransferJob job = jobManager.submit("transfer", __ -> Mono.just("done"));
+
+        awaitFinished(job);
+
+        assertEquals(TransferJob.Status.SUCCEEDED, job.getStatus());
+        assertEquals("done", job.getProgress());
+        assertEquals(job, jobManager.getJob(job.getId()));
+    }
+
+    @Test
+    public void testSubmit_failure() {
+        TransferJob job = jobManager.submit("transfer", __ -> Mono.error(new RuntimeException("something failed")));
+
+        awaitFinished(job);
+
+        assertEquals(TransferJob.Status.FAILED, job.getStatus());
+        assertEquals("something failed", job.getProgress());
+    }
+
+    @Test
+    public void testCancel_disposesTransfer() {
+        Sinks.One<String> neverCompletes = Sinks.one();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        TransferJob job = jobManager.submit("transfer", j -> neverCompletes.asMono()
+                .doOnSubscribe(__ -> j.setProgress("1 item(s) processed"))
+                .doOnCancel(() -> cancelled.set(true)));
+
+        awaitProgress(job);
+
+        assertTrue(jobManager.cancel(job.getId()));
+        assertEquals(TransferJob.Status.CANCELLED, job.getStatus());
+        assertTrue(cancelled.get());
+        assertFalse(jobManager.cancel(job.getId()));
+    }
+
+    @Test
+    public void testGetJob_notExisting() {
+        InvalidParamException ex = assertThrows(InvalidParamException.class, () -> jobManager.getJob(42));
+
+        assertEquals("id", ex.param);
+    }
+
+    private static void awaitFinished(TransferJob job) {
+        await(() -> job.getStatus() != TransferJob.Status.RUNNING);
+    }
+
+    private static void awaitProgress(TransferJob job) {
+        await(() -> job.getProgress() != null);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Timed out waiting for the job");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.quickbase.datatransfer.common;
+
+import com.quickbase.datatransfer.data.UserData;
+import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskContactRequest;
+import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskContactResponse;
+import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskErrorResponse;
+import com.quickbase.datatransfer.gateway.github.model.GitHubUserResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+public class DataTransferRuntimeHintsTest {
+    private RuntimeHints hints;
+
+    @Before
+    public void setUp() {
+        hints = new RuntimeHints();
+        new DataTransferRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    public void testRegistersJsonTypesForReflection() {
+        List.of(UserData.class, GitHubUserResponse.class, FreshdeskContactRequest.class,
+                        FreshdeskContactResponse.class, FreshdeskErrorResponse.class)
+                .forEach(type -> {
+                    assertTrue(type.getName(), RuntimeHintsPredicates.reflection().onType(type)
+                            .withMemberCategories(MemberCategory.DECLARED_FIELDS,
+                                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)
+                            .test(hints));
+                });
+    }
+
+    @Test
+    public void testRegistersNestedTypes() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(FreshdeskErrorResponse.Error.class).test(hints));
+    }
+}
@@ -0,0 +1,159 @@
+package com.quickbase.datatransfer.gateway;
+
+import com.quickbase.datatransfer.exception.CircuitBreakerOpenException;
+import com.quickbase.datatransfer.gateway.circuitbreaker.CircuitBreaker;
+import com.quickbase.datatransfer.gateway.circuitbreaker.CircuitBreakerProperties;
+import com.quickbase.datatransfer.gateway.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+    private CircuitBreakerProperties properties;
+    private CircuitBreaker circuitBreaker;
+    private long now;
+
+    @Before
+    public void setUp() {
+        properties = new CircuitBreakerProperties();
+        properties.setSlidingWindowSize(10);
+        properties.setMinimumCalls(5);
+        properties.setFailureRateThreshold(50);
+        properties.setSlowCallDurationThreshold(Duration.ofSeconds(5));
+        properties.setSlowCallRateThreshold(80);
+        properties.setOpenDuration(Duration.ofSeconds(30));
+        properties.setHalfOpenProbes(2);
+        circuitBreaker = new CircuitBreaker("Freshdesk https://bluesky.freshdesk.com", properties);
+        now = 1_000_000;
+    }
+
+    @Test
+    public void testStaysClosedBelowMinimumCalls() {
+        recordCalls(4, true, 100);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission(now));
+    }
+
+    @Test
+    public void testOpensOnFailureRate() {
+        recordCalls(3, false, 100);
+        recordCalls(3, true, 100);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission(now));
+        assertEquals(Duration.ofSeconds(30).toMillis(), circuitBreaker.getRemainingOpenMillis(now));
+    }
+
+    @Test
+    public void testOpensOnSlowCallRate() {
+        recordCalls(1, false, 100);
+        recordCalls(4, false, Duration.ofSeconds(6).toMillis());
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testOnlyMostRecentCallsCount() {
+        recordCalls(20, false, 100);
+        recordCalls(4, true, 100);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        // 5 out of the last 10 calls failed, although only 5 out of all 25 did
+        recordCalls(1, true, 100);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testClosesAfterSuccessfulProbes() {
+        recordCalls(5, true, 100);
+        now += Duration.ofSeconds(30).toMillis();
+
+        assertTrue(circuitBreaker.tryAcquirePermission(now));
+        assertTrue(circuitBreaker.tryAcquirePermission(now));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        // no more calls than the probes are let through while half-open
+        assertFalse(circuitBreaker.tryAcquirePermission(now));
+
+        circuitBreaker.onResult(false, 100, now);
+        circuitBreaker.onResult(false, 100, now);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission(now));
+    }
+
+    @Test
+    public void testReopensAfterFailedProbe() {
+        recordCalls(5, true, 100);
+        now += Duration.ofSeconds(30).toMillis();
+
+        assertTrue(circuitBreaker.tryAcquirePermission(now));
+        circuitBreaker.onResult(true, 100, now);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission(now + 1));
+    }
+
+    @Test
+    public void testCancelledProbeReleasesPermission() {
+        recordCalls(5, true, 100);
+        now += Duration.ofSeconds(30).toMillis();
+
+        assertTrue(circuitBreaker.tryAcquirePermission(now));
+        assertTrue(circuitBreaker.tryAcquirePermission(now));
+        circuitBreaker.releasePermission();
+
+        assertTrue(circuitBreaker.tryAcquirePermission(now));
+    }
+
+    @Test
+    public void testCallRejectedWhileProbingCanBeRetried() {
+        VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+        ExchangeFilterFunction filter = new CircuitBreakerRegistry(properties, scheduler)
+                .filter("Freshdesk", "https://bluesky.freshdesk.com");
+        ClientRequest request = ClientRequest.create(HttpMethod.GET,
+                URI.create("https://bluesky.freshdesk.com/api/v2/contacts")).build();
+
+        for (int i = 0; i < 5; i++) {
+            StepVerifier.create(filter.filter(request, __ -> Mono.error(new IOException("connection refused"))))
+                    .expectError(IOException.class)
+                    .verify();
+        }
+        scheduler.advanceTimeBy(Duration.ofSeconds(30));
+
+        // both probes are still in flight
+        filter.filter(request, __ -> Mono.never()).subscribe();
+        filter.filter(request, __ -> Mono.never()).subscribe();
+
+        StepVerifier.create(filter.filter(request, __ -> Mono.never()))
+                .expectErrorSatisfies(ex -> {
+                    CircuitBreakerOpenException openException = (CircuitBreakerOpenException) ex;
+                    assertEquals("Calls to 'Freshdesk https://bluesky.freshdesk.com' are on hold for up to 5 " +
+                            "second(s), while probing whether it recovered.", openException.getMessage());
+                    assertEquals(Duration.ofSeconds(5), openException.remainingOpenDuration);
+                })
+                .verify();
+    }
+
+    private void recordCalls(int count, boolean failed, long durationMillis) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(circuitBreaker.tryAcquirePermission(now));
+            circuitBreaker.onResult(failed, durationMillis, now);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.quickbase.datatransfer.gateway;
+
+import com.quickbase.datatransfer.gateway.freshdesk.FreshdeskContactIndex;
+import com.quickbase.datatransfer.gateway.freshdesk.FreshdeskProperties;
+import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskContactResponse;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class FreshdeskContactIndexTest {
+    private static final String DOMAIN = "bluesky";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FreshdeskProperties properties;
+    private List<Instant> listedUpdatedSince;
+
+    @Before
+    public void setUp() {
+        properties = new FreshdeskProperties();
+        properties.getContactIndex().setEnabled(true);
+        properties.getContactIndex().setSnapshotDirectory(temporaryFolder.getRoot().getPath());
+        listedUpdatedSince = new ArrayList<>();
+    }
+
+    @Test
+    public void testFindContactIds_buildsIndexOnce() {
+        FreshdeskContactIndex contactIndex = new FreshdeskContactIndex(properties);
+        Function<Instant, Flux<FreshdeskContactResponse>> contactLister = contactLister(
+                new FreshdeskContactResponse(123L, "John Smith"),
+                new FreshdeskContactResponse(456L, "Jane Doe"));
+
+        StepVerifier.create(contactIndex.findContactIds(DOMAIN, "John Smith", contactLister))
+                .expectNext(List.of(123L))
+                .verifyComplete();
+        StepVerifier.create(contactIndex.findContactIds(DOMAIN, "Jane Doe", contactLister))
+                .expectNext(List.of(456L))
+                .verifyComplete();
+
+        // only a single full listing of the contacts is expected
+        assertEquals(1, listedUpdatedSince.size());
+        assertNull(listedUpdatedSince.get(0));
+    }
+
+    @Test
+    public void testRecordContact_foundWithoutSync() {
+        FreshdeskContactIndex contactIndex = new FreshdeskContactIndex(properties);
+        Function<Instant, Flux<FreshdeskContactResponse>> contactLister = contactLister();
+
+        StepVerifier.create(contactIndex.findContactIds(DOMAIN, "John Smith", contactLister))
+                .expectNext(List.of())
+                .verifyComplete();
+
+        contactIndex.recordContact(DOMAIN, "John Smith", 123L);
+
+        StepVerifier.create(contactIndex.findContactIds(DOMAIN, "John Smith", contactLister))
+                .expectNext(List.of(123L))
+                .verifyComplete();
+        assertEquals(1, listedUpdatedSince.size());
+    }
+
+    @Test
+    public void testRecordContact_duringRebuildIsKept() {
+        FreshdeskContactIndex contactIndex = new FreshdeskContactIndex(properties);
+        // the contact is created by an upload after the listing has started
+        Function<Instant, Flux<FreshdeskContactResponse>> contactLister = updatedSince -> {
+            listedUpdatedSince.add(updatedSince);
+            return Flux.just(new FreshdeskContactResponse(123L, "John Smith"))
+                    .doOnComplete(() -> contactIndex.recordContact(DOMAIN, "Jane Doe", 456L));
+        };
+
+        Mono<List<Long>> contactIds = contactIndex.findContactIds(DOMAIN, "John Smith", contactLister);
+        // nothing is listed until the lookup is subscribed to
+        assertEquals(0, listedUpdatedSince.size());
+
+        StepVerifier.create(contactIds)
+                .expectNext(List.of(123L))
+                .verifyComplete();
+        StepVerifier.create(contactIndex.findContactIds(DOMAIN, "Jane Doe", contactLister))
+                .expectNext(List.of(456L))
+                .verifyComplete();
+        assertEquals(1, listedUpdatedSince.size());
+    }
+
+    @Test
+    public void testFindContactIds_restartSyncsChangesSinceSnapshot() {
+        properties.getContactIndex().setRefreshInterval(Duration.ZERO);
+        new FreshdeskContactIndex(properties)
+                .findContactIds(DOMAIN, "John Smith", contactLister(new FreshdeskContactResponse(123L, "John Smith")))
+                .block();
+
+        // a new instance simulates a restart of the app
+        FreshdeskContactIndex restartedContactIndex = new FreshdeskContactIndex(properties);
+        listedUpdatedSince.clear();
+
+        StepVerifier.create(restartedContactIndex.findContactIds(DOMAIN, "Johnny Smith",
+                        contactLister(new FreshdeskContactResponse(123L, "Johnny Smith"))))
+                .expectNext(List.of(123L))
+                .verifyComplete();
+
+        // only the contacts updated since the snapshot are expected to be listed
+        assertEquals(1, listedUpdatedSince.size());
+        assertNotNull(listedUpdatedSince.get(0));
+        StepVerifier.create(restartedContactIndex.findContactIds(DOMAIN, "John Smith", contactLister()))
+                .expectNext(List.of())
+                .verifyComplete();
+    }
+
+    private Function<Instant, Flux<FreshdeskContactResponse>> contactLister(FreshdeskContactResponse... contacts) {
+        return updatedSince -> {
+            listedUpdatedSince.add(updatedSince);
+            return Flux.just(contacts);
+        };
+    }
+}
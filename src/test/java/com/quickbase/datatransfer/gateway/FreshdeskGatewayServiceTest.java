@@ -1,20 +1,30 @@
 package com.quickbase.datatransfer.gateway;
 
 import com.github.tomakehurst.wiremock.common.Json;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
 import com.quickbase.datatransfer.common.ConfigPropertyProvider;
 import com.quickbase.datatransfer.data.UserData;
 import com.quickbase.datatransfer.exception.*;
 import com.quickbase.datatransfer.gateway.freshdesk.FreshdeskGatewayService.UserDataUploader;
+import com.quickbase.datatransfer.gateway.freshdesk.FreshdeskProperties;
+import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskContactImportResponse;
 import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskContactResponse;
 import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskContactRequest;
 import com.quickbase.datatransfer.gateway.freshdesk.model.FreshdeskErrorResponse;
+import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.core.io.buffer.DataBufferLimitException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.unit.DataSize;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -23,21 +33,28 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.aMultipart;
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
 import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.put;
 import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static com.quickbase.datatransfer.gateway.freshdesk.FreshdeskGatewayService.CONTACTS_API_PATH;
+import static com.quickbase.datatransfer.gateway.freshdesk.FreshdeskGatewayService.CONTACT_IMPORTS_API_PATH;
 import static com.quickbase.datatransfer.gateway.freshdesk.FreshdeskGatewayService.DOMAIN_PARAM;
 import static com.quickbase.datatransfer.gateway.freshdesk.FreshdeskGatewayService.EXTERNAL_SYSTEM_NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
+@TestPropertySource(properties = "datatransfer.freshdesk.contact-import.poll-interval=10ms")
 public class FreshdeskGatewayServiceTest extends GatewayTestBase {
 
     @SpyBean
@@ -46,11 +63,33 @@ public class FreshdeskGatewayServiceTest extends GatewayTestBase {
     @MockBean
     private ConfigPropertyProvider configPropertyProvider;
 
+    @Autowired
+    private FreshdeskProperties freshdeskProperties;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
     @Before
     public void setUp() {
         when(userDataUploader.getApiBaseUrl(anyString())).thenReturn("http://localhost:" + mockServer.port());
         when(configPropertyProvider.getConfigPropertyValue("FRESHDESK_TOKEN")).thenReturn("mock-token");
+
+        // unless a test says otherwise, the exact lookups don't find the contact, so it's searched for by name
+        mockServer.stubFor(
+                get(urlPathEqualTo(CONTACTS_API_PATH))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody("[]")));
+    }
+
+    @After
+    public void tearDown() {
+        freshdeskProperties.setSearchMaxBodySize(new FreshdeskProperties().getSearchMaxBodySize());
+        // the contact index keeps a reference to these properties, so they're reset in place
+        FreshdeskProperties.ContactIndex defaultContactIndex = new FreshdeskProperties().getContactIndex();
+        freshdeskProperties.getContactIndex().setEnabled(defaultContactIndex.isEnabled());
+        freshdeskProperties.getContactIndex().setSnapshotDirectory(defaultContactIndex.getSnapshotDirectory());
     }
 
     @Test
@@ -114,6 +153,140 @@ public class FreshdeskGatewayServiceTest extends GatewayTestBase {
                                 equalToJson(Json.write(expectedUpdateRequestBody))));
     }
 
+    @Test
+    public void testUpdateUser_resolvedByUniqueExternalId() {
+        UserData user = buildUser();
+        Long freshdeskContactId = 123L;
+
+        mockServer.stubFor(
+                get(urlPathEqualTo(CONTACTS_API_PATH))
+                        .withQueryParam("unique_external_id", equalTo(user.externalId))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(List.of(new FreshdeskContactResponse(freshdeskContactId, user.name))))));
+
+        mockServer.stubFor(
+                put(urlPathEqualTo(CONTACTS_API_PATH + "/" + freshdeskContactId))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())));
+
+        StepVerifier.create(userDataUploader.uploadData(Map.of(DOMAIN_PARAM, "bluesky"), user))
+                .verifyComplete();
+
+        mockServer.verify(1, getRequestedFor(urlPathEqualTo(CONTACTS_API_PATH)));
+        mockServer.verify(0, getRequestedFor(urlPathEqualTo("/api/v2/contacts/autocomplete")));
+        mockServer.verify(putRequestedFor(urlPathEqualTo(CONTACTS_API_PATH + "/" + freshdeskContactId)));
+    }
+
+    @Test
+    public void testUpdateUser_resolvedByEmail() {
+        UserData user = buildUser();
+        Long freshdeskContactId = 123L;
+
+        mockServer.stubFor(
+                get(urlPathEqualTo(CONTACTS_API_PATH))
+                        .withQueryParam("email", equalTo(user.email))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(List.of(new FreshdeskContactResponse(freshdeskContactId, user.name))))));
+
+        mockServer.stubFor(
+                put(urlPathEqualTo(CONTACTS_API_PATH + "/" + freshdeskContactId))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())));
+
+        StepVerifier.create(userDataUploader.uploadData(Map.of(DOMAIN_PARAM, "bluesky"), user))
+                .verifyComplete();
+
+        mockServer.verify(getRequestedFor(urlPathEqualTo(CONTACTS_API_PATH))
+                .withQueryParam("unique_external_id", equalTo(user.externalId)));
+        mockServer.verify(0, getRequestedFor(urlPathEqualTo("/api/v2/contacts/autocomplete")));
+        mockServer.verify(putRequestedFor(urlPathEqualTo(CONTACTS_API_PATH + "/" + freshdeskContactId)));
+    }
+
+    @Test
+    public void testUpdateUser_renamedContactIsNotFoundByOldName() {
+        freshdeskProperties.getContactIndex().setEnabled(true);
+        freshdeskProperties.getContactIndex().setSnapshotDirectory(temporaryFolder.getRoot().getPath());
+        // a domain of its own, since the contact index outlives the test
+        Map<String, String> params = Map.of(DOMAIN_PARAM, "renamed-contact");
+        UserData renamedUser = buildUser();
+        renamedUser.name = "Johnny Smith";
+        UserData otherUser = buildUser();
+        otherUser.email = "john.smith@bluesky.com";
+        otherUser.externalId = "john.smith";
+
+        mockServer.stubFor(
+                get(urlPathEqualTo(CONTACTS_API_PATH))
+                        .withQueryParam("per_page", matching(".+"))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(List.of(new FreshdeskContactResponse(123L, "John Smith"))))));
+
+        mockServer.stubFor(
+                get(urlPathEqualTo(CONTACTS_API_PATH))
+                        .withQueryParam("email", equalTo(renamedUser.email))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(List.of(new FreshdeskContactResponse(123L, "John Smith"))))));
+
+        mockServer.stubFor(
+                put(urlPathEqualTo(CONTACTS_API_PATH + "/123"))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())));
+
+        mockServer.stubFor(
+                post(urlPathEqualTo(CONTACTS_API_PATH))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.CREATED.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(new FreshdeskContactResponse(456L, otherUser.name)))));
+
+        // a contact looked for by name has the index of the domain built
+        UserData newUser = new UserData();
+        newUser.name = "Jane Doe";
+        StepVerifier.create(userDataUploader.uploadData(params, newUser))
+                .verifyComplete();
+
+        // then the contact indexed as 'John Smith' is renamed to 'Johnny Smith'
+        StepVerifier.create(userDataUploader.uploadData(params, renamedUser))
+                .verifyComplete();
+
+        // so another 'John Smith' isn't expected to be resolved to it
+        StepVerifier.create(userDataUploader.uploadData(params, otherUser))
+                .verifyComplete();
+
+        mockServer.verify(1, putRequestedFor(urlPathEqualTo(CONTACTS_API_PATH + "/123")));
+        mockServer.verify(postRequestedFor(urlPathEqualTo(CONTACTS_API_PATH))
+                .withRequestBody(equalToJson(Json.write(buildRequestBody(otherUser)))));
+    }
+
+    @Test
+    public void testUpdateUser_ambiguousEmail() {
+        UserData user = buildUser();
+
+        mockServer.stubFor(
+                get(urlPathEqualTo(CONTACTS_API_PATH))
+                        .withQueryParam("email", equalTo(user.email))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(List.of(new FreshdeskContactResponse(123L, user.name),
+                                        new FreshdeskContactResponse(456L, "Johnny Smith"))))));
+
+        StepVerifier.create(userDataUploader.uploadData(Map.of(DOMAIN_PARAM, "bluesky"), user))
+                .expectErrorMatches(throwable -> throwable instanceof AmbiguousDataException ex
+                        && String.format("Found more than one Freshdesk contact with email '%s'. " +
+                        "Can't define which contact to update.", user.email).equals(ex.getMessage()))
+                .verify();
+
+        mockServer.verify(0, getRequestedFor(urlPathEqualTo("/api/v2/contacts/autocomplete")));
+    }
+
     @Test
     public void testUploadUserData_missingName() {
         Mono<Void> resultMono = userDataUploader.uploadData(Map.of(DOMAIN_PARAM, "bluesky"), null);
@@ -189,6 +362,49 @@ public class FreshdeskGatewayServiceTest extends GatewayTestBase {
                 .verify();
     }
 
+    @Test
+    public void testUploadUserData_twoExistingContactsAmongManySearchResults() {
+        UserData user = buildUser();
+        List<FreshdeskContactResponse> searchResponseBody = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            searchResponseBody.add(new FreshdeskContactResponse(id, id == 3 || id == 7 ? user.name : user.name + "son"));
+        }
+
+        mockServer.stubFor(
+                get(urlPathEqualTo("/api/v2/contacts/autocomplete"))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(searchResponseBody))));
+
+        StepVerifier.create(userDataUploader.uploadData(Map.of(DOMAIN_PARAM, "bluesky"), user))
+                .expectError(AmbiguousDataException.class)
+                .verify();
+    }
+
+    @Test
+    public void testUploadUserData_searchResponseTooLarge() {
+        freshdeskProperties.setSearchMaxBodySize(DataSize.ofKilobytes(1));
+        UserData user = buildUser();
+        List<FreshdeskContactResponse> searchResponseBody = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            searchResponseBody.add(new FreshdeskContactResponse(id, user.name + "son"));
+        }
+
+        mockServer.stubFor(
+                get(urlPathEqualTo("/api/v2/contacts/autocomplete"))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(searchResponseBody))));
+
+        StepVerifier.create(userDataUploader.uploadData(Map.of(DOMAIN_PARAM, "bluesky"), user))
+                .expectError(DataBufferLimitException.class)
+                .verify();
+
+        mockServer.verify(0, postRequestedFor(urlPathEqualTo(CONTACTS_API_PATH)));
+    }
+
     @Test
     public void testCreateUser_httpError() {
         UserData user = buildUser();
@@ -228,6 +444,145 @@ public class FreshdeskGatewayServiceTest extends GatewayTestBase {
                 .verify();
     }
 
+    @Test
+    public void testUpdateKnownContact_skipsSearch() {
+        UserData user = buildUser();
+
+        mockServer.stubFor(
+                put(urlPathEqualTo(CONTACTS_API_PATH + "/123"))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())));
+
+        StepVerifier.create(userDataUploader.uploadData(Map.of(DOMAIN_PARAM, "bluesky"), user, "123"))
+                .expectNext("123")
+                .verifyComplete();
+
+        mockServer.verify(0,
+                getRequestedFor(urlPathEqualTo("/api/v2/contacts/autocomplete")));
+        mockServer.verify(
+                putRequestedFor(urlPathEqualTo(CONTACTS_API_PATH + "/123"))
+                        .withRequestBody(
+                                equalToJson(Json.write(buildRequestBody(user)))));
+    }
+
+    @Test
+    public void testUpdateKnownContact_deletedContactIsCreatedAgain() {
+        UserData user = buildUser();
+
+        mockServer.stubFor(
+                put(urlPathEqualTo(CONTACTS_API_PATH + "/123"))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.NOT_FOUND.value())));
+
+        mockServer.stubFor(
+                get(urlPathEqualTo("/api/v2/contacts/autocomplete"))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody("[]")));
+
+        mockServer.stubFor(
+                post(urlPathEqualTo(CONTACTS_API_PATH))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.CREATED.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(new FreshdeskContactResponse(456L, user.name)))));
+
+        StepVerifier.create(userDataUploader.uploadData(Map.of(DOMAIN_PARAM, "bluesky"), user, "123"))
+                .expectNext("456")
+                .verifyComplete();
+
+        mockServer.verify(
+                postRequestedFor(urlPathEqualTo(CONTACTS_API_PATH)));
+    }
+
+    @Test
+    public void testImportUsers_rowFailuresAreMappedToUsers() {
+        UserData user = buildUser();
+        UserData userWithoutName = new UserData();
+        userWithoutName.email = "noname@bluesky.com";
+        UserData rejectedUser = new UserData();
+        rejectedUser.name = "Jane \"JD\" Doe, Jr.";
+        rejectedUser.email = "not-an-email";
+
+        mockServer.stubFor(
+                post(urlPathEqualTo(CONTACT_IMPORTS_API_PATH))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(new FreshdeskContactImportResponse(7L, "in_progress", null)))));
+
+        // the import job is still running the first time its status is checked
+        mockServer.stubFor(
+                get(urlPathEqualTo(CONTACT_IMPORTS_API_PATH + "/7"))
+                        .inScenario("import")
+                        .whenScenarioStateIs(Scenario.STARTED)
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(new FreshdeskContactImportResponse(7L, "in_progress", null))))
+                        .willSetStateTo("completed"));
+        mockServer.stubFor(
+                get(urlPathEqualTo(CONTACT_IMPORTS_API_PATH + "/7"))
+                        .inScenario("import")
+                        .whenScenarioStateIs("completed")
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(new FreshdeskContactImportResponse(7L, "completed", List.of(
+                                        new FreshdeskContactImportResponse.FailedRow(2, "Invalid email")))))));
+
+        StepVerifier.create(userDataUploader.uploadDataBatch(Map.of(DOMAIN_PARAM, "bluesky"),
+                        List.of(user, userWithoutName, rejectedUser)))
+                .assertNext(results -> {
+                    assertEquals(3, results.size());
+                    assertTrue(results.get(0).isSuccessful());
+                    assertTrue(results.get(1).error instanceof InvalidDataException);
+                    assertTrue(results.get(2).error instanceof ImportFailedException);
+                    assertTrue(results.get(2).error.getMessage().contains("Invalid email"));
+                })
+                .verifyComplete();
+
+        // the user without a name isn't part of the CSV, so the rejected user is in its second row
+        mockServer.verify(
+                postRequestedFor(urlPathEqualTo(CONTACT_IMPORTS_API_PATH))
+                        .withRequestBodyPart(aMultipart()
+                                .withName("file")
+                                .withBody(equalTo(
+                                        "name,email,address,twitter_id,unique_external_id,description\r\n" +
+                                        "John Smith,jsmith@bluesky.com,\"Arizona, US\",johnnys,johnsmith,A cat lover\r\n" +
+                                        "\"Jane \"\"JD\"\" Doe, Jr.\",not-an-email,,,,\r\n"))
+                                .build())
+                        .withRequestBodyPart(aMultipart()
+                                .withName("contact_fields[email]")
+                                .withBody(equalTo("1"))
+                                .build()));
+        mockServer.verify(0,
+                postRequestedFor(urlPathEqualTo(CONTACTS_API_PATH)));
+    }
+
+    @Test
+    public void testImportUsers_failedImport() {
+        List<UserData> users = List.of(buildUser());
+
+        mockServer.stubFor(
+                post(urlPathEqualTo(CONTACT_IMPORTS_API_PATH))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(new FreshdeskContactImportResponse(8L, "in_progress", null)))));
+        mockServer.stubFor(
+                get(urlPathEqualTo(CONTACT_IMPORTS_API_PATH + "/8"))
+                        .willReturn(aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(new FreshdeskContactImportResponse(8L, "failed", null)))));
+
+        StepVerifier.create(userDataUploader.uploadDataBatch(Map.of(DOMAIN_PARAM, "bluesky"), users))
+                .expectError(ImportFailedException.class)
+                .verify();
+    }
+
     private static UserData buildUser() {
         UserData user = new UserData();
         user.name = "John Smith";
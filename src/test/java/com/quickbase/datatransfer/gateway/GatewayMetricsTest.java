@@ -0,0 +1,89 @@
+package com.quickbase.datatransfer.gateway;
+
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
+import com.quickbase.datatransfer.gateway.metrics.GatewayMetrics;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class GatewayMetricsTest {
+    @Rule
+    public WireMockClassRule mockServer = new WireMockClassRule(new WireMockConfiguration().dynamicPort());
+
+    private SimpleMeterRegistry meterRegistry;
+    private WebClient webClient;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        webClient = WebClient.builder()
+                .baseUrl(mockServer.baseUrl())
+                .filter(new GatewayMetrics(meterRegistry).filter("GitHub", "default"))
+                .build();
+    }
+
+    @Test
+    public void testRecordsExchangeWithOperationFromAttribute() {
+        mockServer.stubFor(post("/search").willReturn(aResponse()
+                .withStatus(200)
+                .withBody("{\"results\":[]}")));
+
+        StepVerifier.create(webClient.post()
+                        .uri("/search")
+                        .attribute(GatewayMetrics.OPERATION_ATTRIBUTE, GatewayMetrics.OPERATION_SEARCH)
+                        .bodyValue("{\"query\":\"bluesky\"}")
+                        .retrieve()
+                        .bodyToMono(String.class))
+                .expectNext("{\"results\":[]}")
+                .verifyComplete();
+
+        Timer timer = meterRegistry.find(GatewayMetrics.REQUESTS_METRIC)
+                .tags("system", "github", "operation", "search", "status", "200", "outcome", "success")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+
+        DistributionSummary requestBytes = meterRegistry.find(GatewayMetrics.REQUEST_BYTES_METRIC)
+                .tags("system", "github", "operation", "search")
+                .summary();
+        assertNotNull(requestBytes);
+        assertEquals("{\"query\":\"bluesky\"}".length(), requestBytes.totalAmount(), 0);
+
+        DistributionSummary responseBytes = meterRegistry.find(GatewayMetrics.RESPONSE_BYTES_METRIC)
+                .tags("system", "github", "operation", "search")
+                .summary();
+        assertNotNull(responseBytes);
+        assertEquals("{\"results\":[]}".length(), responseBytes.totalAmount(), 0);
+    }
+
+    @Test
+    public void testRecordsOutcomeOfFailedExchange() {
+        mockServer.stubFor(get("/users/bluesky").willReturn(aResponse()
+                .withStatus(429)
+                .withHeader("Retry-After", "30")));
+
+        StepVerifier.create(webClient.get()
+                        .uri("/users/bluesky")
+                        .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().value())))
+                .expectNext(429)
+                .verifyComplete();
+
+        Timer timer = meterRegistry.find(GatewayMetrics.REQUESTS_METRIC)
+                .tags("system", "github", "operation", "get", "status", "429", "outcome", "rate_limited")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+}
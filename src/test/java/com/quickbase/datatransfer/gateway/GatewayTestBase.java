@@ -4,9 +4,16 @@ import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
 import org.junit.Rule;
 import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 
 @RunWith(SpringRunner.class)
+@ContextConfiguration(classes = GatewayTestConfiguration.class)
+// don't persist any state between test runs
+@TestPropertySource(properties = {
+        "datatransfer.rate-limit.state-file=",
+        "datatransfer.github.user-cache.directory=target/test-github-user-cache"})
 public abstract class GatewayTestBase {
     @Rule
     public WireMockClassRule mockServer = new WireMockClassRule(new WireMockConfiguration().dynamicPort());
@@ -0,0 +1,41 @@
+package com.quickbase.datatransfer.gateway;
+
+import com.quickbase.datatransfer.gateway.circuitbreaker.CircuitBreakerProperties;
+import com.quickbase.datatransfer.gateway.circuitbreaker.CircuitBreakerRegistry;
+import com.quickbase.datatransfer.gateway.client.HttpClientProperties;
+import com.quickbase.datatransfer.gateway.client.WebClientRegistry;
+import com.quickbase.datatransfer.gateway.freshdesk.FreshdeskContactIndex;
+import com.quickbase.datatransfer.gateway.freshdesk.FreshdeskProperties;
+import com.quickbase.datatransfer.gateway.github.GitHubProperties;
+import com.quickbase.datatransfer.gateway.github.GitHubTokenPool;
+import com.quickbase.datatransfer.gateway.github.GitHubUserCache;
+import com.quickbase.datatransfer.gateway.hedging.HedgingProperties;
+import com.quickbase.datatransfer.gateway.hedging.RequestHedging;
+import com.quickbase.datatransfer.gateway.metrics.GatewayMetrics;
+import com.quickbase.datatransfer.gateway.ratelimit.RateLimitProperties;
+import com.quickbase.datatransfer.gateway.ratelimit.RateLimitScheduler;
+import com.quickbase.datatransfer.gateway.retry.RetryPolicyRegistry;
+import com.quickbase.datatransfer.gateway.retry.RetryProperties;
+import com.quickbase.datatransfer.gateway.singleflight.SingleFlight;
+import com.quickbase.datatransfer.gateway.singleflight.SingleFlightProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+// the infrastructure beans the gateway services depend on
+@Configuration
+@EnableConfigurationProperties({HttpClientProperties.class, FreshdeskProperties.class, GitHubProperties.class,
+        RateLimitProperties.class, RetryProperties.class, CircuitBreakerProperties.class, SingleFlightProperties.class,
+        HedgingProperties.class})
+@Import({WebClientRegistry.class, FreshdeskContactIndex.class, GitHubUserCache.class, GitHubTokenPool.class,
+        RateLimitScheduler.class, RetryPolicyRegistry.class, CircuitBreakerRegistry.class, GatewayMetrics.class,
+        SingleFlight.class, RequestHedging.class})
+public class GatewayTestConfiguration {
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+}
@@ -1,6 +1,8 @@
 package com.quickbase.datatransfer.gateway;
 
 import static com.quickbase.datatransfer.gateway.github.GitHubGatewayService.EXTERNAL_SYSTEM_NAME;
+import static com.quickbase.datatransfer.gateway.github.GitHubGatewayService.UserDataDownloader.ORGANIZATION_PARAM;
+import static com.quickbase.datatransfer.gateway.github.GitHubGatewayService.UserDataDownloader.TEAM_PARAM;
 import static com.quickbase.datatransfer.gateway.github.GitHubGatewayService.UserDataDownloader.USERNAME_PARAM;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -14,9 +16,13 @@ import com.quickbase.datatransfer.exception.HttpRequestFailedException;
 import com.quickbase.datatransfer.exception.MissingExternalSystemParamException;
 import com.quickbase.datatransfer.exception.UnauthorizedOperationException;
 import com.quickbase.datatransfer.gateway.github.GitHubGatewayService.UserDataDownloader;
+import com.quickbase.datatransfer.gateway.github.GitHubTokenPool;
+import com.quickbase.datatransfer.gateway.github.GitHubUserCache;
+import com.quickbase.datatransfer.gateway.github.model.GitHubMemberResponse;
 import com.quickbase.datatransfer.gateway.github.model.GitHubUserResponse;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.http.HttpHeaders;
@@ -26,6 +32,7 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 public class GitHubGatewayServiceTest extends GatewayTestBase {
@@ -35,8 +42,16 @@ public class GitHubGatewayServiceTest extends GatewayTestBase {
     @MockBean
     private ConfigPropertyProvider configPropertyProvider;
 
+    @Autowired
+    private GitHubUserCache userCache;
+
+    @Autowired
+    private GitHubTokenPool tokenPool;
+
     @Before
     public void setUp() {
+        userCache.clear();
+        tokenPool.clear();
         when(userDataDownloader.getApiBaseUrl()).thenReturn("http://localhost:" + mockServer.port());
         when(configPropertyProvider.getConfigPropertyValue("GITHUB_TOKEN")).thenReturn("mock-token");
     }
@@ -127,4 +142,261 @@ public class GitHubGatewayServiceTest extends GatewayTestBase {
                 })
                 .verify();
     }
+
+    @Test
+    public void testDownloadUserData_revalidatesCachedUser() {
+        String username = "jsmith";
+        String etag = "\"a1b2c3\"";
+
+        mockServer.stubFor(
+                WireMock.get(WireMock.urlPathEqualTo("/users/" + username))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withHeader(HttpHeaders.ETAG, etag)
+                                .withBody("{\"login\": \"jsmith\", \"name\": \"John Smith\"}")));
+        mockServer.stubFor(
+                WireMock.get(WireMock.urlPathEqualTo("/users/" + username))
+                        .withHeader(HttpHeaders.IF_NONE_MATCH, WireMock.equalTo(etag))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.NOT_MODIFIED.value())));
+
+        StepVerifier.create(userDataDownloader.downloadData(Map.of(USERNAME_PARAM, username)))
+                .assertNext(downloadedData -> assertEquals("John Smith", downloadedData.name))
+                .verifyComplete();
+
+        StepVerifier.create(userDataDownloader.downloadData(Map.of(USERNAME_PARAM, username)))
+                .assertNext(downloadedData -> {
+                    assertEquals("John Smith", downloadedData.name);
+                    assertEquals("jsmith", downloadedData.externalId);
+                })
+                .verifyComplete();
+
+        mockServer.verify(1, WireMock.getRequestedFor(WireMock.urlPathEqualTo("/users/" + username))
+                .withHeader(HttpHeaders.IF_NONE_MATCH, WireMock.equalTo(etag)));
+        assertEquals(1, userCache.getHits());
+    }
+
+    @Test
+    public void testDownloadUserData_revalidatesCachedUserOnlyWithSameToken() {
+        String username = "jsmith";
+        String etag = "\"a1b2c3\"";
+
+        mockServer.stubFor(
+                WireMock.get(WireMock.urlPathEqualTo("/users/" + username))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withHeader(HttpHeaders.ETAG, etag)
+                                .withBody("{\"login\": \"jsmith\", \"name\": \"John Smith\"}")));
+
+        StepVerifier.create(userDataDownloader.downloadData(Map.of(USERNAME_PARAM, username)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        when(configPropertyProvider.getConfigPropertyValue("GITHUB_TOKEN")).thenReturn("other-token");
+
+        StepVerifier.create(userDataDownloader.downloadData(Map.of(USERNAME_PARAM, username)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        // the ETag was returned to the other token, so the user is downloaded in full
+        mockServer.verify(0, WireMock.getRequestedFor(WireMock.urlPathEqualTo("/users/" + username))
+                .withHeader(HttpHeaders.IF_NONE_MATCH, WireMock.matching(".*")));
+        mockServer.verify(1, WireMock.getRequestedFor(WireMock.urlPathEqualTo("/users/" + username))
+                .withHeader(HttpHeaders.AUTHORIZATION, WireMock.equalTo("Bearer other-token")));
+    }
+
+    @Test
+    public void testDownloadUserData_remembersNonExistingGitHubUser() {
+        String username = "ghost";
+
+        mockServer.stubFor(
+                WireMock.get(WireMock.urlPathEqualTo("/users/" + username))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.NOT_FOUND.value())));
+
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(userDataDownloader.downloadData(Map.of(USERNAME_PARAM, username)))
+                    .expectErrorMatches(throwable -> throwable instanceof HttpRequestFailedException ex
+                            && HttpStatus.NOT_FOUND.value() == ex.httpStatusCode.value())
+                    .verify();
+        }
+
+        mockServer.verify(1, WireMock.getRequestedFor(WireMock.urlPathEqualTo("/users/" + username)));
+    }
+
+    @Test
+    public void testDownloadUserData_concurrentDownloadsShareRequest() {
+        String username = "jsmith";
+
+        mockServer.stubFor(
+                WireMock.get(WireMock.urlPathEqualTo("/users/" + username))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withFixedDelay(200)
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody("{\"login\": \"jsmith\", \"name\": \"John Smith\"}")));
+
+        StepVerifier.create(Mono.zip(
+                        userDataDownloader.downloadData(Map.of(USERNAME_PARAM, username)),
+                        userDataDownloader.downloadData(Map.of(USERNAME_PARAM, "JSmith"))))
+                .assertNext(downloadedData -> {
+                    assertEquals("John Smith", downloadedData.getT1().name);
+                    assertEquals("John Smith", downloadedData.getT2().name);
+                })
+                .verifyComplete();
+
+        mockServer.verify(1, WireMock.getRequestedFor(WireMock.urlPathEqualTo("/users/" + username)));
+    }
+
+    @Test
+    public void testDownloadUserData_switchesToTokenWithMoreRemainingQuota() {
+        when(configPropertyProvider.getConfigPropertyValue("GITHUB_TOKENS")).thenReturn("token-a,token-b");
+
+        mockServer.stubFor(
+                WireMock.get(WireMock.urlPathMatching("/users/.*"))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody("{\"login\": \"jsmith\", \"name\": \"John Smith\"}")));
+        // token-a is almost exhausted
+        mockServer.stubFor(
+                WireMock.get(WireMock.urlPathEqualTo("/users/jsmith"))
+                        .withHeader(HttpHeaders.AUTHORIZATION, WireMock.equalTo("Bearer token-a"))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withHeader("X-RateLimit-Limit", "5000")
+                                .withHeader("X-RateLimit-Remaining", "10")
+                                .withHeader("X-RateLimit-Reset", "3600")
+                                .withBody("{\"login\": \"jsmith\", \"name\": \"John Smith\"}")));
+
+        StepVerifier.create(userDataDownloader.downloadData(Map.of(USERNAME_PARAM, "jsmith")))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(userDataDownloader.downloadData(Map.of(USERNAME_PARAM, "jdoe")))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(userDataDownloader.downloadData(Map.of(USERNAME_PARAM, "jroe")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        mockServer.verify(1, WireMock.getRequestedFor(WireMock.urlPathMatching("/users/.*"))
+                .withHeader(HttpHeaders.AUTHORIZATION, WireMock.equalTo("Bearer token-a")));
+        mockServer.verify(2, WireMock.getRequestedFor(WireMock.urlPathMatching("/users/.*"))
+                .withHeader(HttpHeaders.AUTHORIZATION, WireMock.equalTo("Bearer token-b")));
+    }
+
+    @Test
+    public void testDownloadUserData_retriesWithAnotherTokenAfterRateLimit() {
+        when(configPropertyProvider.getConfigPropertyValue("GITHUB_TOKENS")).thenReturn("exhausted-token,spare-token");
+
+        mockServer.stubFor(
+                WireMock.get(WireMock.urlPathEqualTo("/users/jsmith"))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody("{\"login\": \"jsmith\", \"name\": \"John Smith\"}")));
+        // the first token is exhausted
+        mockServer.stubFor(
+                WireMock.get(WireMock.urlPathEqualTo("/users/jsmith"))
+                        .withHeader(HttpHeaders.AUTHORIZATION, WireMock.equalTo("Bearer exhausted-token"))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.TOO_MANY_REQUESTS.value())
+                                .withHeader(HttpHeaders.RETRY_AFTER, "1")
+                                .withHeader("X-RateLimit-Limit", "5000")
+                                .withHeader("X-RateLimit-Remaining", "0")
+                                .withHeader("X-RateLimit-Reset", "3600")));
+
+        StepVerifier.create(userDataDownloader.downloadData(Map.of(USERNAME_PARAM, "jsmith")))
+                .assertNext(user -> assertEquals("John Smith", user.name))
+                .verifyComplete();
+
+        // the retry doesn't go out on the exhausted token again
+        mockServer.verify(1, WireMock.getRequestedFor(WireMock.urlPathEqualTo("/users/jsmith"))
+                .withHeader(HttpHeaders.AUTHORIZATION, WireMock.equalTo("Bearer exhausted-token")));
+        mockServer.verify(1, WireMock.getRequestedFor(WireMock.urlPathEqualTo("/users/jsmith"))
+                .withHeader(HttpHeaders.AUTHORIZATION, WireMock.equalTo("Bearer spare-token")));
+    }
+
+    @Test
+    public void testDownloadOrganizationMembers_followsPagination() {
+        String membersPath = "/orgs/acme/members";
+        String nextPageLink = String.format("<http://localhost:%d%s?per_page=100&page=2>; rel=\"next\"",
+                mockServer.port(), membersPath);
+
+        mockServer.stubFor(
+                WireMock.get(WireMock.urlPathEqualTo(membersPath))
+                        .withQueryParam("page", WireMock.absent())
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withHeader(HttpHeaders.LINK, nextPageLink)
+                                .withBody(Json.write(List.of(new GitHubMemberResponse("jsmith"))))));
+        mockServer.stubFor(
+                WireMock.get(WireMock.urlPathEqualTo(membersPath))
+                        .withQueryParam("page", WireMock.equalTo("2"))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(List.of(new GitHubMemberResponse("jdoe"))))));
+        stubUser("jsmith", "John Smith");
+        stubUser("jdoe", "Jane Doe");
+
+        StepVerifier.create(userDataDownloader.downloadDataStream(Map.of(ORGANIZATION_PARAM, "acme"))
+                        .map(userData -> userData.externalId)
+                        .sort())
+                .expectNext("jdoe", "jsmith")
+                .verifyComplete();
+
+        mockServer.verify(2, WireMock.getRequestedFor(WireMock.urlPathEqualTo(membersPath)));
+    }
+
+    @Test
+    public void testDownloadTeamMembers_skipsDeletedMembers() {
+        String membersPath = "/orgs/acme/teams/devs/members";
+
+        mockServer.stubFor(
+                WireMock.get(WireMock.urlPathEqualTo(membersPath))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(List.of(
+                                        new GitHubMemberResponse("jsmith"), new GitHubMemberResponse("deleted"))))));
+        stubUser("jsmith", "John Smith");
+        mockServer.stubFor(
+                WireMock.get(WireMock.urlPathEqualTo("/users/deleted"))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.NOT_FOUND.value())));
+
+        StepVerifier.create(userDataDownloader.downloadDataStream(Map.of(ORGANIZATION_PARAM, "acme", TEAM_PARAM, "devs")))
+                .assertNext(userData -> assertEquals("jsmith", userData.externalId))
+                .verifyComplete();
+    }
+
+    @Test
+    public void testDownloadOrganizationMembers_missingOrganization() {
+        StepVerifier.create(userDataDownloader.downloadDataStream(Collections.emptyMap()))
+                .expectErrorMatches(throwable -> {
+                    if (throwable instanceof MissingExternalSystemParamException ex) {
+                        return ORGANIZATION_PARAM.equals(ex.param) && EXTERNAL_SYSTEM_NAME.equals(ex.externalSystemName);
+                    }
+                    return false;
+                })
+                .verify();
+    }
+
+    private void stubUser(String username, String name) {
+        GitHubUserResponse gitHubUser = new GitHubUserResponse();
+        gitHubUser.name = name;
+        gitHubUser.login = username;
+
+        mockServer.stubFor(
+                WireMock.get(WireMock.urlPathEqualTo("/users/" + username))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(Json.write(gitHubUser))));
+    }
 }
@@ -0,0 +1,124 @@
+package com.quickbase.datatransfer.gateway;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.quickbase.datatransfer.common.ConfigPropertyProvider;
+import com.quickbase.datatransfer.exception.HttpRequestFailedException;
+import com.quickbase.datatransfer.exception.MissingExternalSystemParamException;
+import com.quickbase.datatransfer.gateway.github.GitHubGatewayService.UserDataDownloader;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import reactor.test.StepVerifier;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.quickbase.datatransfer.gateway.github.GitHubGatewayService.UserDataDownloader.ORGANIZATION_PARAM;
+import static com.quickbase.datatransfer.gateway.github.GitHubGatewayService.UserDataDownloader.USERNAME_PARAM;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+@TestPropertySource(properties = {
+        "datatransfer.github.download-engine=graphql",
+        "datatransfer.github.graphql-batch-size=2"})
+public class GitHubGraphQlDownloadTest extends GatewayTestBase {
+    @SpyBean
+    private UserDataDownloader userDataDownloader;
+
+    @MockBean
+    private ConfigPropertyProvider configPropertyProvider;
+
+    @Before
+    public void setUp() {
+        when(userDataDownloader.getApiBaseUrl()).thenReturn("http://localhost:" + mockServer.port());
+        when(configPropertyProvider.getConfigPropertyValue("GITHUB_TOKEN")).thenReturn("mock-token");
+    }
+
+    @Test
+    public void testDownloadDataBatch_reportsErrorsPerUser() {
+        mockServer.stubFor(
+                WireMock.post(WireMock.urlPathEqualTo("/graphql"))
+                        .withRequestBody(WireMock.matchingJsonPath("$.variables.l0", WireMock.equalTo("jsmith")))
+                        .withRequestBody(WireMock.matchingJsonPath("$.variables.l1", WireMock.equalTo("ghost")))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody("""
+                                        {
+                                          "data": {
+                                            "u0": {"login": "jsmith", "name": "John Smith", "email": "",
+                                                   "location": "Arizona, US", "bio": null, "twitter_username": "johnnys"},
+                                            "u1": null
+                                          },
+                                          "errors": [
+                                            {"type": "NOT_FOUND", "path": ["u1"],
+                                             "message": "Could not resolve to a User with the login of 'ghost'."}
+                                          ]
+                                        }""")));
+
+        StepVerifier.create(userDataDownloader.downloadDataBatch(List.of(
+                        Map.of(USERNAME_PARAM, "jsmith"),
+                        Collections.emptyMap(),
+                        Map.of(USERNAME_PARAM, "ghost"))))
+                .assertNext(results -> {
+                    assertEquals(3, results.size());
+
+                    assertTrue(results.get(0).isSuccessful());
+                    assertEquals("John Smith", results.get(0).data.name);
+                    assertEquals("johnnys", results.get(0).data.twitterHandle);
+                    assertEquals("jsmith", results.get(0).data.externalId);
+                    assertNull(results.get(0).data.email);
+
+                    assertTrue(results.get(1).error instanceof MissingExternalSystemParamException);
+
+                    assertTrue(results.get(2).error instanceof HttpRequestFailedException ex
+                            && ex.httpStatusCode.value() == HttpStatus.NOT_FOUND.value());
+                })
+                .verifyComplete();
+
+        // both users were downloaded with a single query, which only asks for the fields that are used
+        mockServer.verify(1, WireMock.postRequestedFor(WireMock.urlPathEqualTo("/graphql"))
+                .withRequestBody(WireMock.matchingJsonPath("$.query", WireMock.containing("twitter_username: twitterUsername"))));
+        mockServer.verify(0, WireMock.getRequestedFor(WireMock.urlPathMatching("/users/.*")));
+    }
+
+    @Test
+    public void testDownloadOrganizationMembers_downloadsProfilesInBatches() {
+        mockServer.stubFor(
+                WireMock.get(WireMock.urlPathEqualTo("/orgs/acme/members"))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody("[{\"login\": \"jsmith\"}, {\"login\": \"jdoe\"}, {\"login\": \"ghost\"}]")));
+        mockServer.stubFor(
+                WireMock.post(WireMock.urlPathEqualTo("/graphql"))
+                        .withRequestBody(WireMock.matchingJsonPath("$.variables.l0", WireMock.equalTo("jsmith")))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody("{\"data\": {\"u0\": {\"login\": \"jsmith\"}, \"u1\": {\"login\": \"jdoe\"}}}")));
+        mockServer.stubFor(
+                WireMock.post(WireMock.urlPathEqualTo("/graphql"))
+                        .withRequestBody(WireMock.matchingJsonPath("$.variables.l0", WireMock.equalTo("ghost")))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.OK.value())
+                                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .withBody("{\"data\": {\"u0\": null}, \"errors\": [{\"type\": \"NOT_FOUND\", \"path\": [\"u0\"]}]}")));
+
+        // the member which no longer exists is skipped
+        StepVerifier.create(userDataDownloader.downloadDataStream(Map.of(ORGANIZATION_PARAM, "acme")))
+                .assertNext(user -> assertEquals("jsmith", user.externalId))
+                .assertNext(user -> assertEquals("jdoe", user.externalId))
+                .verifyComplete();
+
+        mockServer.verify(2, WireMock.postRequestedFor(WireMock.urlPathEqualTo("/graphql")));
+    }
+}
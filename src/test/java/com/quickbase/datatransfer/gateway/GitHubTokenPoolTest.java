@@ -0,0 +1,130 @@
+package com.quickbase.datatransfer.gateway;
+
+import com.quickbase.datatransfer.common.ConfigPropertyProvider;
+import com.quickbase.datatransfer.exception.UnauthorizedOperationException;
+import com.quickbase.datatransfer.gateway.github.GitHubProperties;
+import com.quickbase.datatransfer.gateway.github.GitHubTokenPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static com.quickbase.datatransfer.gateway.github.GitHubTokenPool.RESOURCE_CORE;
+import static com.quickbase.datatransfer.gateway.github.GitHubTokenPool.RESOURCE_GRAPHQL;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GitHubTokenPoolTest {
+    private VirtualTimeScheduler virtualTimeScheduler;
+    private ConfigPropertyProvider configPropertyProvider;
+    private GitHubTokenPool tokenPool;
+
+    @Before
+    public void setUp() {
+        virtualTimeScheduler = VirtualTimeScheduler.create();
+        configPropertyProvider = mock(ConfigPropertyProvider.class);
+        when(configPropertyProvider.getConfigPropertyValue(GitHubTokenPool.TOKENS_PROPERTY))
+                .thenReturn("token-a, token-b");
+        tokenPool = new GitHubTokenPool(configPropertyProvider, new GitHubProperties(), virtualTimeScheduler);
+    }
+
+    @After
+    public void tearDown() {
+        virtualTimeScheduler.dispose();
+    }
+
+    @Test
+    public void testGetToken_fallsBackToSingleToken() {
+        when(configPropertyProvider.getConfigPropertyValue(GitHubTokenPool.TOKENS_PROPERTY)).thenReturn(null);
+        when(configPropertyProvider.getConfigPropertyValue(GitHubTokenPool.TOKEN_PROPERTY)).thenReturn("token");
+
+        assertEquals("token", tokenPool.getToken(RESOURCE_CORE));
+    }
+
+    @Test
+    public void testGetToken_missingTokens() {
+        when(configPropertyProvider.getConfigPropertyValue(GitHubTokenPool.TOKENS_PROPERTY)).thenReturn(" ");
+
+        assertThrows(UnauthorizedOperationException.class, () -> tokenPool.getToken(RESOURCE_CORE));
+    }
+
+    @Test
+    public void testGetToken_spreadsRequestsOverUnusedTokens() {
+        assertEquals("token-a", tokenPool.getToken(RESOURCE_CORE));
+        assertEquals("token-b", tokenPool.getToken(RESOURCE_CORE));
+    }
+
+    @Test
+    public void testGetToken_picksTokenWithMostRemainingQuota() {
+        tokenPool.observe("token-a", RESOURCE_CORE, HttpStatus.OK, rateLimitHeaders(4000, 60));
+        tokenPool.observe("token-b", RESOURCE_CORE, HttpStatus.OK, rateLimitHeaders(4500, 60));
+
+        assertEquals("token-b", tokenPool.getToken(RESOURCE_CORE));
+        // the quotas of the resources are separate
+        tokenPool.observe("token-a", RESOURCE_GRAPHQL, HttpStatus.OK, rateLimitHeaders(4000, 60));
+        tokenPool.observe("token-b", RESOURCE_GRAPHQL, HttpStatus.OK, rateLimitHeaders(100, 60));
+        assertEquals("token-a", tokenPool.getToken(RESOURCE_GRAPHQL));
+    }
+
+    @Test
+    public void testGetToken_countsRequestsInFlight() {
+        tokenPool.observe("token-a", RESOURCE_CORE, HttpStatus.OK, rateLimitHeaders(4001, 60));
+        tokenPool.observe("token-b", RESOURCE_CORE, HttpStatus.OK, rateLimitHeaders(4001, 60));
+
+        assertEquals("token-a", tokenPool.getToken(RESOURCE_CORE));
+        assertEquals("token-b", tokenPool.getToken(RESOURCE_CORE));
+        assertEquals("token-a", tokenPool.getToken(RESOURCE_CORE));
+
+        // one of the two requests on token-a is answered, the other one is still in flight
+        tokenPool.observe("token-a", RESOURCE_CORE, HttpStatus.OK, rateLimitHeaders(4000, 60));
+        assertEquals("token-b", tokenPool.getToken(RESOURCE_CORE));
+        assertEquals("token-a", tokenPool.getToken(RESOURCE_CORE));
+
+        // a request which ends without a response, e.g. a cancelled hedge, isn't in flight anymore either
+        tokenPool.release("token-a", RESOURCE_CORE);
+        assertEquals("token-a", tokenPool.getToken(RESOURCE_CORE));
+    }
+
+    @Test
+    public void testGetToken_restsTokenNearExhaustionUntilReset() {
+        tokenPool.observe("token-a", RESOURCE_CORE, HttpStatus.OK, rateLimitHeaders(5000, 60));
+        tokenPool.observe("token-b", RESOURCE_CORE, HttpStatus.OK, rateLimitHeaders(10, 60));
+        tokenPool.observe("token-a", RESOURCE_CORE, HttpStatus.OK, rateLimitHeaders(20, 60));
+
+        // both are resting, so the one which is reset first is used
+        tokenPool.observe("token-b", RESOURCE_CORE, HttpStatus.OK, rateLimitHeaders(10, 30));
+        assertEquals("token-b", tokenPool.getToken(RESOURCE_CORE));
+
+        virtualTimeScheduler.advanceTimeBy(Duration.ofSeconds(31));
+        assertEquals("token-b", tokenPool.getToken(RESOURCE_CORE));
+        assertEquals("token-b", tokenPool.getToken(RESOURCE_CORE));
+    }
+
+    @Test
+    public void testGetToken_skipsRejectedToken() {
+        tokenPool.observe("token-a", RESOURCE_CORE, HttpStatus.UNAUTHORIZED, new HttpHeaders());
+
+        assertEquals("token-b", tokenPool.getToken(RESOURCE_CORE));
+        assertEquals("token-b", tokenPool.getToken(RESOURCE_CORE));
+
+        tokenPool.observe("token-b", RESOURCE_CORE, HttpStatus.UNAUTHORIZED, new HttpHeaders());
+
+        assertThrows(UnauthorizedOperationException.class, () -> tokenPool.getToken(RESOURCE_CORE));
+    }
+
+    private HttpHeaders rateLimitHeaders(long remaining, long resetInSeconds) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-RateLimit-Limit", "5000");
+        headers.add("X-RateLimit-Remaining", String.valueOf(remaining));
+        headers.add("X-RateLimit-Reset",
+                String.valueOf(virtualTimeScheduler.now(TimeUnit.SECONDS) + resetInSeconds));
+        return headers;
+    }
+}
@@ -0,0 +1,105 @@
+package com.quickbase.datatransfer.gateway;
+
+import com.quickbase.datatransfer.gateway.ratelimit.RateLimitProperties;
+import com.quickbase.datatransfer.gateway.ratelimit.RateLimitScheduler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+public class RateLimitSchedulerTest {
+    private static final String BUCKET_KEY = RateLimitScheduler.bucketKey("GitHub", "credential", "core");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private VirtualTimeScheduler virtualTimeScheduler;
+    private RateLimitProperties properties;
+
+    @Before
+    public void setUp() {
+        virtualTimeScheduler = VirtualTimeScheduler.create();
+        properties = new RateLimitProperties();
+        properties.setStateFile("");
+    }
+
+    @After
+    public void tearDown() {
+        virtualTimeScheduler.dispose();
+    }
+
+    @Test
+    public void testAcquirePermit_unknownLimitIsNotRestricted() {
+        RateLimitScheduler rateLimitScheduler = new RateLimitScheduler(properties, virtualTimeScheduler);
+
+        StepVerifier.create(rateLimitScheduler.acquirePermit(BUCKET_KEY))
+                .verifyComplete();
+    }
+
+    @Test
+    public void testAcquirePermit_waitsForResetWhenExhausted() {
+        RateLimitScheduler rateLimitScheduler = new RateLimitScheduler(properties, virtualTimeScheduler);
+        rateLimitScheduler.observe(BUCKET_KEY, HttpStatus.OK, rateLimitHeaders(5000, 1, 60));
+
+        // the last permit is available right away
+        StepVerifier.create(rateLimitScheduler.acquirePermit(BUCKET_KEY))
+                .verifyComplete();
+
+        // the next one only after the reset
+        StepVerifier.withVirtualTime(() -> rateLimitScheduler.acquirePermit(BUCKET_KEY), () -> virtualTimeScheduler, 1)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofSeconds(59))
+                .thenAwait(Duration.ofSeconds(1))
+                .verifyComplete();
+    }
+
+    @Test
+    public void testAcquirePermit_honorsRetryAfter() {
+        RateLimitScheduler rateLimitScheduler = new RateLimitScheduler(properties, virtualTimeScheduler);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "30");
+        rateLimitScheduler.observe(BUCKET_KEY, HttpStatus.TOO_MANY_REQUESTS, headers);
+
+        StepVerifier.withVirtualTime(() -> rateLimitScheduler.acquirePermit(BUCKET_KEY), () -> virtualTimeScheduler, 1)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofSeconds(29))
+                .thenAwait(Duration.ofSeconds(1))
+                .verifyComplete();
+    }
+
+    @Test
+    public void testState_survivesRestart() throws Exception {
+        File stateFile = new File(temporaryFolder.getRoot(), "rate-limits.properties");
+        properties.setStateFile(stateFile.getPath());
+        RateLimitScheduler rateLimitScheduler = new RateLimitScheduler(properties, virtualTimeScheduler);
+        rateLimitScheduler.observe(BUCKET_KEY, HttpStatus.FORBIDDEN, rateLimitHeaders(5000, 0, 120));
+        rateLimitScheduler.destroy();
+
+        // a new instance simulates a new process, which shouldn't send requests before the reset
+        RateLimitScheduler restartedRateLimitScheduler = new RateLimitScheduler(properties, virtualTimeScheduler);
+
+        StepVerifier.withVirtualTime(() -> restartedRateLimitScheduler.acquirePermit(BUCKET_KEY), () -> virtualTimeScheduler, 1)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofSeconds(119))
+                .thenAwait(Duration.ofSeconds(1))
+                .verifyComplete();
+    }
+
+    private HttpHeaders rateLimitHeaders(long limit, long remaining, long resetInSeconds) {
+        long resetAtEpochSeconds = virtualTimeScheduler.now(TimeUnit.SECONDS) + resetInSeconds;
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(RateLimitScheduler.LIMIT_HEADER, String.valueOf(limit));
+        headers.set(RateLimitScheduler.REMAINING_HEADER, String.valueOf(remaining));
+        headers.set(RateLimitScheduler.RESET_HEADER, String.valueOf(resetAtEpochSeconds));
+        return headers;
+    }
+}
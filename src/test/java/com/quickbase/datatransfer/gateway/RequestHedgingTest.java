@@ -0,0 +1,166 @@
+package com.quickbase.datatransfer.gateway;
+
+import com.quickbase.datatransfer.gateway.hedging.HedgingProperties;
+import com.quickbase.datatransfer.gateway.hedging.RequestHedging;
+import com.quickbase.datatransfer.gateway.metrics.GatewayMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class RequestHedgingTest {
+    private static final String SYSTEM = "GitHub";
+    private static final Duration USUAL_LATENCY = Duration.ofMillis(100);
+
+    private HedgingProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private VirtualTimeScheduler scheduler;
+    private RequestHedging requestHedging;
+    // the latencies of the next exchanges, in order
+    private Queue<Duration> latencies;
+    private AtomicInteger exchanges;
+    private AtomicInteger cancelledExchanges;
+
+    @Before
+    public void setUp() {
+        properties = new HedgingProperties();
+        properties.setEnabled(true);
+        properties.setMinSamples(5);
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = VirtualTimeScheduler.create();
+        requestHedging = new RequestHedging(properties, new GatewayMetrics(meterRegistry), scheduler);
+        latencies = new ArrayDeque<>();
+        exchanges = new AtomicInteger();
+        cancelledExchanges = new AtomicInteger();
+    }
+
+    @Test
+    public void testSlowRequestIsHedgedAndHedgeWins() {
+        warmUp();
+        nextLatencies(Duration.ofSeconds(10), USUAL_LATENCY);
+
+        StepVerifier.create(exchange(hedgeableRequest()))
+                .then(() -> scheduler.advanceTimeBy(USUAL_LATENCY))
+                .then(() -> assertEquals(2, exchanges.get()))
+                .then(() -> scheduler.advanceTimeBy(USUAL_LATENCY))
+                .expectNextMatches(response -> response.statusCode().is2xxSuccessful())
+                .verifyComplete();
+
+        assertEquals(1, cancelledExchanges.get());
+        assertEquals(1, hedges(GatewayMetrics.HEDGE_WON), 0);
+        assertEquals(0, hedges(GatewayMetrics.HEDGE_LOST), 0);
+    }
+
+    @Test
+    public void testHedgeIsCancelledIfOriginalRequestRespondsFirst() {
+        warmUp();
+        nextLatencies(Duration.ofMillis(150), Duration.ofSeconds(10));
+
+        StepVerifier.create(exchange(hedgeableRequest()))
+                .then(() -> scheduler.advanceTimeBy(Duration.ofMillis(150)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(2, exchanges.get());
+        assertEquals(1, cancelledExchanges.get());
+        assertEquals(0, hedges(GatewayMetrics.HEDGE_WON), 0);
+        assertEquals(1, hedges(GatewayMetrics.HEDGE_LOST), 0);
+    }
+
+    @Test
+    public void testNoHedgeBeforeEnoughResponseTimesObserved() {
+        nextLatencies(Duration.ofSeconds(10));
+
+        StepVerifier.create(exchange(hedgeableRequest()))
+                .then(() -> scheduler.advanceTimeBy(Duration.ofSeconds(10)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(1, exchanges.get());
+        assertNull(meterRegistry.find(GatewayMetrics.HEDGES_METRIC).counter());
+    }
+
+    @Test
+    public void testNoHedgeIfDisabledOrRequestNotMarked() {
+        warmUp();
+        properties.setEnabled(false);
+        nextLatencies(Duration.ofSeconds(10));
+
+        StepVerifier.create(exchange(hedgeableRequest()))
+                .then(() -> scheduler.advanceTimeBy(Duration.ofSeconds(10)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        properties.setEnabled(true);
+        nextLatencies(Duration.ofSeconds(10));
+
+        StepVerifier.create(exchange(ClientRequest.create(HttpMethod.GET, URI.create("/users/jsmith")).build()))
+                .then(() -> scheduler.advanceTimeBy(Duration.ofSeconds(10)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(2, exchanges.get());
+        assertNull(meterRegistry.find(GatewayMetrics.HEDGES_METRIC).counter());
+    }
+
+    // makes enough requests with the usual latency for hedging to start, then resets the exchange counts
+    private void warmUp() {
+        for (int i = 0; i < properties.getMinSamples(); i++) {
+            nextLatencies(USUAL_LATENCY);
+
+            StepVerifier.create(exchange(hedgeableRequest()))
+                    .then(() -> scheduler.advanceTimeBy(USUAL_LATENCY))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        }
+
+        exchanges.set(0);
+        cancelledExchanges.set(0);
+    }
+
+    private void nextLatencies(Duration... nextLatencies) {
+        latencies.addAll(Arrays.asList(nextLatencies));
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request) {
+        ExchangeFunction exchangeFunction = __ -> Mono.defer(() -> {
+            exchanges.incrementAndGet();
+            return Mono.delay(latencies.remove(), scheduler)
+                    .map(___ -> ClientResponse.create(HttpStatus.OK).build())
+                    .doOnCancel(cancelledExchanges::incrementAndGet);
+        });
+
+        return requestHedging.filter(SYSTEM).filter(request, exchangeFunction);
+    }
+
+    private double hedges(String outcome) {
+        Counter counter = meterRegistry.find(GatewayMetrics.HEDGES_METRIC)
+                .tags("system", "github", "outcome", outcome)
+                .counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static ClientRequest hedgeableRequest() {
+        return ClientRequest.create(HttpMethod.GET, URI.create("/users/jsmith"))
+                .attribute(RequestHedging.HEDGE_ATTRIBUTE, true)
+                .build();
+    }
+}
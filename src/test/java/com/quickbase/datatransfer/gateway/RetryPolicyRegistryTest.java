@@ -0,0 +1,167 @@
+package com.quickbase.datatransfer.gateway;
+
+import com.quickbase.datatransfer.exception.HttpRequestFailedException;
+import com.quickbase.datatransfer.gateway.metrics.GatewayMetrics;
+import com.quickbase.datatransfer.gateway.retry.RetryPolicyRegistry;
+import com.quickbase.datatransfer.gateway.retry.RetryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class RetryPolicyRegistryTest {
+    private static final String EXTERNAL_SYSTEM_NAME = "GitHub";
+
+    private VirtualTimeScheduler virtualTimeScheduler;
+    private RetryProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private GatewayMetrics gatewayMetrics;
+
+    @Before
+    public void setUp() {
+        virtualTimeScheduler = VirtualTimeScheduler.create();
+        properties = new RetryProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        gatewayMetrics = new GatewayMetrics(meterRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        virtualTimeScheduler.dispose();
+    }
+
+    @Test
+    public void testRetry_succeedsAfterRetryableFailures() {
+        RetryPolicyRegistry retryPolicyRegistry = new RetryPolicyRegistry(properties, gatewayMetrics, virtualTimeScheduler);
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.withVirtualTime(
+                        () -> failingRequest(attempts, 2, HttpStatus.SERVICE_UNAVAILABLE, null)
+                                .retryWhen(retryPolicyRegistry.retryFor(EXTERNAL_SYSTEM_NAME)),
+                        () -> virtualTimeScheduler, 1)
+                .expectSubscription()
+                // the backoffs are randomized, but can't be shorter than the min backoff
+                .expectNoEvent(properties.getDefaultPolicy().getMinBackoff().minusMillis(1))
+                .thenAwait(properties.getDefaultPolicy().getMaxBackoff().multipliedBy(2))
+                .expectNext("done")
+                .verifyComplete();
+
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void testRetry_honorsRetryAfter() {
+        RetryPolicyRegistry retryPolicyRegistry = new RetryPolicyRegistry(properties, gatewayMetrics, virtualTimeScheduler);
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.withVirtualTime(
+                        () -> failingRequest(attempts, 1, HttpStatus.TOO_MANY_REQUESTS, Duration.ofSeconds(30))
+                                .retryWhen(retryPolicyRegistry.retryFor(EXTERNAL_SYSTEM_NAME)),
+                        () -> virtualTimeScheduler, 1)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofSeconds(29))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNext("done")
+                .verifyComplete();
+
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testRetry_doesNotWaitLongerThanMaxRetryAfter() {
+        RetryPolicyRegistry retryPolicyRegistry = new RetryPolicyRegistry(properties, gatewayMetrics, virtualTimeScheduler);
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(failingRequest(attempts, 1, HttpStatus.SERVICE_UNAVAILABLE, Duration.ofHours(1))
+                        .retryWhen(retryPolicyRegistry.retryFor(EXTERNAL_SYSTEM_NAME)))
+                .expectError(HttpRequestFailedException.class)
+                .verify();
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void testRetry_nonRetryableStatusIsNotRetried() {
+        RetryPolicyRegistry retryPolicyRegistry = new RetryPolicyRegistry(properties, gatewayMetrics, virtualTimeScheduler);
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(failingRequest(attempts, 1, HttpStatus.NOT_FOUND, null)
+                        .retryWhen(retryPolicyRegistry.retryFor(EXTERNAL_SYSTEM_NAME)))
+                .expectErrorMatches(throwable -> throwable instanceof HttpRequestFailedException ex
+                        && ex.httpStatusCode.value() == HttpStatus.NOT_FOUND.value())
+                .verify();
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void testRetry_usesPolicyOfExternalSystem() {
+        RetryProperties.Policy policy = new RetryProperties.Policy();
+        policy.setMaxRetries(1);
+        properties.getSystems().put("github", policy);
+        RetryPolicyRegistry retryPolicyRegistry = new RetryPolicyRegistry(properties, gatewayMetrics, virtualTimeScheduler);
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.withVirtualTime(
+                        () -> failingRequest(attempts, Integer.MAX_VALUE, HttpStatus.BAD_GATEWAY, null)
+                                .retryWhen(retryPolicyRegistry.retryFor(EXTERNAL_SYSTEM_NAME)),
+                        () -> virtualTimeScheduler, 1)
+                .expectSubscription()
+                .thenAwait(policy.getMaxBackoff())
+                .expectError(HttpRequestFailedException.class)
+                .verify();
+
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testRetry_stopsWhenRetryBudgetIsExhausted() {
+        properties.getBudget().setRatio(0.1);
+        properties.getBudget().setMinRetries(0);
+        RetryPolicyRegistry retryPolicyRegistry = new RetryPolicyRegistry(properties, gatewayMetrics, virtualTimeScheduler);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // a single request doesn't earn a retry
+        StepVerifier.create(failingRequest(attempts, 1, HttpStatus.SERVICE_UNAVAILABLE, null)
+                        .retryWhen(retryPolicyRegistry.retryFor(EXTERNAL_SYSTEM_NAME)))
+                .expectError(HttpRequestFailedException.class)
+                .verify();
+        assertEquals(1, attempts.get());
+
+        // ten requests earn one
+        for (int i = 0; i < 9; i++) {
+            StepVerifier.create(Mono.just("done").retryWhen(retryPolicyRegistry.retryFor(EXTERNAL_SYSTEM_NAME)))
+                    .expectNext("done")
+                    .verifyComplete();
+        }
+
+        attempts.set(0);
+        StepVerifier.withVirtualTime(
+                        () -> failingRequest(attempts, 1, HttpStatus.SERVICE_UNAVAILABLE, null)
+                                .retryWhen(retryPolicyRegistry.retryFor(EXTERNAL_SYSTEM_NAME)),
+                        () -> virtualTimeScheduler, 1)
+                .expectSubscription()
+                .thenAwait(properties.getDefaultPolicy().getMaxBackoff())
+                .expectNext("done")
+                .verifyComplete();
+        assertEquals(2, attempts.get());
+    }
+
+    // a request which fails the specified number of times before it succeeds
+    private static Mono<String> failingRequest(AtomicInteger attempts, int failures, HttpStatus status,
+                                               Duration retryAfter) {
+        return Mono.defer(() -> attempts.incrementAndGet() <= failures ?
+                Mono.error(new HttpRequestFailedException("Request failed", EXTERNAL_SYSTEM_NAME, status,
+                        status == HttpStatus.TOO_MANY_REQUESTS, retryAfter)) :
+                Mono.just("done"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.quickbase.datatransfer.gateway;
+
+import com.quickbase.datatransfer.gateway.metrics.GatewayMetrics;
+import com.quickbase.datatransfer.gateway.singleflight.SingleFlight;
+import com.quickbase.datatransfer.gateway.singleflight.SingleFlightProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SingleFlightTest {
+    private static final String SYSTEM = "GitHub";
+
+    private SingleFlightProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight singleFlight;
+
+    @Before
+    public void setUp() {
+        properties = new SingleFlightProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(properties, new GatewayMetrics(meterRegistry));
+    }
+
+    @Test
+    public void testConcurrentCallersShareCall() {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<String> response = Sinks.one();
+
+        Mono<String> first = singleFlight.execute(SYSTEM, GatewayMetrics.OPERATION_GET, "jsmith",
+                () -> response.asMono().doOnSubscribe(__ -> calls.incrementAndGet()));
+        Mono<String> second = singleFlight.execute(SYSTEM, GatewayMetrics.OPERATION_GET, "jsmith",
+                () -> response.asMono().doOnSubscribe(__ -> calls.incrementAndGet()));
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> response.tryEmitValue("John Smith"))
+                .assertNext(results -> {
+                    assertEquals("John Smith", results.getT1());
+                    assertEquals("John Smith", results.getT2());
+                })
+                .verifyComplete();
+
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.getInFlightCount());
+        assertEquals(1, meterRegistry.find(GatewayMetrics.COALESCED_METRIC)
+                .tags("system", "github", "operation", "get")
+                .counter()
+                .count(), 0);
+    }
+
+    @Test
+    public void testCompletedCallIsNotReused() {
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(singleFlight.execute(SYSTEM, GatewayMetrics.OPERATION_GET, "jsmith",
+                            () -> Mono.fromCallable(calls::incrementAndGet)))
+                    .expectNext(i + 1)
+                    .verifyComplete();
+        }
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testDifferentKeysAreNotShared() {
+        AtomicInteger calls = new AtomicInteger();
+
+        StepVerifier.create(Mono.zip(
+                        singleFlight.execute(SYSTEM, GatewayMetrics.OPERATION_GET, "jsmith",
+                                () -> Mono.fromCallable(calls::incrementAndGet)),
+                        singleFlight.execute(SYSTEM, GatewayMetrics.OPERATION_SEARCH, "jsmith",
+                                () -> Mono.fromCallable(calls::incrementAndGet))))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testCallIsCancelledWhenAllCallersCancel() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Sinks.One<String> response = Sinks.one();
+
+        Disposable first = singleFlight.execute(SYSTEM, GatewayMetrics.OPERATION_GET, "jsmith",
+                () -> response.asMono().doOnCancel(() -> cancelled.set(true))).subscribe();
+        Disposable second = singleFlight.execute(SYSTEM, GatewayMetrics.OPERATION_GET, "jsmith",
+                () -> response.asMono().doOnCancel(() -> cancelled.set(true))).subscribe();
+
+        first.dispose();
+        assertFalse(cancelled.get());
+
+        second.dispose();
+        assertTrue(cancelled.get());
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    public void testDisabled() {
+        properties.setEnabled(false);
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<String> response = Sinks.one();
+
+        StepVerifier.create(Mono.zip(
+                        singleFlight.execute(SYSTEM, GatewayMetrics.OPERATION_GET, "jsmith",
+                                () -> response.asMono().doOnSubscribe(__ -> calls.incrementAndGet())),
+                        singleFlight.execute(SYSTEM, GatewayMetrics.OPERATION_GET, "jsmith",
+                                () -> response.asMono().doOnSubscribe(__ -> calls.incrementAndGet()))))
+                .then(() -> response.tryEmitValue("John Smith"))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(2, calls.get());
+    }
+}
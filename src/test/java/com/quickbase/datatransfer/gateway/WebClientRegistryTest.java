@@ -0,0 +1,136 @@
+package com.quickbase.datatransfer.gateway;
+
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
+import com.quickbase.datatransfer.gateway.circuitbreaker.CircuitBreakerProperties;
+import com.quickbase.datatransfer.gateway.circuitbreaker.CircuitBreakerRegistry;
+import com.quickbase.datatransfer.gateway.client.HttpClientProperties;
+import com.quickbase.datatransfer.gateway.client.WebClientRegistry;
+import com.quickbase.datatransfer.gateway.hedging.HedgingProperties;
+import com.quickbase.datatransfer.gateway.hedging.RequestHedging;
+import com.quickbase.datatransfer.gateway.metrics.GatewayMetrics;
+import com.quickbase.datatransfer.gateway.ratelimit.RateLimitProperties;
+import com.quickbase.datatransfer.gateway.ratelimit.RateLimitScheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class WebClientRegistryTest {
+    @Rule
+    public WireMockClassRule mockServer = new WireMockClassRule(new WireMockConfiguration().dynamicPort());
+
+    private final HttpClientProperties properties = new HttpClientProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GatewayMetrics gatewayMetrics = new GatewayMetrics(meterRegistry);
+    private final WebClientRegistry webClientRegistry = new WebClientRegistry(
+            properties, new RateLimitScheduler(statelessRateLimitProperties()),
+            new CircuitBreakerRegistry(new CircuitBreakerProperties()),
+            gatewayMetrics, new RequestHedging(new HedgingProperties(), gatewayMetrics));
+
+    @After
+    public void tearDown() {
+        webClientRegistry.destroy();
+    }
+
+    @Test
+    public void testGetWebClient_reusesClientForSameKey() {
+        WebClient first = webClientRegistry.getWebClient("GitHub", "https://api.github.com", "token", builder -> {});
+        WebClient second = webClientRegistry.getWebClient("GitHub", "https://api.github.com", "token", builder -> {});
+
+        assertSame(first, second);
+        assertEquals(1, webClientRegistry.getWebClientCount());
+    }
+
+    @Test
+    public void testGetWebClient_separateClientsPerBaseUrlAndCredential() {
+        WebClient client = webClientRegistry.getWebClient("Freshdesk", "https://bluesky.freshdesk.com", "token", builder -> {});
+        WebClient otherDomainClient =
+                webClientRegistry.getWebClient("Freshdesk", "https://redsky.freshdesk.com", "token", builder -> {});
+        WebClient otherCredentialClient =
+                webClientRegistry.getWebClient("Freshdesk", "https://bluesky.freshdesk.com", "other-token", builder -> {});
+
+        assertNotSame(client, otherDomainClient);
+        assertNotSame(client, otherCredentialClient);
+        assertEquals(3, webClientRegistry.getWebClientCount());
+    }
+
+    @Test
+    public void testGetWebClient_appliesTransportProfileOfSystem() {
+        HttpClientProperties.TransportProfile impatientProfile = new HttpClientProperties.TransportProfile();
+        impatientProfile.setResponseTimeout(Duration.ofMillis(100));
+        properties.getProfiles().put("impatient", impatientProfile);
+        properties.getSystemProfiles().put("freshdesk", "impatient");
+
+        mockServer.stubFor(get("/contacts").willReturn(aResponse()
+                .withStatus(200)
+                .withFixedDelay(1000)
+                .withBody("[]")));
+
+        WebClient client = webClientRegistry.getWebClient("Freshdesk", mockServer.baseUrl(), "token", builder -> {});
+
+        StepVerifier.create(client.get().uri("/contacts").retrieve().bodyToMono(String.class))
+                .expectErrorMatches(ex -> ex instanceof WebClientRequestException &&
+                        ex.getCause() instanceof ReadTimeoutException)
+                .verify(Duration.ofSeconds(5));
+
+        assertNotNull(meterRegistry.find(GatewayMetrics.REQUESTS_METRIC)
+                .tags("system", "freshdesk", "profile", "impatient", "outcome", "io_error")
+                .timer());
+    }
+
+    @Test
+    public void testGetWebClient_requestsCompressedResponses() {
+        mockServer.stubFor(get("/users/jsmith").willReturn(aResponse()
+                .withStatus(200)
+                .withBody("{\"login\": \"jsmith\"}")));
+
+        WebClient client = webClientRegistry.getWebClient("GitHub", mockServer.baseUrl(), "token", builder -> {});
+
+        StepVerifier.create(client.get().uri("/users/jsmith").retrieve().bodyToMono(String.class))
+                .expectNext("{\"login\": \"jsmith\"}")
+                .verifyComplete();
+
+        mockServer.verify(getRequestedFor(urlEqualTo("/users/jsmith"))
+                .withHeader(HttpHeaders.ACCEPT_ENCODING, containing("gzip")));
+        Counter receivedBytes = meterRegistry.find(GatewayMetrics.WIRE_BYTES_METRIC)
+                .tags("system", "github", "profile", HttpClientProperties.DEFAULT_PROFILE, "direction", "received")
+                .counter();
+        assertNotNull(receivedBytes);
+        assertTrue(receivedBytes.count() > 0);
+    }
+
+    @Test
+    public void testGetWebClient_unknownTransportProfile() {
+        properties.getSystemProfiles().put("github", "missing");
+
+        assertThrows(IllegalStateException.class, () ->
+                webClientRegistry.getWebClient("GitHub", "https://api.github.com", "token", builder -> {}));
+    }
+
+    private static RateLimitProperties statelessRateLimitProperties() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setStateFile("");
+        return properties;
+    }
+}
@@ -0,0 +1,82 @@
+package com.quickbase.datatransfer.gateway.freshdesk;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ContactNameIndexTest {
+
+    @Test
+    public void testGet_multipleContactsWithSameName() {
+        ContactNameIndex index = new ContactNameIndex();
+        index.add("John Smith", 123L);
+        index.add("John Smith", 456L);
+        index.add("John Smithson", 789L);
+        // adding the same contact again is a no-op
+        index.add("John Smith", 123L);
+
+        long[] ids = index.get("John Smith");
+        Arrays.sort(ids);
+
+        assertArrayEquals(new long[]{123L, 456L}, ids);
+        assertArrayEquals(new long[]{789L}, index.get("John Smithson"));
+        assertArrayEquals(new long[0], index.get("Jane Doe"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testRemoveIds_contactRenamed() {
+        ContactNameIndex index = new ContactNameIndex();
+        index.add("John Smith", 123L);
+        index.add("Jane Doe", 456L);
+
+        index.removeIds(Set.of(123L));
+        index.add("Johnny Smith", 123L);
+
+        assertArrayEquals(new long[0], index.get("John Smith"));
+        assertArrayEquals(new long[]{123L}, index.get("Johnny Smith"));
+        assertArrayEquals(new long[]{456L}, index.get("Jane Doe"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void testAdd_growsBeyondInitialCapacity() {
+        ContactNameIndex index = new ContactNameIndex();
+
+        for (long id = 1; id <= 10_000; id++) {
+            index.add("Contact " + id, id);
+        }
+
+        assertEquals(10_000, index.size());
+        for (long id = 1; id <= 10_000; id++) {
+            assertArrayEquals(new long[]{id}, index.get("Contact " + id));
+        }
+    }
+
+    @Test
+    public void testSnapshot_roundTrip() throws IOException {
+        ContactNameIndex index = new ContactNameIndex();
+        for (long id = 1; id <= 2_000; id++) {
+            index.add("Contact " + (id % 1_000), id);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+        ContactNameIndex restoredIndex =
+                ContactNameIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(index.size(), restoredIndex.size());
+        long[] ids = restoredIndex.get("Contact 7");
+        Arrays.sort(ids);
+        assertArrayEquals(new long[]{7L, 1_007L}, ids);
+    }
+}
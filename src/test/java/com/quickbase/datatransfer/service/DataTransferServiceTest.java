@@ -2,19 +2,44 @@ package com.quickbase.datatransfer.service;
 
 import com.quickbase.datatransfer.common.DataType;
 import com.quickbase.datatransfer.data.BaseData;
+import com.quickbase.datatransfer.data.UserData;
 import com.quickbase.datatransfer.exception.UnsupportedOperationException;
+import com.quickbase.datatransfer.service.journal.TransferJournal;
+import com.quickbase.datatransfer.service.mapping.Mapping;
+import com.quickbase.datatransfer.service.mapping.MappingKey;
+import com.quickbase.datatransfer.service.mapping.MappingStore;
+import com.quickbase.datatransfer.service.metrics.TransferMetrics;
+import com.quickbase.datatransfer.service.model.BulkTransferOptions;
+import com.quickbase.datatransfer.service.model.DownloadResult;
+import com.quickbase.datatransfer.service.model.TransferDestination;
+import com.quickbase.datatransfer.service.model.TransferItem;
+import com.quickbase.datatransfer.service.model.TransferResult;
+import com.quickbase.datatransfer.service.model.UploadResult;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.atMost;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -38,6 +63,15 @@ public class DataTransferServiceTest {
     @MockBean(name = "dataUploader2")
     private DataUploader<BaseData> dataUploader2;
 
+    @MockBean
+    private MappingStore mappingStore;
+
+    @MockBean
+    private TransferMetrics transferMetrics;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private static final String sourceSystem = "source-system";
     private static final String destSystem = "dest-system";
     private static final DataType dataType = DataType.USER;
@@ -86,6 +120,54 @@ public class DataTransferServiceTest {
                 .uploadData(eq(destParams), any());
     }
 
+    @Test
+    public void testTransferData_skipsUnchangedDataAndUpdatesKnownContact() {
+        // make dataDownloader1 and dataUploader1 a suitable match
+        when(dataDownloader1.systemTypeMatches(eq(sourceSystem)))
+                .thenReturn(true);
+        when(dataDownloader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+        when(dataUploader1.systemTypeMatches(eq(destSystem)))
+                .thenReturn(true);
+        when(dataUploader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+
+        Map<String, String> changedDestParams = Map.of("key2", "changed");
+        UserData user = new UserData();
+        user.externalId = "jsmith";
+        when(dataDownloader1.downloadData(eq(sourceParams)))
+                .thenReturn(Mono.just(user));
+
+        // the user is unchanged since it was uploaded to destParams, but not since it was uploaded to changedDestParams
+        when(mappingStore.isEnabled())
+                .thenReturn(true);
+        when(mappingStore.hash(eq(user)))
+                .thenReturn("hash1");
+        when(mappingStore.get(eq(new MappingKey(sourceSystem, "jsmith", destSystem, "key2=val2"))))
+                .thenReturn(new Mapping("1", "hash1"));
+        when(mappingStore.get(eq(new MappingKey(sourceSystem, "jsmith", destSystem, "key2=changed"))))
+                .thenReturn(new Mapping("2", "old-hash"));
+        when(mappingStore.put(any(), any()))
+                .thenReturn(Mono.empty());
+        when(dataUploader1.uploadData(eq(changedDestParams), eq(user), eq("2")))
+                .thenReturn(Mono.just("2"));
+
+        StepVerifier.create(dataTransferService.transferData(sourceSystem, destSystem, dataType, sourceParams, destParams))
+                .verifyComplete();
+        StepVerifier.create(dataTransferService.transferDataToMany(sourceSystem, dataType, sourceParams,
+                        List.of(new TransferDestination(destSystem, changedDestParams))))
+                .assertNext(result -> assertEquals(TransferResult.Status.SUCCEEDED, result.status))
+                .verifyComplete();
+
+        // the known contact is updated without searching for it, and the unchanged one isn't written at all
+        verify(dataUploader1, times(0))
+                .uploadData(eq(destParams), any(), any());
+        verify(dataUploader1, times(1))
+                .uploadData(eq(changedDestParams), eq(user), eq("2"));
+        verify(mappingStore)
+                .put(eq(new MappingKey(sourceSystem, "jsmith", destSystem, "key2=changed")), any());
+    }
+
     @Test
     public void testTransferData_unsupportedExternalSystem() {
         // make both data downloaders not a suitable match for the source system type
@@ -132,4 +214,465 @@ public class DataTransferServiceTest {
                 })
                 .verify();
     }
+
+    @Test
+    public void testTransferDataInBulk_partialFailure() {
+        // make dataDownloader1 and dataUploader1 a suitable match
+        when(dataDownloader1.systemTypeMatches(eq(sourceSystem)))
+                .thenReturn(true);
+        when(dataDownloader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+        when(dataUploader1.systemTypeMatches(eq(destSystem)))
+                .thenReturn(true);
+        when(dataUploader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+
+        Map<String, String> failingSourceParams = Map.of("key1", "failing");
+
+        // the download of one of the items fails, the other two succeed
+        when(dataDownloader1.downloadData(eq(sourceParams)))
+                .thenReturn(Mono.just(new BaseData()));
+        when(dataDownloader1.downloadData(eq(failingSourceParams)))
+                .thenReturn(Mono.error(new RuntimeException("something failed")));
+        when(dataUploader1.uploadData(eq(destParams), any()))
+                .thenReturn(Mono.empty());
+
+        Flux<TransferItem> items = Flux.just(
+                new TransferItem(sourceParams, destParams),
+                new TransferItem(failingSourceParams, destParams),
+                new TransferItem(sourceParams, destParams));
+
+        StepVerifier.create(dataTransferService.transferDataInBulk(sourceSystem, destSystem, dataType, items,
+                                BulkTransferOptions.builder().concurrency(2).build())
+                        .collect(Collectors.groupingBy(result -> result.status, Collectors.counting())))
+                .assertNext(resultCounts -> {
+                    assertEquals(Long.valueOf(2), resultCounts.get(TransferResult.Status.SUCCEEDED));
+                    assertEquals(Long.valueOf(1), resultCounts.get(TransferResult.Status.FAILED));
+                })
+                .verifyComplete();
+
+        // verify the item failure didn't stop the rest of the items from being uploaded
+        verify(dataUploader1, times(2))
+                .uploadData(eq(destParams), any());
+    }
+
+    @Test
+    public void testTransferDataInBulk_downloadsInBatches() {
+        // make dataDownloader1 and dataUploader1 a suitable match
+        when(dataDownloader1.systemTypeMatches(eq(sourceSystem)))
+                .thenReturn(true);
+        when(dataDownloader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+        when(dataUploader1.systemTypeMatches(eq(destSystem)))
+                .thenReturn(true);
+        when(dataUploader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+
+        Map<String, String> failingSourceParams = Map.of("key1", "failing");
+
+        // the items are downloaded in batches of two, one item of the first batch fails
+        when(dataDownloader1.getMaxBatchSize())
+                .thenReturn(2);
+        when(dataDownloader1.downloadDataBatch(eq(List.of(sourceParams, failingSourceParams))))
+                .thenReturn(Mono.just(List.of(
+                        DownloadResult.succeeded(new BaseData()),
+                        DownloadResult.failed(new RuntimeException("something failed")))));
+        when(dataDownloader1.downloadDataBatch(eq(List.of(sourceParams))))
+                .thenReturn(Mono.just(List.of(DownloadResult.succeeded(new BaseData()))));
+        when(dataUploader1.uploadData(eq(destParams), any()))
+                .thenReturn(Mono.empty());
+
+        Flux<TransferItem> items = Flux.just(
+                new TransferItem(sourceParams, destParams),
+                new TransferItem(failingSourceParams, destParams),
+                new TransferItem(sourceParams, destParams));
+
+        StepVerifier.create(dataTransferService.transferDataInBulk(sourceSystem, destSystem, dataType, items,
+                                BulkTransferOptions.builder().concurrency(2).build())
+                        .collectMap(result -> result.itemKey + "/" + result.status, result -> result, HashMap::new))
+                .assertNext(results -> {
+                    assertEquals(2, results.size());
+                    assertTrue(results.containsKey("key1=failing/" + TransferResult.Status.FAILED));
+                    assertTrue(results.containsKey("key1=val1/" + TransferResult.Status.SUCCEEDED));
+                })
+                .verifyComplete();
+
+        verify(dataDownloader1, times(0))
+                .downloadData(any());
+        verify(dataUploader1, times(2))
+                .uploadData(eq(destParams), any());
+    }
+
+    @Test
+    public void testTransferDataInBulk_downloadConcurrencyLimitsBatchesInFlight() {
+        // make dataDownloader1 and dataUploader1 a suitable match
+        when(dataDownloader1.systemTypeMatches(eq(sourceSystem)))
+                .thenReturn(true);
+        when(dataDownloader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+        when(dataUploader1.systemTypeMatches(eq(destSystem)))
+                .thenReturn(true);
+        when(dataUploader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+
+        // the batch downloads never complete, so the ones started are the ones in flight
+        when(dataDownloader1.getMaxBatchSize())
+                .thenReturn(2);
+        when(dataDownloader1.downloadDataBatch(any()))
+                .thenReturn(Mono.never());
+
+        Flux<TransferItem> items = Flux.range(0, 20)
+                .map(i -> new TransferItem(Map.of("key1", "val" + i), destParams));
+
+        // up to 5 items at the same time take 3 batches of 2
+        StepVerifier.create(dataTransferService.transferDataInBulk(sourceSystem, destSystem, dataType, items,
+                        BulkTransferOptions.builder().downloadConcurrency(5).build()))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(200))
+                .thenCancel()
+                .verify();
+
+        verify(dataDownloader1, times(3))
+                .downloadDataBatch(any());
+    }
+
+    @Test
+    public void testTransferDataInBulk_skipsUnchangedData() {
+        // make dataDownloader1 and dataUploader1 a suitable match
+        when(dataDownloader1.systemTypeMatches(eq(sourceSystem)))
+                .thenReturn(true);
+        when(dataDownloader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+        when(dataUploader1.systemTypeMatches(eq(destSystem)))
+                .thenReturn(true);
+        when(dataUploader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+
+        Map<String, String> changedSourceParams = Map.of("key1", "changed");
+        UserData unchangedUser = new UserData();
+        unchangedUser.externalId = "jsmith";
+        UserData changedUser = new UserData();
+        changedUser.externalId = "jdoe";
+
+        when(dataDownloader1.downloadData(eq(sourceParams)))
+                .thenReturn(Mono.just(unchangedUser));
+        when(dataDownloader1.downloadData(eq(changedSourceParams)))
+                .thenReturn(Mono.just(changedUser));
+
+        // both users were uploaded before, but only one of them has changed since
+        when(mappingStore.isEnabled())
+                .thenReturn(true);
+        when(mappingStore.hash(eq(unchangedUser)))
+                .thenReturn("hash1");
+        when(mappingStore.hash(eq(changedUser)))
+                .thenReturn("hash2");
+        when(mappingStore.get(eq(new MappingKey(sourceSystem, "jsmith", destSystem, "key2=val2"))))
+                .thenReturn(new Mapping("1", "hash1"));
+        when(mappingStore.get(eq(new MappingKey(sourceSystem, "jdoe", destSystem, "key2=val2"))))
+                .thenReturn(new Mapping("2", "old-hash"));
+        when(mappingStore.put(any(), any()))
+                .thenReturn(Mono.empty());
+        when(dataUploader1.uploadData(eq(destParams), eq(changedUser), eq("2")))
+                .thenReturn(Mono.just("2"));
+
+        Flux<TransferItem> items = Flux.just(
+                new TransferItem(sourceParams, destParams),
+                new TransferItem(changedSourceParams, destParams));
+
+        StepVerifier.create(dataTransferService.transferDataInBulk(sourceSystem, destSystem, dataType, items,
+                                BulkTransferOptions.builder().concurrency(1).build()))
+                .assertNext(result -> assertEquals(TransferResult.Status.SKIPPED, result.status))
+                .assertNext(result -> assertEquals(TransferResult.Status.SUCCEEDED, result.status))
+                .verifyComplete();
+
+        verify(dataUploader1, times(0))
+                .uploadData(any(), eq(unchangedUser), any());
+        verify(mappingStore)
+                .put(eq(new MappingKey(sourceSystem, "jdoe", destSystem, "key2=val2")), any());
+    }
+
+    @Test
+    public void testTransferDataInBulk_uploadsInBatches() {
+        // make dataDownloader1 and dataUploader1 a suitable match
+        when(dataDownloader1.systemTypeMatches(eq(sourceSystem)))
+                .thenReturn(true);
+        when(dataDownloader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+        when(dataUploader1.systemTypeMatches(eq(destSystem)))
+                .thenReturn(true);
+        when(dataUploader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+
+        Map<String, String> failingSourceParams = Map.of("key1", "failing");
+        Map<String, String> rejectedSourceParams = Map.of("key1", "rejected");
+        UserData user = new UserData();
+        user.externalId = "jsmith";
+        UserData rejectedUser = new UserData();
+        rejectedUser.externalId = "jdoe";
+
+        // the download of one of the items fails, the other two are uploaded with a single batch upload
+        when(dataDownloader1.downloadData(eq(sourceParams)))
+                .thenReturn(Mono.just(user));
+        when(dataDownloader1.downloadData(eq(failingSourceParams)))
+                .thenReturn(Mono.error(new RuntimeException("something failed")));
+        when(dataDownloader1.downloadData(eq(rejectedSourceParams)))
+                .thenReturn(Mono.just(rejectedUser));
+        when(dataUploader1.getMaxBatchSize())
+                .thenReturn(3);
+        when(dataUploader1.uploadDataBatch(eq(destParams), eq(List.of(user, rejectedUser))))
+                .thenReturn(Mono.just(List.of(
+                        UploadResult.succeeded(null),
+                        UploadResult.failed(new RuntimeException("rejected")))));
+
+        Flux<TransferItem> items = Flux.just(
+                new TransferItem(sourceParams, destParams),
+                new TransferItem(failingSourceParams, destParams),
+                new TransferItem(rejectedSourceParams, destParams));
+
+        StepVerifier.create(dataTransferService.transferDataInBulk(sourceSystem, destSystem, dataType, items,
+                                BulkTransferOptions.builder().concurrency(1).build())
+                        .collectMap(result -> result.itemKey, result -> result.status))
+                .assertNext(results -> {
+                    assertEquals(3, results.size());
+                    assertEquals(TransferResult.Status.SUCCEEDED, results.get("key1=val1"));
+                    assertEquals(TransferResult.Status.FAILED, results.get("key1=failing"));
+                    assertEquals(TransferResult.Status.FAILED, results.get("key1=rejected"));
+                })
+                .verifyComplete();
+
+        verify(dataUploader1, times(0))
+                .uploadData(any(), any());
+    }
+
+    @Test
+    public void testTransferDataInBulk_downloadsRunAheadOfUploadsByBufferSize() {
+        // make dataDownloader1 and dataUploader1 a suitable match
+        when(dataDownloader1.systemTypeMatches(eq(sourceSystem)))
+                .thenReturn(true);
+        when(dataDownloader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+        when(dataUploader1.systemTypeMatches(eq(destSystem)))
+                .thenReturn(true);
+        when(dataUploader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+
+        // the upload stage is stuck on the first item
+        when(dataDownloader1.downloadData(any()))
+                .thenReturn(Mono.just(new BaseData()));
+        when(dataUploader1.uploadData(eq(destParams), any()))
+                .thenReturn(Mono.never());
+
+        Flux<TransferItem> items = Flux.range(0, 20)
+                .map(i -> new TransferItem(Map.of("key1", "val" + i), destParams));
+
+        StepVerifier.create(dataTransferService.transferDataInBulk(sourceSystem, destSystem, dataType, items,
+                        BulkTransferOptions.builder().downloadConcurrency(1).uploadConcurrency(1).bufferSize(2).build()))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(200))
+                .thenCancel()
+                .verify();
+
+        // one item is being uploaded, two are in the buffer and one is waiting for room in it
+        verify(dataDownloader1, atMost(4))
+                .downloadData(any());
+        verify(dataUploader1, times(1))
+                .uploadData(eq(destParams), any());
+    }
+
+    @Test
+    public void testTransferDataInBulk_resumesFromJournal() throws IOException {
+        // make dataDownloader1 and dataUploader1 a suitable match
+        when(dataDownloader1.systemTypeMatches(eq(sourceSystem)))
+                .thenReturn(true);
+        when(dataDownloader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+        when(dataUploader1.systemTypeMatches(eq(destSystem)))
+                .thenReturn(true);
+        when(dataUploader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+
+        Map<String, String> remainingSourceParams = Map.of("key1", "remaining");
+
+        when(dataDownloader1.downloadData(any()))
+                .thenReturn(Mono.just(new BaseData()));
+        when(dataUploader1.uploadData(eq(destParams), any()))
+                .thenReturn(Mono.empty());
+
+        // the first item was transferred before the previous run was interrupted
+        Path journalFile = new File(temporaryFolder.getRoot(), "journal.log").toPath();
+        try (TransferJournal journal = TransferJournal.create(journalFile)) {
+            journal.record(TransferResult.succeeded("key1=val1"));
+        }
+
+        Flux<TransferItem> items = Flux.just(
+                new TransferItem(sourceParams, destParams),
+                new TransferItem(remainingSourceParams, destParams));
+
+        try (TransferJournal journal = TransferJournal.resume(journalFile)) {
+            StepVerifier.create(dataTransferService.transferDataInBulk(sourceSystem, destSystem, dataType, items,
+                            BulkTransferOptions.builder().concurrency(1).journal(journal).build()))
+                    .expectNextMatches(result -> "key1=remaining".equals(result.itemKey) && result.isSuccessful())
+                    .verifyComplete();
+        }
+
+        verify(dataDownloader1, times(0))
+                .downloadData(eq(sourceParams));
+
+        try (TransferJournal journal = TransferJournal.resume(journalFile)) {
+            assertEquals(2, journal.getCompletedItemCount());
+            assertTrue(journal.isCompleted("key1=remaining"));
+        }
+    }
+
+    @Test
+    public void testTransferDataInBulk_unsupportedExternalSystem() {
+        when(dataDownloader1.systemTypeMatches(eq(sourceSystem)))
+                .thenReturn(false);
+        when(dataDownloader2.systemTypeMatches(eq(sourceSystem)))
+                .thenReturn(false);
+
+        StepVerifier.create(dataTransferService.transferDataInBulk(sourceSystem, destSystem, dataType,
+                        Flux.just(new TransferItem(sourceParams, destParams)), BulkTransferOptions.defaults()))
+                .expectErrorMatches(throwable -> throwable instanceof UnsupportedOperationException)
+                .verify();
+
+        verify(dataDownloader1, times(0))
+                .downloadData(any());
+    }
+
+    @Test
+    public void testTransferDataStream_uploadFailureDoesNotStopStream() {
+        // make dataDownloader1 and dataUploader1 a suitable match
+        when(dataDownloader1.systemTypeMatches(eq(sourceSystem)))
+                .thenReturn(true);
+        when(dataDownloader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+        when(dataUploader1.systemTypeMatches(eq(destSystem)))
+                .thenReturn(true);
+        when(dataUploader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+
+        UserData failingUser = new UserData();
+        failingUser.externalId = "failing";
+        UserData user = new UserData();
+        user.externalId = "jsmith";
+
+        when(dataDownloader1.downloadDataStream(eq(sourceParams)))
+                .thenReturn(Flux.just(failingUser, user));
+        when(dataUploader1.uploadData(eq(destParams), eq(failingUser)))
+                .thenReturn(Mono.error(new RuntimeException("something failed")));
+        when(dataUploader1.uploadData(eq(destParams), eq(user)))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(dataTransferService.transferDataStream(sourceSystem, destSystem, dataType, sourceParams,
+                                destParams, BulkTransferOptions.builder().concurrency(1).build()))
+                .assertNext(result -> {
+                    assertEquals("failing", result.itemKey);
+                    assertEquals(TransferResult.Status.FAILED, result.status);
+                })
+                .assertNext(result -> {
+                    assertEquals("jsmith", result.itemKey);
+                    assertTrue(result.isSuccessful());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void testTransferDataToMany_downloadsOnceAndIsolatesDestinations() {
+        // make dataDownloader1 and dataUploader1 a suitable match
+        when(dataDownloader1.systemTypeMatches(eq(sourceSystem)))
+                .thenReturn(true);
+        when(dataDownloader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+        when(dataUploader1.systemTypeMatches(eq(destSystem)))
+                .thenReturn(true);
+        when(dataUploader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+
+        Map<String, String> slowDestParams = Map.of("domain", "slow");
+        Map<String, String> failingDestParams = Map.of("domain", "failing");
+        Map<String, String> fastDestParams = Map.of("domain", "fast");
+
+        BaseData downloadedData = new BaseData();
+        when(dataDownloader1.downloadData(eq(sourceParams)))
+                .thenReturn(Mono.just(downloadedData));
+        when(dataUploader1.uploadData(eq(slowDestParams), eq(downloadedData)))
+                .thenReturn(Mono.delay(Duration.ofMillis(200)).then());
+        when(dataUploader1.uploadData(eq(failingDestParams), eq(downloadedData)))
+                .thenReturn(Mono.error(new RuntimeException("something failed")));
+        when(dataUploader1.uploadData(eq(fastDestParams), eq(downloadedData)))
+                .thenReturn(Mono.empty());
+
+        List<TransferDestination> destinations = List.of(
+                new TransferDestination(destSystem, slowDestParams),
+                new TransferDestination(destSystem, failingDestParams),
+                new TransferDestination(destSystem, fastDestParams));
+
+        // the slow destination doesn't hold back the others, and the failing one doesn't stop them
+        StepVerifier.create(dataTransferService.transferDataToMany(sourceSystem, dataType, sourceParams, destinations))
+                .assertNext(result -> {
+                    assertEquals("dest-system domain=failing", result.itemKey);
+                    assertEquals(TransferResult.Status.FAILED, result.status);
+                })
+                .assertNext(result -> {
+                    assertEquals("dest-system domain=fast", result.itemKey);
+                    assertEquals(TransferResult.Status.SUCCEEDED, result.status);
+                })
+                .assertNext(result -> {
+                    assertEquals("dest-system domain=slow", result.itemKey);
+                    assertEquals(TransferResult.Status.SUCCEEDED, result.status);
+                })
+                .verifyComplete();
+
+        verify(dataDownloader1, times(1))
+                .downloadData(eq(sourceParams));
+    }
+
+    @Test
+    public void testTransferDataToMany_unsupportedDestination() {
+        // make dataDownloader1 and dataUploader1 a suitable match, but only for the first destination
+        when(dataDownloader1.systemTypeMatches(eq(sourceSystem)))
+                .thenReturn(true);
+        when(dataDownloader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+        when(dataUploader1.systemTypeMatches(eq(destSystem)))
+                .thenReturn(true);
+        when(dataUploader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+
+        when(dataDownloader1.downloadData(eq(sourceParams)))
+                .thenReturn(Mono.just(new BaseData()));
+        when(dataUploader1.uploadData(eq(destParams), any()))
+                .thenReturn(Mono.empty());
+
+        List<TransferDestination> destinations = List.of(
+                new TransferDestination(destSystem, destParams),
+                new TransferDestination("other-system", destParams));
+
+        StepVerifier.create(dataTransferService.transferDataToMany(sourceSystem, dataType, sourceParams, destinations)
+                        .collectMap(result -> result.itemKey, result -> result.status))
+                .assertNext(statuses -> {
+                    assertEquals(TransferResult.Status.SUCCEEDED, statuses.get("dest-system key2=val2"));
+                    assertEquals(TransferResult.Status.FAILED, statuses.get("other-system key2=val2"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void testTransferDataToMany_downloadFailure() {
+        when(dataDownloader1.systemTypeMatches(eq(sourceSystem)))
+                .thenReturn(true);
+        when(dataDownloader1.dataTypeMatches(eq(dataType)))
+                .thenReturn(true);
+        when(dataDownloader1.downloadData(eq(sourceParams)))
+                .thenReturn(Mono.error(new RuntimeException("something failed")));
+
+        StepVerifier.create(dataTransferService.transferDataToMany(sourceSystem, dataType, sourceParams,
+                        List.of(new TransferDestination(destSystem, destParams))))
+                .expectErrorMessage("something failed")
+                .verify();
+
+        verify(dataUploader1, times(0))
+                .uploadData(any(), any());
+    }
 }
@@ -0,0 +1,88 @@
+package com.quickbase.datatransfer.service;
+
+import com.quickbase.datatransfer.data.UserData;
+import com.quickbase.datatransfer.service.mapping.Mapping;
+import com.quickbase.datatransfer.service.mapping.MappingKey;
+import com.quickbase.datatransfer.service.mapping.MappingStore;
+import com.quickbase.datatransfer.service.mapping.MappingStoreProperties;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class MappingStoreTest {
+    private static final MappingKey KEY = new MappingKey("github", "jsmith", "freshdesk", "domain=bluesky");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testMappingsSurviveRestart() throws IOException {
+        MappingStoreProperties properties = buildProperties();
+
+        MappingStore mappingStore = new MappingStore(properties);
+        mappingStore.put(KEY, new Mapping("1", "hash1")).block();
+        // a key with the field separator in it
+        MappingKey otherKey = new MappingKey("github", "j\tdoe", "freshdesk", "domain=bluesky");
+        mappingStore.put(otherKey, new Mapping("2", "hash2")).block();
+        mappingStore.put(KEY, new Mapping("1", "hash3")).block();
+        mappingStore.destroy();
+
+        MappingStore reloadedMappingStore = new MappingStore(properties);
+
+        assertEquals(2, reloadedMappingStore.size());
+        assertEquals("hash3", reloadedMappingStore.get(KEY).contentHash);
+        assertEquals("2", reloadedMappingStore.get(otherKey).destinationId);
+        reloadedMappingStore.destroy();
+    }
+
+    @Test
+    public void testPartiallyWrittenLineIsSkipped() throws IOException {
+        MappingStoreProperties properties = buildProperties();
+
+        MappingStore mappingStore = new MappingStore(properties);
+        mappingStore.put(KEY, new Mapping("1", "hash1")).block();
+        mappingStore.destroy();
+        Files.writeString(new File(properties.getFile()).toPath(), "github\tjdoe\tfresh",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        MappingStore reloadedMappingStore = new MappingStore(properties);
+
+        assertEquals(1, reloadedMappingStore.size());
+        assertNull(reloadedMappingStore.get(new MappingKey("github", "jdoe", "freshdesk", "domain=bluesky")));
+        reloadedMappingStore.destroy();
+    }
+
+    @Test
+    public void testHashChangesWithData() {
+        MappingStore mappingStore = new MappingStore(buildProperties());
+
+        UserData user = new UserData();
+        user.externalId = "jsmith";
+        user.name = "John Smith";
+        UserData sameUser = new UserData();
+        sameUser.name = "John Smith";
+        sameUser.externalId = "jsmith";
+        UserData changedUser = new UserData();
+        changedUser.externalId = "jsmith";
+        changedUser.name = "John Smith Jr.";
+
+        assertEquals(mappingStore.hash(user), mappingStore.hash(sameUser));
+        assertNotEquals(mappingStore.hash(user), mappingStore.hash(changedUser));
+    }
+
+    private MappingStoreProperties buildProperties() {
+        MappingStoreProperties properties = new MappingStoreProperties();
+        properties.setFile(new File(temporaryFolder.getRoot(), "mappings.log").getPath());
+        return properties;
+    }
+}
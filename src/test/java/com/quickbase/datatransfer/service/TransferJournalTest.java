@@ -0,0 +1,95 @@
+package com.quickbase.datatransfer.service;
+
+import com.quickbase.datatransfer.service.journal.TransferJournal;
+import com.quickbase.datatransfer.service.model.TransferResult;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class TransferJournalTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testOutcomesSurviveRestart() throws IOException {
+        Path file = new File(temporaryFolder.getRoot(), "journal.log").toPath();
+
+        try (TransferJournal journal = TransferJournal.create(file)) {
+            journal.record(TransferResult.succeeded("username=jsmith"));
+            // a key with the field and line separators in it
+            journal.record(TransferResult.skipped("username=j\tdoe\n"));
+            journal.record(TransferResult.failed("username=asmith", new RuntimeException("something failed")));
+        }
+
+        try (TransferJournal journal = TransferJournal.resume(file)) {
+            assertEquals(2, journal.getCompletedItemCount());
+            assertTrue(journal.isCompleted("username=jsmith"));
+            assertTrue(journal.isCompleted("username=j\tdoe\n"));
+            assertFalse(journal.isCompleted("username=asmith"));
+        }
+    }
+
+    @Test
+    public void testRetriedItemIsCompleted() throws IOException {
+        Path file = new File(temporaryFolder.getRoot(), "journal.log").toPath();
+
+        try (TransferJournal journal = TransferJournal.create(file)) {
+            journal.record(TransferResult.failed("username=jsmith", new RuntimeException("something failed")));
+        }
+        try (TransferJournal journal = TransferJournal.resume(file)) {
+            assertFalse(journal.isCompleted("username=jsmith"));
+            journal.record(TransferResult.succeeded("username=jsmith"));
+        }
+
+        try (TransferJournal journal = TransferJournal.resume(file)) {
+            assertTrue(journal.isCompleted("username=jsmith"));
+        }
+    }
+
+    @Test
+    public void testPartiallyWrittenLineIsSkipped() throws IOException {
+        Path file = new File(temporaryFolder.getRoot(), "journal.log").toPath();
+
+        try (TransferJournal journal = TransferJournal.create(file)) {
+            journal.record(TransferResult.succeeded("username=jsmith"));
+        }
+        Files.writeString(file, "SUCCEEDED\tusername%3Djd", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (TransferJournal journal = TransferJournal.resume(file)) {
+            assertEquals(1, journal.getCompletedItemCount());
+            journal.record(TransferResult.succeeded("username=jdoe"));
+        }
+
+        try (TransferJournal journal = TransferJournal.resume(file)) {
+            assertEquals(2, journal.getCompletedItemCount());
+            assertTrue(journal.isCompleted("username=jdoe"));
+            assertFalse(journal.isCompleted("username=jd"));
+        }
+    }
+
+    @Test
+    public void testCreateExistingJournal() throws IOException {
+        Path file = temporaryFolder.newFile("journal.log").toPath();
+
+        assertThrows(IllegalArgumentException.class, () -> TransferJournal.create(file));
+    }
+
+    @Test
+    public void testResumeMissingJournal() {
+        Path file = new File(temporaryFolder.getRoot(), "journal.log").toPath();
+
+        assertThrows(IllegalArgumentException.class, () -> TransferJournal.resume(file));
+    }
+}
@@ -0,0 +1,57 @@
+package com.quickbase.datatransfer.service.pipeline;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+public class TransferPipelineMetricsTest {
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @Test
+    public void testStallTimes() {
+        TransferPipelineMetrics metrics = new TransferPipelineMetrics(2, nanoTime::get);
+
+        // the upload stage waits 10ms for the first download
+        advanceMillis(10);
+        metrics.onDownloaded();
+        // the download stage fills the buffer and waits 30ms for the upload stage
+        advanceMillis(5);
+        metrics.onDownloaded();
+        advanceMillis(30);
+        metrics.onUploadStarted();
+
+        assertEquals(Duration.ofMillis(10), metrics.getUploadStallTime());
+        assertEquals(Duration.ofMillis(30), metrics.getDownloadStallTime());
+        assertEquals(1, metrics.getBufferDepth());
+        assertEquals(2, metrics.getMaxBufferDepth());
+
+        // the buffer is emptied, the upload stage waits again until the downloads complete
+        metrics.onUploadStarted();
+        advanceMillis(20);
+        metrics.onDownloadStageCompleted();
+        advanceMillis(100);
+
+        assertEquals(Duration.ofMillis(30), metrics.getUploadStallTime());
+        assertEquals(Duration.ofMillis(30), metrics.getDownloadStallTime());
+        assertEquals(2, metrics.getDownloaded());
+        assertEquals(2, metrics.getUploadsStarted());
+    }
+
+    @Test
+    public void testCurrentStallIsIncluded() {
+        TransferPipelineMetrics metrics = new TransferPipelineMetrics(1, nanoTime::get);
+
+        metrics.onDownloaded();
+        advanceMillis(50);
+
+        assertEquals(Duration.ofMillis(50), metrics.getDownloadStallTime());
+        assertEquals(Duration.ZERO, metrics.getUploadStallTime());
+    }
+
+    private void advanceMillis(long millis) {
+        nanoTime.addAndGet(Duration.ofMillis(millis).toNanos());
+    }
+}